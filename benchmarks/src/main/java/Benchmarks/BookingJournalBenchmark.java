@@ -0,0 +1,121 @@
+package Benchmarks;
+
+import Util.IdGenerator;
+import Storage.BookingJournal;
+import Storage.BookingRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Sustained durable bookings per second: one synced text file per booking, as checkout
+ * used to write them, against appends to the booking journal with group commit.
+ * Both variants make the booking durable before returning; run with -t to vary the
+ * number of concurrent checkouts (the default is 16).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class BookingJournalBenchmark {
+    /** Directory holding the booking files and the journal */
+    private Path directory;
+
+    /** Journal under test */
+    private BookingJournal journal;
+
+    /** Source of unique booking ids */
+    private final IdGenerator ids = new IdGenerator(0);
+
+    /** Booked rooms shared by all bookings */
+    private List<BookingRecord.Line> lines;
+
+    /**
+     * Creates an empty directory and journal
+     * @throws IOException if they cannot be created
+     */
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal-benchmark");
+        journal = new BookingJournal(directory.resolve("journal"), BookingJournal.DEFAULT_SEGMENT_SIZE);
+        LocalDate checkIn = LocalDate.now().plusDays(7);
+        lines = List.of(
+                new BookingRecord.Line("Grand Hotel", "Kyiv", "Deluxe", "Deluxe room with city view",
+                        checkIn, checkIn.plusDays(3), 450.0),
+                new BookingRecord.Line("Grand Hotel", "Kyiv", "Standard", "Standard room with queen bed",
+                        checkIn, checkIn.plusDays(3), 300.0));
+    }
+
+    /**
+     * Closes the journal and deletes all files
+     * @throws IOException if the files cannot be deleted
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Creates the next booking
+     * @return A booking with a unique id
+     */
+    private BookingRecord nextBooking() {
+        return new BookingRecord(ids.nextIdText(), LocalDate.now(),
+                "guest@example.com", "Guest", "User", lines);
+    }
+
+    /**
+     * Writes the confirmation text to its own file and syncs it
+     * @throws IOException if the file cannot be written
+     */
+    @Benchmark
+    public void textFilePerBooking() throws IOException {
+        BookingRecord booking = nextBooking();
+        Path file = directory.resolve(booking.getId() + ".txt");
+        try (FileOutputStream out = new FileOutputStream(file.toFile());
+             Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            writer.write(booking.toConfirmationText());
+            writer.flush();
+            out.getFD().sync();
+        }
+    }
+
+    /**
+     * Appends the booking to the journal
+     * @throws IOException if the booking cannot be appended
+     */
+    @Benchmark
+    public void journalAppend() throws IOException {
+        journal.append(nextBooking());
+    }
+}
@@ -0,0 +1,127 @@
+package Benchmarks;
+
+import Models.Hotel;
+import Models.Room;
+import Storage.CatalogLoader;
+import Storage.CatalogSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold-start comparison of the text catalog loader and the binary snapshot.
+ * Every measurement runs once in a fresh JVM, because loading fills the static
+ * catalog of HotelFindController.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+@State(Scope.Benchmark)
+public class CatalogLoadBenchmark {
+    /** Number of rooms in the catalog */
+    @Param({"1000000"})
+    private int roomCount;
+
+    /** Number of room types per hotel */
+    private static final int ROOMS_PER_HOTEL = 5;
+
+    /** Directory holding the generated catalog files */
+    private Path directory;
+
+    /** Generated text catalog */
+    private Path hotelsFile;
+    private Path roomsFile;
+
+    /** Generated binary snapshot */
+    private Path snapshotFile;
+
+    /**
+     * Generates the text catalog and the snapshot of the same data
+     * @throws IOException if the files cannot be written
+     */
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("catalog-benchmark");
+        hotelsFile = directory.resolve("hotels.csv");
+        roomsFile = directory.resolve("rooms.csv");
+        snapshotFile = directory.resolve("catalog.snapshot");
+
+        String[] types = {"Standard", "Deluxe", "Suite", "Family", "Executive"};
+        List<Hotel> hotels = new ArrayList<>();
+        List<Room> rooms = new ArrayList<>();
+
+        try (BufferedWriter hotelsOut = Files.newBufferedWriter(hotelsFile);
+             BufferedWriter roomsOut = Files.newBufferedWriter(roomsFile)) {
+            hotelsOut.write("id,name,phone,stars,city,description\n");
+            roomsOut.write("hotelId,type,price,available,description\n");
+
+            for (int i = 0; i < roomCount / ROOMS_PER_HOTEL; i++) {
+                String city = "City " + (i % 1000);
+                Hotel hotel = new Hotel("Hotel " + i, "+1" + i, 1 + i % 5, city, "Benchmark hotel in " + city);
+                hotels.add(hotel);
+                hotelsOut.write(i + "," + hotel.getName() + "," + hotel.getPhoneNumber() + "," + hotel.getStars()
+                        + "," + city + "," + hotel.getDescription() + "\n");
+
+                for (int j = 0; j < ROOMS_PER_HOTEL; j++) {
+                    Room room = new Room(hotel, types[j], 50 + (i + j) % 400, 1 + j, "A " + types[j] + " room");
+                    rooms.add(room);
+                    roomsOut.write(i + "," + room.getType() + "," + room.getPrice() + "," + room.getCapacity()
+                            + "," + room.getDescription() + "\n");
+                }
+            }
+        }
+
+        CatalogSnapshot.write(snapshotFile, hotels, rooms);
+    }
+
+    /**
+     * Removes the generated files
+     * @throws IOException if a file cannot be deleted
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        for (Path file : new Path[]{hotelsFile, roomsFile, snapshotFile}) {
+            Files.deleteIfExists(file);
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    /**
+     * Parses the CSV catalog with the streaming loader
+     * @return The load summary
+     * @throws IOException if the files cannot be read
+     */
+    @Benchmark
+    public CatalogLoader.LoadResult textLoader() throws IOException {
+        return new CatalogLoader().load(hotelsFile, roomsFile, null);
+    }
+
+    /**
+     * Memory-maps the binary snapshot
+     * @return The load summary
+     * @throws IOException if the snapshot cannot be read
+     */
+    @Benchmark
+    public CatalogLoader.LoadResult snapshot() throws IOException {
+        return CatalogSnapshot.load(snapshotFile, null);
+    }
+}
@@ -0,0 +1,188 @@
+package Benchmarks;
+
+import Controllers.HotelFindController;
+import Controllers.RoomBookingController;
+import Models.Booking;
+import Models.Hotel;
+import Models.Room;
+import Models.User;
+import Storage.BookingRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of the controllers on catalogs of different sizes: city and hotel lookups,
+ * taking and giving back rooms, pricing, rendering and encoding a booking, and
+ * Booking.outputBooking. Run through BenchmarkRunner to get allocation rates and
+ * bytes per operation from the GC profiler next to the timings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ControllerBenchmark {
+    /** Number of room types in the catalog */
+    @Param({"1000", "100000", "1000000"})
+    private int roomCount;
+
+    /** Number of room types per hotel */
+    private static final int ROOMS_PER_HOTEL = 5;
+
+    /** Number of distinct cities */
+    private static final int CITY_COUNT = 100;
+
+    /** Hotels of the catalog, visited round-robin */
+    private Hotel[] hotels;
+
+    /** One room per hotel, visited round-robin */
+    private Room[] rooms;
+
+    /** Controller for the lookups */
+    private HotelFindController findController;
+
+    /** Controller for the cart operations, with its own session */
+    private RoomBookingController bookingController;
+
+    /** Stay used for dated operations */
+    private LocalDate checkIn;
+    private LocalDate checkOut;
+
+    /** Booking rendered by outputBooking */
+    private Booking booking;
+
+    /** Lines of the booking record, as checkout builds them for a three-room cart */
+    private List<BookingRecord.Line> lines;
+
+    /** Position of the next hotel or room */
+    private int next;
+
+    /**
+     * Builds the catalog once per fork
+     */
+    @Setup
+    public void setUp() {
+        findController = new HotelFindController();
+        bookingController = new RoomBookingController();
+        hotels = new Hotel[roomCount / ROOMS_PER_HOTEL];
+        rooms = new Room[hotels.length];
+
+        for (int i = 0; i < hotels.length; i++) {
+            hotels[i] = new Hotel("Hotel " + i, "+1000000" + i, 1 + i % 5, "City " + (i % CITY_COUNT), "Benchmark hotel");
+            HotelFindController.addHotel(hotels[i]);
+            for (int j = 0; j < ROOMS_PER_HOTEL; j++) {
+                Room room = new Room(hotels[i], "Type " + j, 100 + j, 1000, "Benchmark room");
+                HotelFindController.addRoom(room);
+                if (j == 0) {
+                    rooms[i] = room;
+                }
+            }
+        }
+
+        checkIn = LocalDate.now().plusDays(30);
+        checkOut = checkIn.plusDays(3);
+        User user = new User("guest@example.com", "secret");
+        booking = new Booking(user, hotels[0], rooms[0], checkIn, checkOut);
+
+        lines = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Room room = rooms[i % rooms.length];
+            lines.add(new BookingRecord.Line(room.getHotel().getName(), room.getHotel().getCity(), room.getType(),
+                    room.getDescription(), checkIn, checkOut, bookingController.calculateTotalPrice(room, checkIn, checkOut)));
+        }
+    }
+
+    /**
+     * Hotels of the next city
+     * @return The hotels
+     */
+    @Benchmark
+    public List<Hotel> findHotelsByCity() {
+        return findController.findHotelsByCity("City " + (nextIndex() % CITY_COUNT));
+    }
+
+    /**
+     * Rooms of the next hotel
+     * @return The rooms
+     */
+    @Benchmark
+    public List<Room> findRoomsByHotel() {
+        return findController.findRoomsByHotel(hotels[nextIndex()]);
+    }
+
+    /**
+     * Holds the nights of a stay in the next room and gives them back
+     * @return The quantity that was in the cart
+     */
+    @Benchmark
+    public int addToCartDatedAndClear() {
+        Room room = rooms[nextIndex()];
+        bookingController.addToCart(room, checkIn, checkOut);
+        int quantity = bookingController.getCartQuantity(room);
+        bookingController.clearCart();
+        return quantity;
+    }
+
+    /**
+     * Price of a stay in the next room
+     * @return The total price
+     */
+    @Benchmark
+    public double calculateTotalPrice() {
+        return bookingController.calculateTotalPrice(rooms[nextIndex()], checkIn, checkOut);
+    }
+
+    /**
+     * Builds a booking record and its confirmation text, which checkout used to write to a file
+     * @return The confirmation text
+     */
+    @Benchmark
+    public String bookingConfirmation() {
+        BookingRecord record = new BookingRecord("BENCHMARK", checkIn, "guest@example.com", "Guest", "User", lines);
+        return record.toConfirmationText();
+    }
+
+    /**
+     * Encodes a booking record as checkout appends it to the journal
+     * @return The encoded record
+     */
+    @Benchmark
+    public byte[] bookingEncode() {
+        BookingRecord record = new BookingRecord("BENCHMARK", checkIn, "guest@example.com", "Guest", "User", lines);
+        return record.encode();
+    }
+
+    /**
+     * Renders a booking with Booking.outputBooking
+     * @return The rendered booking
+     */
+    @Benchmark
+    public String outputBooking() {
+        return booking.outputBooking(booking);
+    }
+
+    /**
+     * Picks the next hotel or room
+     * @return Its index
+     */
+    private int nextIndex() {
+        int index = next;
+        next = (next + 1) % hotels.length;
+        return index;
+    }
+}
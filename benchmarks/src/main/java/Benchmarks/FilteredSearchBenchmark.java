@@ -0,0 +1,148 @@
+package Benchmarks;
+
+import Models.Hotel;
+import Models.Room;
+import Services.Catalog;
+import Services.RoomFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtered room search: the per-city index (price-sorted array intersected with star
+ * and type bitsets) against scanning every room of every hotel in the city, for a
+ * selective filter (under $150 in 4-star-and-up hotels, one room type) and a broad
+ * one (price range only).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FilteredSearchBenchmark {
+    /** Number of room types in the catalog */
+    @Param({"100000", "1000000"})
+    private int roomCount;
+
+    /** Number of room types per hotel */
+    private static final int ROOMS_PER_HOTEL = 5;
+
+    /** Number of distinct cities */
+    private static final int CITY_COUNT = 20;
+
+    /** Room type names */
+    private static final String[] TYPES = {"Standard", "Deluxe", "Suite", "Family", "Single"};
+
+    /** Filter matching few rooms */
+    private static final RoomFilter SELECTIVE = new RoomFilter(0, 150, 4, 5, "Deluxe", 1);
+
+    /** Filter matching about a third of the rooms */
+    private static final RoomFilter BROAD = new RoomFilter(100, 250, 0, Integer.MAX_VALUE, null, 1);
+
+    /** Stay used for the searches */
+    private LocalDate checkIn;
+    private LocalDate checkOut;
+
+    /** Position of the next city */
+    private int next;
+
+    /**
+     * Builds the catalog once per fork, with random prices, stars and types
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < roomCount / ROOMS_PER_HOTEL; i++) {
+            Hotel hotel = new Hotel("Hotel " + i, "+1000000" + i, 1 + random.nextInt(5), "City " + (i % CITY_COUNT), "Benchmark hotel");
+            Catalog.addHotel(hotel);
+            for (int j = 0; j < ROOMS_PER_HOTEL; j++) {
+                Catalog.addRoom(new Room(hotel, TYPES[random.nextInt(TYPES.length)], 50 + random.nextInt(451), 10, "Benchmark room"));
+            }
+        }
+        checkIn = LocalDate.now().plusDays(30);
+        checkOut = checkIn.plusDays(3);
+
+        // Build the indexes outside the measurement
+        for (int i = 0; i < CITY_COUNT; i++) {
+            Catalog.filterRooms("City " + i, RoomFilter.ANY, checkIn, checkOut);
+        }
+    }
+
+    /**
+     * Selective filter answered from the index
+     * @return The matching rooms
+     */
+    @Benchmark
+    public List<Room> selectiveIndexed() {
+        return Catalog.filterRooms(nextCity(), SELECTIVE, checkIn, checkOut);
+    }
+
+    /**
+     * Selective filter answered by scanning the city
+     * @return The matching rooms
+     */
+    @Benchmark
+    public List<Room> selectiveScan() {
+        return scan(nextCity(), SELECTIVE);
+    }
+
+    /**
+     * Broad filter answered from the index
+     * @return The matching rooms
+     */
+    @Benchmark
+    public List<Room> broadIndexed() {
+        return Catalog.filterRooms(nextCity(), BROAD, checkIn, checkOut);
+    }
+
+    /**
+     * Broad filter answered by scanning the city
+     * @return The matching rooms
+     */
+    @Benchmark
+    public List<Room> broadScan() {
+        return scan(nextCity(), BROAD);
+    }
+
+    /**
+     * Checks every room of every hotel in a city, as the search did before the index
+     * @param city The city
+     * @param filter The criteria
+     * @return The matching rooms
+     */
+    private List<Room> scan(String city, RoomFilter filter) {
+        List<Room> found = new ArrayList<>();
+        for (Hotel hotel : Catalog.findHotelsByCity(city)) {
+            for (Room room : Catalog.findRoomsByHotel(hotel)) {
+                if (filter.matches(room, checkIn, checkOut)) {
+                    found.add(room);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Gets the next city, round-robin
+     * @return The city name
+     */
+    private String nextCity() {
+        next = (next + 1) % CITY_COUNT;
+        return "City " + next;
+    }
+}
@@ -0,0 +1,146 @@
+package Benchmarks;
+
+import Models.Hotel;
+import Server.BookingServer;
+import Services.BookingService;
+import Services.Catalog;
+import Storage.CatalogBootstrap;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures search throughput of the booking server on localhost.
+ *
+ * Starts the server in this process on a free port, then keeps a number of keep-alive
+ * connections busy with GET /api/search requests for random cities and prints the
+ * searches per second. The client is deliberately minimal (one request in flight per
+ * connection, plain sockets) so that most of the time is spent in the server; on a
+ * machine with few cores the client still takes a large share of the CPU.
+ *
+ * Configured with system properties (defaults in brackets): load.connections [32],
+ * load.seconds [10], load.warmupSeconds [3].
+ *
+ * Run with: java -cp benchmarks/target/benchmarks.jar Benchmarks.HttpSearchLoad
+ */
+public class HttpSearchLoad {
+    /** Number of concurrent keep-alive connections */
+    private static final int CONNECTIONS = Integer.getInteger("load.connections", 32);
+
+    /** Length of the measurement in seconds */
+    private static final int SECONDS = Integer.getInteger("load.seconds", 10);
+
+    /** Length of the warm-up in seconds */
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmupSeconds", 3);
+
+    /**
+     * Runs the measurement
+     * @param args Not used
+     * @throws Exception if the server cannot be started
+     */
+    public static void main(String[] args) throws Exception {
+        CatalogBootstrap.load((done, total, rows) -> { });
+        BookingServer server = new BookingServer(new InetSocketAddress("127.0.0.1", 0), BookingService.getInstance());
+        server.start();
+
+        // One request line per city, for a stay a week from now
+        LocalDate checkIn = LocalDate.now().plusDays(7);
+        List<String> cities = Catalog.getAllHotels().stream().map(Hotel::getCity).distinct().toList();
+        byte[][] requests = new byte[cities.size()][];
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = ("GET /api/search?city=" + URLEncoder.encode(cities.get(i), StandardCharsets.UTF_8)
+                    + "&checkIn=" + checkIn + "&checkOut=" + checkIn.plusDays(2)
+                    + " HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        }
+
+        System.out.println("Warming up for " + WARMUP_SECONDS + " s with " + CONNECTIONS + " connections...");
+        run(server.getPort(), requests, WARMUP_SECONDS);
+        long searches = run(server.getPort(), requests, SECONDS);
+        System.out.println(String.format(Locale.ROOT, "%d searches in %d s: %.0f searches/s on %d cores",
+                searches, SECONDS, (double) searches / SECONDS, Runtime.getRuntime().availableProcessors()));
+
+        server.stop(0);
+        System.exit(0);
+    }
+
+    /**
+     * Keeps every connection busy for a while
+     * @param port The server port
+     * @param requests The requests to pick from
+     * @param seconds How long to run
+     * @return The number of successful searches
+     */
+    private static long run(int port, byte[][] requests, int seconds) {
+        AtomicLong searches = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CONNECTIONS; i++) {
+                executor.submit(() -> {
+                    try (Socket socket = new Socket("127.0.0.1", port)) {
+                        socket.setTcpNoDelay(true);
+                        InputStream in = new BufferedInputStream(socket.getInputStream());
+                        OutputStream out = socket.getOutputStream();
+                        while (System.nanoTime() < deadline) {
+                            out.write(requests[ThreadLocalRandom.current().nextInt(requests.length)]);
+                            out.flush();
+                            if (readResponse(in) == 200) {
+                                searches.incrementAndGet();
+                            }
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+        return searches.get();
+    }
+
+    /**
+     * Reads one response with a Content-Length body
+     * @param in The connection input
+     * @return The status code
+     * @throws IOException if the connection fails or closes
+     */
+    private static int readResponse(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder(64);
+        int status = -1;
+        int length = 0;
+        while (true) {
+            line.setLength(0);
+            int c;
+            while ((c = in.read()) != '\n') {
+                if (c < 0) {
+                    throw new IOException("Connection closed");
+                }
+                if (c != '\r') {
+                    line.append((char) c);
+                }
+            }
+            if (line.isEmpty()) {
+                break;
+            }
+            String header = line.toString();
+            if (status < 0) {
+                status = Integer.parseInt(header.substring(9, 12));
+            } else if (header.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                length = Integer.parseInt(header.substring(15).trim());
+            }
+        }
+        in.readNBytes(length);
+        return status;
+    }
+}
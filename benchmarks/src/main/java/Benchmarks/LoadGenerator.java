@@ -0,0 +1,381 @@
+package Benchmarks;
+
+import Controllers.CartController;
+import Controllers.HotelFindController;
+import Controllers.RoomBookingController;
+import Metrics.BookingMetrics;
+import Metrics.LatencyHistogram;
+import Models.Hotel;
+import Models.Reservation;
+import Models.Room;
+import Models.User;
+import Storage.BookingWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless load generator for the search-and-book flow.
+ *
+ * Every simulated user runs on its own virtual thread with its own session and repeats:
+ * search a city for a stay, view the rooms of one of the hotels found, add a free room
+ * to the cart, then either check out (journal the booking and confirm the cart) or
+ * abandon the cart. Users pause for a random think time between steps. Cities are
+ * picked with a Zipf distribution, so a few are hot; stays start 1 to maxLeadDays ahead
+ * and last 1 to maxStayNights nights.
+ *
+ * At the end it prints throughput and p50/p99/p99.9 latencies per step, then checks
+ * every room night against the confirmed bookings: a night sold more often than its
+ * capacity, or whose availability does not match the bookings, is a violation and
+ * makes the run exit with status 1.
+ *
+ * Configured with system properties (defaults in brackets): load.users [200],
+ * load.seconds [30], load.thinkMillis [50, mean of an exponential distribution],
+ * load.cities [50], load.hotelsPerCity [20], load.roomsPerHotel [4], load.unitsPerRoom [3],
+ * load.cityZipf [1.0], load.maxLeadDays [60], load.maxStayNights [7], load.checkoutRate [0.5].
+ *
+ * Run with: java -cp benchmarks/target/benchmarks.jar Benchmarks.LoadGenerator
+ */
+public class LoadGenerator {
+    /** Number of simulated users */
+    private static final int USERS = Integer.getInteger("load.users", 200);
+
+    /** Length of the run in seconds */
+    private static final int SECONDS = Integer.getInteger("load.seconds", 30);
+
+    /** Mean think time between steps in milliseconds */
+    private static final int THINK_MILLIS = Integer.getInteger("load.thinkMillis", 50);
+
+    /** Catalog shape */
+    private static final int CITIES = Integer.getInteger("load.cities", 50);
+    private static final int HOTELS_PER_CITY = Integer.getInteger("load.hotelsPerCity", 20);
+    private static final int ROOMS_PER_HOTEL = Integer.getInteger("load.roomsPerHotel", 4);
+    private static final int UNITS_PER_ROOM = Integer.getInteger("load.unitsPerRoom", 3);
+
+    /** Zipf exponent of the city popularity; 0 picks cities uniformly */
+    private static final double CITY_ZIPF = Double.parseDouble(System.getProperty("load.cityZipf", "1.0"));
+
+    /** Stay distribution */
+    private static final int MAX_LEAD_DAYS = Integer.getInteger("load.maxLeadDays", 60);
+    private static final int MAX_STAY_NIGHTS = Integer.getInteger("load.maxStayNights", 7);
+
+    /** Share of carts that are checked out rather than abandoned */
+    private static final double CHECKOUT_RATE = Double.parseDouble(System.getProperty("load.checkoutRate", "0.5"));
+
+    /** Latencies per step */
+    private final LatencyHistogram searchLatency = new LatencyHistogram();
+    private final LatencyHistogram roomsLatency = new LatencyHistogram();
+    private final LatencyHistogram addLatency = new LatencyHistogram();
+    private final LatencyHistogram checkoutLatency = new LatencyHistogram();
+
+    /** Outcome counters */
+    private final AtomicLong emptySearches = new AtomicLong();
+    private final AtomicLong lostRaces = new AtomicLong();
+    private final AtomicLong bookings = new AtomicLong();
+    private final AtomicLong failedBookings = new AtomicLong();
+    private final AtomicLong abandoned = new AtomicLong();
+
+    /** Confirmed units per room and night, indexed by days after today */
+    private final Map<Room, AtomicIntegerArray> confirmed = new ConcurrentHashMap<>();
+
+    /** Cities by name */
+    private final String[] cities = new String[CITIES];
+
+    /** Cumulative Zipf weights of the cities */
+    private final double[] cityWeights = new double[CITIES];
+
+    /** All rooms of the catalog */
+    private final List<Room> rooms = new ArrayList<>();
+
+    /** First night that can be booked */
+    private final LocalDate today = LocalDate.now();
+
+    /** Search controller shared by all users, as the UI shares it */
+    private final HotelFindController findController = new HotelFindController();
+
+    /**
+     * Runs the load and exits with status 1 if a violation was found
+     * @param args Command line arguments (not used)
+     * @throws Exception if the run cannot be set up
+     */
+    public static void main(String[] args) throws Exception {
+        // Keep the journal of this run away from real bookings
+        if (System.getProperty("booking.journal.dir") == null) {
+            System.setProperty("booking.journal.dir", Files.createTempDirectory("load-journal").toString());
+        }
+
+        LoadGenerator generator = new LoadGenerator();
+        generator.buildCatalog();
+        long elapsedNanos = generator.run();
+        int violations = generator.verify();
+        generator.report(elapsedNanos, violations);
+        System.exit(violations == 0 ? 0 : 1);
+    }
+
+    /**
+     * Creates the hotels and rooms of the catalog and the city distribution
+     */
+    private void buildCatalog() {
+        double weight = 0;
+        for (int c = 0; c < CITIES; c++) {
+            cities[c] = "Load City " + c;
+            weight += 1 / Math.pow(c + 1, CITY_ZIPF);
+            cityWeights[c] = weight;
+
+            for (int h = 0; h < HOTELS_PER_CITY; h++) {
+                Hotel hotel = new Hotel("Load Hotel " + c + "-" + h, "+1555" + c + h, 1 + h % 5, cities[c], "Load test hotel");
+                HotelFindController.addHotel(hotel);
+                for (int r = 0; r < ROOMS_PER_HOTEL; r++) {
+                    Room room = new Room(hotel, "Type " + r, 80 + 20 * r, UNITS_PER_ROOM, "Load test room");
+                    HotelFindController.addRoom(room);
+                    rooms.add(room);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs all simulated users until the time is up
+     * @return The length of the run in nanoseconds
+     * @throws Exception if the booking writer cannot be started
+     */
+    private long run() throws Exception {
+        BookingWriter.getInstance();
+        System.out.printf(Locale.ROOT, "Running %d users for %d s against %d rooms in %d cities%n",
+                USERS, SECONDS, rooms.size(), CITIES);
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(SECONDS);
+        List<Thread> threads = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            User user = new User("load" + i + "@example.com", "secret");
+            user.setRealName("Load");
+            user.setSurname("User " + i);
+            threads.add(Thread.ofVirtual().name("load-user-" + i).start(() -> simulate(user, deadline)));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Runs the flow of one user until the deadline
+     * @param user The simulated user
+     * @param deadline End of the run, as System.nanoTime
+     */
+    private void simulate(User user, long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        RoomBookingController bookingController = new RoomBookingController();
+        try {
+            while (System.nanoTime() < deadline) {
+                String city = pickCity(random);
+                LocalDate checkIn = today.plusDays(random.nextInt(1, MAX_LEAD_DAYS + 1));
+                LocalDate checkOut = checkIn.plusDays(random.nextInt(1, MAX_STAY_NIGHTS + 1));
+
+                // Search
+                long started = System.nanoTime();
+                List<Hotel> hotels = findController.searchHotels(city, checkIn, checkOut);
+                searchLatency.record(System.nanoTime() - started);
+                if (hotels.isEmpty()) {
+                    emptySearches.incrementAndGet();
+                    continue;
+                }
+                think(random);
+
+                // View the rooms of one hotel
+                Hotel hotel = hotels.get(random.nextInt(hotels.size()));
+                started = System.nanoTime();
+                List<Room> hotelRooms = findController.findRoomsByHotel(hotel);
+                List<Room> free = new ArrayList<>();
+                for (Room room : hotelRooms) {
+                    if (room.getAvailable(checkIn, checkOut) > 0) {
+                        free.add(room);
+                    }
+                }
+                roomsLatency.record(System.nanoTime() - started);
+                if (free.isEmpty()) {
+                    lostRaces.incrementAndGet();
+                    continue;
+                }
+                think(random);
+
+                // Add to cart; another user may have taken the last unit since the rooms were shown
+                Room room = free.get(random.nextInt(free.size()));
+                started = System.nanoTime();
+                boolean added = bookingController.addToCart(room, checkIn, checkOut);
+                addLatency.record(System.nanoTime() - started);
+                if (!added) {
+                    lostRaces.incrementAndGet();
+                    continue;
+                }
+                think(random);
+
+                // Check out or walk away
+                if (random.nextDouble() < CHECKOUT_RATE) {
+                    checkout(bookingController, user);
+                } else {
+                    bookingController.clearCart();
+                    abandoned.incrementAndGet();
+                }
+                think(random);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            bookingController.endSession();
+        }
+    }
+
+    /**
+     * Books the cart, as the payment dialog does
+     * @param bookingController The user's cart
+     * @param user The simulated user
+     * @throws InterruptedException if interrupted while waiting for the journal
+     */
+    private void checkout(RoomBookingController bookingController, User user) throws InterruptedException {
+        CartController cartController = new CartController(bookingController, user);
+        // Checkout empties the cart, so remember what is being booked
+        List<Reservation> booked = bookingController.getReservations();
+        long started = System.nanoTime();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                cartController.recordBooking().get(10, TimeUnit.SECONDS);
+                break;
+            } catch (ExecutionException e) {
+                // A full queue is back-pressure: wait a little and retry, like a user pressing OK again
+                if (e.getCause() instanceof RejectedExecutionException && attempt < 10) {
+                    Thread.sleep(10L << Math.min(attempt, 5));
+                    continue;
+                }
+                failedBookings.incrementAndGet();
+                bookingController.clearCart();
+                return;
+            } catch (TimeoutException e) {
+                failedBookings.incrementAndGet();
+                bookingController.clearCart();
+                return;
+            }
+        }
+
+        // Record what was sold, night by night
+        for (Reservation reservation : booked) {
+            AtomicIntegerArray nights = confirmed.computeIfAbsent(reservation.getRoom(),
+                    room -> new AtomicIntegerArray(MAX_LEAD_DAYS + MAX_STAY_NIGHTS + 1));
+            int first = (int) (reservation.getCheckIn().toEpochDay() - today.toEpochDay());
+            int last = (int) (reservation.getCheckOut().toEpochDay() - today.toEpochDay());
+            for (int night = first; night < last; night++) {
+                nights.incrementAndGet(night);
+            }
+        }
+        checkoutLatency.record(System.nanoTime() - started);
+        bookings.incrementAndGet();
+    }
+
+    /**
+     * Picks a city according to the Zipf distribution
+     * @param random The random source
+     * @return The city name
+     */
+    private String pickCity(ThreadLocalRandom random) {
+        double target = random.nextDouble(cityWeights[CITIES - 1]);
+        int low = 0;
+        int high = CITIES - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cityWeights[middle] <= target) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return cities[low];
+    }
+
+    /**
+     * Pauses for a random think time
+     * @param random The random source
+     * @throws InterruptedException if interrupted while pausing
+     */
+    private void think(ThreadLocalRandom random) throws InterruptedException {
+        if (THINK_MILLIS > 0) {
+            long nanos = (long) (-Math.log(1 - random.nextDouble()) * THINK_MILLIS * 1_000_000);
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        }
+    }
+
+    /**
+     * Checks every room night against the confirmed bookings, once all carts are gone
+     * @return The number of violations
+     */
+    private int verify() {
+        int violations = 0;
+        for (Room room : rooms) {
+            AtomicIntegerArray nights = confirmed.get(room);
+            int capacity = room.getInventory().getCapacity();
+            for (int night = 0; night <= MAX_LEAD_DAYS + MAX_STAY_NIGHTS; night++) {
+                LocalDate date = today.plusDays(night);
+                int sold = nights == null ? 0 : nights.get(night);
+                int available = room.getAvailable(date, date.plusDays(1));
+                if (sold > capacity || available < 0 || available != capacity - sold) {
+                    if (violations < 10) {
+                        System.err.printf(Locale.ROOT, "Violation: %s %s on %s: capacity %d, booked %d, available %d%n",
+                                room.getHotel().getName(), room.getType(), date, capacity, sold, available);
+                    }
+                    violations++;
+                }
+            }
+        }
+        return violations;
+    }
+
+    /**
+     * Prints throughput, latency percentiles and the verification result
+     * @param elapsedNanos Length of the run
+     * @param violations Number of violations found
+     * @throws IOException if the booking writer cannot be reached
+     */
+    private void report(long elapsedNanos, int violations) throws IOException {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf(Locale.ROOT, "%-10s %10s %10s %10s %10s %10s %10s%n",
+                "step", "count", "ops/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        printRow("search", searchLatency, seconds);
+        printRow("rooms", roomsLatency, seconds);
+        printRow("addToCart", addLatency, seconds);
+        printRow("checkout", checkoutLatency, seconds);
+
+        BookingWriter writer = BookingWriter.getInstance();
+        System.out.printf(Locale.ROOT, "bookings %d (%.1f/s), failed %d, abandoned %d, lost races %d, empty searches %d%n",
+                bookings.get(), bookings.get() / seconds, failedBookings.get(), abandoned.get(), lostRaces.get(), emptySearches.get());
+        System.out.printf(Locale.ROOT, "journal: %d written in %d batches, %d rejected, mean latency %.2f ms%n",
+                writer.getWrittenCount(), writer.getBatchCount(), writer.getRejectedCount(), writer.getAverageLatencyMillis());
+        System.out.print(BookingMetrics.getInstance().toText());
+        System.out.println(violations == 0 ? "OK: no oversold or leaked room nights" : "FAILED: " + violations + " violations");
+    }
+
+    /**
+     * Prints the statistics of one step
+     * @param step Name of the step
+     * @param histogram Latencies of the step
+     * @param seconds Length of the run in seconds
+     */
+    private static void printRow(String step, LatencyHistogram histogram, double seconds) {
+        System.out.printf(Locale.ROOT, "%-10s %10d %10.1f %10.3f %10.3f %10.3f %10.3f%n",
+                step, histogram.getCount(), histogram.getCount() / seconds,
+                histogram.getP50Millis(), histogram.getP99Millis(),
+                histogram.getP999Millis(), histogram.getMaxMillis());
+    }
+}
@@ -0,0 +1,125 @@
+package Benchmarks;
+
+import Models.Hotel;
+import Models.Room;
+import Services.PricingEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stay quotes from the rate calendar: the O(1) prefix-sum quote against adding up the
+ * nightly rates of the stay one night at a time. The calendar has weekend rates, two
+ * overlapping seasons, two length-of-stay discounts and overrides on one room in ten.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PricingBenchmark {
+    /** Longest stay quoted, in nights */
+    @Param({"7", "28"})
+    private int maxNights;
+
+    /** Number of rooms quoted */
+    private static final int ROOM_COUNT = 10_000;
+
+    /** Number of precomputed stays; a power of two */
+    private static final int STAY_COUNT = 1 << 16;
+
+    /** The engine under test */
+    private PricingEngine engine;
+
+    /** The rooms quoted */
+    private Room[] rooms;
+
+    /** Precomputed stays */
+    private LocalDate[] checkIns;
+    private LocalDate[] checkOuts;
+
+    /** Position of the next stay */
+    private int next;
+
+    /**
+     * Builds the rooms, the rate rules and the stays once per fork
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDate today = LocalDate.now();
+        engine = new PricingEngine();
+        engine.setWeekdayMultiplier(DayOfWeek.FRIDAY, 1.25);
+        engine.setWeekdayMultiplier(DayOfWeek.SATURDAY, 1.3);
+        engine.addSeason(new PricingEngine.Season(today.plusDays(60), today.plusDays(150), 1.4));
+        engine.addSeason(new PricingEngine.Season(today.plusDays(300), today.plusDays(330), 0.8));
+        engine.setStayDiscount(7, 10);
+        engine.setStayDiscount(14, 15);
+
+        rooms = new Room[ROOM_COUNT];
+        Hotel hotel = new Hotel("Hotel", "+10000000", 4, "City", "Benchmark hotel");
+        for (int i = 0; i < ROOM_COUNT; i++) {
+            rooms[i] = new Room(hotel, "Type " + (i % 5), 50 + random.nextInt(451), 10, "Benchmark room");
+            if (i % 10 == 0) {
+                for (int j = 0; j < 20; j++) {
+                    engine.setNightlyRate(rooms[i], today.plusDays(random.nextInt(700)), 50 + random.nextInt(451));
+                }
+            }
+        }
+
+        checkIns = new LocalDate[STAY_COUNT];
+        checkOuts = new LocalDate[STAY_COUNT];
+        for (int i = 0; i < STAY_COUNT; i++) {
+            checkIns[i] = today.plusDays(random.nextInt(700));
+            checkOuts[i] = checkIns[i].plusDays(1 + random.nextInt(maxNights));
+        }
+    }
+
+    /**
+     * One stay quoted from the prefix sums
+     * @return The total price
+     */
+    @Benchmark
+    public double prefixSumQuote() {
+        int stay = nextStay();
+        return engine.quote(rooms[stay % ROOM_COUNT], checkIns[stay], checkOuts[stay]);
+    }
+
+    /**
+     * One stay quoted by adding up its nights
+     * @return The total price, before the stay discount
+     */
+    @Benchmark
+    public double perNightSum() {
+        int stay = nextStay();
+        Room room = rooms[stay % ROOM_COUNT];
+        double total = 0;
+        for (LocalDate night = checkIns[stay]; night.isBefore(checkOuts[stay]); night = night.plusDays(1)) {
+            total += engine.nightlyRate(room, night);
+        }
+        return total;
+    }
+
+    /**
+     * Gets the next precomputed stay, round-robin
+     * @return The index of the stay
+     */
+    private int nextStay() {
+        next = (next + 1) & (STAY_COUNT - 1);
+        return next;
+    }
+}
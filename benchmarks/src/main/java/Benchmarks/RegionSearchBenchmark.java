@@ -0,0 +1,105 @@
+package Benchmarks;
+
+import Models.Hotel;
+import Models.Room;
+import Services.Catalog;
+import Services.RegionSearch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Region search over eight cities of uneven size (one holds half the hotels): the fork/join
+ * search against checking the cities one after the other on the calling thread. The gain
+ * grows with the number of cores; on a single core both do the same work.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegionSearchBenchmark {
+    /** Number of hotels in the region */
+    @Param({"20000"})
+    private int hotelCount;
+
+    /** Number of room types per hotel */
+    private static final int ROOMS_PER_HOTEL = 5;
+
+    /** The cities of the region */
+    private static final List<String> CITIES = List.of("Miami", "Orlando", "Tampa", "Jacksonville",
+            "Tallahassee", "Naples", "Key West", "Pensacola");
+
+    /** Stay used for the searches */
+    private LocalDate checkIn;
+    private LocalDate checkOut;
+
+    /**
+     * Builds the region once per fork; the first city gets half of the hotels
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < hotelCount; i++) {
+            String city = i % 2 == 0 ? CITIES.get(0) : CITIES.get(1 + random.nextInt(CITIES.size() - 1));
+            Hotel hotel = new Hotel("Hotel " + i, "+1000000" + i, 1 + random.nextInt(5), city, "Benchmark hotel");
+            Catalog.addHotel(hotel);
+            for (int j = 0; j < ROOMS_PER_HOTEL; j++) {
+                Catalog.addRoom(new Room(hotel, "Type " + j, 50 + random.nextInt(451), random.nextInt(3), "Benchmark room"));
+            }
+        }
+        checkIn = LocalDate.now().plusDays(30);
+        checkOut = checkIn.plusDays(3);
+    }
+
+    /**
+     * The region searched with fork/join
+     * @return The hotels found, cheapest first
+     */
+    @Benchmark
+    public List<RegionSearch.HotelOffer> forkJoin() {
+        return RegionSearch.getInstance().search(CITIES, checkIn, checkOut, 60_000).hotels();
+    }
+
+    /**
+     * The region searched one city after the other on the calling thread
+     * @return The hotels found, cheapest first
+     */
+    @Benchmark
+    public List<RegionSearch.HotelOffer> sequential() {
+        List<RegionSearch.HotelOffer> found = new ArrayList<>();
+        for (String city : CITIES) {
+            for (Hotel hotel : Catalog.findHotelsByCity(city)) {
+                int cheapest = Integer.MAX_VALUE;
+                for (Room room : Catalog.findRoomsByHotel(hotel)) {
+                    if (room.getPrice() < cheapest && room.getAvailable(checkIn, checkOut) > 0) {
+                        cheapest = room.getPrice();
+                    }
+                }
+                if (cheapest != Integer.MAX_VALUE) {
+                    found.add(new RegionSearch.HotelOffer(hotel, cheapest));
+                }
+            }
+        }
+        found.sort(Comparator.comparingInt(RegionSearch.HotelOffer::fromPrice)
+                .thenComparing(offer -> offer.hotel().getStars(), Comparator.reverseOrder())
+                .thenComparingInt(offer -> offer.hotel().getId()));
+        return found;
+    }
+}
@@ -0,0 +1,103 @@
+package Benchmarks;
+
+import Controllers.HotelFindController;
+import Models.Hotel;
+import Models.Room;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the old linear scan over all rooms with the per-hotel room index
+ * used by HotelFindController.findRoomsByHotel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoomLookupBenchmark {
+    /** Number of room types in the catalog */
+    @Param({"1000", "100000", "1000000"})
+    private int roomCount;
+
+    /** Number of room types per hotel */
+    private static final int ROOMS_PER_HOTEL = 5;
+
+    /** Flat list of rooms, as the controller stored them before the index */
+    private List<Room> allRooms;
+
+    /** Hotels to look up, visited round-robin */
+    private Hotel[] hotels;
+
+    /** Controller whose index is being measured */
+    private HotelFindController controller;
+
+    /** Position of the next hotel to look up */
+    private int next;
+
+    /**
+     * Builds the catalog once per fork
+     */
+    @Setup
+    public void setUp() {
+        controller = new HotelFindController();
+        allRooms = new ArrayList<>(roomCount);
+        hotels = new Hotel[roomCount / ROOMS_PER_HOTEL];
+
+        for (int i = 0; i < hotels.length; i++) {
+            hotels[i] = new Hotel("Hotel " + i, "+1000000" + i, 1 + i % 5, "City " + (i % 100), "Benchmark hotel");
+            HotelFindController.addHotel(hotels[i]);
+            for (int j = 0; j < ROOMS_PER_HOTEL; j++) {
+                Room room = new Room(hotels[i], "Type " + j, 100 + j, 5, "Benchmark room");
+                allRooms.add(room);
+                HotelFindController.addRoom(room);
+            }
+        }
+    }
+
+    /**
+     * The lookup as it was done before the index: filter every room
+     * @return Rooms of the next hotel
+     */
+    @Benchmark
+    public List<Room> scan() {
+        Hotel hotel = nextHotel();
+        return allRooms.stream()
+                .filter(room -> room.getHotel().equals(hotel))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The lookup through the per-hotel index
+     * @return Rooms of the next hotel
+     */
+    @Benchmark
+    public List<Room> index() {
+        return controller.findRoomsByHotel(nextHotel());
+    }
+
+    /**
+     * Picks the next hotel to look up
+     * @return The hotel
+     */
+    private Hotel nextHotel() {
+        Hotel hotel = hotels[next];
+        next = (next + 1) % hotels.length;
+        return hotel;
+    }
+}
@@ -0,0 +1,195 @@
+package Benchmarks;
+
+import Models.Hotel;
+import Models.Room;
+import Models.RoomInventory;
+import Models.RoomStore;
+import Services.Catalog;
+import Services.RoomFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.ref.Reference;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Full-catalog scans over price and stars: the room store columns against a List of
+ * rooms laid out as Room was before the store (an object per room with its own fields
+ * and an AtomicInteger, reaching the stars through the Hotel). The store side includes
+ * the Room views, since the application keeps them too. A third benchmark runs the
+ * catalog-wide room search behind GET /api/rooms, which scans the columns and then checks
+ * the per-night inventory of the rooms that could make the list.
+ *
+ * Running main prints the heap taken by each layout for the same rooms instead.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class RoomScanBenchmark {
+    /** Number of room types in the catalog */
+    @Param({"100000", "1000000"})
+    private int roomCount;
+
+    /** Number of room types per hotel */
+    private static final int ROOMS_PER_HOTEL = 5;
+
+    /** Rooms with the layout Room had before the room store, shuffled like a heap built over time */
+    private List<LegacyRoom> legacyRooms;
+
+    /** The store the catalog rooms live in */
+    private RoomStore store;
+
+    /** Criteria of the catalog-wide search: under $150 in 4-star-and-up hotels */
+    private static final RoomFilter CHEAP_AND_RATED = new RoomFilter(0, 150, 4, Integer.MAX_VALUE, null, 1);
+
+    /** Check-in date of the catalog-wide search */
+    private final LocalDate checkIn = LocalDate.now().plusDays(30);
+
+    /** Check-out date of the catalog-wide search */
+    private final LocalDate checkOut = checkIn.plusDays(3);
+
+    /**
+     * A room as it was laid out before the room store
+     */
+    static final class LegacyRoom {
+        private final Hotel hotel;
+        private final String type;
+        private final int pricePerDay;
+        private final AtomicInteger available;
+        private final String description;
+        private final RoomInventory inventory;
+        private volatile int id = -1;
+
+        /**
+         * Constructor to create a room
+         * @param hotel The hotel
+         * @param type The room type
+         * @param pricePerDay The price per night
+         * @param available The availability
+         * @param description The description
+         */
+        LegacyRoom(Hotel hotel, String type, int pricePerDay, int available, String description) {
+            this.hotel = hotel;
+            this.type = type;
+            this.pricePerDay = pricePerDay;
+            this.available = new AtomicInteger(available);
+            this.description = description;
+            this.inventory = new RoomInventory(available);
+        }
+    }
+
+    /**
+     * Builds both layouts with the same random values once per fork
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        legacyRooms = new ArrayList<>(roomCount);
+        for (int i = 0; i < roomCount / ROOMS_PER_HOTEL; i++) {
+            Hotel hotel = new Hotel("Hotel " + i, "+1000000" + i, 1 + random.nextInt(5), "City " + (i % 100), "Benchmark hotel");
+            Catalog.addHotel(hotel);
+            for (int j = 0; j < ROOMS_PER_HOTEL; j++) {
+                int price = 50 + random.nextInt(451);
+                int available = random.nextInt(6);
+                Catalog.addRoom(new Room(hotel, "Type " + j, price, available, "Benchmark room"));
+                legacyRooms.add(new LegacyRoom(hotel, "Type " + j, price, available, "Benchmark room"));
+            }
+        }
+        Collections.shuffle(legacyRooms, random);
+        store = RoomStore.getInstance();
+    }
+
+    /**
+     * Counts rooms under $150 in 4-star-and-up hotels, over the columns
+     * @return The count
+     */
+    @Benchmark
+    public int columnScan() {
+        return store.count(0, 150, 4, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Counts the same rooms over the list of room objects
+     * @return The count
+     */
+    @Benchmark
+    public int listScan() {
+        int count = 0;
+        for (LegacyRoom room : legacyRooms) {
+            if (room.pricePerDay <= 150 && room.hotel.getStars() >= 4) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds the 20 cheapest of those rooms that are free for a stay, over the whole catalog
+     * @return The rooms
+     */
+    @Benchmark
+    public List<Room> catalogSearch() {
+        return Catalog.scanRooms(CHEAP_AND_RATED, checkIn, checkOut, 20);
+    }
+
+    /**
+     * Prints the heap taken by each layout, including the RoomInventory both carry
+     * @param args Optional number of rooms, one million by default
+     */
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Hotel hotel = new Hotel("Hotel", "+10000000", 4, "City", "Footprint hotel");
+
+        long before = usedHeap();
+        List<LegacyRoom> legacy = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            legacy.add(new LegacyRoom(hotel, "Standard", 100 + i % 400, 3, "Footprint room"));
+        }
+        long legacyBytes = usedHeap() - before;
+
+        // Each room takes its store row when it is created
+        before = usedHeap();
+        List<Room> rooms = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rooms.add(new Room(hotel, "Standard", 100 + i % 400, 3, "Footprint room"));
+        }
+        long storeBytes = usedHeap() - before;
+
+        System.out.printf(Locale.ROOT, "%,d rooms: objects %.1f bytes/room, views + columns %.1f bytes/room "
+                        + "(columns %.1f bytes/row)%n", count, legacyBytes / (double) count,
+                storeBytes / (double) count, RoomStore.getInstance().getColumnBytes() / (double) count);
+        Reference.reachabilityFence(legacy);
+        Reference.reachabilityFence(rooms);
+    }
+
+    /**
+     * Gets the heap in use after a full collection
+     * @return The used heap in bytes
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
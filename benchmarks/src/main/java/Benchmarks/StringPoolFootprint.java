@@ -0,0 +1,79 @@
+package Benchmarks;
+
+import Models.StringPool;
+import Storage.CatalogLoader;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Heap taken by a catalog loaded from CSV, with the string pool on or off. Run it twice
+ * to compare, once as is and once with -Dbooking.strings.pool=false:
+ *
+ *   java -cp benchmarks.jar Benchmarks.StringPoolFootprint [rooms]
+ *   java -Dbooking.strings.pool=false -cp benchmarks.jar Benchmarks.StringPoolFootprint [rooms]
+ *
+ * The generated catalog repeats text the way real ones do: 1000 cities, five room types
+ * and one description per room type and star rating.
+ */
+public class StringPoolFootprint {
+    /** Number of room types per hotel */
+    private static final int ROOMS_PER_HOTEL = 5;
+
+    /** Room type names */
+    private static final String[] TYPES = {"Standard", "Deluxe", "Suite", "Family", "Executive"};
+
+    /**
+     * Generates a catalog, loads it and prints the heap it takes
+     * @param args Optional number of rooms, one million by default
+     * @throws IOException if the catalog files cannot be written or read
+     */
+    public static void main(String[] args) throws IOException {
+        int roomCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path directory = Files.createTempDirectory("string-pool-footprint");
+        Path hotelsFile = directory.resolve("hotels.csv");
+        Path roomsFile = directory.resolve("rooms.csv");
+        try {
+            try (BufferedWriter hotelsOut = Files.newBufferedWriter(hotelsFile);
+                 BufferedWriter roomsOut = Files.newBufferedWriter(roomsFile)) {
+                for (int i = 0; i < roomCount / ROOMS_PER_HOTEL; i++) {
+                    int stars = 1 + i % 5;
+                    hotelsOut.write(i + ",Hotel " + i + ",+1" + i + "," + stars + ",City " + (i % 1000)
+                            + ",Hotel number " + i + "\n");
+                    for (int j = 0; j < ROOMS_PER_HOTEL; j++) {
+                        roomsOut.write(i + "," + TYPES[j] + "," + (50 + (i + j) % 400) + "," + (1 + j)
+                                + ",A " + stars + "-star " + TYPES[j] + " room with a private bathroom,"
+                                + " air conditioning and free wifi\n");
+                    }
+                }
+            }
+
+            long before = usedHeap();
+            CatalogLoader.LoadResult result = new CatalogLoader().load(hotelsFile, roomsFile, null);
+            long after = usedHeap();
+
+            System.out.printf(Locale.ROOT, "pool %s: %,d hotels, %,d rooms, %.1f MB, %.1f bytes/room, %,d pooled strings%n",
+                    StringPool.isEnabled() ? "on" : "off", result.getHotels(), result.getRooms(),
+                    (after - before) / 1e6, (after - before) / (double) result.getRooms(), StringPool.size());
+        } finally {
+            Files.deleteIfExists(hotelsFile);
+            Files.deleteIfExists(roomsFile);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    /**
+     * Gets the heap in use after a full collection
+     * @return The used heap in bytes
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
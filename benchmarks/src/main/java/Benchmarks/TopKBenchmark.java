@@ -0,0 +1,103 @@
+package Benchmarks;
+
+import Models.Hotel;
+import Models.Room;
+import Services.BookingService;
+import Services.Catalog;
+import Services.DealOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Best deals of one city: the one-pass bounded heap against collecting every free room
+ * of the city and sorting it, as a query would without the heap.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TopKBenchmark {
+    /** Number of room types in the city */
+    @Param({"10000", "100000"})
+    private int roomCount;
+
+    /** Number of rooms asked for */
+    @Param({"20"})
+    private int limit;
+
+    /** Number of room types per hotel */
+    private static final int ROOMS_PER_HOTEL = 5;
+
+    /** The city searched */
+    private static final String CITY = "Deal City";
+
+    /** The service answering the queries */
+    private BookingService service;
+
+    /** Stay used for the searches */
+    private LocalDate checkIn;
+    private LocalDate checkOut;
+
+    /**
+     * Builds one city with random prices and stars once per fork
+     */
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < roomCount / ROOMS_PER_HOTEL; i++) {
+            Hotel hotel = new Hotel("Hotel " + i, "+1000000" + i, 1 + random.nextInt(5), CITY, "Benchmark hotel");
+            Catalog.addHotel(hotel);
+            for (int j = 0; j < ROOMS_PER_HOTEL; j++) {
+                Catalog.addRoom(new Room(hotel, "Type " + j, 50 + random.nextInt(451), 10, "Benchmark room"));
+            }
+        }
+        service = BookingService.getInstance();
+        checkIn = LocalDate.now().plusDays(30);
+        checkOut = checkIn.plusDays(3);
+    }
+
+    /**
+     * Cheapest rooms from the bounded heap
+     * @return The rooms, cheapest first
+     */
+    @Benchmark
+    public List<Room> cheapestTopK() {
+        return service.bestDeals(CITY, DealOrder.CHEAPEST, limit, checkIn, checkOut);
+    }
+
+    /**
+     * Cheapest rooms by sorting every free room of the city
+     * @return The rooms, cheapest first
+     */
+    @Benchmark
+    public List<Room> cheapestSortAll() {
+        List<Room> free = new ArrayList<>();
+        for (Hotel hotel : Catalog.findHotelsByCity(CITY)) {
+            for (Room room : Catalog.findRoomsByHotel(hotel)) {
+                if (room.getAvailable(checkIn, checkOut) > 0) {
+                    free.add(room);
+                }
+            }
+        }
+        free.sort(Comparator.comparingDouble(room -> service.calculateTotalPrice(room, checkIn, checkOut)));
+        return new ArrayList<>(free.subList(0, Math.min(limit, free.size())));
+    }
+}
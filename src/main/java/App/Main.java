@@ -3,28 +3,44 @@ package App;
 import Controllers.CartController;
 import Controllers.HotelFindController;
 import Controllers.RoomBookingController;
-import Models.Hotel;
-import Models.Room;
+import Metrics.BookingMetrics;
 import Models.User;
+import Services.DealOrder;
+import Services.RoomFilter;
+import Services.SuggestionTrie;
+import Services.TaskExecutor;
+import Storage.BookingWriter;
+import Storage.CatalogBootstrap;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.geometry.Side;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.ContextMenu;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.control.MenuItem;
 import javafx.scene.control.PasswordField;
 import javafx.scene.control.ProgressIndicator;
-import javafx.scene.control.ScrollPane;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+
+import java.io.IOException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main application class for the Hotel Booking System.
@@ -161,15 +177,42 @@ public class Main extends Application {
         // Create a task for asynchronous data initialization
         Task<Void> initDataTask = new Task<>() {
             @Override
-            protected Void call() {
-                initializeSampleData();
+            protected Void call() throws IOException {
+                updateMessage("Initializing data...");
+
+                long start = System.nanoTime();
+                CatalogBootstrap.load((bytesRead, totalBytes, rows) -> {
+                    double seconds = Math.max(1e-9, (System.nanoTime() - start) / 1e9);
+                    updateProgress(bytesRead, totalBytes);
+                    updateMessage(String.format(Locale.ROOT, "Loaded %,d rows (%,.0f rows/s)", rows, rows / seconds));
+                });
+
+                // Open the booking journal now rather than on the first checkout
+                updateMessage("Opening booking journal...");
+                BookingWriter.getInstance();
+
+                // Publish the metrics MBeans before the first search
+                BookingMetrics.getInstance();
                 return null;
             }
         };
 
+        // Show real progress while the catalog loads
+        loadingIndicator.progressProperty().bind(initDataTask.progressProperty());
+        loadingLabel.textProperty().bind(initDataTask.messageProperty());
+
+        // Show the error if the catalog could not be loaded
+        initDataTask.setOnFailed(event -> {
+            loadingLabel.textProperty().unbind();
+            loadingIndicator.progressProperty().unbind();
+            loadingIndicator.setProgress(0);
+            loadingLabel.setText("Error loading catalog: " + initDataTask.getException().getMessage());
+        });
+
         // Handle task completion
         initDataTask.setOnSucceeded(event -> {
-            // Create controllers for handling hotel search and room booking functionality
+            // Create controllers for handling hotel search and room booking functionality;
+            // each login gets a session with its own cart
             roomBookingController = new RoomBookingController();
             hotelFindController = new HotelFindController(roomBookingController);
 
@@ -179,104 +222,8 @@ public class Main extends Application {
             });
         });
 
-        // Start the task in a new thread
-        new Thread(initDataTask).start();
-    }
-
-    /**
-     * Initializes sample data for hotels and rooms
-     */
-    private void initializeSampleData() {
-        /* ===== SAMPLE DATA INITIALIZATION ===== */
-        // Create and add sample hotels organized by city
-
-        // New York hotels
-        Hotel grandHotel = new Hotel("Grand Hotel", "+1234567890", 5, "New York", "Luxury hotel in downtown");
-        Hotel comfortInn = new Hotel("Comfort Inn", "+0987654321", 3, "New York", "Affordable comfort");
-        Hotel plazaHotel = new Hotel("Plaza Hotel", "+2223334444", 5, "New York", "Historic luxury hotel");
-        Hotel broadwayMotel = new Hotel("Broadway Motel", "+5556667777", 2, "New York", "Budget-friendly near theaters");
-
-        HotelFindController.addHotel(grandHotel);
-        HotelFindController.addHotel(comfortInn);
-        HotelFindController.addHotel(plazaHotel);
-        HotelFindController.addHotel(broadwayMotel);
-
-        // Miami hotels
-        Hotel beachResort = new Hotel("Beach Resort", "+1122334455", 4, "Miami", "Beautiful beachfront property");
-        Hotel oceanView = new Hotel("Ocean View", "+9988776655", 5, "Miami", "Luxury oceanfront resort");
-        Hotel palmSuites = new Hotel("Palm Suites", "+1231231234", 3, "Miami", "Family-friendly hotel with pool");
-
-        HotelFindController.addHotel(beachResort);
-        HotelFindController.addHotel(oceanView);
-        HotelFindController.addHotel(palmSuites);
-
-        // Denver hotels
-        Hotel mountainLodge = new Hotel("Mountain Lodge", "+5566778899", 3, "Denver", "Scenic mountain views");
-        Hotel alpineResort = new Hotel("Alpine Resort", "+4445556666", 4, "Denver", "Ski-in/ski-out luxury resort");
-
-        HotelFindController.addHotel(mountainLodge);
-        HotelFindController.addHotel(alpineResort);
-
-        // Los Angeles hotels
-        Hotel hollywoodStar = new Hotel("Hollywood Star", "+7778889999", 4, "Los Angeles", "Close to Hollywood attractions");
-        Hotel beverlyHillsHotel = new Hotel("Beverly Hills Hotel", "+3334445555", 5, "Los Angeles", "Exclusive luxury experience");
-        Hotel sunsetMotel = new Hotel("Sunset Motel", "+6667778888", 2, "Los Angeles", "Affordable option on Sunset Blvd");
-
-        HotelFindController.addHotel(hollywoodStar);
-        HotelFindController.addHotel(beverlyHillsHotel);
-        HotelFindController.addHotel(sunsetMotel);
-
-        // Chicago hotels
-        Hotel windyCityInn = new Hotel("Windy City Inn", "+8889990000", 3, "Chicago", "Comfortable downtown hotel");
-        Hotel lakesideHotel = new Hotel("Lakeside Hotel", "+1112223333", 4, "Chicago", "Beautiful views of Lake Michigan");
-
-        HotelFindController.addHotel(windyCityInn);
-        HotelFindController.addHotel(lakesideHotel);
-
-        // Boston hotels
-        Hotel historicInn = new Hotel("Historic Inn", "+4443332222", 4, "Boston", "Charming hotel in historic district");
-        Hotel universityLodge = new Hotel("University Lodge", "+7776665555", 3, "Boston", "Convenient for campus visits");
-
-        HotelFindController.addHotel(historicInn);
-        HotelFindController.addHotel(universityLodge);
-
-        // Add sample rooms
-        // New York hotel rooms
-        HotelFindController.addRoom(new Room(grandHotel, "Standard", 150, 5, "Comfortable room with queen bed"));
-        HotelFindController.addRoom(new Room(grandHotel, "Deluxe", 250, 3, "Spacious room with king bed and city view"));
-        HotelFindController.addRoom(new Room(grandHotel, "Suite", 400, 2, "Luxury suite with separate living area"));
-
-        HotelFindController.addRoom(new Room(comfortInn, "Standard", 80, 8, "Basic room with double bed"));
-        HotelFindController.addRoom(new Room(comfortInn, "Double", 120, 5, "Room with two double beds"));
-
-        HotelFindController.addRoom(new Room(plazaHotel, "Classic", 200, 10, "Elegant room with queen bed"));
-        HotelFindController.addRoom(new Room(plazaHotel, "Executive", 350, 5, "Luxury room with king bed and park view"));
-        HotelFindController.addRoom(new Room(plazaHotel, "Presidential Suite", 800, 1, "Opulent suite with butler service"));
-
-        HotelFindController.addRoom(new Room(broadwayMotel, "Basic", 60, 12, "Simple room with double bed"));
-        HotelFindController.addRoom(new Room(broadwayMotel, "Family", 90, 6, "Room with two queen beds"));
-
-        // Miami hotel rooms
-        HotelFindController.addRoom(new Room(beachResort, "Ocean View", 180, 8, "Room with balcony and ocean view"));
-        HotelFindController.addRoom(new Room(beachResort, "Pool View", 150, 10, "Room overlooking the pool area"));
-        HotelFindController.addRoom(new Room(beachResort, "Beach Suite", 300, 4, "Suite with direct beach access"));
-
-        HotelFindController.addRoom(new Room(oceanView, "Deluxe Ocean", 250, 15, "Deluxe room with panoramic ocean view"));
-        HotelFindController.addRoom(new Room(oceanView, "Premium Suite", 450, 5, "Premium suite with private balcony"));
-
-        HotelFindController.addRoom(new Room(palmSuites, "Standard", 100, 20, "Comfortable room for families"));
-        HotelFindController.addRoom(new Room(palmSuites, "Cabana", 150, 8, "Room with direct pool access"));
-
-        // Add rooms for other hotels
-        HotelFindController.addRoom(new Room(mountainLodge, "Mountain View", 120, 10, "Room with scenic mountain views"));
-        HotelFindController.addRoom(new Room(alpineResort, "Ski Suite", 220, 5, "Suite with ski-in/ski-out access"));
-        HotelFindController.addRoom(new Room(hollywoodStar, "Celebrity Suite", 300, 3, "Suite with Hollywood memorabilia"));
-        HotelFindController.addRoom(new Room(beverlyHillsHotel, "Luxury Room", 400, 8, "Opulent room with premium amenities"));
-        HotelFindController.addRoom(new Room(sunsetMotel, "Standard", 70, 15, "Basic clean room for budget travelers"));
-        HotelFindController.addRoom(new Room(windyCityInn, "City View", 110, 12, "Room with Chicago skyline view"));
-        HotelFindController.addRoom(new Room(lakesideHotel, "Lake View", 160, 8, "Room with beautiful lake views"));
-        HotelFindController.addRoom(new Room(historicInn, "Historic Suite", 180, 5, "Suite in the historic wing"));
-        HotelFindController.addRoom(new Room(universityLodge, "Scholar Room", 90, 20, "Comfortable room near campus"));
+        // Run the task on the shared background executor
+        TaskExecutor.getInstance().execute(initDataTask);
     }
 
     /**
@@ -308,7 +255,7 @@ public class Main extends Application {
         topBar.getChildren().addAll(nicknameLabel);
 
         // Push cart and logout buttons to the right
-        HBox.setHgrow(nicknameLabel, javafx.scene.layout.Priority.ALWAYS);
+        HBox.setHgrow(nicknameLabel, Priority.ALWAYS);
         topBar.getChildren().addAll(logoutButton, cartButton);
 
         // Application title
@@ -350,27 +297,51 @@ public class Main extends Application {
         HBox cityBox = new HBox(cityLabel);
 
         TextField cityField = new TextField();
-        cityField.setPromptText("Enter city name");
+        cityField.setPromptText("Enter city name, or several separated by commas");
         cityField.setPadding(new Insets(10));
         cityBox.getChildren().add(cityField);
 
+        // Offer city and hotel name suggestions while typing
+        setupCitySuggestions(cityField);
+
+        // Optional filters; when any is set the search lists matching rooms instead of hotels
+        Label filterLabel = new Label("Filters:");
+        filterLabel.setPadding(new Insets(10));
+        TextField minPriceField = new TextField();
+        minPriceField.setPromptText("Min $/night");
+        minPriceField.setPrefColumnCount(7);
+        TextField maxPriceField = new TextField();
+        maxPriceField.setPromptText("Max $/night");
+        maxPriceField.setPrefColumnCount(7);
+        TextField minStarsField = new TextField();
+        minStarsField.setPromptText("Min stars");
+        minStarsField.setPrefColumnCount(6);
+        TextField roomTypeField = new TextField();
+        roomTypeField.setPromptText("Room type");
+        roomTypeField.setPrefColumnCount(9);
+        HBox filterBox = new HBox(5, filterLabel, minPriceField, maxPriceField, minStarsField, roomTypeField);
+        filterBox.setAlignment(Pos.CENTER_LEFT);
+
         // Search button
         Button findButton = new Button("Find");
         findButton.setPadding(new Insets(10));
 
-        // Add button to a horizontal box
-        HBox findButtonBox = new HBox(10, findButton);
-        findButtonBox.setAlignment(Pos.CENTER);
+        // Best deals across the whole city, ranked by the chosen order
+        ComboBox<String> dealOrderBox = new ComboBox<>();
+        dealOrderBox.getItems().addAll("Cheapest", "Best rated", "Best value");
+        dealOrderBox.getSelectionModel().selectFirst();
+        Button dealsButton = new Button("Best deals");
+        dealsButton.setPadding(new Insets(10));
 
-        // Container for displaying search results
-        VBox resultsContainer = new VBox();
-        resultsContainer.setPadding(new Insets(10));
-        resultsContainer.setSpacing(5);
+        // Add buttons to a horizontal box
+        HBox findButtonBox = new HBox(10, findButton, dealOrderBox, dealsButton);
+        findButtonBox.setAlignment(Pos.CENTER);
 
-        // Wrap results in a scroll pane for scrolling
-        ScrollPane resultsScrollPane = new ScrollPane(resultsContainer);
-        resultsScrollPane.setFitToWidth(true);
-        resultsScrollPane.setPrefHeight(300);
+        // Virtualized list for displaying search results; only visible rows get nodes
+        ListView<Object> resultsList = new ListView<>();
+        resultsList.setPadding(new Insets(10));
+        resultsList.setPrefHeight(300);
+        VBox.setVgrow(resultsList, Priority.ALWAYS);
 
         // Error message label
         Label errorMessageLabel = new Label();
@@ -389,9 +360,20 @@ public class Main extends Application {
 
         // Cart button click handler
         cartButton.setOnAction(event -> {
+            // Every room in the cart carries the dates it was held for
+            errorMessageBox.setVisible(false);
+            CartController cartController = new CartController(roomBookingController, currentUser);
+            cartController.displayCart();
+        });
+
+        // Search button click handler
+        findButton.setOnMouseClicked(event -> {
+            // Get the city name from the text field
+            String city = cityField.getText();
+
             // Validate that date pickers have values
             if (datePickerIn.getValue() == null || datePickerOut.getValue() == null) {
-                errorMessageLabel.setText("Please select dates before viewing cart.");
+                errorMessageLabel.setText("Please select dates.");
                 errorMessageBox.setVisible(true);
                 return;
             }
@@ -411,22 +393,51 @@ public class Main extends Application {
                 return;
             }
 
-            // Clear any previous error messages
-            errorMessageBox.setVisible(false);
+            // Convert date values to strings for validation
+            String checkIn = datePickerIn.getValue().toString();
+            String checkOut = datePickerOut.getValue().toString();
 
-            // Create CartController and display cart
-            CartController cartController = new CartController(
-                roomBookingController,
-                datePickerIn.getValue(),
-                datePickerOut.getValue(),
-                currentUser
-            );
-            cartController.displayCart();
+            // Validate that all required fields are filled
+            if (city.isEmpty() || checkIn.isEmpty() || checkOut.isEmpty()) {
+                errorMessageLabel.setText("Please fill in all fields.");
+                errorMessageBox.setVisible(true);
+            } else {
+                // Clear any previous error messages
+                errorMessageBox.setVisible(false);
+
+                // Read the optional filters
+                RoomFilter filter;
+                try {
+                    filter = readFilter(minPriceField, maxPriceField, minStarsField, roomTypeField);
+                } catch (IllegalArgumentException e) {
+                    errorMessageLabel.setText("Invalid filter: " + e.getMessage());
+                    errorMessageBox.setVisible(true);
+                    return;
+                }
+
+                // Several cities separated by commas search them all at once
+                List<String> cities = splitCities(city);
+                if (cities.size() > 1) {
+                    if (filter != null) {
+                        errorMessageLabel.setText("Filters apply to one city at a time.");
+                        errorMessageBox.setVisible(true);
+                        return;
+                    }
+                    hotelFindController.displayHotelsInRegion(cities, resultsList,
+                            datePickerIn.getValue(), datePickerOut.getValue());
+                } else if (filter == null) {
+                    // Use HotelFindController to find and display hotels matching the criteria
+                    hotelFindController.displayHotelsInCity(city, resultsList, datePickerIn.getValue(), datePickerOut.getValue());
+                } else {
+                    // List the matching rooms of every hotel in the city, cheapest first
+                    hotelFindController.displayFilteredRooms(city, filter, resultsList,
+                            datePickerIn.getValue(), datePickerOut.getValue());
+                }
+            }
         });
 
-        // Search button click handler
-        findButton.setOnMouseClicked(event -> {
-            // Get the city name from the text field
+        // Best deals button click handler
+        dealsButton.setOnAction(event -> {
             String city = cityField.getText();
 
             // Validate that date pickers have values
@@ -444,39 +455,31 @@ public class Main extends Application {
             }
 
             // Validate check-out date is after check-in date
-            if (datePickerOut.getValue().isBefore(datePickerIn.getValue()) ||
-                datePickerOut.getValue().isEqual(datePickerIn.getValue())) {
+            if (!datePickerOut.getValue().isAfter(datePickerIn.getValue())) {
                 errorMessageLabel.setText("Check-out date must be after check-in date.");
                 errorMessageBox.setVisible(true);
                 return;
             }
 
-            // Convert date values to strings for validation
-            String checkIn = datePickerIn.getValue().toString();
-            String checkOut = datePickerOut.getValue().toString();
-
-            // Validate that all required fields are filled
-            if (city.isEmpty() || checkIn.isEmpty() || checkOut.isEmpty()) {
+            if (city.isEmpty()) {
                 errorMessageLabel.setText("Please fill in all fields.");
                 errorMessageBox.setVisible(true);
-            } else {
-                // Clear any previous error messages
-                errorMessageBox.setVisible(false);
-
-                // Log search parameters and perform the search
-                System.out.println("Searching for hotels in " + city + " from " + checkIn + " to " + checkOut);
-
-                // Use HotelFindController to find and display hotels matching the criteria
-                hotelFindController.displayHotelsInCity(city, resultsContainer, datePickerIn.getValue(), datePickerOut.getValue());
+                return;
             }
+            errorMessageBox.setVisible(false);
+
+            // The choices are listed in the order of DealOrder
+            DealOrder order = DealOrder.values()[dealOrderBox.getSelectionModel().getSelectedIndex()];
+            hotelFindController.displayBestDeals(city, order, resultsList,
+                    datePickerIn.getValue(), datePickerOut.getValue());
         });
 
         /* ===== FINAL UI ASSEMBLY ===== */
         // Arrange all UI components in the main layout
-        VBox root = new VBox(topBar, nameBox, Dates, cityBox, findButtonBox, errorMessageBox, resultsScrollPane);
+        VBox root = new VBox(topBar, nameBox, Dates, cityBox, filterBox, findButtonBox, errorMessageBox, resultsList);
 
         // Create the scene with the root layout and set dimensions
-        Scene scene = new Scene(root, 650, 600);
+        Scene scene = new Scene(root, 650, 650);
 
         // Configure and display the primary stage (main window)
         primaryStage.setScene(scene);
@@ -484,11 +487,117 @@ public class Main extends Application {
         primaryStage.show();
     }
 
+    /**
+     * Splits the city field into the cities it names
+     * @param text The city field, with cities separated by commas
+     * @return The non-blank cities, trimmed
+     */
+    private static List<String> splitCities(String text) {
+        List<String> cities = new ArrayList<>();
+        for (String city : text.split(",")) {
+            if (!city.isBlank()) {
+                cities.add(city.trim());
+            }
+        }
+        return cities;
+    }
+
+    /**
+     * Reads the optional search filters
+     * @param minPriceField Lowest price per night
+     * @param maxPriceField Highest price per night
+     * @param minStarsField Fewest hotel stars
+     * @param roomTypeField Room type
+     * @return The filter, or null if every field is empty
+     * @throws IllegalArgumentException if a number is invalid or a range is empty
+     */
+    private static RoomFilter readFilter(TextField minPriceField, TextField maxPriceField,
+                                         TextField minStarsField, TextField roomTypeField) {
+        String minPrice = minPriceField.getText().trim();
+        String maxPrice = maxPriceField.getText().trim();
+        String minStars = minStarsField.getText().trim();
+        String roomType = roomTypeField.getText().trim();
+        if (minPrice.isEmpty() && maxPrice.isEmpty() && minStars.isEmpty() && roomType.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return new RoomFilter(
+                    minPrice.isEmpty() ? 0 : Integer.parseInt(minPrice),
+                    maxPrice.isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(maxPrice),
+                    minStars.isEmpty() ? 0 : Integer.parseInt(minStars),
+                    Integer.MAX_VALUE,
+                    roomType,
+                    1);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("prices and stars must be whole numbers");
+        }
+    }
+
+    /**
+     * Shows city and hotel name suggestions below the city field as the user types
+     * @param cityField The city input field
+     */
+    private void setupCitySuggestions(TextField cityField) {
+        ContextMenu suggestionsMenu = new ContextMenu();
+
+        // Set while a picked suggestion is written into the field, so the menu does not reopen
+        boolean[] filling = {false};
+
+        cityField.textProperty().addListener((observable, oldText, newText) -> {
+            if (filling[0] || newText == null || newText.isBlank()) {
+                suggestionsMenu.hide();
+                return;
+            }
+
+            List<SuggestionTrie.Suggestion> suggestions =
+                    hotelFindController.suggest(newText, HotelFindController.MAX_SUGGESTIONS);
+            if (suggestions.isEmpty()) {
+                suggestionsMenu.hide();
+                return;
+            }
+
+            // Build one menu item per suggestion; picking it fills in the city to search
+            suggestionsMenu.getItems().clear();
+            for (SuggestionTrie.Suggestion suggestion : suggestions) {
+                String text = suggestion.isCity()
+                        ? suggestion.getText() + " (" + suggestion.getHotelCount() + " hotels)"
+                        : suggestion.getText() + " - " + suggestion.getCity();
+                MenuItem item = new MenuItem(text);
+                item.setOnAction(e -> {
+                    suggestionsMenu.hide();
+                    filling[0] = true;
+                    cityField.setText(suggestion.getCity());
+                    filling[0] = false;
+                    cityField.positionCaret(cityField.getText().length());
+                });
+                suggestionsMenu.getItems().add(item);
+            }
+
+            if (!suggestionsMenu.isShowing()) {
+                suggestionsMenu.show(cityField, Side.BOTTOM, 0, 0);
+            }
+        });
+
+        // Hide the suggestions when the field loses focus
+        cityField.focusedProperty().addListener((observable, wasFocused, focused) -> {
+            if (!focused) {
+                suggestionsMenu.hide();
+            }
+        });
+    }
+
     /**
      * Handles user logout
      * @param primaryStage The primary stage for the application
      */
     private void logout(Stage primaryStage) {
+        // Give back the rooms held in this session's cart
+        if (roomBookingController != null) {
+            roomBookingController.endSession();
+            roomBookingController = null;
+        }
+
         // Reset the current user
         currentUser = null;
 
@@ -496,6 +605,24 @@ public class Main extends Application {
         showLoginUI(primaryStage);
     }
 
+    /**
+     * Stops the shared background executor and the booking writer when the application exits
+     * @throws InterruptedException if interrupted while waiting for queued bookings
+     */
+    @Override
+    public void stop() throws InterruptedException {
+        TaskExecutor.getInstance().shutdown();
+
+        // Let queued bookings reach the disk before the JVM exits
+        try {
+            if (!BookingWriter.getInstance().shutdown(5, TimeUnit.SECONDS)) {
+                System.err.println("Some bookings were still being written at exit");
+            }
+        } catch (IOException e) {
+            System.err.println("Booking journal unavailable: " + e.getMessage());
+        }
+    }
+
     /**
      * Main method that launches the JavaFX application
      * @param args Command line arguments (not used)
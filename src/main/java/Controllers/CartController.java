@@ -1,8 +1,12 @@
 package Controllers;
 
 import Models.Hotel;
+import Models.Reservation;
 import Models.Room;
 import Models.User;
+import Services.BookingService;
+import Storage.BookingRecord;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -16,85 +20,41 @@ import javafx.scene.layout.VBox;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.Map;
-import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Controller class responsible for cart functionality.
  * Manages the display of cart contents, payment processing, and booking confirmation.
  */
 public class CartController {
+    /** How long rooms stay held once the user starts paying, in minutes */
+    private static final long CHECKOUT_HOLD_MINUTES = Long.getLong("booking.hold.checkoutMinutes", 15);
+
     /** Reference to the RoomBookingController to access cart data */
     private RoomBookingController bookingController;
 
-    /** Check-in date for the booking */
-    private LocalDate checkInDate;
-
-    /** Check-out date for the booking */
-    private LocalDate checkOutDate;
-
     /** User making the booking */
     private User user;
 
-    /** Map to store individual check-in and check-out dates for each room */
-    private Map<Room, LocalDate[]> roomDates = new java.util.HashMap<>();
-
     /**
      * Constructor to create a new CartController with required dependencies
      * @param bookingController The RoomBookingController to access cart data
-     * @param checkInDate The check-in date for the booking
-     * @param checkOutDate The check-out date for the booking
      * @param user The user making the booking
      */
-    public CartController(RoomBookingController bookingController, LocalDate checkInDate, LocalDate checkOutDate, User user) {
+    public CartController(RoomBookingController bookingController, User user) {
         this.bookingController = bookingController;
-        this.checkInDate = checkInDate;
-        this.checkOutDate = checkOutDate;
         this.user = user;
-
-        // Initialize room dates with individual dates for each room
-        List<Room> cart = bookingController.getCart();
-        if (cart != null && !cart.isEmpty()) {
-            int i = 0;
-            for (Room room : cart) {
-                // Create slightly different dates for each room (for demonstration)
-                LocalDate roomCheckIn = checkInDate.plusDays(i % 2);  // Vary check-in by 0 or 1 days
-                LocalDate roomCheckOut = checkOutDate.plusDays(i % 3); // Vary check-out by 0, 1, or 2 days
-                roomDates.put(room, new LocalDate[]{roomCheckIn, roomCheckOut});
-                i++;
-            }
-        }
     }
 
     /**
      * Constructor to create a new CartController with required dependencies (without user)
      * @param bookingController The RoomBookingController to access cart data
-     * @param checkInDate The check-in date for the booking
-     * @param checkOutDate The check-out date for the booking
      */
-    public CartController(RoomBookingController bookingController, LocalDate checkInDate, LocalDate checkOutDate) {
+    public CartController(RoomBookingController bookingController) {
         this.bookingController = bookingController;
-        this.checkInDate = checkInDate;
-        this.checkOutDate = checkOutDate;
-
-        // Initialize room dates with individual dates for each room
-        List<Room> cart = bookingController.getCart();
-        if (cart != null && !cart.isEmpty()) {
-            int i = 0;
-            for (Room room : cart) {
-                // Create slightly different dates for each room (for demonstration)
-                LocalDate roomCheckIn = checkInDate.plusDays(i % 2);  // Vary check-in by 0 or 1 days
-                LocalDate roomCheckOut = checkOutDate.plusDays(i % 3); // Vary check-out by 0, 1, or 2 days
-                roomDates.put(room, new LocalDate[]{roomCheckIn, roomCheckOut});
-                i++;
-            }
-        }
     }
 
     /**
@@ -106,12 +66,29 @@ public class CartController {
         cartStage.initModality(Modality.APPLICATION_MODAL);
         cartStage.setTitle("Your Cart");
 
+        showCart(cartStage, null);
+        cartStage.show();
+    }
+
+    /**
+     * Shows the current cart contents in the cart window, replacing what it showed before
+     * @param cartStage The cart window
+     * @param notice A message shown above the cart in red, or null for none
+     */
+    private void showCart(Stage cartStage, String notice) {
         // Create a container for cart items
         VBox cartContainer = new VBox(10);
         cartContainer.setPadding(new Insets(20));
 
+        if (notice != null) {
+            Label noticeLabel = new Label(notice);
+            noticeLabel.setStyle("-fx-text-fill: red; -fx-font-weight: bold;");
+            noticeLabel.setWrapText(true);
+            cartContainer.getChildren().add(noticeLabel);
+        }
+
         // Get cart contents
-        List<Room> cart = bookingController.getCart();
+        List<Reservation> cart = bookingController.getReservations();
 
         if (cart.isEmpty()) {
             // Display message when cart is empty
@@ -127,7 +104,11 @@ public class CartController {
             double totalPrice = 0;
 
             // Display each room in the cart
-            for (Room room : cart) {
+            for (Reservation reservation : cart) {
+                Room room = reservation.getRoom();
+                LocalDate checkIn = reservation.getCheckIn();
+                LocalDate checkOut = reservation.getCheckOut();
+
                 // Create a container for room information
                 HBox roomBox = new HBox(10);
                 roomBox.setPadding(new Insets(10));
@@ -146,14 +127,16 @@ public class CartController {
                 Label roomTypeLabel = new Label("Room: " + room.getType());
                 Label roomDescLabel = new Label("Description: " + room.getDescription());
 
+                Label datesLabel = new Label("Dates: " + checkIn + " to " + checkOut);
+
                 // Calculate price for this room
-                double roomPrice = bookingController.calculateTotalPrice(room, checkInDate, checkOutDate);
+                double roomPrice = bookingController.calculateTotalPrice(room, checkIn, checkOut);
                 totalPrice += roomPrice;
 
                 Label priceLabel = new Label(String.format("Price: $%.2f", roomPrice));
 
                 // Add all room details to the room info container
-                roomInfo.getChildren().addAll(hotelLabel, roomTypeLabel, roomDescLabel, priceLabel);
+                roomInfo.getChildren().addAll(hotelLabel, roomTypeLabel, roomDescLabel, datesLabel, priceLabel);
 
                 // Add room info to the room box
                 roomBox.getChildren().add(roomInfo);
@@ -178,7 +161,7 @@ public class CartController {
 
             // Set action for the "Pay and Book" button
             payButton.setOnAction(e -> {
-                // Process payment and generate booking file
+                // Process payment and record the booking
                 processPayment(cartStage);
             });
 
@@ -196,9 +179,8 @@ public class CartController {
         // Create the scene with the scroll pane
         Scene scene = new Scene(scrollPane, 500, 600);
 
-        // Set the scene and show the stage
+        // Set the scene of the cart window
         cartStage.setScene(scene);
-        cartStage.show();
     }
 
     /**
@@ -212,6 +194,14 @@ public class CartController {
             return;
         }
 
+        // Keep the rooms held while the user pays; if some were already given back, the cart
+        // on screen is out of date, so show the new contents and total and let the user confirm again
+        if (!bookingController.extendHolds(CHECKOUT_HOLD_MINUTES)) {
+            showCart(cartStage, "Some rooms in your cart were no longer held and have been removed. "
+                    + "Please check your cart and total, then press Pay and Book again.");
+            return;
+        }
+
         // Create a new stage for collecting user details
         Stage userDetailsStage = new Stage();
         userDetailsStage.initModality(Modality.APPLICATION_MODAL);
@@ -339,24 +329,40 @@ public class CartController {
         Button okButton = new Button("OK");
         okButton.setPadding(new Insets(10, 20, 10, 20));
 
+        // Status of the booking while it is being recorded
+        Label statusLabel = new Label();
+
         // Set action for the OK button
         okButton.setOnAction(e -> {
-            // Generate booking file
-            generateBookingFile();
-
-            // Clear the cart
-            bookingController.clearCart();
+            okButton.setDisable(true);
+            statusLabel.setStyle("");
+            statusLabel.setText("Saving your booking...");
+
+            // Record the booking off the JavaFX thread; the UI is updated once it is on disk
+            recordBooking().whenComplete((record, error) -> Platform.runLater(() -> {
+                if (error != null) {
+                    // The rooms are back in the cart so that the user can try again
+                    boolean busy = error instanceof RejectedExecutionException
+                            || error.getCause() instanceof RejectedExecutionException;
+                    statusLabel.setText(busy ? "The system is busy, please press OK again."
+                            : "Your booking could not be saved, please try again.");
+                    statusLabel.setStyle("-fx-text-fill: red;");
+                    okButton.setDisable(false);
+                    return;
+                }
 
-            // Close both stages
-            confirmStage.close();
-            cartStage.close();
+                // The cart was emptied by the checkout and the booked rooms stay taken,
+                // so only both stages need closing
+                confirmStage.close();
+                cartStage.close();
+            }));
         });
 
-        // Add message and button to the container
-        confirmContainer.getChildren().addAll(confirmLabel, okButton);
+        // Add message, button and status to the container
+        confirmContainer.getChildren().addAll(confirmLabel, okButton, statusLabel);
 
         // Create the scene with the container
-        Scene scene = new Scene(confirmContainer, 300, 200);
+        Scene scene = new Scene(confirmContainer, 340, 220);
 
         // Set the scene and show the stage
         confirmStage.setScene(scene);
@@ -364,98 +370,21 @@ public class CartController {
     }
 
     /**
-     * Generates a booking confirmation file with all booking details
+     * Books the cart and records the booking in the booking journal with all booking details.
+     * The booking is written by the booking writer thread; this method does not wait for it.
+     * @return A future completed once the booking is on disk, or failed if it could not be recorded
      */
-    private void generateBookingFile() {
+    public CompletableFuture<BookingRecord> recordBooking() {
         try {
-            // Get cart contents
-            List<Room> cart = bookingController.getCart();
-
-            // Generate file name
-            String fileName = generateFileName();
-
-            // Create file
-            File bookingFile = new File(fileName);
-            FileWriter writer = new FileWriter(bookingFile);
-
-            // Write user information if available
-            if (user != null) {
-                writer.write("CUSTOMER INFORMATION:\n");
-                writer.write("===============================\n");
-                if (user.getRealName() != null && user.getSurname() != null) {
-                    writer.write("Name: " + user.getRealName() + " " + user.getSurname() + "\n");
-                }
-                writer.write("Email: " + user.getEmail() + "\n\n");
-            }
-
-            // Write booking date
-            writer.write("BOOKING INFORMATION:\n");
-            writer.write("===============================\n");
-            writer.write("Booking Date: " + LocalDate.now().format(DateTimeFormatter.ISO_LOCAL_DATE) + "\n");
-
-            // Write booking details for each room
-            writer.write("BOOKING DETAILS:\n");
-            writer.write("===============================\n\n");
-
-            double totalPrice = 0;
-
-            for (Room room : cart) {
-                Hotel hotel = room.getHotel();
-
-                writer.write("Hotel: " + hotel.getName() + "\n");
-                writer.write("City: " + hotel.getCity() + "\n");
-                writer.write("Room Type: " + room.getType() + "\n");
-                writer.write("Description: " + room.getDescription() + "\n");
-
-                // Use room-specific dates if available, otherwise use the general dates
-                LocalDate roomCheckIn = checkInDate;
-                LocalDate roomCheckOut = checkOutDate;
-                if (roomDates.containsKey(room)) {
-                    LocalDate[] dates = roomDates.get(room);
-                    roomCheckIn = dates[0];
-                    roomCheckOut = dates[1];
-                }
-
-                writer.write("Check-in Date: " + roomCheckIn.format(DateTimeFormatter.ISO_LOCAL_DATE) + "\n");
-                writer.write("Check-out Date: " + roomCheckOut.format(DateTimeFormatter.ISO_LOCAL_DATE) + "\n");
-
-                // Calculate price for this room using room-specific dates
-                double roomPrice = bookingController.calculateTotalPrice(room, roomCheckIn, roomCheckOut);
-                totalPrice += roomPrice;
-
-                writer.write(String.format("Price: $%.2f\n\n", roomPrice));
-            }
-
-            // Write total price
-            writer.write("===============================\n");
-            writer.write(String.format("TOTAL PRICE: $%.2f\n", totalPrice));
-
-            // Close the writer
-            writer.close();
-
-            System.out.println("Booking file created: " + fileName);
-        } catch (IOException e) {
-            System.err.println("Error creating booking file: " + e.getMessage());
+            // Customer information if available
+            return BookingService.getInstance().checkout(bookingController.getSessionId(),
+                    user != null ? user.getEmail() : null,
+                    user != null ? user.getRealName() : null,
+                    user != null ? user.getSurname() : null).written();
+        } catch (IllegalStateException e) {
+            // The cart is empty
+            return CompletableFuture.failedFuture(e);
         }
     }
 
-    /**
-     * Generates a file name in the format "yearmonthday_username_randomID.txt"
-     * @return The generated file name
-     */
-    private String generateFileName() {
-        // Get current date
-        LocalDate today = LocalDate.now();
-        String dateStr = today.format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-
-        // Generate random 5-digit ID
-        Random random = new Random();
-        int randomID = 10000 + random.nextInt(90000); // 5-digit number between 10000 and 99999
-
-        // Get the username from the user object if available, otherwise use "user"
-        String userName = (user != null) ? user.getNickName() : "user";
-
-        // Create file name
-        return dateStr + "_" + userName + "_" + randomID + ".txt";
-    }
 }
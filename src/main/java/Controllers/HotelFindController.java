@@ -2,31 +2,34 @@ package Controllers;
 
 import Models.Hotel;
 import Models.Room;
-import javafx.application.Platform;
+import Services.BookingService;
+import Services.Catalog;
+import Services.DealOrder;
+import Services.RegionSearch;
+import Services.RoomFilter;
+import Services.SuggestionTrie;
+import Services.TaskExecutor;
 import javafx.concurrent.Task;
-import javafx.geometry.Insets;
-import javafx.scene.control.Button;
-import javafx.scene.control.Label;
-import javafx.scene.layout.HBox;
-import javafx.scene.layout.VBox;
+import javafx.scene.control.ListView;
 
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Controller class responsible for hotel search functionality.
  * Manages the display of hotels and their rooms based on search criteria.
- * Provides methods for finding hotels by city and displaying available rooms.
+ * The catalog itself and the searches live in Services.Catalog; this class
+ * runs them in the background and shows the results.
  */
 public class HotelFindController {
-    /** Static list to store all available hotels */
-    private static List<Hotel> hotels = new ArrayList<>();
+    /** Maximum number of typeahead suggestions returned for a prefix */
+    public static final int MAX_SUGGESTIONS = Catalog.MAX_SUGGESTIONS;
 
-    /** Static list to store all available rooms */
-    private static List<Room> rooms = new ArrayList<>();
+    /** Number of rooms shown by the best deals search */
+    public static final int MAX_DEALS = 20;
 
     /** Reference to the RoomBookingController for booking rooms */
     private RoomBookingController bookingController;
@@ -51,7 +54,32 @@ public class HotelFindController {
      * @param hotel The hotel object to be added
      */
     public static void addHotel(Hotel hotel) {
-        hotels.add(hotel);
+        Catalog.addHotel(hotel);
+    }
+
+    /**
+     * Gets every hotel in the system, in the order they were added
+     * @return A copy of the hotel list
+     */
+    public static List<Hotel> getAllHotels() {
+        return Catalog.getAllHotels();
+    }
+
+    /**
+     * Gets every room in the system, in the order they were added
+     * @return A copy of the room list
+     */
+    public static List<Room> getAllRooms() {
+        return Catalog.getAllRooms();
+    }
+
+    /**
+     * Normalizes a city name so that lookups ignore case and surrounding whitespace
+     * @param city The city name as entered by the user or stored in a hotel
+     * @return The normalized key used by the city index
+     */
+    public static String normalizeCity(String city) {
+        return Catalog.normalizeCity(city);
     }
 
     /**
@@ -59,7 +87,17 @@ public class HotelFindController {
      * @param room The room object to be added
      */
     public static void addRoom(Room room) {
-        rooms.add(room);
+        Catalog.addRoom(room);
+    }
+
+    /**
+     * Suggests cities and hotel names starting with the typed text
+     * @param prefix The text typed so far (case insensitive)
+     * @param limit The maximum number of suggestions, at most MAX_SUGGESTIONS
+     * @return Suggestions ordered by hotel count, highest first
+     */
+    public List<SuggestionTrie.Suggestion> suggest(String prefix, int limit) {
+        return Catalog.suggest(prefix, limit);
     }
 
     /**
@@ -68,85 +106,141 @@ public class HotelFindController {
      * @return A list of hotels located in the specified city
      */
     public List<Hotel> findHotelsByCity(String city) {
-        return hotels.stream()
-                .filter(hotel -> hotel.getCity().equalsIgnoreCase(city))
-                .collect(Collectors.toList());
+        return Catalog.findHotelsByCity(city);
+    }
+
+    /**
+     * Finds hotels in a specific city that have at least one room free for the whole stay.
+     * Results are served from the shared search cache when possible.
+     * @param city The name of the city to search for (case insensitive)
+     * @param checkInDate The check-in date
+     * @param checkOutDate The check-out date
+     * @return A list of hotels with availability for the stay
+     */
+    public List<Hotel> searchHotels(String city, LocalDate checkInDate, LocalDate checkOutDate) {
+        return Catalog.searchHotels(city, checkInDate, checkOutDate);
     }
 
     /**
-     * Displays hotels in the specified city in the provided container
+     * Finds the rooms of a city that match a filter and are free for the whole stay
+     * @param city The name of the city to search for (case insensitive)
+     * @param filter The price, star, room type and availability criteria
+     * @param checkInDate The check-in date
+     * @param checkOutDate The check-out date
+     * @return The matching rooms, cheapest first
+     */
+    public List<Room> filterRooms(String city, RoomFilter filter, LocalDate checkInDate, LocalDate checkOutDate) {
+        return Catalog.filterRooms(city, filter, checkInDate, checkOutDate);
+    }
+
+    /**
+     * Displays hotels in the specified city in the provided results list
      * @param city The city to search for hotels
-     * @param resultsContainer The VBox container where hotel results will be displayed
+     * @param resultsList The virtualized list where hotel results will be displayed
      * @param checkInDate The selected check-in date
      * @param checkOutDate The selected check-out date
      */
-    public void displayHotelsInCity(String city, VBox resultsContainer, LocalDate checkInDate, LocalDate checkOutDate) {
-        // Clear previous results
-        resultsContainer.getChildren().clear();
+    public void displayHotelsInCity(String city, ListView<Object> resultsList, LocalDate checkInDate, LocalDate checkOutDate) {
+        // Render rows with reusable cells bound to this search
+        useCells(resultsList, checkInDate, checkOutDate, false);
+
+        // Replace previous results with a loading message
+        resultsList.getItems().setAll(new ResultListCell.Message("Searching for hotels...", false));
+
+        // Find hotels in the specified city with rooms free for the stay
+        runSearch(() -> searchHotels(city, checkInDate, checkOutDate),
+                foundHotels -> showResults(resultsList, foundHotels, "No hotels available"),
+                message -> resultsList.getItems().setAll(message),
+                new ResultListCell.Message("Error searching for hotels. Please try again.", false));
+    }
 
-        // Add a loading message
-        Label loadingLabel = new Label("Searching for hotels...");
-        resultsContainer.getChildren().add(loadingLabel);
+    /**
+     * Displays the hotels of several cities with a room free for the stay, cheapest first.
+     * Cities that miss the search deadline are named above the results.
+     * @param cities The cities to search
+     * @param resultsList The virtualized list where hotel results will be displayed
+     * @param checkInDate The selected check-in date
+     * @param checkOutDate The selected check-out date
+     */
+    public void displayHotelsInRegion(List<String> cities, ListView<Object> resultsList,
+                                      LocalDate checkInDate, LocalDate checkOutDate) {
+        // Hotel rows name their city, since the list spans several cities
+        useCells(resultsList, checkInDate, checkOutDate, true);
+
+        // Replace previous results with a loading message
+        resultsList.getItems().setAll(new ResultListCell.Message("Searching " + cities.size() + " cities...", false));
+
+        runSearch(() -> BookingService.getInstance().searchRegion(cities, checkInDate, checkOutDate),
+                result -> {
+                    List<Object> rows = new ArrayList<>(result.hotels().size() + 1);
+                    if (result.isPartial()) {
+                        rows.add(new ResultListCell.Message("No results yet from "
+                                + String.join(", ", result.timedOutCities()) + "; try again shortly.", true));
+                    }
+                    for (RegionSearch.HotelOffer offer : result.hotels()) {
+                        rows.add(offer.hotel());
+                    }
+                    showResults(resultsList, rows, "No hotels available");
+                },
+                message -> resultsList.getItems().setAll(message),
+                new ResultListCell.Message("Error searching for hotels. Please try again.", false));
+    }
 
-        // Create a task for asynchronous hotel search
-        Task<List<Hotel>> searchTask = new Task<>() {
-            @Override
-            protected List<Hotel> call() {
-                // Find hotels in the specified city
-                return findHotelsByCity(city);
-            }
-        };
+    /**
+     * Displays the rooms of a city that match a filter, cheapest first, across all its hotels
+     * @param city The city to search for rooms
+     * @param filter The price, star, room type and availability criteria
+     * @param resultsList The virtualized list where room results will be displayed
+     * @param checkInDate The selected check-in date
+     * @param checkOutDate The selected check-out date
+     */
+    public void displayFilteredRooms(String city, RoomFilter filter, ListView<Object> resultsList,
+                                     LocalDate checkInDate, LocalDate checkOutDate) {
+        // Room rows name their hotel, since the list spans several hotels
+        useCells(resultsList, checkInDate, checkOutDate, true);
+
+        // Replace previous results with a loading message
+        resultsList.getItems().setAll(new ResultListCell.Message("Searching for rooms...", false));
+
+        runSearch(() -> filterRooms(city, filter, checkInDate, checkOutDate),
+                foundRooms -> showResults(resultsList, foundRooms, "No rooms match these filters"),
+                message -> resultsList.getItems().setAll(message),
+                new ResultListCell.Message("Error searching for rooms. Please try again.", false));
+    }
 
-        // Handle task completion
-        searchTask.setOnSucceeded(event -> {
-            // Get the search results
-            List<Hotel> foundHotels = searchTask.getValue();
-
-            // Update UI on JavaFX Application Thread
-            Platform.runLater(() -> {
-                // Clear the loading message
-                resultsContainer.getChildren().clear();
-
-                if (foundHotels.isEmpty()) {
-                    // Display message when no hotels are found
-                    Label noHotelsLabel = new Label("No hotels available");
-                    resultsContainer.getChildren().add(noHotelsLabel);
-                } else {
-                    // Display each found hotel with a View button
-                    for (Hotel hotel : foundHotels) {
-                        // Create a horizontal box for hotel information and button
-                        HBox hotelBox = new HBox(10);
-                        hotelBox.setPadding(new Insets(5));
-
-                        // Create a vertical box for hotel details
-                        VBox hotelInfo = new VBox(5);
-                        Label hotelLabel = new Label(hotel.getName() + " - " + hotel.getStars() + " stars");
-                        Label hotelDesc = new Label(hotel.getDescription());
-                        hotelInfo.getChildren().addAll(hotelLabel, hotelDesc);
-
-                        // Create View button with action to display rooms
-                        Button viewButton = new Button("View");
-                        viewButton.setOnAction(e -> displayRoomsForHotel(hotel, resultsContainer, checkInDate, checkOutDate));
-
-                        // Add hotel info and button to the hotel box
-                        hotelBox.getChildren().addAll(hotelInfo, viewButton);
-                        resultsContainer.getChildren().add(hotelBox);
-                    }
-                }
-            });
-        });
-
-        // Handle task failure
-        searchTask.setOnFailed(event -> {
-            Platform.runLater(() -> {
-                resultsContainer.getChildren().clear();
-                Label errorLabel = new Label("Error searching for hotels. Please try again.");
-                resultsContainer.getChildren().add(errorLabel);
-            });
-        });
-
-        // Start the task in a new thread
-        new Thread(searchTask).start();
+    /**
+     * Finds the best deals of a city for a stay
+     * @param city The name of the city to search for (case insensitive)
+     * @param order How the rooms are ranked
+     * @param limit The number of rooms to return
+     * @param checkInDate The check-in date
+     * @param checkOutDate The check-out date
+     * @return Up to limit rooms free for the stay, best first
+     */
+    public List<Room> bestDeals(String city, DealOrder order, int limit, LocalDate checkInDate, LocalDate checkOutDate) {
+        return BookingService.getInstance().bestDeals(city, order, limit, checkInDate, checkOutDate);
+    }
+
+    /**
+     * Displays the best deals of a city across all its hotels, best first
+     * @param city The city to search for rooms
+     * @param order How the rooms are ranked
+     * @param resultsList The virtualized list where room results will be displayed
+     * @param checkInDate The selected check-in date
+     * @param checkOutDate The selected check-out date
+     */
+    public void displayBestDeals(String city, DealOrder order, ListView<Object> resultsList,
+                                 LocalDate checkInDate, LocalDate checkOutDate) {
+        // Room rows name their hotel, since the list spans several hotels
+        useCells(resultsList, checkInDate, checkOutDate, true);
+
+        // Replace previous results with a loading message
+        resultsList.getItems().setAll(new ResultListCell.Message("Looking for the best deals...", false));
+
+        runSearch(() -> bestDeals(city, order, MAX_DEALS, checkInDate, checkOutDate),
+                deals -> showResults(resultsList, deals, "No rooms available"),
+                message -> resultsList.getItems().setAll(message),
+                new ResultListCell.Message("Error searching for deals. Please try again.", false));
     }
 
     /**
@@ -155,131 +249,92 @@ public class HotelFindController {
      * @return A list of rooms belonging to the specified hotel
      */
     public List<Room> findRoomsByHotel(Hotel hotel) {
-        return rooms.stream()
-                .filter(room -> room.getHotel().equals(hotel))
-                .collect(Collectors.toList());
+        return Catalog.findRoomsByHotel(hotel);
     }
 
     /**
      * Displays rooms for a specific hotel with pricing based on selected dates
      * @param hotel The hotel whose rooms should be displayed
-     * @param resultsContainer The VBox container where room results will be displayed
+     * @param resultsList The virtualized list where room results will be displayed
      * @param checkInDate The selected check-in date
      * @param checkOutDate The selected check-out date
      */
-    public void displayRoomsForHotel(Hotel hotel, VBox resultsContainer, LocalDate checkInDate, LocalDate checkOutDate) {
-        // Clear previous results
-        resultsContainer.getChildren().clear();
-
-        // Add back button to return to hotel list
-        Button backButton = new Button("Back to Hotels");
-        backButton.setOnAction(e -> displayHotelsInCity(hotel.getCity(), resultsContainer, checkInDate, checkOutDate));
-
-        // Add hotel header with name and star rating
-        Label hotelHeader = new Label(hotel.getName() + " - " + hotel.getStars() + " stars");
-        hotelHeader.setStyle("-fx-font-weight: bold; -fx-font-size: 14px;");
-
-        // Add back button and hotel header to the container
-        resultsContainer.getChildren().addAll(backButton, hotelHeader);
-
-        // Add a loading message
-        Label loadingLabel = new Label("Loading rooms...");
-        resultsContainer.getChildren().add(loadingLabel);
+    public void displayRoomsForHotel(Hotel hotel, ListView<Object> resultsList, LocalDate checkInDate, LocalDate checkOutDate) {
+        // Render rows with reusable cells bound to this search
+        useCells(resultsList, checkInDate, checkOutDate, false);
+
+        // Show the back button and hotel header, followed by a loading message
+        ResultListCell.HotelHeader header = new ResultListCell.HotelHeader(hotel);
+        resultsList.getItems().setAll(header, new ResultListCell.Message("Loading rooms...", false));
+
+        // Keep the header above the rooms and above any message
+        runSearch(() -> findRoomsByHotel(hotel),
+                hotelRooms -> {
+                    if (hotelRooms.isEmpty()) {
+                        resultsList.getItems().setAll(header, new ResultListCell.Message("No rooms available", false));
+                    } else {
+                        List<Object> rows = new ArrayList<>(hotelRooms.size() + 1);
+                        rows.add(header);
+                        rows.addAll(hotelRooms);
+                        resultsList.getItems().setAll(rows);
+                        resultsList.scrollTo(0);
+                    }
+                },
+                message -> resultsList.getItems().setAll(header, message),
+                new ResultListCell.Message("Error loading rooms. Please try again.", true));
+    }
 
-        // Create a task for asynchronous room search
-        Task<List<Room>> roomSearchTask = new Task<>() {
+    /**
+     * Runs a search on the shared background executor and shows its outcome.
+     * The task's handlers already run on the JavaFX Application Thread, so they update the list directly.
+     * @param search The search, run on a background thread
+     * @param render Shows the search result
+     * @param showMessage Shows a message in place of the results
+     * @param error The message shown if the search fails
+     * @param <T> The type of the search result
+     */
+    private static <T> void runSearch(Supplier<T> search, Consumer<T> render,
+                                      Consumer<ResultListCell.Message> showMessage, ResultListCell.Message error) {
+        Task<T> task = new Task<>() {
             @Override
-            protected List<Room> call() {
-                // Find all rooms for this hotel
-                return findRoomsByHotel(hotel);
+            protected T call() {
+                return search.get();
             }
         };
+        task.setOnSucceeded(event -> render.accept(task.getValue()));
+        task.setOnFailed(event -> showMessage.accept(error));
 
-        // Handle task completion
-        roomSearchTask.setOnSucceeded(event -> {
-            // Get the search results
-            List<Room> hotelRooms = roomSearchTask.getValue();
-
-            // Update UI on JavaFX Application Thread
-            Platform.runLater(() -> {
-                // Calculate the total stay duration in days
-                final long days = ChronoUnit.DAYS.between(checkInDate, checkOutDate) < 1 ? 1 :
-                                  ChronoUnit.DAYS.between(checkInDate, checkOutDate);
-                // Remove the loading message
-                resultsContainer.getChildren().remove(loadingLabel);
-
-                if (hotelRooms.isEmpty()) {
-                    // Display message when no rooms are available
-                    Label noRoomsLabel = new Label("No rooms available");
-                    resultsContainer.getChildren().add(noRoomsLabel);
-                } else {
-                    // Display each room with details, pricing, and booking option
-                    for (Room room : hotelRooms) {
-                        // Create a styled container for room information
-                        VBox roomBox = new VBox(5);
-                        roomBox.setPadding(new Insets(10));
-                        roomBox.setStyle("-fx-border-color: lightgray; -fx-border-radius: 5;");
-
-                        // Create labels for room details
-                        Label typeLabel = new Label("Type: " + room.getType());
-                        Label descLabel = new Label("Description: " + room.getDescription());
-                        Label priceLabel = new Label("Price per day: $" + room.getPrice());
-
-                        // Calculate and display total price for the entire stay
-                        Label totalLabel = new Label("Total for " + days + " days: $" + (room.getPrice() * days));
-
-                        // Show how many rooms of this type are available
-                        Label availableLabel = new Label("Available: " + room.getAvailable());
-
-                        // Add all room details to the room container
-                        roomBox.getChildren().addAll(typeLabel, descLabel, priceLabel, totalLabel, availableLabel);
-
-                        // Create "Add to Cart" button
-                        Button addToCartButton = new Button("Add to Cart");
-
-                        // Set action for the "Add to Cart" button
-                        addToCartButton.setOnAction(e -> {
-                            // Add room to cart
-                            boolean added = bookingController.addToCart(room);
-
-                            if (added) {
-                                // Update UI to reflect new availability
-                                bookingController.updateRoomUI(roomBox, room, addToCartButton, availableLabel);
-
-                                // Show confirmation message
-                                Label confirmLabel = new Label("Room added to cart!");
-                                confirmLabel.setStyle("-fx-text-fill: green;");
-                                roomBox.getChildren().add(confirmLabel);
-                            }
-                        });
-
-                        // Add the button to the room box
-                        roomBox.getChildren().add(addToCartButton);
-
-                        // Update UI based on initial availability
-                        bookingController.updateRoomUI(roomBox, room, addToCartButton, availableLabel);
-
-                        // Add the room box to the results container
-                        resultsContainer.getChildren().add(roomBox);
-                    }
-                }
-            });
-        });
-
-        // Handle task failure
-        roomSearchTask.setOnFailed(event -> {
-            Platform.runLater(() -> {
-                // Remove the loading message
-                resultsContainer.getChildren().remove(loadingLabel);
-
-                // Display error message
-                Label errorLabel = new Label("Error loading rooms. Please try again.");
-                errorLabel.setStyle("-fx-text-fill: red;");
-                resultsContainer.getChildren().add(errorLabel);
-            });
-        });
-
-        // Start the task in a new thread
-        new Thread(roomSearchTask).start();
+        // The executor cancels the task when too many searches are running
+        task.setOnCancelled(event -> showMessage.accept(
+                new ResultListCell.Message("Too many searches in progress. Please try again.", error.error())));
+        TaskExecutor.getInstance().execute(task);
+    }
+
+    /**
+     * Shows result rows from the top, or a message if there are none
+     * @param resultsList The virtualized results list
+     * @param rows The rows to show
+     * @param emptyText The message shown when there are no rows
+     */
+    private static void showResults(ListView<Object> resultsList, List<?> rows, String emptyText) {
+        if (rows.isEmpty()) {
+            resultsList.getItems().setAll(new ResultListCell.Message(emptyText, false));
+        } else {
+            // Only visible rows get nodes
+            resultsList.getItems().setAll(rows);
+            resultsList.scrollTo(0);
+        }
+    }
+
+    /**
+     * Makes the results list render its rows with cells bound to the given dates
+     * @param resultsList The virtualized results list
+     * @param checkInDate The selected check-in date
+     * @param checkOutDate The selected check-out date
+     * @param showHotel true to name the hotel on room rows and the city on hotel rows
+     */
+    private void useCells(ListView<Object> resultsList, LocalDate checkInDate, LocalDate checkOutDate, boolean showHotel) {
+        resultsList.setCellFactory(list ->
+                new ResultListCell(this, bookingController, resultsList, checkInDate, checkOutDate, showHotel));
     }
 }
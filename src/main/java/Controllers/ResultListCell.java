@@ -0,0 +1,265 @@
+package Controllers;
+
+import Models.Hotel;
+import Models.Room;
+import javafx.geometry.Insets;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Reusable cell of the search results list.
+ * The list is virtualized, so only the visible rows have a cell; each cell builds
+ * the nodes for a kind of row (message, hotel, hotel header or room) once and
+ * afterwards only rebinds them to whatever item it is asked to show.
+ */
+public class ResultListCell extends ListCell<Object> {
+    /**
+     * A row showing a plain message, such as "No hotels available"
+     * @param text The message text
+     * @param error true to show the message in red
+     */
+    public record Message(String text, boolean error) {
+    }
+
+    /**
+     * The first row of a hotel's room list, with the back button and hotel name
+     * @param hotel The hotel whose rooms are listed
+     */
+    public record HotelHeader(Hotel hotel) {
+    }
+
+    /** Controller used to navigate between hotel and room lists */
+    private final HotelFindController findController;
+
+    /** Controller used to add rooms to the cart */
+    private final RoomBookingController bookingController;
+
+    /** The list this cell belongs to */
+    private final ListView<Object> resultsList;
+
+    /** The check-in date of the current search */
+    private final LocalDate checkInDate;
+
+    /** The check-out date of the current search */
+    private final LocalDate checkOutDate;
+
+    /** true to name the hotel on room rows and the city on hotel rows, for lists that span several hotels or cities */
+    private final boolean showHotel;
+
+    /** Label for message rows */
+    private Label messageLabel;
+
+    /** Nodes of hotel rows */
+    private HBox hotelBox;
+    private Label hotelLabel;
+    private Label hotelDesc;
+
+    /** Nodes of the hotel header row */
+    private VBox headerBox;
+    private Label headerLabel;
+
+    /** Nodes of room rows */
+    private VBox roomBox;
+    private Label roomHotelLabel;
+    private Label typeLabel;
+    private Label descLabel;
+    private Label priceLabel;
+    private Label totalLabel;
+    private Label availableLabel;
+    private Button addToCartButton;
+    private Label noRoomLabel;
+    private Label confirmLabel;
+
+    /**
+     * Constructor to create a cell for a search
+     * @param findController Controller used to navigate between hotel and room lists
+     * @param bookingController Controller used to add rooms to the cart
+     * @param resultsList The list this cell belongs to
+     * @param checkInDate The check-in date of the search
+     * @param checkOutDate The check-out date of the search
+     * @param showHotel true to name the hotel on room rows and the city on hotel rows
+     */
+    public ResultListCell(HotelFindController findController, RoomBookingController bookingController,
+                          ListView<Object> resultsList, LocalDate checkInDate, LocalDate checkOutDate,
+                          boolean showHotel) {
+        this.findController = findController;
+        this.bookingController = bookingController;
+        this.resultsList = resultsList;
+        this.checkInDate = checkInDate;
+        this.checkOutDate = checkOutDate;
+        this.showHotel = showHotel;
+    }
+
+    /**
+     * Rebinds the cell to a new item
+     * @param item The row to show
+     * @param empty true if the cell has no row
+     */
+    @Override
+    protected void updateItem(Object item, boolean empty) {
+        super.updateItem(item, empty);
+        setText(null);
+
+        if (empty || item == null) {
+            setGraphic(null);
+        } else if (item instanceof Hotel hotel) {
+            showHotel(hotel);
+        } else if (item instanceof HotelHeader header) {
+            showHeader(header.hotel());
+        } else if (item instanceof Room room) {
+            showRoom(room);
+        } else if (item instanceof Message message) {
+            showMessage(message);
+        } else {
+            showMessage(new Message(item.toString(), false));
+        }
+    }
+
+    /**
+     * Shows a message row
+     * @param message The message to show
+     */
+    private void showMessage(Message message) {
+        if (messageLabel == null) {
+            messageLabel = new Label();
+        }
+        messageLabel.setText(message.text());
+        messageLabel.setStyle(message.error() ? "-fx-text-fill: red;" : "");
+        setGraphic(messageLabel);
+    }
+
+    /**
+     * Shows a hotel row with a View button
+     * @param hotel The hotel to show
+     */
+    private void showHotel(Hotel hotel) {
+        if (hotelBox == null) {
+            // Create a horizontal box for hotel information and button
+            hotelBox = new HBox(10);
+            hotelBox.setPadding(new Insets(5));
+
+            // Create a vertical box for hotel details
+            hotelLabel = new Label();
+            hotelDesc = new Label();
+            VBox hotelInfo = new VBox(5, hotelLabel, hotelDesc);
+
+            // Create View button with action to display rooms of the hotel currently shown
+            Button viewButton = new Button("View");
+            viewButton.setOnAction(e -> {
+                if (getItem() instanceof Hotel shown) {
+                    findController.displayRoomsForHotel(shown, resultsList, checkInDate, checkOutDate);
+                }
+            });
+
+            hotelBox.getChildren().addAll(hotelInfo, viewButton);
+        }
+
+        hotelLabel.setText(hotel.getName() + " - " + hotel.getStars() + " stars"
+                + (showHotel ? " - " + hotel.getCity() : ""));
+        hotelDesc.setText(hotel.getDescription());
+        setGraphic(hotelBox);
+    }
+
+    /**
+     * Shows the header row of a hotel's room list
+     * @param hotel The hotel whose rooms are listed
+     */
+    private void showHeader(Hotel hotel) {
+        if (headerBox == null) {
+            // Add back button to return to hotel list
+            Button backButton = new Button("Back to Hotels");
+            backButton.setOnAction(e -> {
+                if (getItem() instanceof HotelHeader header) {
+                    findController.displayHotelsInCity(header.hotel().getCity(), resultsList, checkInDate, checkOutDate);
+                }
+            });
+
+            // Add hotel header with name and star rating
+            headerLabel = new Label();
+            headerLabel.setStyle("-fx-font-weight: bold; -fx-font-size: 14px;");
+
+            headerBox = new VBox(5, backButton, headerLabel);
+        }
+
+        headerLabel.setText(hotel.getName() + " - " + hotel.getStars() + " stars");
+        setGraphic(headerBox);
+    }
+
+    /**
+     * Shows a room row with pricing for the search dates and an Add to Cart button
+     * @param room The room to show
+     */
+    private void showRoom(Room room) {
+        if (roomBox == null) {
+            // Create a styled container for room information
+            roomBox = new VBox(5);
+            roomBox.setPadding(new Insets(10));
+            roomBox.setStyle("-fx-border-color: lightgray; -fx-border-radius: 5;");
+
+            // Create labels for room details; the hotel is only named in lists spanning several hotels
+            roomHotelLabel = new Label();
+            roomHotelLabel.setStyle("-fx-font-weight: bold;");
+            roomHotelLabel.setVisible(showHotel);
+            roomHotelLabel.setManaged(showHotel);
+            typeLabel = new Label();
+            descLabel = new Label();
+            priceLabel = new Label();
+            totalLabel = new Label();
+            availableLabel = new Label();
+
+            // Create "Add to Cart" button that books the room currently shown
+            addToCartButton = new Button("Add to Cart");
+            addToCartButton.setOnAction(e -> {
+                if (getItem() instanceof Room shown
+                        && bookingController.addToCart(shown, checkInDate, checkOutDate)) {
+                    updateRoomState(shown);
+                }
+            });
+
+            // Labels for sold out rooms and rooms already in the cart
+            noRoomLabel = new Label("No such room available");
+            noRoomLabel.setStyle("-fx-text-fill: red;");
+            confirmLabel = new Label();
+            confirmLabel.setStyle("-fx-text-fill: green;");
+
+            roomBox.getChildren().addAll(roomHotelLabel, typeLabel, descLabel, priceLabel, totalLabel, availableLabel,
+                    addToCartButton, noRoomLabel, confirmLabel);
+        }
+
+        // Calculate the total stay duration in days
+        long days = Math.max(1, ChronoUnit.DAYS.between(checkInDate, checkOutDate));
+
+        if (showHotel) {
+            Hotel hotel = room.getHotel();
+            roomHotelLabel.setText(hotel.getName() + " (" + hotel.getStars() + " stars)");
+        }
+        typeLabel.setText("Type: " + room.getType());
+        descLabel.setText("Description: " + room.getDescription());
+        priceLabel.setText("Price per day: $" + room.getPrice());
+        totalLabel.setText(String.format("Total for %d days: $%.2f", days,
+                bookingController.calculateTotalPrice(room, checkInDate, checkOutDate)));
+        updateRoomState(room);
+        setGraphic(roomBox);
+    }
+
+    /**
+     * Updates the availability and cart state of the room row
+     * @param room The room shown in the row
+     */
+    private void updateRoomState(Room room) {
+        bookingController.updateRoomUI(room, addToCartButton, availableLabel, noRoomLabel, checkInDate, checkOutDate);
+
+        // Confirm how many of this room are already in the cart
+        int inCart = bookingController.getCartQuantity(room);
+        confirmLabel.setText(inCart > 0 ? "Room added to cart! (" + inCart + " in cart)" : "");
+        confirmLabel.setVisible(inCart > 0);
+        confirmLabel.setManaged(inCart > 0);
+    }
+}
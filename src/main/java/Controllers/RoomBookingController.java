@@ -1,53 +1,52 @@
 package Controllers;
 
+import Models.Reservation;
 import Models.Room;
+import Services.BookingService;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
-import javafx.scene.layout.VBox;
 
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Controller class responsible for room booking functionality.
- * Manages the cart system for booking rooms and updating room availability.
+ * Manages the cart of one session for booking rooms and updating room availability.
+ * The cart, holds and pricing live in Services.BookingService; this class binds
+ * them to a session and shows room availability in the UI.
  */
 public class RoomBookingController {
-    /** Static list to store all rooms in the cart */
-    private static List<Room> cart = new ArrayList<>();
+    /** The booking engine */
+    private final BookingService bookingService = BookingService.getInstance();
 
-    /** Map to store the quantity of each room type in the cart */
-    private static Map<Room, Integer> cartQuantities = new HashMap<>();
+    /** Session whose cart this controller manages */
+    private final String sessionId;
 
     /**
-     * Adds a room to the cart and decreases its availability
-     * @param room The room to be added to the cart
-     * @return true if the room was successfully added, false if it's not available
+     * Constructor to create a controller for a new session
      */
-    public boolean addToCart(Room room) {
-        // Check if the room is available
-        if (room.getAvailable() <= 0) {
-            return false;
-        }
-
-        // Add room to cart
-        cart.add(room);
-
-        // Update cart quantities
-        if (cartQuantities.containsKey(room)) {
-            cartQuantities.put(room, cartQuantities.get(room) + 1);
-        } else {
-            cartQuantities.put(room, 1);
-        }
+    public RoomBookingController() {
+        this.sessionId = bookingService.openSession();
+    }
 
-        // Decrease room availability
-        room.setAvailable(room.getAvailable() - 1);
+    /**
+     * Constructor to create a controller for the cart of a session
+     * @param sessionId The session id
+     */
+    public RoomBookingController(String sessionId) {
+        this.sessionId = sessionId;
+    }
 
-        return true;
+    /**
+     * Adds a room to the cart for a stay and reserves a unit on every night of it
+     * @param room The room to be added to the cart
+     * @param checkInDate The check-in date
+     * @param checkOutDate The check-out date
+     * @return true if the room was successfully added, false if some night is not available
+     */
+    public boolean addToCart(Room room, LocalDate checkInDate, LocalDate checkOutDate) {
+        return bookingService.hold(sessionId, room, checkInDate, checkOutDate);
     }
 
     /**
@@ -55,7 +54,20 @@ public class RoomBookingController {
      * @return List of rooms in the cart
      */
     public List<Room> getCart() {
-        return cart;
+        List<Reservation> reservations = getReservations();
+        List<Room> rooms = new ArrayList<>(reservations.size());
+        for (Reservation reservation : reservations) {
+            rooms.add(reservation.getRoom());
+        }
+        return rooms;
+    }
+
+    /**
+     * Gets all reservations currently in the cart
+     * @return List of reservations in the cart, in the order they were added
+     */
+    public List<Reservation> getReservations() {
+        return bookingService.getCart(sessionId);
     }
 
     /**
@@ -64,51 +76,69 @@ public class RoomBookingController {
      * @return The quantity of the room in the cart
      */
     public int getCartQuantity(Room room) {
-        return cartQuantities.getOrDefault(room, 0);
+        return bookingService.getCartQuantity(sessionId, room);
     }
 
     /**
      * Clears the cart and restores room availability
      */
     public void clearCart() {
-        // Restore room availability
-        for (Map.Entry<Room, Integer> entry : cartQuantities.entrySet()) {
-            Room room = entry.getKey();
-            int quantity = entry.getValue();
-            room.setAvailable(room.getAvailable() + quantity);
-        }
+        bookingService.clearCart(sessionId);
+    }
 
-        // Clear cart and quantities
-        cart.clear();
-        cartQuantities.clear();
+    /**
+     * Empties the cart after its rooms were booked; the rooms stay taken
+     * @return The reservations that were booked
+     */
+    public List<Reservation> confirmCart() {
+        return bookingService.confirmCart(sessionId);
+    }
+
+    /**
+     * Extends the holds of all rooms in the cart, for example while the user pays
+     * @param minutes New time until the holds expire, in minutes
+     * @return true if every room in the cart was still held
+     */
+    public boolean extendHolds(long minutes) {
+        return bookingService.extendHolds(sessionId, minutes);
+    }
+
+    /**
+     * Ends the session: drops its cart and restores room availability
+     */
+    public void endSession() {
+        bookingService.endSession(sessionId);
     }
 
     /**
-     * Updates the UI for a room box based on room availability
-     * @param roomBox The VBox container for the room
+     * Gets the session whose cart this controller manages
+     * @return The session id
+     */
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Updates the controls of a room row based on room availability for a stay
      * @param room The room to update UI for
      * @param addToCartButton The "Add to Cart" button
      * @param availableLabel The label showing availability
+     * @param noRoomLabel The label shown when no room is available
+     * @param checkInDate The check-in date
+     * @param checkOutDate The check-out date
      */
-    public void updateRoomUI(VBox roomBox, Room room, Button addToCartButton, Label availableLabel) {
+    public void updateRoomUI(Room room, Button addToCartButton, Label availableLabel, Label noRoomLabel,
+                             LocalDate checkInDate, LocalDate checkOutDate) {
+        int available = room.getAvailable(checkInDate, checkOutDate);
+
         // Update availability label
-        availableLabel.setText("Available: " + room.getAvailable());
-
-        // Check if room is available
-        if (room.getAvailable() <= 0) {
-            // Hide "Add to Cart" button
-            addToCartButton.setVisible(false);
-            addToCartButton.setManaged(false);
-
-            // Show "No such room available" label
-            Label noRoomLabel = new Label("No such room available");
-            noRoomLabel.setStyle("-fx-text-fill: red;");
-            roomBox.getChildren().add(noRoomLabel);
-        } else {
-            // Show "Add to Cart" button
-            addToCartButton.setVisible(true);
-            addToCartButton.setManaged(true);
-        }
+        availableLabel.setText("Available: " + available);
+
+        // Show either the "Add to Cart" button or the "No such room available" label
+        addToCartButton.setVisible(available > 0);
+        addToCartButton.setManaged(available > 0);
+        noRoomLabel.setVisible(available <= 0);
+        noRoomLabel.setManaged(available <= 0);
     }
 
     /**
@@ -119,11 +149,6 @@ public class RoomBookingController {
      * @return The total price for the stay
      */
     public double calculateTotalPrice(Room room, LocalDate checkInDate, LocalDate checkOutDate) {
-        // Calculate number of days
-        long days = ChronoUnit.DAYS.between(checkInDate, checkOutDate);
-        if (days < 1) days = 1; // Minimum 1 day
-
-        // Calculate total price
-        return room.getPrice() * days;
+        return bookingService.calculateTotalPrice(room, checkInDate, checkOutDate);
     }
 }
@@ -0,0 +1,54 @@
+package Metrics;
+
+/**
+ * JMX view of the booking counters, counted since the application started
+ */
+public interface BookingCountersMXBean {
+    /**
+     * Gets the number of hotel searches
+     * @return The count
+     */
+    long getSearches();
+
+    /**
+     * Gets the number of room lookups for a hotel
+     * @return The count
+     */
+    long getRoomLookups();
+
+    /**
+     * Gets the number of rooms added to a cart
+     * @return The count
+     */
+    long getAddToCartSucceeded();
+
+    /**
+     * Gets the number of rooms that could not be added to a cart because none was free
+     * @return The count
+     */
+    long getAddToCartFailed();
+
+    /**
+     * Gets the number of bookings checked out and written to disk
+     * @return The count
+     */
+    long getCheckoutsSucceeded();
+
+    /**
+     * Gets the number of checkouts that failed
+     * @return The count
+     */
+    long getCheckoutsFailed();
+
+    /**
+     * Gets the number of journal writes, each covering a batch of bookings
+     * @return The count
+     */
+    long getFileWrites();
+
+    /**
+     * Gets the number of journal writes that failed
+     * @return The count
+     */
+    long getFileWriteFailures();
+}
@@ -0,0 +1,302 @@
+package Metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and counters of the booking engine: search, room lookup, add-to-cart,
+ * checkout and journal writes. Recording is lock-free (LongAdder counters and
+ * LatencyHistogram) and cheap enough for the hot paths.
+ *
+ * The shared instance publishes everything as JMX MBeans under the Final_OOP domain:
+ * Final_OOP:type=Counters for the counters and Final_OOP:type=Latency,name=... for
+ * each histogram, so they can be watched with jconsole or any JMX client.
+ *
+ * When booking.metrics.dumpSeconds is above 0, a daemon thread also prints all
+ * metrics to standard output at that interval (off by default).
+ */
+public class BookingMetrics implements BookingCountersMXBean {
+    /** The shared metrics, created on first use */
+    private static volatile BookingMetrics instance;
+
+    /** JMX domain of the published MBeans */
+    public static final String JMX_DOMAIN = "Final_OOP";
+
+    /** Latency of hotel searches */
+    private final LatencyHistogram searchLatency = new LatencyHistogram();
+
+    /** Latency of looking up the rooms of a hotel */
+    private final LatencyHistogram roomLookupLatency = new LatencyHistogram();
+
+    /** Latency from checkout to the booking being on disk */
+    private final LatencyHistogram checkoutLatency = new LatencyHistogram();
+
+    /** Latency of one journal write and fsync */
+    private final LatencyHistogram fileWriteLatency = new LatencyHistogram();
+
+    /** Counters */
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder roomLookups = new LongAdder();
+    private final LongAdder addToCartSucceeded = new LongAdder();
+    private final LongAdder addToCartFailed = new LongAdder();
+    private final LongAdder checkoutsSucceeded = new LongAdder();
+    private final LongAdder checkoutsFailed = new LongAdder();
+    private final LongAdder fileWrites = new LongAdder();
+    private final LongAdder fileWriteFailures = new LongAdder();
+
+    /**
+     * Gets the shared metrics, published over JMX and dumped periodically if configured
+     * @return The application-wide metrics
+     */
+    public static BookingMetrics getInstance() {
+        BookingMetrics metrics = instance;
+        if (metrics == null) {
+            synchronized (BookingMetrics.class) {
+                metrics = instance;
+                if (metrics == null) {
+                    metrics = new BookingMetrics();
+                    metrics.register(ManagementFactory.getPlatformMBeanServer());
+                    metrics.startDump(Long.getLong("booking.metrics.dumpSeconds", 0));
+                    instance = metrics;
+                }
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Records a hotel search
+     * @param startNanos When the search started, from System.nanoTime()
+     */
+    public void recordSearch(long startNanos) {
+        searchLatency.recordSince(startNanos);
+        searches.increment();
+    }
+
+    /**
+     * Records a room lookup for a hotel
+     * @param startNanos When the lookup started, from System.nanoTime()
+     */
+    public void recordRoomLookup(long startNanos) {
+        roomLookupLatency.recordSince(startNanos);
+        roomLookups.increment();
+    }
+
+    /**
+     * Records an attempt to add a room to a cart
+     * @param held true if the room was held, false if none was free
+     */
+    public void recordAddToCart(boolean held) {
+        (held ? addToCartSucceeded : addToCartFailed).increment();
+    }
+
+    /**
+     * Records a finished checkout
+     * @param startNanos When the checkout started, from System.nanoTime()
+     * @param succeeded true if the booking reached the disk
+     */
+    public void recordCheckout(long startNanos, boolean succeeded) {
+        if (succeeded) {
+            checkoutLatency.recordSince(startNanos);
+            checkoutsSucceeded.increment();
+        } else {
+            checkoutsFailed.increment();
+        }
+    }
+
+    /**
+     * Records a journal write
+     * @param startNanos When the write started, from System.nanoTime()
+     * @param succeeded true if the write and fsync succeeded
+     */
+    public void recordFileWrite(long startNanos, boolean succeeded) {
+        if (succeeded) {
+            fileWriteLatency.recordSince(startNanos);
+            fileWrites.increment();
+        } else {
+            fileWriteFailures.increment();
+        }
+    }
+
+    /**
+     * Gets the latency histogram of hotel searches
+     * @return The histogram
+     */
+    public LatencyHistogram getSearchLatency() {
+        return searchLatency;
+    }
+
+    /**
+     * Gets the latency histogram of room lookups
+     * @return The histogram
+     */
+    public LatencyHistogram getRoomLookupLatency() {
+        return roomLookupLatency;
+    }
+
+    /**
+     * Gets the latency histogram of checkouts
+     * @return The histogram
+     */
+    public LatencyHistogram getCheckoutLatency() {
+        return checkoutLatency;
+    }
+
+    /**
+     * Gets the latency histogram of journal writes
+     * @return The histogram
+     */
+    public LatencyHistogram getFileWriteLatency() {
+        return fileWriteLatency;
+    }
+
+    /**
+     * Gets the number of hotel searches
+     * @return The count
+     */
+    @Override
+    public long getSearches() {
+        return searches.sum();
+    }
+
+    /**
+     * Gets the number of room lookups for a hotel
+     * @return The count
+     */
+    @Override
+    public long getRoomLookups() {
+        return roomLookups.sum();
+    }
+
+    /**
+     * Gets the number of rooms added to a cart
+     * @return The count
+     */
+    @Override
+    public long getAddToCartSucceeded() {
+        return addToCartSucceeded.sum();
+    }
+
+    /**
+     * Gets the number of rooms that could not be added to a cart because none was free
+     * @return The count
+     */
+    @Override
+    public long getAddToCartFailed() {
+        return addToCartFailed.sum();
+    }
+
+    /**
+     * Gets the number of bookings checked out and written to disk
+     * @return The count
+     */
+    @Override
+    public long getCheckoutsSucceeded() {
+        return checkoutsSucceeded.sum();
+    }
+
+    /**
+     * Gets the number of checkouts that failed
+     * @return The count
+     */
+    @Override
+    public long getCheckoutsFailed() {
+        return checkoutsFailed.sum();
+    }
+
+    /**
+     * Gets the number of journal writes, each covering a batch of bookings
+     * @return The count
+     */
+    @Override
+    public long getFileWrites() {
+        return fileWrites.sum();
+    }
+
+    /**
+     * Gets the number of journal writes that failed
+     * @return The count
+     */
+    @Override
+    public long getFileWriteFailures() {
+        return fileWriteFailures.sum();
+    }
+
+    /**
+     * Gets the histograms by name, as published over JMX
+     * @return The histograms in a fixed order
+     */
+    private Map<String, LatencyHistogram> getHistograms() {
+        Map<String, LatencyHistogram> histograms = new LinkedHashMap<>();
+        histograms.put("search", searchLatency);
+        histograms.put("roomLookup", roomLookupLatency);
+        histograms.put("checkout", checkoutLatency);
+        histograms.put("fileWrite", fileWriteLatency);
+        return histograms;
+    }
+
+    /**
+     * Publishes the counters and histograms as MBeans.
+     * Failing to register only costs the JMX view, so it is reported and otherwise ignored.
+     * @param server The MBean server
+     */
+    private void register(MBeanServer server) {
+        try {
+            server.registerMBean(this, new ObjectName(JMX_DOMAIN + ":type=Counters"));
+            for (Map.Entry<String, LatencyHistogram> entry : getHistograms().entrySet()) {
+                server.registerMBean(entry.getValue(),
+                        new ObjectName(JMX_DOMAIN + ":type=Latency,name=" + entry.getKey()));
+            }
+        } catch (JMException e) {
+            System.err.println("Error registering metrics MBeans: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Starts printing the metrics at a fixed interval
+     * @param seconds The interval in seconds; 0 or less disables the dump
+     */
+    private void startDump(long seconds) {
+        if (seconds <= 0) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                while (true) {
+                    Thread.sleep(seconds * 1000);
+                    System.out.print(toText());
+                }
+            } catch (InterruptedException e) {
+                // Stop dumping
+            }
+        }, "metrics-dump");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Renders all metrics as a small text report
+     * @return One line per counter group and one line per histogram
+     */
+    public String toText() {
+        StringBuilder text = new StringBuilder(512);
+        text.append(String.format(Locale.ROOT,
+                "metrics: searches=%d roomLookups=%d addToCart=%d/%d failed checkouts=%d/%d failed fileWrites=%d/%d failed%n",
+                getSearches(), getRoomLookups(), getAddToCartSucceeded(), getAddToCartFailed(),
+                getCheckoutsSucceeded(), getCheckoutsFailed(), getFileWrites(), getFileWriteFailures()));
+        for (Map.Entry<String, LatencyHistogram> entry : getHistograms().entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            text.append(String.format(Locale.ROOT,
+                    "  %-10s count=%d mean=%.3fms p50=%.3fms p99=%.3fms p99.9=%.3fms max=%.3fms%n",
+                    entry.getKey(), histogram.getCount(), histogram.getMeanMillis(), histogram.getP50Millis(),
+                    histogram.getP99Millis(), histogram.getP999Millis(), histogram.getMaxMillis()));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,187 @@
+package Metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, in the style of HdrHistogram.
+ * Values are grouped by power of two and each power of two is split into 32 linear
+ * sub-buckets, so every value up to Long.MAX_VALUE nanoseconds fits in 2048 counters
+ * and percentiles are accurate to about 3%.
+ *
+ * Recording is one atomic increment on the bucket plus a LongAdder update, so it can
+ * be called from hot paths on many threads. Readers see a consistent enough view for
+ * monitoring; a percentile may miss values recorded while it is computed.
+ */
+public class LatencyHistogram implements LatencyMXBean {
+    /** Sub-buckets per power of two, as a power of two */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /** Counts per bucket */
+    private final AtomicLongArray counts = new AtomicLongArray(64 << SUB_BUCKET_BITS);
+
+    /** Number of recorded values */
+    private final LongAdder total = new LongAdder();
+
+    /** Sum of the recorded values, for the mean */
+    private final LongAdder sum = new LongAdder();
+
+    /** Largest recorded value */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency
+     * @param nanos The latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.getAndIncrement(bucket(value));
+        total.increment();
+        sum.add(value);
+
+        // Only contend on the maximum when it actually grows
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Records the time elapsed since a start time
+     * @param startNanos The start time, from System.nanoTime()
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Gets the bucket of a value
+     * @param value The value, not negative
+     * @return The bucket index
+     */
+    private static int bucket(long value) {
+        if (value < (1L << SUB_BUCKET_BITS)) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> exponent) & ((1 << SUB_BUCKET_BITS) - 1);
+        return ((exponent + 1) << SUB_BUCKET_BITS) + sub;
+    }
+
+    /**
+     * Gets the highest value a bucket can hold
+     * @param bucket The bucket index
+     * @return The value
+     */
+    private static long bucketTop(int bucket) {
+        if (bucket < (1 << SUB_BUCKET_BITS)) {
+            return bucket;
+        }
+        int exponent = (bucket >>> SUB_BUCKET_BITS) - 1;
+        long sub = (bucket & ((1 << SUB_BUCKET_BITS) - 1)) | (1L << SUB_BUCKET_BITS);
+        return ((sub + 1) << exponent) - 1;
+    }
+
+    /**
+     * Gets a percentile
+     * @param percentile The percentile, between 0 and 100
+     * @return The latency in nanoseconds below which that share of values lie
+     */
+    public long getPercentile(double percentile) {
+        long count = total.sum();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(bucketTop(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Gets the number of recorded values
+     * @return The count
+     */
+    @Override
+    public long getCount() {
+        return total.sum();
+    }
+
+    /**
+     * Gets the largest recorded value
+     * @return The latency in nanoseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets the mean of the recorded values
+     * @return The mean latency in nanoseconds, or 0 if nothing was recorded
+     */
+    public double getMean() {
+        long count = total.sum();
+        return count == 0 ? 0 : sum.sum() / (double) count;
+    }
+
+    /**
+     * Gets the mean latency
+     * @return The mean in milliseconds
+     */
+    @Override
+    public double getMeanMillis() {
+        return getMean() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Gets the median latency
+     * @return The 50th percentile in milliseconds
+     */
+    @Override
+    public double getP50Millis() {
+        return toMillis(getPercentile(50));
+    }
+
+    /**
+     * Gets the 99th percentile latency
+     * @return The 99th percentile in milliseconds
+     */
+    @Override
+    public double getP99Millis() {
+        return toMillis(getPercentile(99));
+    }
+
+    /**
+     * Gets the 99.9th percentile latency
+     * @return The 99.9th percentile in milliseconds
+     */
+    @Override
+    public double getP999Millis() {
+        return toMillis(getPercentile(99.9));
+    }
+
+    /**
+     * Gets the highest latency
+     * @return The maximum in milliseconds
+     */
+    @Override
+    public double getMaxMillis() {
+        return toMillis(getMax());
+    }
+
+    /**
+     * Converts nanoseconds to fractional milliseconds
+     * @param nanos The time in nanoseconds
+     * @return The time in milliseconds
+     */
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,43 @@
+package Metrics;
+
+/**
+ * JMX view of a latency histogram. Times are in milliseconds and cover everything
+ * recorded since the application started.
+ */
+public interface LatencyMXBean {
+    /**
+     * Gets the number of recorded operations
+     * @return The count
+     */
+    long getCount();
+
+    /**
+     * Gets the mean latency
+     * @return The mean in milliseconds
+     */
+    double getMeanMillis();
+
+    /**
+     * Gets the median latency
+     * @return The 50th percentile in milliseconds
+     */
+    double getP50Millis();
+
+    /**
+     * Gets the 99th percentile latency
+     * @return The 99th percentile in milliseconds
+     */
+    double getP99Millis();
+
+    /**
+     * Gets the 99.9th percentile latency
+     * @return The 99.9th percentile in milliseconds
+     */
+    double getP999Millis();
+
+    /**
+     * Gets the highest latency
+     * @return The maximum in milliseconds
+     */
+    double getMaxMillis();
+}
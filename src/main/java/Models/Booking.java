@@ -1,5 +1,7 @@
 package Models;
 
+import Util.IdGenerator;
+
 import java.time.LocalDate;
 
 public class Booking {
@@ -19,6 +21,14 @@ public class Booking {
         this.checkOut = checkOut;
     }
 
+    public Booking(User user, Hotel hotel, Room room, LocalDate checkIn, LocalDate checkOut) {
+        this(IdGenerator.getInstance().nextIdText(), user, hotel, room, checkIn, checkOut);
+    }
+
+    public String getId() {
+        return id;
+    }
+
     public String outputBooking(Booking booking) {
         return "Booking ID: " + booking.id + "\n" +
                 "User: " + booking.user.getNickName() + "\n" +
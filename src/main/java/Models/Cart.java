@@ -0,0 +1,148 @@
+package Models;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Model class representing the cart of one session.
+ * Keeps the reservations in the order they were added together with the number of
+ * units held per room, so that adding, removing and looking up a quantity are all O(1).
+ *
+ * A cart is closed when its session ends or is evicted. A closed cart accepts no new
+ * reservations, so the caller knows to continue with a fresh cart.
+ */
+public class Cart {
+    /** Session the cart belongs to */
+    private final String sessionId;
+
+    /** Reservations in the order they were added; created on the first add */
+    private LinkedHashSet<Reservation> reservations;
+
+    /** Number of reservations per room; created on the first add */
+    private Map<Room, Integer> quantities;
+
+    /** Whether the cart was closed */
+    private boolean closed;
+
+    /** Last time the cart was used, in milliseconds */
+    private volatile long lastAccess;
+
+    /**
+     * Constructor to create an empty cart
+     * @param sessionId Session the cart belongs to
+     */
+    public Cart(String sessionId) {
+        this.sessionId = sessionId;
+        this.lastAccess = System.currentTimeMillis();
+    }
+
+    /**
+     * Adds a reservation
+     * @param reservation The reservation to add
+     * @return true if added, false if the cart is closed
+     */
+    public synchronized boolean add(Reservation reservation) {
+        if (closed) {
+            return false;
+        }
+        if (reservations == null) {
+            reservations = new LinkedHashSet<>();
+            quantities = new HashMap<>();
+        }
+        reservations.add(reservation);
+        quantities.merge(reservation.getRoom(), 1, Integer::sum);
+        return true;
+    }
+
+    /**
+     * Removes a reservation
+     * @param reservation The reservation to remove
+     * @return true if the reservation was in the cart
+     */
+    public synchronized boolean remove(Reservation reservation) {
+        if (reservations == null || !reservations.remove(reservation)) {
+            return false;
+        }
+        quantities.computeIfPresent(reservation.getRoom(), (room, quantity) -> quantity > 1 ? quantity - 1 : null);
+        return true;
+    }
+
+    /**
+     * Gets the reservations in the cart
+     * @return A copy of the reservations, in the order they were added
+     */
+    public synchronized List<Reservation> getReservations() {
+        return reservations == null ? new ArrayList<>() : new ArrayList<>(reservations);
+    }
+
+    /**
+     * Gets the number of units of a room in the cart
+     * @param room The room to check
+     * @return The quantity of the room in the cart
+     */
+    public synchronized int getQuantity(Room room) {
+        return quantities == null ? 0 : quantities.getOrDefault(room, 0);
+    }
+
+    /**
+     * Gets the number of reservations in the cart
+     * @return The number of reservations
+     */
+    public synchronized int size() {
+        return reservations == null ? 0 : reservations.size();
+    }
+
+    /**
+     * Empties the cart
+     * @return The reservations that were in the cart
+     */
+    public synchronized List<Reservation> clear() {
+        List<Reservation> removed = getReservations();
+        reservations = null;
+        quantities = null;
+        return removed;
+    }
+
+    /**
+     * Empties and closes the cart
+     * @return The reservations that were in the cart
+     */
+    public synchronized List<Reservation> close() {
+        closed = true;
+        return clear();
+    }
+
+    /**
+     * Checks whether the cart was closed
+     * @return true if the cart accepts no more reservations
+     */
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Gets the session the cart belongs to
+     * @return The session id
+     */
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Records that the cart was used now
+     */
+    public void touch() {
+        lastAccess = System.currentTimeMillis();
+    }
+
+    /**
+     * Gets the last time the cart was used
+     * @return The time in milliseconds
+     */
+    public long getLastAccess() {
+        return lastAccess;
+    }
+}
@@ -15,12 +15,15 @@ public class Hotel {
     /** Quality rating of the hotel (1-5 stars) */
     private int stars;
 
-    /** City where the hotel is located */
+    /** City where the hotel is located; pooled, since many hotels share a city */
     private String city;
 
     /** Brief description of the hotel and its amenities */
     private String description;
 
+    /** Catalog id of the hotel, or -1 before it is added to the catalog */
+    private volatile int id = -1;
+
     /**
      * Constructor to create a new Hotel object with all required information
      * @param name The name of the hotel
@@ -33,7 +36,7 @@ public class Hotel {
         this.name = name;
         this.phoneNumber = phoneNumber;
         this.stars = stars;
-        this.city = city;
+        this.city = StringPool.canonical(city);
         this.description = description;
     }
 
@@ -76,4 +79,20 @@ public class Hotel {
     public String getDescription() {
         return description;
     }
+
+    /**
+     * Gets the catalog id of the hotel
+     * @return The id, or -1 if the hotel is not in the catalog
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Sets the catalog id of the hotel; called by the catalog when the hotel is added
+     * @param id The id
+     */
+    public void setId(int id) {
+        this.id = id;
+    }
 }
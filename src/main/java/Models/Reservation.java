@@ -0,0 +1,80 @@
+package Models;
+
+import Util.TimingWheel;
+
+import java.time.LocalDate;
+
+/**
+ * Model class representing one unit of a room held in the cart for a stay.
+ * A reservation is a hold that expires unless the booking is completed in time, so it
+ * can be scheduled on a timing wheel.
+ */
+public class Reservation extends TimingWheel.Timeout {
+    /** The reserved room type */
+    private final Room room;
+
+    /** The check-in date */
+    private final LocalDate checkIn;
+
+    /** The check-out date */
+    private final LocalDate checkOut;
+
+    /** The session whose cart holds the reservation, or null */
+    private final String sessionId;
+
+    /**
+     * Constructor to create a new Reservation
+     * @param room The reserved room type
+     * @param checkIn The check-in date
+     * @param checkOut The check-out date
+     */
+    public Reservation(Room room, LocalDate checkIn, LocalDate checkOut) {
+        this(room, checkIn, checkOut, null);
+    }
+
+    /**
+     * Constructor to create a new Reservation held in the cart of a session
+     * @param room The reserved room type
+     * @param checkIn The check-in date
+     * @param checkOut The check-out date
+     * @param sessionId The session whose cart holds the reservation
+     */
+    public Reservation(Room room, LocalDate checkIn, LocalDate checkOut, String sessionId) {
+        this.room = room;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+        this.sessionId = sessionId;
+    }
+
+    /**
+     * Gets the reserved room type
+     * @return The room
+     */
+    public Room getRoom() {
+        return room;
+    }
+
+    /**
+     * Gets the check-in date
+     * @return The check-in date
+     */
+    public LocalDate getCheckIn() {
+        return checkIn;
+    }
+
+    /**
+     * Gets the check-out date
+     * @return The check-out date
+     */
+    public LocalDate getCheckOut() {
+        return checkOut;
+    }
+
+    /**
+     * Gets the session whose cart holds the reservation
+     * @return The session id, or null
+     */
+    public String getSessionId() {
+        return sessionId;
+    }
+}
@@ -1,40 +1,51 @@
 package Models;
 
+import java.time.LocalDate;
+
 /**
  * Model class representing a room in a hotel.
  * Contains information about the room type, price, availability,
  * and a reference to the hotel it belongs to.
+ *
+ * Availability is tracked per night by the room's inventory; the number of rooms of the
+ * type is its capacity. The price, hotel stars and catalog id live in a row of the shared
+ * RoomStore, taken when the room is created, so that scans over them never touch Room
+ * objects; the room is a view over that row. The row has no catalog id until the room is
+ * added to the catalog.
  */
 public class Room{
+    /** The store holding the price, stars and ids of every room */
+    private static final RoomStore STORE = RoomStore.getInstance();
+
     /** The hotel this room belongs to */
-    private Hotel hotel;
+    private final Hotel hotel;
 
-    /** The type/category of room (e.g., Standard, Deluxe, Suite) */
-    private String type;
+    /** The type/category of room (e.g., Standard, Deluxe, Suite); pooled, since many rooms share a type */
+    private final String type;
 
-    /** The price per day for staying in this room */
-    private int pricePerDay;
+    /** Description of the room and its features; pooled, since descriptions repeat across hotels */
+    private final String description;
 
-    /** The number of rooms of this type that are available */
-    private int available;
+    /** Per-night inventory of this room type */
+    private final RoomInventory inventory;
 
-    /** Description of the room and its features */
-    private String description;
+    /** Row of this room in the store */
+    private final int row;
 
     /**
      * Constructor to create a new Room object with all required information
-     * @param hotel The hotel this room belongs to
+     * @param hotel The hotel this room belongs to; required before the room is added to the catalog
      * @param type The type/category of the room
      * @param pricePerDay The daily rate for the room
-     * @param available The number of rooms of this type available
+     * @param available The number of rooms of this type, each free on every night until booked
      * @param description Brief description of the room and its features
      */
     public Room(Hotel hotel, String type, int pricePerDay, int available, String description) {
         this.hotel = hotel;
-        this.type = type;
-        this.pricePerDay = pricePerDay;
-        this.available = available;
-        this.description = description;
+        this.type = StringPool.canonical(type);
+        this.description = StringPool.canonical(description);
+        this.inventory = new RoomInventory(available);
+        this.row = STORE.addRow(pricePerDay, hotel == null ? 0 : hotel.getStars());
     }
 
     /**
@@ -58,23 +69,33 @@ public class Room{
      * @return The price per day in dollars
      */
     public int getPrice() {
-        return pricePerDay;
+        return STORE.getPrice(row);
     }
 
     /**
-     * Gets the number of rooms of this type that are available
-     * @return The availability count
+     * Gets the number of rooms of this type, booked or not
+     * @return The capacity of the room's inventory
      */
-    public int getAvailable() {
-        return available;
+    public int getCapacity() {
+        return inventory.getCapacity();
     }
 
     /**
-     * Sets the number of rooms of this type that are available
-     * @param available The new availability count
+     * Gets the number of rooms of this type that are free on every night of a stay
+     * @param checkIn The check-in date
+     * @param checkOut The check-out date
+     * @return The availability count for the stay
      */
-    public void setAvailable(int available) {
-        this.available = available;
+    public int getAvailable(LocalDate checkIn, LocalDate checkOut) {
+        return inventory.getAvailable(checkIn, checkOut);
+    }
+
+    /**
+     * Gets the per-night inventory of this room type
+     * @return The room inventory
+     */
+    public RoomInventory getInventory() {
+        return inventory;
     }
 
     /**
@@ -84,4 +105,37 @@ public class Room{
     public String getDescription() {
         return description;
     }
+
+    /**
+     * Gets the row of this room in the room store
+     * @return The row
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * Gets the catalog id of the room
+     * @return The id, or -1 if the room is not in the catalog
+     */
+    public int getId() {
+        return STORE.getId(row);
+    }
+
+    /**
+     * Sets the catalog id of the room and the id of its hotel in its row of the room store;
+     * called by the catalog when the room is added, after its hotel.
+     * @param id The id
+     * @throws IllegalStateException if the room has no hotel, its hotel is not in the catalog,
+     *         or the room already has an id
+     */
+    public void setId(int id) {
+        if (hotel == null || hotel.getId() < 0) {
+            throw new IllegalStateException("Room " + type + " has no hotel in the catalog");
+        }
+        if (STORE.getId(row) >= 0) {
+            throw new IllegalStateException("Room " + type + " is already in the catalog");
+        }
+        STORE.setCatalogIds(row, id, hotel.getId());
+    }
 }
@@ -0,0 +1,258 @@
+package Models;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Clock;
+import java.time.LocalDate;
+
+/**
+ * Per-night inventory of a single room type.
+ * Tracks how many units of the room type are booked on every night of a booking
+ * window that starts today and slides forward one night every midnight.
+ * A night is identified by the date the guest checks in for it, so a stay
+ * from checkIn to checkOut occupies the nights [checkIn, checkOut).
+ *
+ * The nights are kept in a ring of HORIZON_NIGHTS slots indexed by epoch day modulo
+ * the horizon. Each slot packs the epoch day it currently counts together with the
+ * units booked on it into one long, so a slot left over from a past night is recognized
+ * by its day and reused for the night one horizon later without any clean-up pass.
+ * All updates are lock-free compare-and-set operations on the slots, so no night is
+ * ever booked beyond the capacity of the room type.
+ */
+public class RoomInventory {
+    /** Number of nights, starting today, that can be queried and reserved */
+    public static final int HORIZON_NIGHTS = 731;
+
+    /** Atomic access to the slots of the nights array */
+    private static final VarHandle NIGHT = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /** Atomic access to the nights field, used to allocate the array exactly once */
+    private static final VarHandle NIGHTS;
+
+    static {
+        try {
+            NIGHTS = MethodHandles.lookup().findVarHandle(RoomInventory.class, "nights", long[].class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * The first night of the booking window and when the window next moves
+     * @param firstDay Epoch day of today, the first night that can be booked
+     * @param endMillis Start of tomorrow in the clock's zone, in epoch milliseconds
+     */
+    private record Window(long firstDay, long endMillis) {
+    }
+
+    /** Clock that decides what today is */
+    private static volatile Clock clock = Clock.systemDefaultZone();
+
+    /** The current booking window, replaced at midnight by the first call that notices */
+    private static volatile Window window = new Window(Long.MIN_VALUE, Long.MIN_VALUE);
+
+    /** Total number of units of this room type */
+    private final int capacity;
+
+    /** Per slot, the epoch day it counts in the high half and the units booked in the low half; allocated on first reservation */
+    private volatile long[] nights;
+
+    /**
+     * Constructor to create the inventory of a room type
+     * @param capacity The number of units of the room type
+     */
+    public RoomInventory(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Gets the first night of the booking window, which is today
+     * @return The epoch day of today
+     */
+    public static long firstBookableDay() {
+        Window current = window;
+        long now = clock.millis();
+        if (now >= current.endMillis() || now < current.endMillis() - 2 * 86_400_000L) {
+            // A new day (or a clock set back): racing threads all compute the same window
+            LocalDate today = LocalDate.now(clock);
+            current = new Window(today.toEpochDay(),
+                    today.plusDays(1).atStartOfDay(clock.getZone()).toInstant().toEpochMilli());
+            window = current;
+        }
+        return current.firstDay();
+    }
+
+    /**
+     * Replaces the clock that decides what today is, for tests
+     * @param newClock The clock
+     */
+    static void setClock(Clock newClock) {
+        clock = newClock;
+        window = new Window(Long.MIN_VALUE, Long.MIN_VALUE);
+    }
+
+    /**
+     * Gets the total number of units of this room type
+     * @return The capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of units that are free on every night of a stay
+     * @param checkIn The check-in date
+     * @param checkOut The check-out date
+     * @return The free units for the whole stay, or 0 if the stay is outside the booking window
+     */
+    public int getAvailable(LocalDate checkIn, LocalDate checkOut) {
+        long first = checkIn.toEpochDay();
+        long last = lastNight(checkIn, checkOut);
+        if (!inWindow(first, last)) {
+            return 0;
+        }
+        long[] slots = nights;
+        if (slots == null) {
+            return capacity;
+        }
+
+        // The stay is limited by its busiest night
+        int maxBooked = 0;
+        for (long day = first; day < last; day++) {
+            long slot = (long) NIGHT.getVolatile(slots, index(day));
+            long slotDay = slot >> 32;
+            if (slotDay > day) {
+                // The window moved past this night while the stay was being checked
+                return 0;
+            }
+            if (slotDay == day) {
+                maxBooked = Math.max(maxBooked, (int) slot);
+            }
+        }
+        return Math.max(0, capacity - maxBooked);
+    }
+
+    /**
+     * Reserves one unit on every night of a stay
+     * @param checkIn The check-in date
+     * @param checkOut The check-out date
+     * @return true if the unit was reserved, false if some night is sold out or outside the booking window
+     */
+    public boolean reserve(LocalDate checkIn, LocalDate checkOut) {
+        long first = checkIn.toEpochDay();
+        long last = lastNight(checkIn, checkOut);
+        if (!inWindow(first, last) || capacity <= 0) {
+            return false;
+        }
+        long[] slots = slots();
+
+        // Take one unit night by night; if a night is sold out, give back the nights already taken
+        for (long day = first; day < last; day++) {
+            int index = index(day);
+            long current;
+            long next;
+            do {
+                current = (long) NIGHT.getVolatile(slots, index);
+                long slotDay = current >> 32;
+                int booked = slotDay == day ? (int) current : 0;
+                // A slot of a later night means this night already left the window
+                if (slotDay > day || booked >= capacity) {
+                    releaseNights(slots, first, day);
+                    return false;
+                }
+                next = pack(day, booked + 1);
+            } while (!NIGHT.compareAndSet(slots, index, current, next));
+        }
+        return true;
+    }
+
+    /**
+     * Releases one unit previously reserved for a stay.
+     * Nights that have since left the booking window have nothing left to release.
+     * @param checkIn The check-in date
+     * @param checkOut The check-out date
+     */
+    public void release(LocalDate checkIn, LocalDate checkOut) {
+        long first = checkIn.toEpochDay();
+        long last = lastNight(checkIn, checkOut);
+        long[] slots = nights;
+        if (slots == null || last - first > HORIZON_NIGHTS) {
+            return;
+        }
+        releaseNights(slots, first, last);
+    }
+
+    /**
+     * Gives back one unit on a range of nights, skipping nights whose slot was reused
+     * @param slots The nights array
+     * @param first The epoch day of the first night
+     * @param last The epoch day after the last night
+     */
+    private static void releaseNights(long[] slots, long first, long last) {
+        for (long day = first; day < last; day++) {
+            int index = index(day);
+            long current;
+            do {
+                current = (long) NIGHT.getVolatile(slots, index);
+                if (current >> 32 != day || (int) current <= 0) {
+                    break;
+                }
+            } while (!NIGHT.compareAndSet(slots, index, current, current - 1));
+        }
+    }
+
+    /**
+     * Gets the nights array, allocating it if this is the first reservation
+     * @return The nights array shared by all threads
+     */
+    private long[] slots() {
+        long[] slots = nights;
+        if (slots == null) {
+            // Only one thread's array wins; the others adopt it. Day 0 is long past, so
+            // every fresh slot reads as an unbooked night
+            NIGHTS.compareAndSet(this, null, new long[HORIZON_NIGHTS]);
+            slots = nights;
+        }
+        return slots;
+    }
+
+    /**
+     * Gets the slot of a night in the ring
+     * @param day The epoch day of the night
+     * @return The slot index
+     */
+    private static int index(long day) {
+        return (int) Math.floorMod(day, (long) HORIZON_NIGHTS);
+    }
+
+    /**
+     * Packs a night and its booked units into a slot value
+     * @param day The epoch day of the night
+     * @param booked The units booked
+     * @return The slot value
+     */
+    private static long pack(long day, int booked) {
+        return day << 32 | booked;
+    }
+
+    /**
+     * Gets the epoch day after the last night of a stay (minimum one night)
+     * @param checkIn The check-in date
+     * @param checkOut The check-out date
+     * @return The epoch day after the last night
+     */
+    private static long lastNight(LocalDate checkIn, LocalDate checkOut) {
+        return checkIn.toEpochDay() + Math.max(1, checkOut.toEpochDay() - checkIn.toEpochDay());
+    }
+
+    /**
+     * Checks that a range of nights lies inside the current booking window
+     * @param first The epoch day of the first night
+     * @param last The epoch day after the last night
+     * @return true if every night can be tracked
+     */
+    private static boolean inWindow(long first, long last) {
+        long today = firstBookableDay();
+        return first >= today && last <= today + HORIZON_NIGHTS;
+    }
+}
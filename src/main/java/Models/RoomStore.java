@@ -0,0 +1,244 @@
+package Models;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Column store of the hot fields of every room: catalog id, hotel id, price per night and
+ * hotel stars, each in its own primitive int column. A Room is a view over one row; its
+ * cold fields (hotel, type, description, inventory) stay on the object.
+ *
+ * Columns are split into fixed pages of 16384 rows, so growing the store never copies
+ * data, only the small page directory. A scan walks the pages column by column with
+ * plain int loads and no pointer chasing, which the JIT can unroll and vectorize.
+ *
+ * A room takes its row when it is created. The row gets its catalog and hotel ids when the
+ * room is added to the catalog; until then its catalog id is -1 and scans skip it. Scans
+ * return catalog ids, which the catalog maps back to rooms.
+ *
+ * Availability is not a column: it is tracked per night by each room's RoomInventory, so
+ * callers check it on the rooms a scan returns.
+ */
+public class RoomStore {
+    /** Rows per page, as a power of two */
+    private static final int PAGE_BITS = 14;
+
+    /** Rows per page */
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    /** Mask giving the position of a row within its page */
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    /** Number of int columns */
+    private static final int COLUMNS = 4;
+
+    /** Atomic access to single cells of a column */
+    private static final VarHandle CELL = MethodHandles.arrayElementVarHandle(int[].class);
+
+    /** The store shared by every room */
+    private static final RoomStore SHARED = new RoomStore();
+
+    /**
+     * The pages of all columns; replaced as a whole when a page is added
+     * @param ids Catalog id column, -1 for rooms outside the catalog
+     * @param hotelIds Hotel id column, -1 for rooms outside the catalog
+     * @param prices Price per night column
+     * @param stars Hotel stars column
+     */
+    private record Pages(int[][] ids, int[][] hotelIds, int[][] prices, int[][] stars) {
+    }
+
+    /** Current page directory */
+    private volatile Pages pages = new Pages(new int[0][], new int[0][], new int[0][], new int[0][]);
+
+    /** Number of rows; rows below it are fully written */
+    private volatile int size;
+
+    /**
+     * Gets the store shared by every room
+     * @return The application-wide store
+     */
+    public static RoomStore getInstance() {
+        return SHARED;
+    }
+
+    /**
+     * Appends a row for a new room, outside the catalog until setCatalogIds is called
+     * @param price Price per night
+     * @param stars Stars of the room's hotel
+     * @return The row number
+     */
+    synchronized int addRow(int price, int stars) {
+        int row = size;
+        Pages current = pages;
+        int page = row >>> PAGE_BITS;
+        if (page == current.prices().length) {
+            current = addPage(current);
+            pages = current;
+        }
+        int slot = row & PAGE_MASK;
+        current.ids()[page][slot] = -1;
+        current.hotelIds()[page][slot] = -1;
+        current.prices()[page][slot] = price;
+        current.stars()[page][slot] = stars;
+        size = row + 1;
+        return row;
+    }
+
+    /**
+     * Builds a directory with one more page in every column
+     * @param current The current directory
+     * @return The new directory
+     */
+    private static Pages addPage(Pages current) {
+        int count = current.prices().length + 1;
+        Pages grown = new Pages(Arrays.copyOf(current.ids(), count), Arrays.copyOf(current.hotelIds(), count),
+                Arrays.copyOf(current.prices(), count), Arrays.copyOf(current.stars(), count));
+        grown.ids()[count - 1] = new int[PAGE_SIZE];
+        grown.hotelIds()[count - 1] = new int[PAGE_SIZE];
+        grown.prices()[count - 1] = new int[PAGE_SIZE];
+        grown.stars()[count - 1] = new int[PAGE_SIZE];
+        return grown;
+    }
+
+    /**
+     * Gives a row the ids of its room and hotel once the room is in the catalog.
+     * The hotel id is written first, so a scan that sees the catalog id also sees the hotel id.
+     * @param row The row
+     * @param id Catalog id of the room
+     * @param hotelId Catalog id of the room's hotel
+     */
+    void setCatalogIds(int row, int id, int hotelId) {
+        Pages current = pages;
+        CELL.setVolatile(current.hotelIds()[row >>> PAGE_BITS], row & PAGE_MASK, hotelId);
+        CELL.setVolatile(current.ids()[row >>> PAGE_BITS], row & PAGE_MASK, id);
+    }
+
+    /**
+     * Gets the number of rows
+     * @return The row count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the catalog id of a row
+     * @param row The row
+     * @return The catalog id, or -1 if the room is not in the catalog
+     */
+    int getId(int row) {
+        return (int) CELL.getVolatile(pages.ids()[row >>> PAGE_BITS], row & PAGE_MASK);
+    }
+
+    /**
+     * Gets the hotel id of a row
+     * @param row The row
+     * @return The hotel id, or -1 if the room is not in the catalog
+     */
+    public int getHotelId(int row) {
+        return (int) CELL.getVolatile(pages.hotelIds()[row >>> PAGE_BITS], row & PAGE_MASK);
+    }
+
+    /**
+     * Gets the price per night of a row
+     * @param row The row
+     * @return The price
+     */
+    int getPrice(int row) {
+        return pages.prices()[row >>> PAGE_BITS][row & PAGE_MASK];
+    }
+
+    /**
+     * Gets the hotel stars of a row
+     * @param row The row
+     * @return The stars
+     */
+    int getStars(int row) {
+        return pages.stars()[row >>> PAGE_BITS][row & PAGE_MASK];
+    }
+
+    /**
+     * Counts the catalog rooms matching price and star bounds, all inclusive
+     * @param minPrice Lowest price per night
+     * @param maxPrice Highest price per night
+     * @param minStars Fewest hotel stars
+     * @param maxStars Most hotel stars
+     * @return The number of matching rows
+     */
+    public int count(int minPrice, int maxPrice, int minStars, int maxStars) {
+        // With lower bounds of at least 0 none of the differences below can overflow into a match
+        minPrice = Math.max(0, minPrice);
+        minStars = Math.max(0, minStars);
+        if (maxPrice < minPrice || maxStars < minStars) {
+            return 0;
+        }
+        int rows = size;
+        Pages current = pages;
+        int count = 0;
+        for (int page = 0; page << PAGE_BITS < rows; page++) {
+            int[] ids = current.ids()[page];
+            int[] prices = current.prices()[page];
+            int[] stars = current.stars()[page];
+            int end = Math.min(PAGE_SIZE, rows - (page << PAGE_BITS));
+
+            // A row matches when none of the differences is negative and it has a catalog id:
+            // OR them and test the sign bit, so the loop has no branches and the JIT can vectorize it
+            for (int i = 0; i < end; i++) {
+                int misses = ids[i] | (prices[i] - minPrice) | (maxPrice - prices[i])
+                        | (stars[i] - minStars) | (maxStars - stars[i]);
+                count += ~misses >>> 31;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds the catalog rooms matching price and star bounds, all inclusive
+     * @param minPrice Lowest price per night
+     * @param maxPrice Highest price per night
+     * @param minStars Fewest hotel stars
+     * @param maxStars Most hotel stars
+     * @return The catalog ids of the matching rooms, in row order
+     */
+    public int[] find(int minPrice, int maxPrice, int minStars, int maxStars) {
+        minPrice = Math.max(0, minPrice);
+        minStars = Math.max(0, minStars);
+        if (maxPrice < minPrice || maxStars < minStars) {
+            return new int[0];
+        }
+        int rows = size;
+        Pages current = pages;
+        int[] found = new int[64];
+        int count = 0;
+        for (int page = 0; page << PAGE_BITS < rows; page++) {
+            int[] ids = current.ids()[page];
+            int[] prices = current.prices()[page];
+            int[] stars = current.stars()[page];
+            int end = Math.min(PAGE_SIZE, rows - (page << PAGE_BITS));
+
+            // Make room for a whole page, then write every id and only advance past matches
+            if (found.length - count < end) {
+                found = Arrays.copyOf(found, Math.max(found.length * 2, count + end));
+            }
+            for (int i = 0; i < end; i++) {
+                int misses = ids[i] | (prices[i] - minPrice) | (maxPrice - prices[i])
+                        | (stars[i] - minStars) | (maxStars - stars[i]);
+                found[count] = ids[i];
+                count += ~misses >>> 31;
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Gets the memory taken by the columns and the page directory, without the rooms themselves
+     * @return The approximate size in bytes
+     */
+    public long getColumnBytes() {
+        // Four int columns, allocated a page at a time
+        long pages = this.pages.prices().length;
+        return pages * PAGE_SIZE * (long) COLUMNS * Integer.BYTES + pages * COLUMNS * 16L;
+    }
+}
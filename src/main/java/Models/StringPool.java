@@ -0,0 +1,67 @@
+package Models;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonicalizing pool for the text fields that repeat across the catalog: hotel cities,
+ * room types and room descriptions. Hotel and Room pass these fields through the pool in
+ * their constructors, so every ingestion path (sample data, the CSV/JSONL loader, the
+ * binary snapshot) keeps one String per distinct value, however many rows share it.
+ *
+ * Unlike String.intern the pool is an ordinary map on the heap, sized by the JVM like any
+ * other object, and lookups of a value already pooled allocate nothing. Values are never
+ * removed, since the catalog never removes hotels or rooms. A value seen only once costs
+ * a map entry (about 40 bytes) on top of the String, so unique fields such as hotel names
+ * are not pooled.
+ *
+ * Pooling can be turned off with -Dbooking.strings.pool=false, for example to measure it.
+ */
+public final class StringPool {
+    /** Whether values are pooled at all */
+    private static final boolean ENABLED =
+            !"false".equalsIgnoreCase(System.getProperty("booking.strings.pool", "true"));
+
+    /** The canonical instance of every value pooled so far, keyed by itself */
+    private static final ConcurrentHashMap<String, String> POOL = new ConcurrentHashMap<>(1024);
+
+    /**
+     * Not instantiable
+     */
+    private StringPool() {
+    }
+
+    /**
+     * Gets the canonical instance of a value, adding the value if it is new
+     * @param value The value, may be null
+     * @return The pooled String equal to the value, or null for null
+     */
+    public static String canonical(String value) {
+        if (value == null || !ENABLED) {
+            return value;
+        }
+
+        // Read first: repeated values, the common case, then never touch a lock
+        String pooled = POOL.get(value);
+        if (pooled != null) {
+            return pooled;
+        }
+        pooled = POOL.putIfAbsent(value, value);
+        return pooled == null ? value : pooled;
+    }
+
+    /**
+     * Gets the number of distinct values pooled
+     * @return The pool size
+     */
+    public static int size() {
+        return POOL.size();
+    }
+
+    /**
+     * Tells whether values are pooled
+     * @return false if pooling was turned off with booking.strings.pool=false
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+}
@@ -0,0 +1,839 @@
+package Server;
+
+import Metrics.BookingMetrics;
+import Models.Hotel;
+import Models.Reservation;
+import Models.Room;
+import Services.BookingService;
+import Services.Catalog;
+import Services.DealOrder;
+import Services.RegionSearch;
+import Services.RoomFilter;
+import Services.SuggestionTrie;
+import Storage.BookingJournal;
+import Storage.BookingRecord;
+import Storage.BookingWriter;
+import Storage.CatalogBootstrap;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Serves the booking engine over HTTP with JSON bodies, using the JDK's built-in server.
+ * Every request runs on its own virtual thread, so a checkout waiting for the journal
+ * does not hold up searches.
+ *
+ * Endpoints (dates are ISO yyyy-MM-dd):
+ *   GET    /api/search?city=&checkIn=&checkOut=      hotels with a room free for the stay
+ *   GET    /api/region?cities=a,b,c&checkIn=&checkOut=&deadlineMillis=
+ *                                                    hotels of several cities, cheapest free room first;
+ *                                                    cities that miss the deadline are listed as timedOut
+ *   GET    /api/suggest?prefix=&limit=               typeahead for cities and hotel names
+ *   GET    /api/hotels/{id}/rooms?checkIn=&checkOut= rooms of a hotel with availability and price
+ *   GET    /api/rooms?city=&checkIn=&checkOut=&minPrice=&maxPrice=&minStars=&maxStars=&type=&minAvailable=&limit=
+ *                                                    rooms of a city matching the filters, cheapest first;
+ *                                                    without a city, the cheapest matching rooms of the
+ *                                                    whole catalog, up to limit
+ *   GET    /api/deals?city=&checkIn=&checkOut=&order=cheapest|rated|value&limit=
+ *                                                    the best rooms of a city for the stay, best first
+ *   POST   /api/sessions                             starts a session
+ *   DELETE /api/sessions/{id}                        ends a session and gives its rooms back
+ *   GET    /api/cart?session=                        the rooms held by a session
+ *   DELETE /api/cart?session=                        empties the cart
+ *   POST   /api/holds      {session, roomId, checkIn, checkOut}  holds a room for the stay
+ *   POST   /api/checkout   {session, email, name, surname}       books the cart; 201 once the booking
+ *                                                    is on disk, or 202 with its id while it is still queued
+ *   GET    /api/bookings/{id}                        a booking from the journal, or 202 while it is queued
+ *
+ * Errors are returned as {"error": message} with status 400, 404, 405, 409 or 503.
+ * The port is set by booking.server.port (default 8080). TCP_NODELAY is on unless
+ * sun.net.httpserver.nodelay is set explicitly.
+ */
+public class BookingServer {
+    static {
+        // Small JSON responses otherwise wait on Nagle's algorithm and the client's delayed ACK,
+        // which caps a keep-alive connection at a few dozen requests per second
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    /** How long a checkout waits for the booking to reach the journal before answering 202 */
+    private static final long CHECKOUT_WAIT_SECONDS = 5;
+
+    /** How long the error of a booking answered with 202 is kept for clients to poll */
+    private static final long FAILED_BOOKING_RETENTION_MINUTES = 10;
+
+    /** Most cities a region search may ask for */
+    private static final int MAX_REGION_CITIES = 64;
+
+    /** Most rooms a best deals query or a catalog-wide room search may ask for */
+    private static final int MAX_DEALS = 100;
+
+    /** The booking engine being served */
+    private final BookingService service;
+
+    /** The underlying HTTP server */
+    private final HttpServer server;
+
+    /** Runs one virtual thread per request */
+    private final ExecutorService executor;
+
+    /** Bookings answered with 202 that are not on disk yet, or whose write failed recently, by booking id */
+    private final Map<String, CompletableFuture<BookingRecord>> pendingBookings = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor to create a server; call start() to accept requests
+     * @param address The address and port to listen on; port 0 picks a free port
+     * @param service The booking engine to serve
+     * @throws IOException if the port cannot be opened
+     */
+    public BookingServer(InetSocketAddress address, BookingService service) throws IOException {
+        this.service = service;
+        this.server = HttpServer.create(address, 1024);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server.setExecutor(executor);
+        this.server.createContext("/api/", this::handle);
+    }
+
+    /**
+     * Starts accepting requests
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops the server, letting requests in progress finish
+     * @param delaySeconds The longest time to wait for requests in progress
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    /**
+     * Gets the port the server listens on
+     * @return The port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Handles one request: routes it and writes the JSON response or error
+     * @param exchange The request and response
+     */
+    private void handle(HttpExchange exchange) {
+        try (exchange) {
+            Response response;
+            try {
+                response = route(exchange);
+            } catch (ApiException e) {
+                response = new Response(e.status, Json.error(e.getMessage()));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                response = new Response(400, Json.error("Bad request: " + e.getMessage()));
+            } catch (Exception e) {
+                System.err.println("Error handling " + exchange.getRequestURI() + ": " + e);
+                response = new Response(500, Json.error("Internal error"));
+            }
+            send(exchange, response);
+        } catch (IOException e) {
+            // The client went away; nothing left to tell it
+        }
+    }
+
+    /**
+     * Dispatches a request to its endpoint
+     * @param exchange The request
+     * @return The response
+     * @throws Exception if the endpoint fails
+     */
+    private Response route(HttpExchange exchange) throws Exception {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().substring("/api/".length()).split("/");
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+        switch (path[0]) {
+            case "search" -> {
+                requireMethod(method, "GET");
+                return search(query);
+            }
+            case "region" -> {
+                requireMethod(method, "GET");
+                return searchRegion(query);
+            }
+            case "suggest" -> {
+                requireMethod(method, "GET");
+                return suggest(query);
+            }
+            case "hotels" -> {
+                requireMethod(method, "GET");
+                if (path.length != 3 || !path[2].equals("rooms")) {
+                    throw new ApiException(404, "Not found");
+                }
+                return rooms(parseId(path[1]), query);
+            }
+            case "rooms" -> {
+                requireMethod(method, "GET");
+                return filterRooms(query);
+            }
+            case "deals" -> {
+                requireMethod(method, "GET");
+                return bestDeals(query);
+            }
+            case "sessions" -> {
+                if (path.length == 1) {
+                    requireMethod(method, "POST");
+                    return openSession();
+                }
+                requireMethod(method, "DELETE");
+                service.endSession(path[1]);
+                return new Response(200, "{\"ended\":true}");
+            }
+            case "cart" -> {
+                String session = required(query, "session");
+                if (method.equals("DELETE")) {
+                    service.clearCart(session);
+                    return new Response(200, "{\"cleared\":true}");
+                }
+                requireMethod(method, "GET");
+                return cart(session);
+            }
+            case "holds" -> {
+                requireMethod(method, "POST");
+                return hold(readBody(exchange));
+            }
+            case "checkout" -> {
+                requireMethod(method, "POST");
+                return checkout(readBody(exchange));
+            }
+            case "bookings" -> {
+                requireMethod(method, "GET");
+                if (path.length != 2) {
+                    throw new ApiException(404, "Not found");
+                }
+                return booking(path[1]);
+            }
+            default -> throw new ApiException(404, "Not found");
+        }
+    }
+
+    /**
+     * GET /api/search: hotels in a city with a room free for the stay
+     * @param query The query parameters city, checkIn and checkOut
+     * @return The hotels
+     */
+    private Response search(Map<String, String> query) {
+        String city = required(query, "city");
+        LocalDate checkIn = date(query, "checkIn");
+        LocalDate checkOut = date(query, "checkOut");
+        requireStay(checkIn, checkOut);
+
+        List<Hotel> hotels = service.searchHotels(city, checkIn, checkOut);
+        StringBuilder out = new StringBuilder(64 + hotels.size() * 160).append('{');
+        Json.field(out, "hotels").append('[');
+        for (int i = 0; i < hotels.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            appendHotel(out, hotels.get(i));
+        }
+        return new Response(200, out.append("]}").toString());
+    }
+
+    /**
+     * GET /api/region: hotels of several cities with a room free for the stay
+     * @param query The query parameters cities (separated by commas), checkIn and checkOut,
+     * and the optional deadlineMillis (the server default if missing)
+     * @return The hotels with their cheapest free price per night, cheapest first, and the
+     * cities searched in full and timed out
+     */
+    private Response searchRegion(Map<String, String> query) {
+        List<String> cities = new ArrayList<>();
+        for (String city : required(query, "cities").split(",")) {
+            if (!city.isBlank()) {
+                cities.add(city.trim());
+            }
+        }
+        if (cities.size() > MAX_REGION_CITIES) {
+            throw new ApiException(400, "At most " + MAX_REGION_CITIES + " cities");
+        }
+        LocalDate checkIn = date(query, "checkIn");
+        LocalDate checkOut = date(query, "checkOut");
+        requireStay(checkIn, checkOut);
+        int deadlineMillis = intOrDefault(query, "deadlineMillis", -1);
+
+        RegionSearch.Result result = deadlineMillis < 0
+                ? service.searchRegion(cities, checkIn, checkOut)
+                : service.searchRegion(cities, checkIn, checkOut, deadlineMillis);
+        StringBuilder out = new StringBuilder(128 + result.hotels().size() * 180).append('{');
+        Json.field(out, "hotels").append('[');
+        for (int i = 0; i < result.hotels().size(); i++) {
+            RegionSearch.HotelOffer offer = result.hotels().get(i);
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append('{');
+            appendHotel(Json.field(out, "hotel"), offer.hotel()).append(',');
+            Json.field(out, "fromPrice").append(offer.fromPrice()).append('}');
+        }
+        out.append("],");
+        appendStrings(Json.field(out, "completed"), result.completedCities()).append(',');
+        appendStrings(Json.field(out, "timedOut"), result.timedOutCities()).append(',');
+        Json.field(out, "partial").append(result.isPartial());
+        return new Response(200, out.append('}').toString());
+    }
+
+    /**
+     * GET /api/suggest: typeahead suggestions for a prefix
+     * @param query The query parameters prefix and optional limit
+     * @return The suggestions
+     */
+    private Response suggest(Map<String, String> query) {
+        String prefix = required(query, "prefix");
+        String limitText = query.get("limit");
+        int limit = limitText == null ? Catalog.MAX_SUGGESTIONS : Integer.parseInt(limitText);
+
+        List<SuggestionTrie.Suggestion> suggestions = Catalog.suggest(prefix, limit);
+        StringBuilder out = new StringBuilder(32 + suggestions.size() * 64).append('{');
+        Json.field(out, "suggestions").append('[');
+        for (int i = 0; i < suggestions.size(); i++) {
+            SuggestionTrie.Suggestion suggestion = suggestions.get(i);
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append('{');
+            Json.string(Json.field(out, "text"), suggestion.getText()).append(',');
+            Json.string(Json.field(out, "city"), suggestion.getCity()).append(',');
+            Json.field(out, "isCity").append(suggestion.isCity()).append(',');
+            Json.field(out, "hotels").append(suggestion.getHotelCount()).append('}');
+        }
+        return new Response(200, out.append("]}").toString());
+    }
+
+    /**
+     * GET /api/hotels/{id}/rooms: rooms of a hotel with availability and price for a stay
+     * @param hotelId The hotel id
+     * @param query The query parameters checkIn and checkOut
+     * @return The rooms
+     */
+    private Response rooms(int hotelId, Map<String, String> query) {
+        Hotel hotel = Catalog.getHotel(hotelId);
+        if (hotel == null) {
+            throw new ApiException(404, "No hotel with id " + hotelId);
+        }
+        LocalDate checkIn = date(query, "checkIn");
+        LocalDate checkOut = date(query, "checkOut");
+        requireStay(checkIn, checkOut);
+
+        List<Room> rooms = service.listRooms(hotel);
+        StringBuilder out = new StringBuilder(64 + rooms.size() * 160).append('{');
+        Json.field(out, "hotel");
+        appendHotel(out, hotel).append(',');
+        Json.field(out, "rooms").append('[');
+        for (int i = 0; i < rooms.size(); i++) {
+            Room room = rooms.get(i);
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append('{');
+            Json.field(out, "id").append(room.getId()).append(',');
+            Json.string(Json.field(out, "type"), room.getType()).append(',');
+            Json.string(Json.field(out, "description"), room.getDescription()).append(',');
+            Json.field(out, "pricePerNight").append(room.getPrice()).append(',');
+            Json.field(out, "available").append(room.getAvailable(checkIn, checkOut)).append(',');
+            Json.field(out, "totalPrice").append(service.calculateTotalPrice(room, checkIn, checkOut)).append('}');
+        }
+        return new Response(200, out.append("]}").toString());
+    }
+
+    /**
+     * GET /api/rooms: rooms matching price, star, room type and availability filters, either
+     * all those of a city or, without a city, the cheapest of the whole catalog
+     * @param query The query parameters checkIn and checkOut, and the optional city, filters
+     * minPrice, maxPrice, minStars, maxStars, type and minAvailable, and limit (20 by default,
+     * at most 100; only used without a city)
+     * @return The rooms, cheapest first
+     */
+    private Response filterRooms(Map<String, String> query) {
+        String city = query.get("city");
+        LocalDate checkIn = date(query, "checkIn");
+        LocalDate checkOut = date(query, "checkOut");
+        requireStay(checkIn, checkOut);
+        RoomFilter filter = new RoomFilter(
+                intOrDefault(query, "minPrice", 0),
+                intOrDefault(query, "maxPrice", Integer.MAX_VALUE),
+                intOrDefault(query, "minStars", 0),
+                intOrDefault(query, "maxStars", Integer.MAX_VALUE),
+                query.get("type"),
+                intOrDefault(query, "minAvailable", 1));
+
+        if (city == null || city.isBlank()) {
+            int limit = intOrDefault(query, "limit", 20);
+            if (limit < 1 || limit > MAX_DEALS) {
+                throw new ApiException(400, "limit must be between 1 and " + MAX_DEALS);
+            }
+            return roomList(service.scanRooms(filter, checkIn, checkOut, limit), checkIn, checkOut);
+        }
+        return roomList(service.filterRooms(city, filter, checkIn, checkOut), checkIn, checkOut);
+    }
+
+    /**
+     * GET /api/deals: the best rooms of a city free for the stay
+     * @param query The query parameters city, checkIn and checkOut, and the optional order
+     * (cheapest, rated or value; cheapest by default) and limit (20 by default, at most 100)
+     * @return The rooms, best first
+     */
+    private Response bestDeals(Map<String, String> query) {
+        String city = required(query, "city");
+        LocalDate checkIn = date(query, "checkIn");
+        LocalDate checkOut = date(query, "checkOut");
+        requireStay(checkIn, checkOut);
+        DealOrder order = switch (query.getOrDefault("order", "cheapest")) {
+            case "cheapest" -> DealOrder.CHEAPEST;
+            case "rated" -> DealOrder.BEST_RATED;
+            case "value" -> DealOrder.BEST_VALUE;
+            default -> throw new ApiException(400, "order must be cheapest, rated or value");
+        };
+        int limit = intOrDefault(query, "limit", 20);
+        if (limit < 1 || limit > MAX_DEALS) {
+            throw new ApiException(400, "limit must be between 1 and " + MAX_DEALS);
+        }
+        return roomList(service.bestDeals(city, order, limit, checkIn, checkOut), checkIn, checkOut);
+    }
+
+    /**
+     * Writes rooms of several hotels with their hotel, availability and total price for a stay
+     * @param rooms The rooms, in the order to return them
+     * @param checkIn The check-in date
+     * @param checkOut The check-out date
+     * @return The rooms as {"rooms": [...]}
+     */
+    private Response roomList(List<Room> rooms, LocalDate checkIn, LocalDate checkOut) {
+        StringBuilder out = new StringBuilder(64 + rooms.size() * 192).append('{');
+        Json.field(out, "rooms").append('[');
+        for (int i = 0; i < rooms.size(); i++) {
+            Room room = rooms.get(i);
+            Hotel hotel = room.getHotel();
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append('{');
+            Json.field(out, "id").append(room.getId()).append(',');
+            Json.field(out, "hotelId").append(hotel.getId()).append(',');
+            Json.string(Json.field(out, "hotel"), hotel.getName()).append(',');
+            Json.field(out, "stars").append(hotel.getStars()).append(',');
+            Json.string(Json.field(out, "type"), room.getType()).append(',');
+            Json.field(out, "pricePerNight").append(room.getPrice()).append(',');
+            Json.field(out, "available").append(room.getAvailable(checkIn, checkOut)).append(',');
+            Json.field(out, "totalPrice").append(service.calculateTotalPrice(room, checkIn, checkOut)).append('}');
+        }
+        return new Response(200, out.append("]}").toString());
+    }
+
+    /**
+     * POST /api/sessions: starts a session
+     * @return The session id
+     */
+    private Response openSession() {
+        StringBuilder out = new StringBuilder(40).append('{');
+        Json.string(Json.field(out, "session"), service.openSession());
+        return new Response(201, out.append('}').toString());
+    }
+
+    /**
+     * GET /api/cart: the rooms held by a session
+     * @param session The session id
+     * @return The cart
+     */
+    private Response cart(String session) {
+        List<Reservation> reservations = service.getCart(session);
+        StringBuilder out = new StringBuilder(64 + reservations.size() * 128).append('{');
+        Json.string(Json.field(out, "session"), session).append(',');
+        Json.field(out, "items").append('[');
+        double total = 0;
+        for (int i = 0; i < reservations.size(); i++) {
+            Reservation reservation = reservations.get(i);
+            Room room = reservation.getRoom();
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append('{');
+            Json.field(out, "roomId").append(room.getId()).append(',');
+            Json.string(Json.field(out, "hotel"), room.getHotel().getName()).append(',');
+            Json.string(Json.field(out, "type"), room.getType()).append(',');
+            double price = service.calculateTotalPrice(room, reservation.getCheckIn(), reservation.getCheckOut());
+            total += price;
+            Json.string(Json.field(out, "checkIn"), reservation.getCheckIn().toString()).append(',');
+            Json.string(Json.field(out, "checkOut"), reservation.getCheckOut().toString()).append(',');
+            Json.field(out, "price").append(price);
+            out.append('}');
+        }
+        out.append("],");
+        Json.field(out, "total").append(total);
+        return new Response(200, out.append('}').toString());
+    }
+
+    /**
+     * POST /api/holds: holds a room for a stay in the cart of a session
+     * @param body The fields session, roomId, checkIn and checkOut
+     * @return The number of rooms of this type now in the cart, or 409 if none is free
+     */
+    private Response hold(Map<String, String> body) {
+        String session = required(body, "session");
+        int roomId = parseId(required(body, "roomId"));
+        LocalDate checkIn = date(body, "checkIn");
+        LocalDate checkOut = date(body, "checkOut");
+        requireStay(checkIn, checkOut);
+
+        Room room = Catalog.getRoom(roomId);
+        if (room == null) {
+            throw new ApiException(404, "No room with id " + roomId);
+        }
+        if (!service.hold(session, room, checkIn, checkOut)) {
+            throw new ApiException(409, "No rooms of this type are available for these dates");
+        }
+
+        StringBuilder out = new StringBuilder(48).append('{');
+        Json.field(out, "held").append(true).append(',');
+        Json.field(out, "quantity").append(service.getCartQuantity(session, room));
+        return new Response(201, out.append('}').toString());
+    }
+
+    /**
+     * POST /api/checkout: books the cart of a session and waits a little for it to reach the disk.
+     * The booking id is known before the wait, so a booking still queued when the wait ends is
+     * answered with 202 and its id; the client then polls /api/bookings/{id} instead of
+     * checking out again, which would book the rooms twice.
+     * @param body The fields session and optional email, name and surname
+     * @return 201 with the booking id and total once the booking is on disk, 202 with them while
+     * it is queued, 409 if the cart is empty or 503 if the booking could not be written
+     * @throws InterruptedException if interrupted while waiting for the journal
+     */
+    private Response checkout(Map<String, String> body) throws InterruptedException {
+        String session = required(body, "session");
+        BookingService.SubmittedBooking submitted;
+        try {
+            // Every room in the cart is held with its own dates
+            submitted = service.checkout(session, body.get("email"), body.get("name"), body.get("surname"));
+        } catch (IllegalStateException e) {
+            throw new ApiException(409, e.getMessage());
+        }
+
+        BookingRecord record = submitted.record();
+        try {
+            submitted.written().get(CHECKOUT_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw writeFailed(e.getCause());
+        } catch (TimeoutException e) {
+            // Remember the booking until it is on disk, and its error for a while if the write fails
+            String bookingId = record.getId();
+            CompletableFuture<BookingRecord> written = submitted.written();
+            pendingBookings.put(bookingId, written);
+            written.whenComplete((saved, error) -> {
+                if (error == null) {
+                    pendingBookings.remove(bookingId, written);
+                } else {
+                    CompletableFuture.delayedExecutor(FAILED_BOOKING_RETENTION_MINUTES, TimeUnit.MINUTES)
+                            .execute(() -> pendingBookings.remove(bookingId, written));
+                }
+            });
+            return bookingStatus(202, bookingId, record.getTotalPrice(), "pending");
+        }
+        return bookingStatus(201, record.getId(), record.getTotalPrice(), "confirmed");
+    }
+
+    /**
+     * Builds the response to a booking that is confirmed or still being written
+     * @param status 201 or 202 after a checkout, 202 when polled
+     * @param bookingId The booking id
+     * @param total The total price, or a negative value to leave it out
+     * @param state "confirmed" or "pending"
+     * @return The booking id, total, state and the location to poll
+     */
+    private static Response bookingStatus(int status, String bookingId, double total, String state) {
+        StringBuilder out = new StringBuilder(128).append('{');
+        Json.string(Json.field(out, "bookingId"), bookingId).append(',');
+        if (total >= 0) {
+            Json.field(out, "total").append(total).append(',');
+        }
+        Json.string(Json.field(out, "status"), state).append(',');
+        Json.string(Json.field(out, "location"), "/api/bookings/" + bookingId);
+        return new Response(status, out.append('}').toString());
+    }
+
+    /**
+     * Turns the error that stopped a booking write into an API error
+     * @param cause The error
+     * @return The error to answer with
+     */
+    private static ApiException writeFailed(Throwable cause) {
+        if (cause instanceof RejectedExecutionException) {
+            return new ApiException(503, "Too many bookings in progress. Please try again.");
+        }
+        System.err.println("Error saving booking: " + cause);
+        return new ApiException(503, "The booking could not be saved. Please try again.");
+    }
+
+    /**
+     * GET /api/bookings/{id}: a booking read back from the journal
+     * @param bookingId The booking id
+     * @return The booking id and its confirmation text, 202 while the booking is still queued,
+     * or 503 once if its write failed (its rooms are then back in the cart); a failure
+     * that is not polled is forgotten after FAILED_BOOKING_RETENTION_MINUTES
+     * @throws IOException if the journal cannot be read
+     */
+    private Response booking(String bookingId) throws IOException {
+        CompletableFuture<BookingRecord> pending = pendingBookings.get(bookingId);
+        if (pending != null && !pending.isDone()) {
+            return bookingStatus(202, bookingId, -1, "pending");
+        }
+        if (pending != null && pending.isCompletedExceptionally()) {
+            pendingBookings.remove(bookingId);
+            throw writeFailed(pending.exceptionNow());
+        }
+
+        String confirmation = BookingJournal.getInstance().readConfirmation(bookingId);
+        if (confirmation == null) {
+            throw new ApiException(404, "No booking with id " + bookingId);
+        }
+        StringBuilder out = new StringBuilder(confirmation.length() + 64).append('{');
+        Json.string(Json.field(out, "bookingId"), bookingId).append(',');
+        Json.string(Json.field(out, "confirmation"), confirmation);
+        return new Response(200, out.append('}').toString());
+    }
+
+    /**
+     * Appends a hotel as a JSON object
+     * @param out The builder to append to
+     * @param hotel The hotel
+     * @return The builder
+     */
+    private static StringBuilder appendHotel(StringBuilder out, Hotel hotel) {
+        out.append('{');
+        Json.field(out, "id").append(hotel.getId()).append(',');
+        Json.string(Json.field(out, "name"), hotel.getName()).append(',');
+        Json.string(Json.field(out, "city"), hotel.getCity()).append(',');
+        Json.field(out, "stars").append(hotel.getStars()).append(',');
+        Json.string(Json.field(out, "phone"), hotel.getPhoneNumber()).append(',');
+        Json.string(Json.field(out, "description"), hotel.getDescription());
+        return out.append('}');
+    }
+
+    /**
+     * Writes a list of strings as a JSON array
+     * @param out The JSON being built
+     * @param values The strings
+     * @return out
+     */
+    private static StringBuilder appendStrings(StringBuilder out, List<String> values) {
+        out.append('[');
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            Json.string(out, values.get(i));
+        }
+        return out.append(']');
+    }
+
+    /**
+     * Writes a response
+     * @param exchange The exchange to respond to
+     * @param response The status and JSON body
+     * @throws IOException if the client went away
+     */
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        byte[] bytes = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Reads a JSON object request body
+     * @param exchange The request
+     * @return The fields of the body
+     * @throws IOException if the body cannot be read
+     */
+    private static Map<String, String> readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            return text.isBlank() ? new HashMap<>() : Json.parseObject(text);
+        }
+    }
+
+    /**
+     * Parses a URL query string
+     * @param rawQuery The raw query, may be null
+     * @return The decoded parameters; the first value wins for repeated names
+     */
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.putIfAbsent(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    /**
+     * Checks the request method of an endpoint
+     * @param method The request method
+     * @param expected The method the endpoint accepts
+     */
+    private static void requireMethod(String method, String expected) {
+        if (!method.equals(expected)) {
+            throw new ApiException(405, "Use " + expected);
+        }
+    }
+
+    /**
+     * Gets a parameter that must be present and not blank
+     * @param parameters The parameters
+     * @param name The parameter name
+     * @return The value
+     */
+    private static String required(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null || value.isBlank()) {
+            throw new ApiException(400, "Missing " + name);
+        }
+        return value;
+    }
+
+    /**
+     * Gets a date parameter that must be present
+     * @param parameters The parameters
+     * @param name The parameter name
+     * @return The date
+     */
+    private static LocalDate date(Map<String, String> parameters, String name) {
+        return LocalDate.parse(required(parameters, name));
+    }
+
+    /**
+     * Gets an optional whole number parameter
+     * @param parameters The parameters
+     * @param name The parameter name
+     * @param defaultValue The value if the parameter is missing or blank
+     * @return The value
+     * @throws NumberFormatException if the parameter is not a whole number
+     */
+    private static int intOrDefault(Map<String, String> parameters, String name, int defaultValue) {
+        String value = parameters.get(name);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    /**
+     * Checks that a stay is at least one night long
+     * @param checkIn The check-in date
+     * @param checkOut The check-out date
+     */
+    private static void requireStay(LocalDate checkIn, LocalDate checkOut) {
+        if (!checkOut.isAfter(checkIn)) {
+            throw new ApiException(400, "checkOut must be after checkIn");
+        }
+    }
+
+    /**
+     * Parses a catalog id
+     * @param text The id as text
+     * @return The id
+     */
+    private static int parseId(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new ApiException(404, "Not found");
+        }
+    }
+
+    /**
+     * A response status and JSON body
+     * @param status The HTTP status
+     * @param body The JSON body
+     */
+    private record Response(int status, String body) {
+    }
+
+    /**
+     * An error reported to the client with its own status
+     */
+    private static class ApiException extends RuntimeException {
+        /** Version of the serialized form */
+        private static final long serialVersionUID = 1L;
+
+        /** The HTTP status */
+        private final int status;
+
+        /**
+         * Constructor to create an error
+         * @param status The HTTP status
+         * @param message The message shown to the client
+         */
+        ApiException(int status, String message) {
+            super(message, null, false, false);
+            this.status = status;
+        }
+    }
+
+    /**
+     * Loads the catalog and serves it until the process is stopped
+     * @param args Not used
+     * @throws IOException if the port cannot be opened
+     */
+    public static void main(String[] args) throws IOException {
+        long started = System.nanoTime();
+        CatalogBootstrap.load((done, total, rows) -> { });
+        System.out.println("Catalog loaded: " + Catalog.getAllHotels().size() + " hotels, "
+                + Catalog.getAllRooms().size() + " rooms in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) + " ms");
+
+        // Open the writer now so that the first checkout does not pay for it
+        BookingWriter.getInstance();
+        BookingMetrics.getInstance();
+
+        int port = Integer.getInteger("booking.server.port", 8080);
+        BookingServer server = new BookingServer(new InetSocketAddress(port), BookingService.getInstance());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(2);
+            try {
+                BookingWriter.getInstance().shutdown(5, TimeUnit.SECONDS);
+            } catch (IOException | InterruptedException e) {
+                System.err.println("Error stopping booking writer: " + e.getMessage());
+            }
+        }, "booking-server-shutdown"));
+        server.start();
+        System.out.println("Booking server listening on port " + server.getPort());
+    }
+}
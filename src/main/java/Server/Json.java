@@ -0,0 +1,244 @@
+package Server;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Minimal JSON support for the booking server.
+ * Responses are written straight into a StringBuilder; requests are flat objects
+ * whose values are strings, numbers, booleans or null, which is all the API accepts.
+ */
+final class Json {
+    /** Hex digits used for \\u escapes */
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * Prevents instantiation
+     */
+    private Json() {
+    }
+
+    /**
+     * Appends a string as a quoted JSON string, or null
+     * @param out The builder to append to
+     * @param value The string, may be null
+     * @return The builder
+     */
+    static StringBuilder string(StringBuilder out, String value) {
+        if (value == null) {
+            return out.append("null");
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        return out.append('"');
+    }
+
+    /**
+     * Appends a "name": prefix for a field
+     * @param out The builder to append to
+     * @param name The field name
+     * @return The builder
+     */
+    static StringBuilder field(StringBuilder out, String name) {
+        return string(out, name).append(':');
+    }
+
+    /**
+     * Builds an error object
+     * @param message The error message
+     * @return The JSON text {"error": message}
+     */
+    static String error(String message) {
+        StringBuilder out = new StringBuilder(message.length() + 16).append('{');
+        field(out, "error");
+        return string(out, message).append('}').toString();
+    }
+
+    /**
+     * Parses a flat JSON object. Nested objects and arrays are rejected.
+     * @param text The JSON text
+     * @return The fields; numbers and booleans as their text, null as a missing field
+     * @throws IllegalArgumentException if the text is not a flat JSON object
+     */
+    static Map<String, String> parseObject(String text) {
+        Parser parser = new Parser(text);
+        Map<String, String> fields = new HashMap<>();
+        parser.skipWhitespace();
+        parser.expect('{');
+        parser.skipWhitespace();
+        if (parser.peek() == '}') {
+            parser.next();
+        } else {
+            while (true) {
+                parser.skipWhitespace();
+                String name = parser.readString();
+                parser.skipWhitespace();
+                parser.expect(':');
+                parser.skipWhitespace();
+                String value = parser.readValue();
+                if (value != null) {
+                    fields.put(name, value);
+                }
+                parser.skipWhitespace();
+                char c = parser.next();
+                if (c == '}') {
+                    break;
+                }
+                if (c != ',') {
+                    throw new IllegalArgumentException("Expected ',' or '}' at " + (parser.position - 1));
+                }
+            }
+        }
+        parser.skipWhitespace();
+        if (parser.position != text.length()) {
+            throw new IllegalArgumentException("Unexpected text after the object at " + parser.position);
+        }
+        return fields;
+    }
+
+    /**
+     * Cursor over the text of a request body
+     */
+    private static final class Parser {
+        /** The text being parsed */
+        private final String text;
+
+        /** Index of the next character */
+        private int position;
+
+        /**
+         * Constructor to create a parser
+         * @param text The text to parse
+         */
+        Parser(String text) {
+            this.text = text;
+        }
+
+        /**
+         * Gets the next character without consuming it
+         * @return The character, or 0 at the end of the text
+         */
+        char peek() {
+            return position < text.length() ? text.charAt(position) : 0;
+        }
+
+        /**
+         * Consumes the next character
+         * @return The character
+         * @throws IllegalArgumentException at the end of the text
+         */
+        char next() {
+            if (position >= text.length()) {
+                throw new IllegalArgumentException("Unexpected end of JSON");
+            }
+            return text.charAt(position++);
+        }
+
+        /**
+         * Consumes the next character, which must be the expected one
+         * @param expected The expected character
+         */
+        void expect(char expected) {
+            char c = next();
+            if (c != expected) {
+                throw new IllegalArgumentException("Expected '" + expected + "' at " + (position - 1));
+            }
+        }
+
+        /**
+         * Skips spaces, tabs and line breaks
+         */
+        void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        /**
+         * Reads a field value
+         * @return The value as text, or null for a JSON null
+         */
+        String readValue() {
+            char c = peek();
+            if (c == '"') {
+                return readString();
+            }
+            if (c == '{' || c == '[') {
+                throw new IllegalArgumentException("Nested values are not supported at " + position);
+            }
+            // Number, true, false or null: read up to the next delimiter
+            int start = position;
+            while (position < text.length()) {
+                char d = text.charAt(position);
+                if (d == ',' || d == '}' || Character.isWhitespace(d)) {
+                    break;
+                }
+                position++;
+            }
+            String literal = text.substring(start, position);
+            if (literal.isEmpty()) {
+                throw new IllegalArgumentException("Expected a value at " + start);
+            }
+            return literal.equals("null") ? null : literal;
+        }
+
+        /**
+         * Reads a quoted string and resolves its escapes
+         * @return The string
+         */
+        String readString() {
+            expect('"');
+            StringBuilder out = null;
+            int start = position;
+            while (true) {
+                char c = next();
+                if (c == '"') {
+                    return out == null ? text.substring(start, position - 1) : out.toString();
+                }
+                if (c != '\\') {
+                    if (out != null) {
+                        out.append(c);
+                    }
+                    continue;
+                }
+                // First escape: copy what was read so far
+                if (out == null) {
+                    out = new StringBuilder(text.substring(start, position - 1));
+                }
+                char e = next();
+                switch (e) {
+                    case '"', '\\', '/' -> out.append(e);
+                    case 'b' -> out.append('\b');
+                    case 'f' -> out.append('\f');
+                    case 'n' -> out.append('\n');
+                    case 'r' -> out.append('\r');
+                    case 't' -> out.append('\t');
+                    case 'u' -> {
+                        if (position + 4 > text.length()) {
+                            throw new IllegalArgumentException("Unexpected end of JSON");
+                        }
+                        out.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        position += 4;
+                    }
+                    default -> throw new IllegalArgumentException("Invalid escape at " + (position - 1));
+                }
+            }
+        }
+    }
+}
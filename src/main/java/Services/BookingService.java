@@ -0,0 +1,450 @@
+package Services;
+
+import Metrics.BookingMetrics;
+import Models.Cart;
+import Models.Hotel;
+import Models.Reservation;
+import Models.Room;
+import Storage.BookingRecord;
+import Storage.BookingWriter;
+import Util.IdGenerator;
+import Util.TimingWheel;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The booking engine without any user interface: searching, holding rooms in the cart
+ * of a session, pricing and checkout. The JavaFX controllers and the HTTP server are
+ * both thin layers over this class.
+ *
+ * Rooms in a cart are held for a limited time (booking.hold.ttlMinutes, default 15).
+ * A hold that is not booked in time expires on a timing wheel and its room goes back
+ * to inventory. Carts of idle sessions are evicted the same way (see CartStore).
+ */
+public class BookingService {
+    /** The shared service, created on first use */
+    private static volatile BookingService instance;
+
+    /** How long a room stays in a cart before it is given back, in minutes */
+    private final long holdMinutes;
+
+    /** Carts of all sessions; carts of idle sessions are evicted and their rooms given back */
+    private final CartStore carts;
+
+    /** Expires holds: one-second ticks, 4096 buckets so that holds of up to an hour need no extra turns */
+    private final TimingWheel<Reservation> holds;
+
+    /**
+     * A booking handed to the booking writer
+     * @param record The booking, with its id and total
+     * @param written Completed with the booking once it is on disk, or failed with the error
+     *                that stopped the write
+     */
+    public record SubmittedBooking(BookingRecord record, CompletableFuture<BookingRecord> written) {
+    }
+
+    /**
+     * Constructor to create a service
+     * @param holdMinutes How long a room stays in a cart before it is given back, in minutes
+     */
+    public BookingService(long holdMinutes) {
+        this.holdMinutes = holdMinutes;
+        this.carts = CartStore.fromSystemProperties(this::releaseAll);
+        this.holds = new TimingWheel<>("cart-holds", 1, TimeUnit.SECONDS, 4096, this::expire);
+    }
+
+    /**
+     * Gets the shared service, configured from system properties on first use
+     * @return The application-wide service
+     */
+    public static BookingService getInstance() {
+        BookingService service = instance;
+        if (service == null) {
+            synchronized (BookingService.class) {
+                service = instance;
+                if (service == null) {
+                    service = new BookingService(Long.getLong("booking.hold.ttlMinutes", 15));
+                    instance = service;
+                }
+            }
+        }
+        return service;
+    }
+
+    /**
+     * Starts a new session
+     * @return The id of the session
+     */
+    public String openSession() {
+        return IdGenerator.getInstance().nextIdText();
+    }
+
+    /**
+     * Ends a session: drops its cart and restores room availability
+     * @param sessionId The session id
+     */
+    public void endSession(String sessionId) {
+        releaseAll(carts.remove(sessionId));
+    }
+
+    /**
+     * Finds hotels in a city with at least one room free for the whole stay
+     * @param city The city (case insensitive)
+     * @param checkInDate The check-in date
+     * @param checkOutDate The check-out date
+     * @return The hotels with availability
+     */
+    public List<Hotel> searchHotels(String city, LocalDate checkInDate, LocalDate checkOutDate) {
+        return Catalog.searchHotels(city, checkInDate, checkOutDate);
+    }
+
+    /**
+     * Finds the rooms of a city that match a filter and are free for the whole stay
+     * @param city The city (case insensitive)
+     * @param filter The price, star, room type and availability criteria
+     * @param checkInDate The check-in date
+     * @param checkOutDate The check-out date
+     * @return The matching rooms, cheapest first
+     */
+    public List<Room> filterRooms(String city, RoomFilter filter, LocalDate checkInDate, LocalDate checkOutDate) {
+        return Catalog.filterRooms(city, filter, checkInDate, checkOutDate);
+    }
+
+    /**
+     * Finds the cheapest rooms of the whole catalog that match a filter and are free for the whole stay
+     * @param filter The price, star, room type and availability criteria
+     * @param checkInDate The check-in date
+     * @param checkOutDate The check-out date
+     * @param limit The number of rooms to return, at least 1
+     * @return Up to limit rooms, cheapest first
+     */
+    public List<Room> scanRooms(RoomFilter filter, LocalDate checkInDate, LocalDate checkOutDate, int limit) {
+        return Catalog.scanRooms(filter, checkInDate, checkOutDate, limit);
+    }
+
+    /**
+     * Finds the best deals of a city: the top rooms free for the whole stay, ranked by total
+     * price, stars or a weighted score. The rooms are ranked in one pass with a bounded heap,
+     * and a room is only checked for availability if it would make the list.
+     * @param city The city (case insensitive)
+     * @param order How the rooms are ranked
+     * @param limit The number of rooms to return, at least 1
+     * @param checkInDate The check-in date
+     * @param checkOutDate The check-out date
+     * @return Up to limit rooms, best first
+     */
+    public List<Room> bestDeals(String city, DealOrder order, int limit, LocalDate checkInDate, LocalDate checkOutDate) {
+        long started = System.nanoTime();
+        TopK<Room> best = new TopK<>(limit);
+        PricingEngine pricing = PricingEngine.getInstance();
+        long nights = Math.max(1, ChronoUnit.DAYS.between(checkInDate, checkOutDate));
+        Catalog.forEachRoomInCity(city, room -> {
+            double score = order.score(room, pricing.quote(room, checkInDate, checkOutDate), nights);
+            if (score > best.getThreshold() && room.getAvailable(checkInDate, checkOutDate) > 0) {
+                best.offer(room, score);
+            }
+        });
+        BookingMetrics.getInstance().recordSearch(started);
+        return best.drain();
+    }
+
+    /**
+     * Searches several cities at once, such as a region or the stops of a trip, with the
+     * default deadline; cities that miss it are left out and named in the result
+     * @param cities The cities (case insensitive)
+     * @param checkInDate The check-in date
+     * @param checkOutDate The check-out date
+     * @return The hotels with a room free for the stay, cheapest first, and which cities finished
+     */
+    public RegionSearch.Result searchRegion(List<String> cities, LocalDate checkInDate, LocalDate checkOutDate) {
+        return RegionSearch.getInstance().search(cities, checkInDate, checkOutDate);
+    }
+
+    /**
+     * Searches several cities at once, leaving out the cities that miss the deadline
+     * @param cities The cities (case insensitive)
+     * @param checkInDate The check-in date
+     * @param checkOutDate The check-out date
+     * @param deadlineMillis How long to wait for the cities, in milliseconds
+     * @return The hotels with a room free for the stay, cheapest first, and which cities finished
+     */
+    public RegionSearch.Result searchRegion(List<String> cities, LocalDate checkInDate, LocalDate checkOutDate,
+                                            long deadlineMillis) {
+        return RegionSearch.getInstance().search(cities, checkInDate, checkOutDate, deadlineMillis);
+    }
+
+    /**
+     * Lists the rooms of a hotel
+     * @param hotel The hotel
+     * @return The rooms of the hotel
+     */
+    public List<Room> listRooms(Hotel hotel) {
+        return Catalog.findRoomsByHotel(hotel);
+    }
+
+    /**
+     * Holds a unit of a room for every night of a stay in the cart of a session
+     * @param sessionId The session id
+     * @param room The room to hold
+     * @param checkInDate The check-in date
+     * @param checkOutDate The check-out date
+     * @return true if held, false if some night is not available
+     */
+    public boolean hold(String sessionId, Room room, LocalDate checkInDate, LocalDate checkOutDate) {
+        // Reserve the nights of the stay
+        boolean held = room.getInventory().reserve(checkInDate, checkOutDate);
+        BookingMetrics.getInstance().recordAddToCart(held);
+        if (!held) {
+            return false;
+        }
+
+        addReservation(new Reservation(room, checkInDate, checkOutDate, sessionId));
+
+        // Cached searches overlapping these nights may no longer be accurate
+        invalidateSearches(room, checkInDate, checkOutDate);
+        return true;
+    }
+
+    /**
+     * Records a reservation in the cart of its session and starts its hold
+     * @param reservation The reservation to record
+     */
+    private void addReservation(Reservation reservation) {
+        // A cart evicted in the meantime is closed; the store then hands out a new one
+        Cart cart = carts.get(reservation.getSessionId());
+        while (!cart.add(reservation)) {
+            cart = carts.get(reservation.getSessionId());
+        }
+
+        holds.schedule(reservation, holdMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Gets the reservations in the cart of a session
+     * @param sessionId The session id
+     * @return The reservations, in the order they were added
+     */
+    public List<Reservation> getCart(String sessionId) {
+        Cart cart = carts.peek(sessionId);
+        return cart == null ? new ArrayList<>() : cart.getReservations();
+    }
+
+    /**
+     * Gets the number of units of a room in the cart of a session
+     * @param sessionId The session id
+     * @param room The room
+     * @return The quantity in the cart
+     */
+    public int getCartQuantity(String sessionId, Room room) {
+        Cart cart = carts.peek(sessionId);
+        return cart == null ? 0 : cart.getQuantity(room);
+    }
+
+    /**
+     * Empties the cart of a session and restores room availability
+     * @param sessionId The session id
+     */
+    public void clearCart(String sessionId) {
+        // Take the current cart contents and empty the cart in one step
+        Cart cart = carts.peek(sessionId);
+        if (cart != null) {
+            releaseAll(cart.clear());
+        }
+    }
+
+    /**
+     * Empties the cart of a session after its rooms were booked; the rooms stay taken
+     * @param sessionId The session id
+     * @return The reservations that were booked
+     */
+    public List<Reservation> confirmCart(String sessionId) {
+        Cart cart = carts.peek(sessionId);
+        if (cart == null) {
+            return new ArrayList<>();
+        }
+
+        List<Reservation> booked = cart.clear();
+        for (Reservation reservation : booked) {
+            holds.cancel(reservation);
+        }
+        return booked;
+    }
+
+    /**
+     * Extends the holds of all rooms in the cart of a session, for example while the user pays.
+     * Rooms whose hold already ran out are taken out of the cart before this returns, so the
+     * cart then holds exactly what a checkout would book.
+     * @param sessionId The session id
+     * @param minutes New time until the holds expire, in minutes
+     * @return true if every room in the cart was still held, false if some were taken out
+     */
+    public boolean extendHolds(String sessionId, long minutes) {
+        boolean allHeld = true;
+        for (Reservation reservation : getCart(sessionId)) {
+            if (!holds.reschedule(reservation, minutes, TimeUnit.MINUTES)) {
+                // The hold fired or is firing; whichever path removes it from the cart gives the room back
+                expire(reservation);
+                allHeld = false;
+            }
+        }
+        return allHeld;
+    }
+
+    /**
+     * Books everything in the cart of a session.
+     * The rooms are taken out of the cart at once, so no hold can expire while the booking
+     * is written. The booking is written to the journal by the booking writer; if that fails,
+     * the rooms go back into the cart with fresh holds. The booking and its id are known
+     * before it is on disk, so a caller that stops waiting can still tell the user which
+     * booking to look up.
+     * @param sessionId The session id
+     * @param email Customer email, may be null
+     * @param name Customer first name, may be null
+     * @param surname Customer surname, may be null
+     * @return The booking, and a future completed with it once it is on disk or failed with
+     * the error that stopped the write
+     * @throws IllegalStateException if the cart is empty
+     */
+    public SubmittedBooking checkout(String sessionId, String email, String name, String surname) {
+        long started = System.nanoTime();
+        List<Reservation> reservations = confirmCart(sessionId);
+        if (reservations.isEmpty()) {
+            throw new IllegalStateException("The cart is empty");
+        }
+
+        BookingRecord record = createBookingRecord(reservations, email, name, surname);
+        return new SubmittedBooking(record, write(record, reservations, started));
+    }
+
+    /**
+     * Hands a booking to the booking writer, giving its rooms back to the cart if it fails
+     * @param record The booking
+     * @param reservations The reservations taken out of the cart for it
+     * @param started When the checkout started, in System.nanoTime units
+     * @return A future completed with the booking once it is on disk
+     */
+    private CompletableFuture<BookingRecord> write(BookingRecord record, List<Reservation> reservations, long started) {
+        CompletableFuture<BookingRecord> written;
+        try {
+            written = BookingWriter.getInstance().submit(record);
+        } catch (IOException e) {
+            written = CompletableFuture.failedFuture(e);
+        }
+
+        return written.whenComplete((booked, error) -> {
+            BookingMetrics.getInstance().recordCheckout(started, error == null);
+            if (error != null) {
+                // Give the rooms back to the cart so that the user can try again
+                for (Reservation reservation : reservations) {
+                    addReservation(reservation);
+                }
+            }
+        });
+    }
+
+    /**
+     * Builds the booking record of a cart, with one line per room and its price
+     * @param reservations The reservations to book
+     * @param email Customer email, may be null
+     * @param name Customer first name, may be null
+     * @param surname Customer surname, may be null
+     * @return The booking record, with a new booking id
+     */
+    public BookingRecord createBookingRecord(List<Reservation> reservations, String email, String name, String surname) {
+        List<BookingRecord.Line> lines = new ArrayList<>(reservations.size());
+        for (Reservation reservation : reservations) {
+            Room room = reservation.getRoom();
+            Hotel hotel = room.getHotel();
+            lines.add(new BookingRecord.Line(hotel.getName(), hotel.getCity(), room.getType(), room.getDescription(),
+                    reservation.getCheckIn(), reservation.getCheckOut(),
+                    calculateTotalPrice(room, reservation.getCheckIn(), reservation.getCheckOut())));
+        }
+        return new BookingRecord(IdGenerator.getInstance().nextIdText(), LocalDate.now(), email, name, surname, lines);
+    }
+
+    /**
+     * Calculates the total price for a room based on the selected dates
+     * @param room The room to calculate price for
+     * @param checkInDate The check-in date
+     * @param checkOutDate The check-out date
+     * @return The total price for the stay
+     */
+    public double calculateTotalPrice(Room room, LocalDate checkInDate, LocalDate checkOutDate) {
+        // Weekday and seasonal rates, overrides and stay discounts come from the rate calendar
+        return PricingEngine.getInstance().quote(room, checkInDate, checkOutDate);
+    }
+
+    /**
+     * Gets the number of sessions that currently have a cart
+     * @return The number of carts
+     */
+    public int getActiveCarts() {
+        return carts.size();
+    }
+
+    /**
+     * Gets the number of rooms currently held in carts
+     * @return The number of pending holds
+     */
+    public int getPendingHolds() {
+        return holds.getPending();
+    }
+
+    /**
+     * Gets the number of holds that expired so far
+     * @return The number of expired holds
+     */
+    public long getExpiredHolds() {
+        return holds.getExpired();
+    }
+
+    /**
+     * Gives back the room of a hold that expired, unless it left the cart in the meantime
+     * @param reservation The expired reservation
+     */
+    private void expire(Reservation reservation) {
+        // Only the path that takes the reservation out of its cart gives the room back
+        Cart cart = carts.find(reservation.getSessionId());
+        if (cart != null && cart.remove(reservation)) {
+            release(reservation);
+        }
+    }
+
+    /**
+     * Restores room availability for reservations removed from a cart
+     * @param removed The removed reservations
+     */
+    private void releaseAll(List<Reservation> removed) {
+        for (Reservation reservation : removed) {
+            holds.cancel(reservation);
+            release(reservation);
+        }
+    }
+
+    /**
+     * Restores room availability for one reservation
+     * @param reservation The reservation
+     */
+    private void release(Reservation reservation) {
+        Room room = reservation.getRoom();
+        room.getInventory().release(reservation.getCheckIn(), reservation.getCheckOut());
+        invalidateSearches(room, reservation.getCheckIn(), reservation.getCheckOut());
+    }
+
+    /**
+     * Drops cached hotel searches whose stay overlaps nights of a room that changed
+     * @param room The room whose inventory changed
+     * @param checkInDate The first changed night
+     * @param checkOutDate The day after the last changed night
+     */
+    private void invalidateSearches(Room room, LocalDate checkInDate, LocalDate checkOutDate) {
+        String city = Catalog.normalizeCity(room.getHotel().getCity());
+        SearchCache.getInstance().invalidate(city, checkInDate, checkOutDate);
+    }
+}
@@ -0,0 +1,184 @@
+package Services;
+
+import Models.Cart;
+import Models.Reservation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Carts of all active sessions, keyed by session id.
+ *
+ * Memory stays bounded in two ways. Carts unused for longer than the idle timeout are
+ * evicted. If the number of carts still exceeds the limit, the least recently used
+ * sixteenth of them is evicted as well. Both happen in a sweep run by whichever thread
+ * creates a cart once the sweep interval has passed or the limit is reached, so no extra
+ * thread is needed. Evicted carts are closed and their reservations handed to the eviction
+ * listener, which gives them back.
+ *
+ * Sessions that only browse never create a cart: reading an absent cart returns nothing.
+ */
+public class CartStore {
+    /** Carts by session id */
+    private final Map<String, Cart> carts = new ConcurrentHashMap<>();
+
+    /** Number of carts above which the least recently used ones are evicted */
+    private final int maxSessions;
+
+    /** Time after which an unused cart is evicted, in milliseconds */
+    private final long idleMillis;
+
+    /** Called with the reservations of each evicted cart */
+    private final Consumer<List<Reservation>> evictionListener;
+
+    /** Set while a sweep runs, so that only one thread sweeps at a time */
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    /** When the last sweep started, in milliseconds */
+    private volatile long lastSweep = System.currentTimeMillis();
+
+    /** Carts evicted so far */
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Constructor to create a cart store
+     * @param maxSessions Number of carts above which the least recently used ones are evicted
+     * @param idleMillis Time after which an unused cart is evicted, in milliseconds
+     * @param evictionListener Called with the reservations of each evicted cart
+     */
+    public CartStore(int maxSessions, long idleMillis, Consumer<List<Reservation>> evictionListener) {
+        this.maxSessions = maxSessions;
+        this.idleMillis = idleMillis;
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * Creates a cart store configured from the booking.carts.max (default 500000) and
+     * booking.carts.idleMinutes (default 30) system properties
+     * @param evictionListener Called with the reservations of each evicted cart
+     * @return The cart store
+     */
+    public static CartStore fromSystemProperties(Consumer<List<Reservation>> evictionListener) {
+        int maxSessions = Integer.getInteger("booking.carts.max", 500_000);
+        long idleMillis = Long.getLong("booking.carts.idleMinutes", 30) * 60_000;
+        return new CartStore(maxSessions, idleMillis, evictionListener);
+    }
+
+    /**
+     * Gets the cart of a session, creating it if needed
+     * @param sessionId The session id
+     * @return The open cart of the session
+     */
+    public Cart get(String sessionId) {
+        Cart cart = carts.get(sessionId);
+        if (cart == null) {
+            cart = carts.computeIfAbsent(sessionId, Cart::new);
+            sweepIfDue();
+        }
+        cart.touch();
+        return cart;
+    }
+
+    /**
+     * Gets the cart of a session without creating one
+     * @param sessionId The session id
+     * @return The cart, or null if the session has none
+     */
+    public Cart peek(String sessionId) {
+        Cart cart = carts.get(sessionId);
+        if (cart != null) {
+            cart.touch();
+        }
+        return cart;
+    }
+
+    /**
+     * Gets the cart of a session without creating one or counting it as use of the cart
+     * @param sessionId The session id
+     * @return The cart, or null if the session has none
+     */
+    public Cart find(String sessionId) {
+        return carts.get(sessionId);
+    }
+
+    /**
+     * Removes and closes the cart of a session that ended
+     * @param sessionId The session id
+     * @return The reservations that were in the cart, for the caller to give back
+     */
+    public List<Reservation> remove(String sessionId) {
+        Cart cart = carts.remove(sessionId);
+        return cart == null ? List.of() : cart.close();
+    }
+
+    /**
+     * Runs a sweep if the sweep interval has passed or there are too many carts
+     */
+    private void sweepIfDue() {
+        long now = System.currentTimeMillis();
+        boolean due = now - lastSweep >= Math.max(1, idleMillis / 4) || carts.size() > maxSessions;
+        if (due && sweeping.compareAndSet(false, true)) {
+            try {
+                lastSweep = now;
+                sweep(now);
+            } finally {
+                sweeping.set(false);
+            }
+        }
+    }
+
+    /**
+     * Evicts idle carts, then the least recently used ones while there are too many
+     * @param now The current time in milliseconds
+     */
+    private void sweep(long now) {
+        for (Map.Entry<String, Cart> entry : carts.entrySet()) {
+            if (now - entry.getValue().getLastAccess() > idleMillis) {
+                evict(entry.getKey(), entry.getValue());
+            }
+        }
+
+        if (carts.size() > maxSessions) {
+            // Evict down to fifteen sixteenths of the limit, so that this is rare
+            List<Cart> byAccess = new ArrayList<>(carts.values());
+            byAccess.sort((a, b) -> Long.compare(a.getLastAccess(), b.getLastAccess()));
+            int excess = carts.size() - maxSessions + maxSessions / 16;
+            for (int i = 0; i < excess && i < byAccess.size(); i++) {
+                evict(byAccess.get(i).getSessionId(), byAccess.get(i));
+            }
+        }
+    }
+
+    /**
+     * Evicts a cart unless it was replaced in the meantime
+     * @param sessionId The session id
+     * @param cart The cart to evict
+     */
+    private void evict(String sessionId, Cart cart) {
+        if (carts.remove(sessionId, cart)) {
+            evictions.incrementAndGet();
+            evictionListener.accept(cart.close());
+        }
+    }
+
+    /**
+     * Gets the number of sessions with a cart
+     * @return The number of carts
+     */
+    public int size() {
+        return carts.size();
+    }
+
+    /**
+     * Gets the number of carts evicted so far
+     * @return The eviction count
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+}
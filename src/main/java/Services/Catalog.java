@@ -0,0 +1,406 @@
+package Services;
+
+import Metrics.BookingMetrics;
+import Models.Hotel;
+import Models.Room;
+import Models.RoomStore;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * The hotel and room catalog, shared by the JavaFX client and the HTTP server.
+ * Keeps every hotel and room together with indexes by city and by hotel, and the
+ * typeahead trie, all safe to read while the catalog is being loaded.
+ *
+ * Hotels and rooms get an id when they are added: their position in the catalog,
+ * so that clients outside the JVM can refer to them.
+ */
+public class Catalog {
+    /** Static list to store all available hotels */
+    private static List<Hotel> hotels = Collections.synchronizedList(new ArrayList<>());
+
+    /** Index of hotels keyed by normalized city name, kept up to date by addHotel */
+    private static Map<String, List<Hotel>> hotelsByCity = new ConcurrentHashMap<>();
+
+    /** Static list to store all available rooms */
+    private static List<Room> rooms = Collections.synchronizedList(new ArrayList<>());
+
+    /** Index of rooms keyed by the hotel they belong to, kept up to date by addRoom */
+    private static Map<Hotel, List<Room>> roomsByHotel = new ConcurrentHashMap<>();
+
+    /** Filter indexes of the rooms per normalized city, built on the first filtered search of the city */
+    private static Map<String, RoomFilterIndex> roomIndexes = new ConcurrentHashMap<>();
+
+    /** Maximum number of typeahead suggestions returned for a prefix */
+    public static final int MAX_SUGGESTIONS = 8;
+
+    /** Prefix trie of city and hotel names for typeahead suggestions, kept up to date by addHotel */
+    private static SuggestionTrie suggestionTrie = new SuggestionTrie(MAX_SUGGESTIONS);
+
+    /**
+     * Adds a hotel to the catalog and gives it the next hotel id
+     * @param hotel The hotel object to be added
+     */
+    public static void addHotel(Hotel hotel) {
+        synchronized (hotels) {
+            hotel.setId(hotels.size());
+            hotels.add(hotel);
+        }
+
+        // Register the hotel in the bucket of its city
+        List<Hotel> cityHotels = hotelsByCity.computeIfAbsent(normalizeCity(hotel.getCity()), key -> new ArrayList<>());
+        synchronized (cityHotels) {
+            cityHotels.add(hotel);
+        }
+
+        // Make the hotel and its city available as suggestions
+        suggestionTrie.addHotel(hotel);
+
+        // Cached searches of this city no longer reflect the catalog
+        SearchCache.getInstance().invalidateCity(normalizeCity(hotel.getCity()));
+    }
+
+    /**
+     * Adds a room to the catalog and gives it the next room id
+     * @param room The room object to be added
+     * @throws IllegalArgumentException if the room's hotel is missing or not in the catalog
+     */
+    public static void addRoom(Room room) {
+        checkHotel(room);
+        synchronized (rooms) {
+            // Also moves the room's price and availability into the room store
+            room.setId(rooms.size());
+            rooms.add(room);
+        }
+
+        // Register the room in the bucket of its hotel
+        List<Room> hotelRooms = roomsByHotel.computeIfAbsent(room.getHotel(), key -> new ArrayList<>());
+        synchronized (hotelRooms) {
+            hotelRooms.add(room);
+        }
+
+        // Cached searches and the filter index of this hotel's city no longer reflect the catalog
+        String city = normalizeCity(room.getHotel().getCity());
+        SearchCache.getInstance().invalidateCity(city);
+        roomIndexes.remove(city);
+    }
+
+    /**
+     * Adds many hotels at once, giving them consecutive hotel ids in list order.
+     * Each lock is taken once per batch instead of once per hotel, and each city's
+     * cached searches are invalidated once, so bulk loaders should prefer this to addHotel.
+     * @param batch The hotels to add
+     */
+    public static void addHotels(List<Hotel> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        synchronized (hotels) {
+            int id = hotels.size();
+            for (Hotel hotel : batch) {
+                hotel.setId(id++);
+            }
+            hotels.addAll(batch);
+        }
+
+        // Group by city so that each bucket is locked once
+        Map<String, List<Hotel>> byCity = new LinkedHashMap<>();
+        for (Hotel hotel : batch) {
+            byCity.computeIfAbsent(normalizeCity(hotel.getCity()), key -> new ArrayList<>()).add(hotel);
+            suggestionTrie.addHotel(hotel);
+        }
+        for (Map.Entry<String, List<Hotel>> entry : byCity.entrySet()) {
+            List<Hotel> cityHotels = hotelsByCity.computeIfAbsent(entry.getKey(), key -> new ArrayList<>());
+            synchronized (cityHotels) {
+                cityHotels.addAll(entry.getValue());
+            }
+            SearchCache.getInstance().invalidateCity(entry.getKey());
+        }
+    }
+
+    /**
+     * Adds many rooms at once, giving them consecutive room ids in list order.
+     * Each lock is taken once per batch instead of once per room, and each city's
+     * cached searches and filter index are dropped once, so bulk loaders should prefer
+     * this to addRoom.
+     * @param batch The rooms to add
+     * @throws IllegalArgumentException if a room's hotel is missing or not in the catalog;
+     *         no room is added then
+     */
+    public static void addRooms(List<Room> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        for (Room room : batch) {
+            checkHotel(room);
+        }
+        synchronized (rooms) {
+            int id = rooms.size();
+            for (Room room : batch) {
+                room.setId(id++);
+            }
+            rooms.addAll(batch);
+        }
+
+        // Group by hotel so that each bucket is locked once
+        Map<Hotel, List<Room>> byHotel = new LinkedHashMap<>();
+        for (Room room : batch) {
+            byHotel.computeIfAbsent(room.getHotel(), key -> new ArrayList<>()).add(room);
+        }
+        Set<String> cities = new HashSet<>();
+        for (Map.Entry<Hotel, List<Room>> entry : byHotel.entrySet()) {
+            List<Room> hotelRooms = roomsByHotel.computeIfAbsent(entry.getKey(), key -> new ArrayList<>());
+            synchronized (hotelRooms) {
+                hotelRooms.addAll(entry.getValue());
+            }
+            cities.add(normalizeCity(entry.getKey().getCity()));
+        }
+        for (String city : cities) {
+            SearchCache.getInstance().invalidateCity(city);
+            roomIndexes.remove(city);
+        }
+    }
+
+    /**
+     * Checks that a room belongs to a hotel of the catalog, which it needs to join the room store
+     * @param room The room about to be added
+     * @throws IllegalArgumentException if the room's hotel is missing or not in the catalog
+     */
+    private static void checkHotel(Room room) {
+        if (room.getHotel() == null) {
+            throw new IllegalArgumentException("Room " + room.getType() + " has no hotel");
+        }
+        if (room.getHotel().getId() < 0) {
+            throw new IllegalArgumentException("Hotel " + room.getHotel().getName() + " of room "
+                    + room.getType() + " is not in the catalog");
+        }
+    }
+
+    /**
+     * Tells whether the catalog has no hotels yet
+     * @return true if no hotel was added
+     */
+    public static boolean isEmpty() {
+        return hotels.isEmpty();
+    }
+
+    /**
+     * Gets every hotel in the catalog, in the order they were added
+     * @return A copy of the hotel list
+     */
+    public static List<Hotel> getAllHotels() {
+        synchronized (hotels) {
+            return new ArrayList<>(hotels);
+        }
+    }
+
+    /**
+     * Gets every room in the catalog, in the order they were added
+     * @return A copy of the room list
+     */
+    public static List<Room> getAllRooms() {
+        synchronized (rooms) {
+            return new ArrayList<>(rooms);
+        }
+    }
+
+    /**
+     * Gets a hotel by id
+     * @param id The hotel id
+     * @return The hotel, or null if there is no hotel with this id
+     */
+    public static Hotel getHotel(int id) {
+        synchronized (hotels) {
+            return id >= 0 && id < hotels.size() ? hotels.get(id) : null;
+        }
+    }
+
+    /**
+     * Gets a room by id
+     * @param id The room id
+     * @return The room, or null if there is no room with this id
+     */
+    public static Room getRoom(int id) {
+        synchronized (rooms) {
+            return id >= 0 && id < rooms.size() ? rooms.get(id) : null;
+        }
+    }
+
+    /**
+     * Normalizes a city name so that lookups ignore case and surrounding whitespace
+     * @param city The city name as entered by the user or stored in a hotel
+     * @return The normalized key used by the city index
+     */
+    public static String normalizeCity(String city) {
+        return city == null ? "" : city.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Suggests cities and hotel names starting with the typed text
+     * @param prefix The text typed so far (case insensitive)
+     * @param limit The maximum number of suggestions, at most MAX_SUGGESTIONS
+     * @return Suggestions ordered by hotel count, highest first
+     */
+    public static List<SuggestionTrie.Suggestion> suggest(String prefix, int limit) {
+        return suggestionTrie.suggest(prefix, limit);
+    }
+
+    /**
+     * Finds hotels in a specific city
+     * @param city The name of the city to search for (case insensitive)
+     * @return A list of hotels located in the specified city
+     */
+    public static List<Hotel> findHotelsByCity(String city) {
+        List<Hotel> cityHotels = hotelsByCity.get(normalizeCity(city));
+        if (cityHotels == null) {
+            return new ArrayList<>();
+        }
+
+        // Copy the bucket so callers never observe concurrent additions
+        synchronized (cityHotels) {
+            return new ArrayList<>(cityHotels);
+        }
+    }
+
+    /**
+     * Finds hotels in a specific city that have at least one room free for the whole stay.
+     * Results are served from the shared search cache when possible.
+     * @param city The name of the city to search for (case insensitive)
+     * @param checkInDate The check-in date
+     * @param checkOutDate The check-out date
+     * @return A list of hotels with availability for the stay
+     */
+    public static List<Hotel> searchHotels(String city, LocalDate checkInDate, LocalDate checkOutDate) {
+        long started = System.nanoTime();
+        List<Hotel> found = SearchCache.getInstance().get(normalizeCity(city), checkInDate, checkOutDate, () -> {
+            List<Hotel> available = new ArrayList<>();
+            for (Hotel hotel : findHotelsByCity(city)) {
+                for (Room room : copyRooms(hotel)) {
+                    if (room.getAvailable(checkInDate, checkOutDate) > 0) {
+                        available.add(hotel);
+                        break;
+                    }
+                }
+            }
+            return available;
+        });
+        BookingMetrics.getInstance().recordSearch(started);
+        return found;
+    }
+
+    /**
+     * Finds the rooms of a city that match a filter and are free for the whole stay.
+     * Price, star and type criteria are answered from the city's filter index, so only
+     * rooms that pass them are checked for availability.
+     * @param city The name of the city to search for (case insensitive)
+     * @param filter The criteria
+     * @param checkInDate The check-in date
+     * @param checkOutDate The check-out date
+     * @return The matching rooms, cheapest first
+     */
+    public static List<Room> filterRooms(String city, RoomFilter filter, LocalDate checkInDate, LocalDate checkOutDate) {
+        long started = System.nanoTime();
+        RoomFilterIndex index = roomIndexes.computeIfAbsent(normalizeCity(city), key -> {
+            List<Room> cityRooms = new ArrayList<>();
+            for (Hotel hotel : findHotelsByCity(city)) {
+                cityRooms.addAll(copyRooms(hotel));
+            }
+            return new RoomFilterIndex(cityRooms);
+        });
+        List<Room> found = index.find(filter, checkInDate, checkOutDate);
+        BookingMetrics.getInstance().recordSearch(started);
+        return found;
+    }
+
+    /**
+     * Finds the cheapest rooms anywhere in the catalog that match a filter and are free for
+     * the whole stay. Price and star criteria are answered by a scan over the room store
+     * columns, so only rooms that pass them are looked up, and of those only the rooms that
+     * would make the list are checked for type and availability.
+     * @param filter The criteria
+     * @param checkInDate The check-in date
+     * @param checkOutDate The check-out date
+     * @param limit The number of rooms to return, at least 1
+     * @return Up to limit rooms, cheapest first
+     */
+    public static List<Room> scanRooms(RoomFilter filter, LocalDate checkInDate, LocalDate checkOutDate, int limit) {
+        long started = System.nanoTime();
+        int[] ids = RoomStore.getInstance().find(filter.minPrice(), filter.maxPrice(), filter.minStars(), filter.maxStars());
+        Room[] candidates = new Room[ids.length];
+        synchronized (rooms) {
+            for (int i = 0; i < ids.length; i++) {
+                candidates[i] = rooms.get(ids[i]);
+            }
+        }
+
+        // Rank by price, so the lowest price is the best score
+        TopK<Room> cheapest = new TopK<>(limit);
+        for (Room room : candidates) {
+            if (-room.getPrice() > cheapest.getThreshold() && filter.matches(room, checkInDate, checkOutDate)) {
+                cheapest.offer(room, -room.getPrice());
+            }
+        }
+        BookingMetrics.getInstance().recordSearch(started);
+        return cheapest.drain();
+    }
+
+    /**
+     * Visits every room of a city without copying the rooms into a list.
+     * Each hotel's rooms are visited under that hotel's lock, so the visitor must be quick
+     * and must not add rooms.
+     * @param city The name of the city (case insensitive)
+     * @param visitor Called once per room
+     */
+    public static void forEachRoomInCity(String city, Consumer<Room> visitor) {
+        for (Hotel hotel : findHotelsByCity(city)) {
+            List<Room> hotelRooms = roomsByHotel.get(hotel);
+            if (hotelRooms == null) {
+                continue;
+            }
+            synchronized (hotelRooms) {
+                for (int i = 0; i < hotelRooms.size(); i++) {
+                    visitor.accept(hotelRooms.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds rooms associated with a specific hotel
+     * @param hotel The hotel to find rooms for
+     * @return A list of rooms belonging to the specified hotel
+     */
+    public static List<Room> findRoomsByHotel(Hotel hotel) {
+        long started = System.nanoTime();
+        List<Room> found = copyRooms(hotel);
+        BookingMetrics.getInstance().recordRoomLookup(started);
+        return found;
+    }
+
+    /**
+     * Copies the rooms of a hotel without recording a room lookup
+     * @param hotel The hotel to find rooms for
+     * @return A list of rooms belonging to the specified hotel
+     */
+    static List<Room> copyRooms(Hotel hotel) {
+        List<Room> hotelRooms = roomsByHotel.get(hotel);
+        if (hotelRooms == null) {
+            return new ArrayList<>();
+        }
+
+        // Copy the bucket so callers never observe concurrent additions
+        synchronized (hotelRooms) {
+            return new ArrayList<>(hotelRooms);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package Services;
+
+import Models.Room;
+
+/**
+ * How the best deals of a city are ranked
+ */
+public enum DealOrder {
+    /** Lowest total price for the stay first */
+    CHEAPEST,
+
+    /** Most hotel stars first; among equal stars, the lowest total price first */
+    BEST_RATED,
+
+    /**
+     * Highest weighted score first: one hotel star is worth booking.deals.pricePerStar
+     * dollars per night (default 100), so a 4-star room at $250 a night on average over
+     * the stay scores 4 - 2.5 = 1.5
+     */
+    BEST_VALUE;
+
+    /** Dollars per night that one hotel star is worth in the BEST_VALUE score */
+    private static final double PRICE_PER_STAR =
+            Double.parseDouble(System.getProperty("booking.deals.pricePerStar", "100"));
+
+    /** Total prices are below this, so stars can be ranked above any price difference */
+    private static final double STAR_STEP = 1e13;
+
+    /**
+     * Scores a room for a stay; higher is better
+     * @param room The room
+     * @param totalPrice The total price of the stay in the room
+     * @param nights The number of nights of the stay
+     * @return The score
+     */
+    double score(Room room, double totalPrice, long nights) {
+        return switch (this) {
+            case CHEAPEST -> -totalPrice;
+            case BEST_RATED -> room.getHotel().getStars() * STAR_STEP - totalPrice;
+            case BEST_VALUE -> room.getHotel().getStars() - totalPrice / nights / PRICE_PER_STAR;
+        };
+    }
+}
@@ -0,0 +1,533 @@
+package Services;
+
+import Models.Room;
+import Models.RoomInventory;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rate calendar pricing: weekday and seasonal rates, per-night overrides for single rooms
+ * and length-of-stay discounts, with every stay total computed in O(1).
+ *
+ * The rate of a night is the room's base price times a rate factor for that night, the
+ * product of its weekday multiplier and the multiplier of the season it falls in (1 if none).
+ * Weekday multipliers and seasons can be set for everyone or for a single room type such as
+ * "Suite"; a room type's own weekday multipliers replace the shared ones and its own seasons
+ * win over the shared ones. Factors therefore depend only on the room type, so instead of a
+ * calendar per room the engine keeps one array of prefix sums of the factors over the booking
+ * window of RoomInventory per room type with rules of its own, plus the shared array that every
+ * other type uses, and a stay costs base * (sums[checkOut] - sums[checkIn]). A room with overrides also keeps prefix
+ * sums of how far its overridden nights are from the standard rate, added the same way.
+ * The total is then reduced by the best length-of-stay discount, read from an array
+ * indexed by the number of nights, and rounded to cents once.
+ *
+ * Rule changes rebuild the shared arrays and publish them at once, so quotes never see half
+ * a change; override arrays are brought up to date on their next quote. The calendar starts
+ * today and follows the booking window of RoomInventory: the first quote after midnight
+ * rebuilds it one night later, and overrides of nights that have passed are dropped. Nights
+ * outside the booking window cannot be booked and are priced at the base rate.
+ *
+ * Defaults come from system properties: booking.pricing.weekendMultiplier for Friday and
+ * Saturday nights (default 1) and booking.pricing.weeklyDiscount, a percentage off stays of
+ * seven nights or more (default 0). With both at their defaults a stay costs base * nights.
+ */
+public class PricingEngine {
+    /** The shared engine, created on first use */
+    private static volatile PricingEngine instance;
+
+    /** Number of nights in the calendar */
+    private static final int HORIZON = RoomInventory.HORIZON_NIGHTS;
+
+    /**
+     * A seasonal rate
+     * @param from The first night of the season
+     * @param to The night after the season ends (exclusive, like a check-out date)
+     * @param multiplier The factor applied to the base price on those nights
+     */
+    public record Season(LocalDate from, LocalDate to, double multiplier) {
+        /**
+         * Checks the season
+         * @param from The first night of the season
+         * @param to The night after the season ends
+         * @param multiplier The factor applied to the base price, positive
+         */
+        public Season {
+            if (!to.isAfter(from)) {
+                throw new IllegalArgumentException("A season must end after it starts");
+            }
+            if (!(multiplier > 0)) {
+                throw new IllegalArgumentException("Multiplier must be positive");
+            }
+        }
+    }
+
+    /**
+     * The nightly rate factors of one set of rules
+     * @param factors The nightly rate factors
+     * @param factorSums Prefix sums of the factors; factorSums[n] covers nights [0, n)
+     */
+    private record Calendar(double[] factors, double[] factorSums) {
+    }
+
+    /**
+     * The calendars, replaced as a whole on every rule change and every new day
+     * @param baseDay Epoch day of night 0 of the calendars
+     * @param standard The calendar of the room types without rules of their own
+     * @param byType The calendars of the room types with rules of their own, by room type
+     * @param stayMultipliers Price multiplier by number of nights, after the length-of-stay discount
+     */
+    private record Rates(long baseDay, Calendar standard, Map<String, Calendar> byType, double[] stayMultipliers) {
+        /**
+         * Gets the calendar a room is priced by
+         * @param room The room
+         * @return The calendar of its room type, or the standard calendar
+         */
+        Calendar of(Room room) {
+            if (byType.isEmpty()) {
+                return standard;
+            }
+            Calendar calendar = byType.get(room.getType());
+            return calendar == null ? standard : calendar;
+        }
+    }
+
+    /**
+     * The rates of one room type that differ from the shared ones
+     */
+    private static final class TypeRules {
+        /** Multiplier of each weekday, or 0 where the shared multiplier applies */
+        private final double[] weekdayMultipliers = new double[7];
+
+        /** Seasons of the type in the order they were added; they win over the shared seasons */
+        private final List<Season> seasons = new ArrayList<>();
+    }
+
+    /**
+     * Override sums of a room, published together with the calendar they belong to
+     * @param rates The calendar the sums were built on
+     * @param sums Prefix sums of the overrides minus the standard rates of that calendar
+     */
+    private record DeltaSums(Rates rates, double[] sums) {
+    }
+
+    /**
+     * Nightly rate overrides of one room
+     */
+    private static final class Overrides {
+        /** Overridden nightly prices in dollars from baseDay on, or -1 for the nights at the standard rate */
+        private final int[] prices = new int[HORIZON];
+
+        /** Epoch day of prices[0] */
+        private long baseDay;
+
+        /** Prefix sums of the overrides minus the standard rates, with the calendar they were built on */
+        private volatile DeltaSums sums;
+
+        /**
+         * Constructor to create a room's overrides with every night at the standard rate
+         * @param baseDay Epoch day of the first night
+         */
+        Overrides(long baseDay) {
+            this.baseDay = baseDay;
+            Arrays.fill(prices, -1);
+        }
+
+        /**
+         * Moves the first night forward, dropping the overrides of the nights before it;
+         * called with the overrides locked
+         * @param day Epoch day of the new first night
+         */
+        void moveTo(long day) {
+            int shift = (int) Math.min(HORIZON, Math.max(0, day - baseDay));
+            if (shift > 0) {
+                System.arraycopy(prices, shift, prices, 0, HORIZON - shift);
+                Arrays.fill(prices, HORIZON - shift, HORIZON, -1);
+                baseDay += shift;
+            }
+        }
+    }
+
+    /** Multiplier of each weekday, indexed by DayOfWeek.getValue() - 1 */
+    private final double[] weekdayMultipliers = new double[7];
+
+    /** Seasons in the order they were added; a later season wins where seasons overlap */
+    private final List<Season> seasons = new ArrayList<>();
+
+    /** Rules of the room types that have any of their own, by room type */
+    private final Map<String, TypeRules> typeRules = new HashMap<>();
+
+    /** Percentage off by the minimum number of nights it applies to; 0 where none */
+    private final double[] discountPercents = new double[HORIZON + 1];
+
+    /** The current calendar */
+    private volatile Rates rates;
+
+    /** Per-night overrides of the rooms that have any */
+    private final ConcurrentHashMap<Room, Overrides> overrides = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor to create an engine where every night costs the base price
+     */
+    public PricingEngine() {
+        Arrays.fill(weekdayMultipliers, 1.0);
+        rebuild();
+    }
+
+    /**
+     * Gets the shared engine, configured from system properties on first use
+     * @return The application-wide pricing engine
+     */
+    public static PricingEngine getInstance() {
+        PricingEngine engine = instance;
+        if (engine == null) {
+            synchronized (PricingEngine.class) {
+                engine = instance;
+                if (engine == null) {
+                    engine = new PricingEngine();
+                    double weekend = Double.parseDouble(System.getProperty("booking.pricing.weekendMultiplier", "1"));
+                    engine.setWeekdayMultiplier(DayOfWeek.FRIDAY, weekend);
+                    engine.setWeekdayMultiplier(DayOfWeek.SATURDAY, weekend);
+                    double weekly = Double.parseDouble(System.getProperty("booking.pricing.weeklyDiscount", "0"));
+                    engine.setStayDiscount(7, weekly);
+                    instance = engine;
+                }
+            }
+        }
+        return engine;
+    }
+
+    /**
+     * Quotes the total price of a stay in a room
+     * @param room The room
+     * @param checkInDate The check-in date
+     * @param checkOutDate The check-out date (a stay is at least one night)
+     * @return The total price in dollars, rounded to cents
+     */
+    public double quote(Room room, LocalDate checkInDate, LocalDate checkOutDate) {
+        long nights = Math.max(1, checkOutDate.toEpochDay() - checkInDate.toEpochDay());
+        Rates current = currentRates();
+        long first = checkInDate.toEpochDay() - current.baseDay();
+        long last = first + nights;
+        double[] stayMultipliers = current.stayMultipliers();
+        double stayMultiplier = stayMultipliers[(int) Math.min(nights, stayMultipliers.length - 1)];
+
+        // Stays outside the calendar cannot be booked; price them at the base rate
+        if (first < 0 || last > HORIZON) {
+            return toCents(room.getPrice() * nights * stayMultiplier);
+        }
+
+        double[] sums = current.of(room).factorSums();
+        double total = room.getPrice() * (sums[(int) last] - sums[(int) first]);
+        Overrides roomOverrides = overrides.get(room);
+        if (roomOverrides != null) {
+            double[] deltaSums = deltaSums(room, roomOverrides, current);
+            total += deltaSums[(int) last] - deltaSums[(int) first];
+        }
+        return toCents(total * stayMultiplier);
+    }
+
+    /**
+     * Gets the rate of a single night, before any length-of-stay discount
+     * @param room The room
+     * @param night The date the night starts
+     * @return The price of the night in dollars, rounded to cents
+     */
+    public double nightlyRate(Room room, LocalDate night) {
+        Rates current = currentRates();
+        long index = night.toEpochDay() - current.baseDay();
+        if (index < 0 || index >= HORIZON) {
+            return room.getPrice();
+        }
+        Overrides roomOverrides = overrides.get(room);
+        if (roomOverrides != null) {
+            synchronized (roomOverrides) {
+                roomOverrides.moveTo(current.baseDay());
+                long overrideIndex = night.toEpochDay() - roomOverrides.baseDay;
+                if (overrideIndex >= 0 && overrideIndex < HORIZON && roomOverrides.prices[(int) overrideIndex] >= 0) {
+                    return roomOverrides.prices[(int) overrideIndex];
+                }
+            }
+        }
+        return toCents(room.getPrice() * current.of(room).factors()[(int) index]);
+    }
+
+    /**
+     * Sets the multiplier of a weekday, applied to every night starting on that day
+     * @param day The weekday
+     * @param multiplier The factor, positive
+     */
+    public synchronized void setWeekdayMultiplier(DayOfWeek day, double multiplier) {
+        if (!(multiplier > 0)) {
+            throw new IllegalArgumentException("Multiplier must be positive");
+        }
+        weekdayMultipliers[day.getValue() - 1] = multiplier;
+        rebuild();
+    }
+
+    /**
+     * Sets the multiplier of a weekday for one room type, replacing the shared multiplier of that day
+     * @param roomType The room type, as in Room.getType()
+     * @param day The weekday
+     * @param multiplier The factor, positive
+     */
+    public synchronized void setWeekdayMultiplier(String roomType, DayOfWeek day, double multiplier) {
+        if (!(multiplier > 0)) {
+            throw new IllegalArgumentException("Multiplier must be positive");
+        }
+        rulesOf(roomType).weekdayMultipliers[day.getValue() - 1] = multiplier;
+        rebuild();
+    }
+
+    /**
+     * Adds a seasonal rate; where seasons overlap the one added last applies
+     * @param season The season
+     */
+    public synchronized void addSeason(Season season) {
+        seasons.add(season);
+        rebuild();
+    }
+
+    /**
+     * Adds a seasonal rate for one room type; it wins over the shared seasons, and where
+     * seasons of the type overlap the one added last applies
+     * @param roomType The room type, as in Room.getType()
+     * @param season The season
+     */
+    public synchronized void addSeason(String roomType, Season season) {
+        rulesOf(roomType).seasons.add(season);
+        rebuild();
+    }
+
+    /**
+     * Removes every seasonal rate, shared or of a room type
+     */
+    public synchronized void clearSeasons() {
+        seasons.clear();
+        for (TypeRules rules : typeRules.values()) {
+            rules.seasons.clear();
+        }
+        rebuild();
+    }
+
+    /**
+     * Removes the weekday multipliers and seasons of a room type, which then uses the shared rates
+     * @param roomType The room type, as in Room.getType()
+     */
+    public synchronized void clearRoomTypeRates(String roomType) {
+        if (typeRules.remove(roomType) != null) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Gets the rules of a room type, adding empty ones if it has none yet; called with the engine locked
+     * @param roomType The room type
+     * @return The rules of the room type
+     */
+    private TypeRules rulesOf(String roomType) {
+        if (roomType == null) {
+            throw new IllegalArgumentException("Room type is required");
+        }
+        return typeRules.computeIfAbsent(roomType, key -> new TypeRules());
+    }
+
+    /**
+     * Sets the discount for stays of at least some number of nights; a longer stay gets the
+     * largest discount it qualifies for
+     * @param minNights The shortest stay the discount applies to, at least 1
+     * @param percent The percentage off, from 0 (no discount) to below 100
+     */
+    public synchronized void setStayDiscount(int minNights, double percent) {
+        if (minNights < 1 || minNights > HORIZON) {
+            throw new IllegalArgumentException("minNights must be between 1 and " + HORIZON);
+        }
+        if (!(percent >= 0 && percent < 100)) {
+            throw new IllegalArgumentException("percent must be at least 0 and below 100");
+        }
+        discountPercents[minNights] = percent;
+        rebuild();
+    }
+
+    /**
+     * Overrides the price of one night of a room, replacing its weekday and seasonal rate
+     * @param room The room
+     * @param night The date the night starts, inside the booking window
+     * @param price The price of the night in dollars, at least 0
+     */
+    public void setNightlyRate(Room room, LocalDate night, int price) {
+        if (price < 0) {
+            throw new IllegalArgumentException("price must be at least 0");
+        }
+        setOverride(room, night, price);
+    }
+
+    /**
+     * Puts one night of a room back at its standard rate
+     * @param room The room
+     * @param night The date the night starts, inside the booking window
+     */
+    public void clearNightlyRate(Room room, LocalDate night) {
+        setOverride(room, night, -1);
+    }
+
+    /**
+     * Sets or clears the override of one night and rebuilds the room's sums
+     * @param room The room
+     * @param night The date the night starts
+     * @param price The price, or -1 to clear
+     */
+    private void setOverride(Room room, LocalDate night, int price) {
+        Rates current = currentRates();
+        long index = night.toEpochDay() - current.baseDay();
+        if (index < 0 || index >= HORIZON) {
+            throw new IllegalArgumentException("Night outside the booking window: " + night);
+        }
+        Overrides roomOverrides = overrides.computeIfAbsent(room, key -> new Overrides(current.baseDay()));
+        synchronized (roomOverrides) {
+            roomOverrides.moveTo(current.baseDay());
+            roomOverrides.prices[(int) index] = price;
+            buildDeltaSums(room, roomOverrides, current);
+        }
+    }
+
+    /**
+     * Gets the current calendar, rebuilding it first if the booking window moved since it was built
+     * @return The calendar starting today
+     */
+    private Rates currentRates() {
+        Rates current = rates;
+        long today = RoomInventory.firstBookableDay();
+        if (current.baseDay() != today) {
+            synchronized (this) {
+                if (rates.baseDay() != today) {
+                    rebuild();
+                }
+                current = rates;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Gets the override sums of a room for a calendar, building them if missing or the rules changed
+     * @param room The room
+     * @param roomOverrides Its overrides
+     * @param current The calendar being quoted
+     * @return Prefix sums of the overrides minus the standard rates
+     */
+    private static double[] deltaSums(Room room, Overrides roomOverrides, Rates current) {
+        DeltaSums built = roomOverrides.sums;
+        if (built == null || built.rates() != current) {
+            synchronized (roomOverrides) {
+                built = buildDeltaSums(room, roomOverrides, current);
+            }
+        }
+        return built.sums();
+    }
+
+    /**
+     * Rebuilds the override sums of a room for a calendar; called with the overrides locked
+     * @param room The room
+     * @param roomOverrides Its overrides
+     * @param current The calendar to build on
+     * @return The sums, also published on the overrides
+     */
+    private static DeltaSums buildDeltaSums(Room room, Overrides roomOverrides, Rates current) {
+        // Line the overrides up with the calendar's first night; only a calendar of the day
+        // before, still held by a quote racing with midnight, can start earlier than they do
+        roomOverrides.moveTo(current.baseDay());
+        int offset = (int) Math.min(HORIZON, roomOverrides.baseDay - current.baseDay());
+        double[] factors = current.of(room).factors();
+        double[] sums = new double[HORIZON + 1];
+        for (int night = 0; night < HORIZON; night++) {
+            int price = night < offset ? -1 : roomOverrides.prices[night - offset];
+            double delta = price < 0 ? 0 : price - room.getPrice() * factors[night];
+            sums[night + 1] = sums[night] + delta;
+        }
+        DeltaSums built = new DeltaSums(current, sums);
+        roomOverrides.sums = built;
+        return built;
+    }
+
+    /**
+     * Rebuilds the calendars from the rules and publishes them; called with the engine locked
+     */
+    private void rebuild() {
+        long baseDay = RoomInventory.firstBookableDay();
+        Calendar standard = buildCalendar(baseDay, weekdayMultipliers, seasons);
+
+        // Room types with rules of their own: their weekdays replace the shared ones and
+        // their seasons come after the shared ones, so they win where they overlap
+        Map<String, Calendar> byType = new HashMap<>();
+        for (Map.Entry<String, TypeRules> entry : typeRules.entrySet()) {
+            TypeRules rules = entry.getValue();
+            double[] weekdays = weekdayMultipliers.clone();
+            for (int day = 0; day < weekdays.length; day++) {
+                if (rules.weekdayMultipliers[day] > 0) {
+                    weekdays[day] = rules.weekdayMultipliers[day];
+                }
+            }
+            List<Season> typeSeasons = new ArrayList<>(seasons);
+            typeSeasons.addAll(rules.seasons);
+            byType.put(entry.getKey(), buildCalendar(baseDay, weekdays, typeSeasons));
+        }
+
+        // Stay multipliers: the best discount of any tier the stay qualifies for
+        double[] stayMultipliers = new double[HORIZON + 1];
+        double best = 0;
+        for (int nights = 0; nights <= HORIZON; nights++) {
+            best = Math.max(best, discountPercents[nights]);
+            stayMultipliers[nights] = 1 - best / 100;
+        }
+
+        rates = new Rates(baseDay, standard, byType, stayMultipliers);
+    }
+
+    /**
+     * Builds the nightly factors of a set of rules and their prefix sums
+     * @param baseDay Epoch day of night 0
+     * @param weekdays Multiplier of each weekday, indexed by DayOfWeek.getValue() - 1
+     * @param seasons Seasons in order; a later season wins where seasons overlap
+     * @return The calendar
+     */
+    private static Calendar buildCalendar(long baseDay, double[] weekdays, List<Season> seasons) {
+        // Nightly factors: weekday, then the season of the night if any
+        double[] factors = new double[HORIZON];
+        int firstDay = LocalDate.ofEpochDay(baseDay).getDayOfWeek().getValue() - 1;
+        for (int night = 0; night < HORIZON; night++) {
+            factors[night] = weekdays[(firstDay + night) % 7];
+        }
+        double[] seasonal = new double[HORIZON];
+        for (Season season : seasons) {
+            int from = (int) Math.max(0, season.from().toEpochDay() - baseDay);
+            int to = (int) Math.min(HORIZON, season.to().toEpochDay() - baseDay);
+            for (int night = from; night < to; night++) {
+                seasonal[night] = season.multiplier();
+            }
+        }
+        double[] factorSums = new double[HORIZON + 1];
+        for (int night = 0; night < HORIZON; night++) {
+            if (seasonal[night] > 0) {
+                factors[night] *= seasonal[night];
+            }
+            factorSums[night + 1] = factorSums[night] + factors[night];
+        }
+        return new Calendar(factors, factorSums);
+    }
+
+    /**
+     * Rounds an amount to cents
+     * @param amount The amount in dollars
+     * @return The amount rounded to the nearest cent
+     */
+    private static double toCents(double amount) {
+        return Math.round(amount * 100) / 100.0;
+    }
+}
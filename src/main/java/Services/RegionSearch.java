@@ -0,0 +1,376 @@
+package Services;
+
+import Metrics.BookingMetrics;
+import Models.Hotel;
+import Models.Room;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Searches several cities at once, such as every city of a region or the stops of a trip.
+ *
+ * Each city is a fork/join task over its hotels that splits itself in halves down to
+ * chunks of CHUNK_HOTELS, so one large city is spread over every worker by work stealing
+ * instead of keeping a single thread busy. Each chunk ranks its hotels and the halves are
+ * merged on the way back up; the cities are then merged the same way. Hotels are ranked by
+ * their cheapest room free for the stay, then by stars.
+ *
+ * A search has a deadline. Cities that are not done by then are left out and reported as
+ * timed out, and their remaining chunks give up, so one slow city cannot hold back the others.
+ *
+ * The pool size is set by booking.region.parallelism (default: number of processors) and the
+ * default deadline by booking.region.deadlineMillis (default 2000).
+ */
+public class RegionSearch {
+    /** Most hotels a single task checks before it splits */
+    static final int CHUNK_HOTELS = 32;
+
+    /** Order of the results: cheapest free room first, then most stars, then the oldest hotel */
+    static final Comparator<HotelOffer> RANK = Comparator.comparingInt(HotelOffer::fromPrice)
+            .thenComparing(offer -> offer.hotel().getStars(), Comparator.reverseOrder())
+            .thenComparingInt(offer -> offer.hotel().getId());
+
+    /** The shared search, created on first use */
+    private static volatile RegionSearch instance;
+
+    /** Workers shared by every region search */
+    private final ForkJoinPool pool;
+
+    /** Deadline used when the caller does not give one, in milliseconds */
+    private final long defaultDeadlineMillis;
+
+    /**
+     * A hotel with a room free for the stay
+     * @param hotel The hotel
+     * @param fromPrice The price per night of its cheapest free room
+     */
+    public record HotelOffer(Hotel hotel, int fromPrice) {
+    }
+
+    /**
+     * The outcome of a region search
+     * @param hotels The hotels found in the cities that finished, in ranked order
+     * @param completedCities The cities searched in full
+     * @param timedOutCities The cities left out because they missed the deadline
+     */
+    public record Result(List<HotelOffer> hotels, List<String> completedCities, List<String> timedOutCities) {
+        /**
+         * Tells whether some cities are missing from the result
+         * @return true if any city missed the deadline
+         */
+        public boolean isPartial() {
+            return !timedOutCities.isEmpty();
+        }
+    }
+
+    /**
+     * Constructor to create a search with its own worker pool
+     * @param parallelism Number of workers
+     * @param defaultDeadlineMillis Deadline used when the caller does not give one, in milliseconds
+     */
+    public RegionSearch(int parallelism, long defaultDeadlineMillis) {
+        this.pool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            worker.setName("region-search-" + worker.getPoolIndex());
+            return worker;
+        }, null, false);
+        this.defaultDeadlineMillis = defaultDeadlineMillis;
+    }
+
+    /**
+     * Gets the shared search, configured from system properties on first use
+     * @return The application-wide region search
+     */
+    public static RegionSearch getInstance() {
+        RegionSearch search = instance;
+        if (search == null) {
+            synchronized (RegionSearch.class) {
+                search = instance;
+                if (search == null) {
+                    int parallelism = Integer.getInteger("booking.region.parallelism",
+                            Runtime.getRuntime().availableProcessors());
+                    long deadlineMillis = Long.getLong("booking.region.deadlineMillis", 2000);
+                    search = new RegionSearch(parallelism, deadlineMillis);
+                    instance = search;
+                }
+            }
+        }
+        return search;
+    }
+
+    /**
+     * Searches several cities with the default deadline
+     * @param cities The cities (case insensitive; repeats are searched once)
+     * @param checkInDate The check-in date
+     * @param checkOutDate The check-out date
+     * @return The hotels with a room free for the stay, in ranked order, and which cities finished
+     */
+    public Result search(List<String> cities, LocalDate checkInDate, LocalDate checkOutDate) {
+        return search(cities, checkInDate, checkOutDate, defaultDeadlineMillis);
+    }
+
+    /**
+     * Searches several cities, giving up on the cities that are not done by the deadline
+     * @param cities The cities (case insensitive; repeats are searched once)
+     * @param checkInDate The check-in date
+     * @param checkOutDate The check-out date
+     * @param deadlineMillis How long to wait for the cities, in milliseconds
+     * @return The hotels with a room free for the stay, in ranked order, and which cities finished
+     */
+    public Result search(List<String> cities, LocalDate checkInDate, LocalDate checkOutDate, long deadlineMillis) {
+        long started = System.nanoTime();
+        long deadline = started + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+
+        // One shard per distinct city, all started before any is waited for
+        Map<String, CityShard> shards = new LinkedHashMap<>();
+        for (String city : cities) {
+            shards.computeIfAbsent(Catalog.normalizeCity(city),
+                    key -> new CityShard(city.trim(), Catalog.findHotelsByCity(city), checkInDate, checkOutDate, deadline));
+        }
+        List<HotelChunk> roots = new ArrayList<>(shards.size());
+        for (CityShard shard : shards.values()) {
+            HotelChunk root = new HotelChunk(shard, 0, shard.hotels.size());
+            pool.execute(root);
+            roots.add(root);
+        }
+
+        // Collect the cities in order, waiting for each only as long as the deadline allows
+        List<List<HotelOffer>> ranked = new ArrayList<>(roots.size());
+        List<String> completed = new ArrayList<>();
+        List<String> timedOut = new ArrayList<>();
+        boolean interrupted = false;
+        for (HotelChunk root : roots) {
+            CityShard shard = root.shard;
+            List<HotelOffer> found = null;
+            if (!interrupted) {
+                try {
+                    found = root.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    // Reported as timed out below
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Search of " + shard.city + " failed", e.getCause());
+                }
+            }
+
+            // A chunk that gave up leaves its city incomplete even if the city task finished
+            if (found == null || shard.expired) {
+                shard.expired = true;
+                root.cancel(false);
+                timedOut.add(shard.city);
+            } else {
+                ranked.add(found);
+                completed.add(shard.city);
+            }
+        }
+
+        Result result = new Result(merge(ranked), completed, timedOut);
+        BookingMetrics.getInstance().recordSearch(started);
+        return result;
+    }
+
+    /**
+     * Finds the cheapest room of a hotel that is free for the stay
+     * @param hotel The hotel
+     * @param checkInDate The check-in date
+     * @param checkOutDate The check-out date
+     * @return The price per night, or -1 if no room is free
+     */
+    static int cheapestFreeRoom(Hotel hotel, LocalDate checkInDate, LocalDate checkOutDate) {
+        int cheapest = Integer.MAX_VALUE;
+        for (Room room : Catalog.copyRooms(hotel)) {
+            // The dated availability check is the costly part, so only do it for a cheaper room
+            if (room.getPrice() < cheapest && room.getAvailable(checkInDate, checkOutDate) > 0) {
+                cheapest = room.getPrice();
+            }
+        }
+        return cheapest == Integer.MAX_VALUE ? -1 : cheapest;
+    }
+
+    /**
+     * Merges two lists that are each in ranked order into one list in ranked order
+     * @param first The first ranked list
+     * @param second The second ranked list
+     * @return The merged list
+     */
+    static List<HotelOffer> merge(List<HotelOffer> first, List<HotelOffer> second) {
+        List<HotelOffer> merged = new ArrayList<>(first.size() + second.size());
+        int i = 0;
+        int j = 0;
+        while (i < first.size() && j < second.size()) {
+            // On equal rank the first list goes first, which keeps the merge stable
+            merged.add(RANK.compare(second.get(j), first.get(i)) < 0 ? second.get(j++) : first.get(i++));
+        }
+        merged.addAll(first.subList(i, first.size()));
+        merged.addAll(second.subList(j, second.size()));
+        return merged;
+    }
+
+    /**
+     * Merges lists that are each in ranked order into one list in ranked order
+     * @param lists The ranked lists
+     * @return The merged list
+     */
+    static List<HotelOffer> merge(List<List<HotelOffer>> lists) {
+        if (lists.size() == 1) {
+            return lists.get(0);
+        }
+        int total = 0;
+        for (List<HotelOffer> list : lists) {
+            total += list.size();
+        }
+
+        // The head of every list in a heap; take the best head and advance its list
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(Math.max(1, lists.size()),
+                (a, b) -> RANK.compare(a.head(), b.head()));
+        for (List<HotelOffer> list : lists) {
+            if (!list.isEmpty()) {
+                heads.add(new Cursor(list));
+            }
+        }
+        List<HotelOffer> merged = new ArrayList<>(total);
+        while (!heads.isEmpty()) {
+            Cursor cursor = heads.poll();
+            merged.add(cursor.head());
+            if (++cursor.position < cursor.list.size()) {
+                heads.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Position in one of the lists being merged
+     */
+    private static final class Cursor {
+        /** The list */
+        private final List<HotelOffer> list;
+
+        /** Index of the next entry to merge */
+        private int position;
+
+        /**
+         * Constructor to start at the beginning of a list
+         * @param list The list, not empty
+         */
+        Cursor(List<HotelOffer> list) {
+            this.list = list;
+        }
+
+        /**
+         * Gets the next entry to merge
+         * @return The entry at the position
+         */
+        HotelOffer head() {
+            return list.get(position);
+        }
+    }
+
+    /**
+     * The work of one city, shared by all the tasks over its hotels
+     */
+    private static final class CityShard {
+        /** The city as asked for */
+        private final String city;
+
+        /** The hotels of the city */
+        private final List<Hotel> hotels;
+
+        /** The stay */
+        private final LocalDate checkInDate;
+        private final LocalDate checkOutDate;
+
+        /** When the search gives up, in System.nanoTime units */
+        private final long deadline;
+
+        /** Set once the deadline passed; the remaining chunks then stop */
+        private volatile boolean expired;
+
+        /**
+         * Constructor to create the work of a city
+         * @param city The city as asked for
+         * @param hotels The hotels of the city
+         * @param checkInDate The check-in date
+         * @param checkOutDate The check-out date
+         * @param deadline When the search gives up, in System.nanoTime units
+         */
+        CityShard(String city, List<Hotel> hotels, LocalDate checkInDate, LocalDate checkOutDate, long deadline) {
+            this.city = city;
+            this.hotels = hotels;
+            this.checkInDate = checkInDate;
+            this.checkOutDate = checkOutDate;
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * Ranks a range of the hotels of a city, splitting it in halves until it is small.
+     * Fork/join tasks are serializable only by inheritance; this one never leaves the pool.
+     */
+    @SuppressWarnings("serial")
+    private static final class HotelChunk extends RecursiveTask<List<HotelOffer>> {
+        /** The city the hotels belong to */
+        private final CityShard shard;
+
+        /** The range of hotels, from inclusive to exclusive */
+        private final int from;
+        private final int to;
+
+        /**
+         * Constructor to create a task over a range of hotels
+         * @param shard The city the hotels belong to
+         * @param from First hotel of the range
+         * @param to End of the range, exclusive
+         */
+        HotelChunk(CityShard shard, int from, int to) {
+            this.shard = shard;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Ranks the hotels of the range that have a room free for the stay
+         * @return The hotels found, in ranked order
+         */
+        @Override
+        protected List<HotelOffer> compute() {
+            if (to - from > CHUNK_HOTELS) {
+                // Leave one half for idle workers to steal and do the other half here
+                int middle = (from + to) >>> 1;
+                HotelChunk left = new HotelChunk(shard, from, middle);
+                left.fork();
+                List<HotelOffer> right = new HotelChunk(shard, middle, to).compute();
+                return merge(left.join(), right);
+            }
+
+            List<HotelOffer> found = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                if (shard.expired || System.nanoTime() - shard.deadline > 0) {
+                    shard.expired = true;
+                    return found;
+                }
+                Hotel hotel = shard.hotels.get(i);
+                int price = cheapestFreeRoom(hotel, shard.checkInDate, shard.checkOutDate);
+                if (price >= 0) {
+                    found.add(new HotelOffer(hotel, price));
+                }
+            }
+            found.sort(RANK);
+            return found;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package Services;
+
+import Models.Room;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Criteria of a filtered room search. Price and star bounds are inclusive; a null
+ * room type matches every type and types are compared without regard to case.
+ * @param minPrice Lowest price per night
+ * @param maxPrice Highest price per night
+ * @param minStars Fewest hotel stars
+ * @param maxStars Most hotel stars
+ * @param roomType Room type, or null for any
+ * @param minAvailable Fewest rooms of the type that must be free for the whole stay, at least 1
+ */
+public record RoomFilter(int minPrice, int maxPrice, int minStars, int maxStars, String roomType, int minAvailable) {
+    /** A filter that matches every room with at least one unit free */
+    public static final RoomFilter ANY = new RoomFilter(0, Integer.MAX_VALUE, 0, Integer.MAX_VALUE, null, 1);
+
+    /**
+     * Checks the bounds and normalizes the room type
+     * @throws IllegalArgumentException if a range is empty or minAvailable is below 1
+     */
+    public RoomFilter {
+        if (minPrice > maxPrice) {
+            throw new IllegalArgumentException("minPrice is above maxPrice");
+        }
+        if (minStars > maxStars) {
+            throw new IllegalArgumentException("minStars is above maxStars");
+        }
+        if (minAvailable < 1) {
+            throw new IllegalArgumentException("minAvailable must be at least 1");
+        }
+        roomType = roomType == null || roomType.isBlank() ? null : normalizeType(roomType);
+    }
+
+    /**
+     * Normalizes a room type so that filters ignore case and surrounding whitespace
+     * @param type The room type
+     * @return The key used by the type index
+     */
+    static String normalizeType(String type) {
+        return type.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Checks the filter against one room, without an index
+     * @param room The room
+     * @param checkInDate The check-in date
+     * @param checkOutDate The check-out date
+     * @return true if the room matches every criterion
+     */
+    public boolean matches(Room room, LocalDate checkInDate, LocalDate checkOutDate) {
+        int stars = room.getHotel().getStars();
+        return room.getPrice() >= minPrice && room.getPrice() <= maxPrice
+                && stars >= minStars && stars <= maxStars
+                && (roomType == null || roomType.equals(normalizeType(room.getType())))
+                && room.getAvailable(checkInDate, checkOutDate) >= minAvailable;
+    }
+}
@@ -0,0 +1,123 @@
+package Services;
+
+import Models.Room;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Index of the rooms of one city for filtered searches.
+ *
+ * Rooms are kept sorted by price, so a price range is a contiguous run of positions
+ * found with two binary searches. Hotel stars and room types each map to a bitset
+ * over those positions. A filter is answered by intersecting the price run with the
+ * star and type bitsets; only the rooms left are checked for availability, which
+ * changes with every booking and therefore is not indexed.
+ *
+ * The index is immutable; the catalog drops it when a room is added to the city
+ * and builds a new one on the next filtered search.
+ */
+class RoomFilterIndex {
+    /** Rooms sorted by price, then by catalog id */
+    private final Room[] rooms;
+
+    /** Price of the room at each position, ascending */
+    private final int[] prices;
+
+    /** Positions of the rooms per hotel star rating */
+    private final NavigableMap<Integer, BitSet> byStars = new TreeMap<>();
+
+    /** Positions of the rooms per normalized room type */
+    private final Map<String, BitSet> byType = new HashMap<>();
+
+    /**
+     * Constructor to build the index of a city
+     * @param cityRooms The rooms of every hotel in the city
+     */
+    RoomFilterIndex(List<Room> cityRooms) {
+        rooms = cityRooms.toArray(new Room[0]);
+        Arrays.sort(rooms, Comparator.comparingInt(Room::getPrice).thenComparingInt(Room::getId));
+
+        prices = new int[rooms.length];
+        for (int i = 0; i < rooms.length; i++) {
+            Room room = rooms[i];
+            prices[i] = room.getPrice();
+            byStars.computeIfAbsent(room.getHotel().getStars(), stars -> new BitSet(rooms.length)).set(i);
+            byType.computeIfAbsent(RoomFilter.normalizeType(room.getType()), type -> new BitSet(rooms.length)).set(i);
+        }
+    }
+
+    /**
+     * Finds the rooms matching a filter
+     * @param filter The criteria
+     * @param checkInDate The check-in date
+     * @param checkOutDate The check-out date
+     * @return The matching rooms, cheapest first
+     */
+    List<Room> find(RoomFilter filter, LocalDate checkInDate, LocalDate checkOutDate) {
+        // The price range is a run of positions in the sorted array
+        int from = firstAtLeast(filter.minPrice());
+        int to = filter.maxPrice() == Integer.MAX_VALUE ? rooms.length : firstAtLeast(filter.maxPrice() + 1);
+        List<Room> found = new ArrayList<>();
+        if (from >= to) {
+            return found;
+        }
+
+        BitSet candidates = new BitSet(to);
+        candidates.set(from, to);
+
+        // Intersect with the hotels whose stars are in range, unless every rating is allowed
+        NavigableMap<Integer, BitSet> stars = byStars.subMap(filter.minStars(), true, filter.maxStars(), true);
+        if (stars.size() < byStars.size()) {
+            BitSet starred = new BitSet(to);
+            for (BitSet positions : stars.values()) {
+                starred.or(positions);
+            }
+            candidates.and(starred);
+        }
+
+        // Intersect with the room type
+        if (filter.roomType() != null) {
+            BitSet typed = byType.get(filter.roomType());
+            if (typed == null) {
+                return found;
+            }
+            candidates.and(typed);
+        }
+
+        // Only the rooms left are checked against the inventory
+        for (int i = candidates.nextSetBit(from); i >= 0 && i < to; i = candidates.nextSetBit(i + 1)) {
+            if (rooms[i].getAvailable(checkInDate, checkOutDate) >= filter.minAvailable()) {
+                found.add(rooms[i]);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the first position whose price is at least a value
+     * @param price The price
+     * @return The position, or the number of rooms if every price is lower
+     */
+    private int firstAtLeast(int price) {
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (prices[middle] < price) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
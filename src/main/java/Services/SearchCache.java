@@ -0,0 +1,254 @@
+package Services;
+
+import Models.Hotel;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Bounded least-recently-used cache of hotel search results.
+ * Entries are keyed by normalized city name and stay dates. Callers invalidate
+ * entries whenever the data behind them changes: a whole city when hotels or
+ * rooms are added, or only the stays overlapping a reservation when inventory
+ * is taken or released.
+ *
+ * The maximum number of entries is set with the booking.cache.size system property.
+ */
+public class SearchCache {
+    /** The shared instance, created on first use */
+    private static volatile SearchCache instance;
+
+    /** Cache key: normalized city and stay dates */
+    private record Key(String city, LocalDate checkIn, LocalDate checkOut) {
+    }
+
+    /** Maximum number of cached results */
+    private final int maxEntries;
+
+    /** Cached results in access order; the eldest entry is evicted first */
+    private final LinkedHashMap<Key, List<Hotel>> entries;
+
+    /** Keys of the cached results of each city, used for invalidation */
+    private final Map<String, Set<Key>> keysByCity = new HashMap<>();
+
+    /** Per-city change counters, so results computed before an invalidation are not stored */
+    private final Map<String, Long> cityVersions = new HashMap<>();
+
+    /** Number of lookups answered from the cache */
+    private long hits;
+
+    /** Number of lookups that had to be computed */
+    private long misses;
+
+    /** Number of entries dropped because the cache was full */
+    private long evictions;
+
+    /** Number of entries dropped because their data changed */
+    private long invalidations;
+
+    /**
+     * Constructor to create a cache
+     * @param maxEntries The maximum number of cached results
+     */
+    public SearchCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<Hotel>> eldest) {
+                if (size() <= SearchCache.this.maxEntries) {
+                    return false;
+                }
+                forgetKey(eldest.getKey());
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Gets the shared cache, sized from system properties on first use
+     * @return The application-wide search cache
+     */
+    public static SearchCache getInstance() {
+        SearchCache cache = instance;
+        if (cache == null) {
+            synchronized (SearchCache.class) {
+                cache = instance;
+                if (cache == null) {
+                    cache = new SearchCache(Integer.getInteger("booking.cache.size", 1024));
+                    instance = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Gets a cached search result, computing and caching it on a miss
+     * @param city The normalized city name
+     * @param checkIn The check-in date
+     * @param checkOut The check-out date
+     * @param search Computes the result on a miss
+     * @return The hotels found for the search
+     */
+    public List<Hotel> get(String city, LocalDate checkIn, LocalDate checkOut, Supplier<List<Hotel>> search) {
+        Key key = new Key(city, checkIn, checkOut);
+        long version;
+        synchronized (this) {
+            List<Hotel> cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+            version = cityVersions.getOrDefault(city, 0L);
+        }
+
+        // Compute outside the lock so slow searches do not block other cities
+        List<Hotel> result = List.copyOf(search.get());
+
+        synchronized (this) {
+            // Only store the result if nothing in the city changed while it was computed
+            if (cityVersions.getOrDefault(city, 0L) == version) {
+                entries.put(key, result);
+                keysByCity.computeIfAbsent(city, c -> new HashSet<>()).add(key);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drops every cached result of a city
+     * @param city The normalized city name
+     */
+    public synchronized void invalidateCity(String city) {
+        bumpVersion(city);
+        Set<Key> keys = keysByCity.remove(city);
+        if (keys != null) {
+            for (Key key : keys) {
+                entries.remove(key);
+                invalidations++;
+            }
+        }
+    }
+
+    /**
+     * Drops the cached results of a city whose stay overlaps the given nights
+     * @param city The normalized city name
+     * @param checkIn The first night that changed
+     * @param checkOut The day after the last night that changed
+     */
+    public synchronized void invalidate(String city, LocalDate checkIn, LocalDate checkOut) {
+        bumpVersion(city);
+        Set<Key> keys = keysByCity.get(city);
+        if (keys == null) {
+            return;
+        }
+
+        Iterator<Key> iterator = keys.iterator();
+        while (iterator.hasNext()) {
+            Key key = iterator.next();
+            if (overlaps(key, checkIn, checkOut)) {
+                entries.remove(key);
+                iterator.remove();
+                invalidations++;
+            }
+        }
+        if (keys.isEmpty()) {
+            keysByCity.remove(city);
+        }
+    }
+
+    /**
+     * Checks whether a cached stay shares a night with a changed range (both at least one night long)
+     * @param key The cached search
+     * @param checkIn The first changed night
+     * @param checkOut The day after the last changed night
+     * @return true if at least one night is shared
+     */
+    private static boolean overlaps(Key key, LocalDate checkIn, LocalDate checkOut) {
+        LocalDate keyOut = key.checkOut().isAfter(key.checkIn()) ? key.checkOut() : key.checkIn().plusDays(1);
+        LocalDate changedOut = checkOut.isAfter(checkIn) ? checkOut : checkIn.plusDays(1);
+        return key.checkIn().isBefore(changedOut) && checkIn.isBefore(keyOut);
+    }
+
+    /**
+     * Marks a city as changed
+     * @param city The normalized city name
+     */
+    private void bumpVersion(String city) {
+        cityVersions.merge(city, 1L, Long::sum);
+    }
+
+    /**
+     * Removes an evicted key from the per-city key index
+     * @param key The evicted key
+     */
+    private void forgetKey(Key key) {
+        Set<Key> keys = keysByCity.get(key.city());
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByCity.remove(key.city());
+            }
+        }
+    }
+
+    /**
+     * Removes every cached result; the counters are kept
+     */
+    public synchronized void clear() {
+        for (String city : keysByCity.keySet()) {
+            bumpVersion(city);
+        }
+        entries.clear();
+        keysByCity.clear();
+    }
+
+    /**
+     * Gets the number of cached results
+     * @return The current size
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache
+     * @return The hit count
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups that had to be computed
+     * @return The miss count
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of entries dropped because the cache was full
+     * @return The eviction count
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Gets the number of entries dropped because their data changed
+     * @return The invalidation count
+     */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+}
@@ -0,0 +1,283 @@
+package Services;
+
+import Models.Hotel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Prefix trie of city and hotel names used for as-you-type suggestions.
+ * Every node keeps its best completions ranked by hotel count, so a query only
+ * walks the typed prefix and copies at most maxSuggestions entries.
+ * Hotels are added incrementally; because counts only grow, the ranking kept at
+ * each node stays exact without ever revisiting the rest of the trie.
+ */
+public class SuggestionTrie {
+    /**
+     * A completion offered to the user
+     */
+    public static class Suggestion {
+        /** The text shown to the user (city name or hotel name) */
+        private final String text;
+
+        /** The city of the suggestion; for a city suggestion this equals the text */
+        private final String city;
+
+        /** Whether this suggestion is a city rather than a hotel */
+        private final boolean cityName;
+
+        /** Number of hotels behind the suggestion, used for ranking */
+        private volatile int hotelCount;
+
+        /**
+         * Constructor to create a suggestion
+         * @param text The text shown to the user
+         * @param city The city of the suggestion
+         * @param cityName true for a city suggestion, false for a hotel suggestion
+         */
+        private Suggestion(String text, String city, boolean cityName) {
+            this.text = text;
+            this.city = city;
+            this.cityName = cityName;
+        }
+
+        /**
+         * Gets the text shown to the user
+         * @return The city or hotel name
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * Gets the city to search when the suggestion is picked
+         * @return The city name
+         */
+        public String getCity() {
+            return city;
+        }
+
+        /**
+         * Checks whether this suggestion is a city
+         * @return true for a city, false for a hotel
+         */
+        public boolean isCity() {
+            return cityName;
+        }
+
+        /**
+         * Gets the number of hotels behind the suggestion
+         * @return The hotel count
+         */
+        public int getHotelCount() {
+            return hotelCount;
+        }
+    }
+
+    /**
+     * A trie node with sorted child labels and its best completions
+     */
+    private static class Node {
+        /** Shared empty arrays, so that leaf nodes allocate nothing but themselves */
+        private static final char[] NO_LABELS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final Suggestion[] NO_SUGGESTIONS = new Suggestion[0];
+
+        /** Child labels in ascending order */
+        private char[] labels = NO_LABELS;
+
+        /** Children, parallel to labels */
+        private Node[] children = NO_CHILDREN;
+
+        /** Suggestions ending exactly at this node */
+        private Suggestion[] terminals = NO_SUGGESTIONS;
+
+        /** Best completions below this node, highest hotel count first */
+        private Suggestion[] top = NO_SUGGESTIONS;
+
+        /**
+         * Finds a child by label
+         * @param label The next character
+         * @return The child, or null if there is none
+         */
+        private Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        /**
+         * Finds or creates a child by label
+         * @param label The next character
+         * @return The child
+         */
+        private Node childOrCreate(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            if (index >= 0) {
+                return children[index];
+            }
+
+            // Insert the new label keeping the arrays sorted
+            int insertAt = -index - 1;
+            Node node = new Node();
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newLabels[insertAt] = label;
+            newChildren[insertAt] = node;
+            System.arraycopy(labels, insertAt, newLabels, insertAt + 1, labels.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            labels = newLabels;
+            children = newChildren;
+            return node;
+        }
+    }
+
+    /** The root of the trie, matching the empty prefix */
+    private final Node root = new Node();
+
+    /** Maximum number of completions kept per node */
+    private final int maxSuggestions;
+
+    /** Guards the trie; queries share the read lock */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Constructor to create an empty trie
+     * @param maxSuggestions The maximum number of completions a query can return
+     */
+    public SuggestionTrie(int maxSuggestions) {
+        this.maxSuggestions = maxSuggestions;
+    }
+
+    /**
+     * Adds a hotel, counting it towards its city and its name
+     * @param hotel The hotel to add
+     */
+    public void addHotel(Hotel hotel) {
+        lock.writeLock().lock();
+        try {
+            add(hotel.getCity(), hotel.getCity(), true);
+            add(hotel.getName(), hotel.getCity(), false);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the best completions of a prefix
+     * @param prefix The text typed so far (case insensitive)
+     * @param limit The maximum number of completions to return
+     * @return Completions ordered by hotel count, highest first
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null) {
+                return new ArrayList<>();
+            }
+
+            int count = Math.min(limit, node.top.length);
+            return new ArrayList<>(Arrays.asList(node.top).subList(0, count));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds one hotel to a suggestion and updates the rankings along its path
+     * @param text The city or hotel name
+     * @param city The city of the hotel
+     * @param cityName true when adding to a city suggestion
+     */
+    private void add(String text, String city, boolean cityName) {
+        String key = normalize(text);
+        if (key.isEmpty()) {
+            return;
+        }
+
+        // Walk the path, creating nodes as needed
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < key.length(); i++) {
+            path[i + 1] = path[i].childOrCreate(key.charAt(i));
+        }
+
+        // Find or create the suggestion at the end of the path
+        Node end = path[key.length()];
+        Suggestion suggestion = null;
+        for (Suggestion terminal : end.terminals) {
+            if (terminal.cityName == cityName && terminal.text.equalsIgnoreCase(text)
+                    && terminal.city.equalsIgnoreCase(city)) {
+                suggestion = terminal;
+                break;
+            }
+        }
+        if (suggestion == null) {
+            suggestion = new Suggestion(text, city, cityName);
+            end.terminals = Arrays.copyOf(end.terminals, end.terminals.length + 1);
+            end.terminals[end.terminals.length - 1] = suggestion;
+        }
+        suggestion.hotelCount++;
+
+        // Re-rank the suggestion in every node on the path
+        for (Node node : path) {
+            promote(node, suggestion);
+        }
+    }
+
+    /**
+     * Moves a suggestion whose count grew into its place in a node's ranking
+     * @param node The node on the suggestion's path
+     * @param suggestion The suggestion whose count grew
+     */
+    private void promote(Node node, Suggestion suggestion) {
+        Suggestion[] top = node.top;
+        int position = -1;
+        for (int i = 0; i < top.length; i++) {
+            if (top[i] == suggestion) {
+                position = i;
+                break;
+            }
+        }
+
+        if (position < 0) {
+            // Not ranked yet: append if there is room, or replace the weakest if it now beats it
+            if (top.length < maxSuggestions) {
+                top = Arrays.copyOf(top, top.length + 1);
+                position = top.length - 1;
+            } else if (top.length > 0 && top[top.length - 1].hotelCount < suggestion.hotelCount) {
+                position = top.length - 1;
+            } else {
+                return;
+            }
+            top[position] = suggestion;
+            node.top = top;
+        }
+
+        // Bubble up past suggestions with fewer hotels
+        while (position > 0 && top[position - 1].hotelCount < suggestion.hotelCount) {
+            top[position] = top[position - 1];
+            top[position - 1] = suggestion;
+            position--;
+        }
+    }
+
+    /**
+     * Normalizes text so that suggestions ignore case and surrounding whitespace
+     * @param text The text to normalize
+     * @return The normalized key
+     */
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+}
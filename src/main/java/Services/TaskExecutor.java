@@ -0,0 +1,217 @@
+package Services;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Application-wide executor for background work such as search and loading tasks.
+ * Runs either one virtual thread per task with a cap on how many run at once,
+ * or a bounded pool of platform threads with a bounded queue. Either way at most
+ * threads tasks run and at most queue capacity more wait for their turn.
+ *
+ * The mode is chosen with system properties:
+ * booking.executor=virtual|bounded (default virtual),
+ * booking.executor.threads (bounded pool size, or the concurrency cap for virtual threads),
+ * booking.executor.queue (how many tasks may wait for a thread or a permit).
+ *
+ * Tasks that do not fit are rejected; if the task is a Future (as a JavaFX Task is)
+ * it is cancelled so that its onCancelled handler can tell the user. In virtual mode a
+ * waiting task is a parked virtual thread, so the waiting count is capped on submission.
+ */
+public class TaskExecutor implements Executor {
+    /** The shared instance, created on first use */
+    private static volatile TaskExecutor instance;
+
+    /** The executor that actually runs the tasks */
+    private final ExecutorService delegate;
+
+    /** Limits concurrently running virtual threads; null for the bounded pool */
+    private final Semaphore permits;
+
+    /** Limits the virtual threads started, running or waiting for a permit; null for the bounded pool */
+    private final Semaphore admissions;
+
+    /** Whether tasks run on virtual threads */
+    private final boolean virtual;
+
+    /** Tasks submitted but not yet started */
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /** Tasks currently running */
+    private final AtomicInteger active = new AtomicInteger();
+
+    /** Tasks finished, successfully or not */
+    private final AtomicLong completed = new AtomicLong();
+
+    /** Tasks rejected because the executor was full or shut down */
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Constructor to create an executor
+     * @param virtual true for a virtual thread per task, false for a bounded platform pool
+     * @param threads The pool size, or the maximum number of running virtual threads
+     * @param queueCapacity How many tasks may wait beyond the running ones
+     */
+    public TaskExecutor(boolean virtual, int threads, int queueCapacity) {
+        this.virtual = virtual;
+        if (virtual) {
+            this.delegate = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("booking-task-", 0).factory());
+            this.permits = new Semaphore(threads);
+            this.admissions = new Semaphore(threads + queueCapacity);
+        } else {
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.delegate = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "booking-task-" + threadNumber.getAndIncrement());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            this.permits = null;
+            this.admissions = null;
+        }
+    }
+
+    /**
+     * Gets the shared executor, configured from system properties on first use
+     * @return The application-wide executor
+     */
+    public static TaskExecutor getInstance() {
+        TaskExecutor executor = instance;
+        if (executor == null) {
+            synchronized (TaskExecutor.class) {
+                executor = instance;
+                if (executor == null) {
+                    boolean virtual = !"bounded".equalsIgnoreCase(System.getProperty("booking.executor", "virtual"));
+                    int defaultThreads = virtual ? 256 : Runtime.getRuntime().availableProcessors();
+                    int threads = Integer.getInteger("booking.executor.threads", defaultThreads);
+                    int queueCapacity = Integer.getInteger("booking.executor.queue", 256);
+                    executor = new TaskExecutor(virtual, threads, queueCapacity);
+                    instance = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Submits a task for execution
+     * @param task The task to run, typically a JavaFX Task
+     */
+    @Override
+    public void execute(Runnable task) {
+        // Virtual threads never queue in the delegate, so the executor counts them itself
+        if (admissions != null && !admissions.tryAcquire()) {
+            reject(task);
+            return;
+        }
+        queued.incrementAndGet();
+        try {
+            delegate.execute(() -> run(task));
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            if (admissions != null) {
+                admissions.release();
+            }
+            reject(task);
+        }
+    }
+
+    /**
+     * Runs a task while keeping the queue and activity counters up to date
+     * @param task The task to run
+     */
+    private void run(Runnable task) {
+        if (permits != null) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                queued.decrementAndGet();
+                admissions.release();
+                reject(task);
+                return;
+            }
+        }
+
+        queued.decrementAndGet();
+        active.incrementAndGet();
+        try {
+            task.run();
+        } finally {
+            active.decrementAndGet();
+            if (permits != null) {
+                permits.release();
+                admissions.release();
+            }
+            // Counted last, so that a finished task has already given back its place
+            completed.incrementAndGet();
+        }
+    }
+
+    /**
+     * Records a rejected task and cancels it if possible
+     * @param task The rejected task
+     */
+    private void reject(Runnable task) {
+        rejected.incrementAndGet();
+        if (task instanceof Future<?> future) {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * Stops accepting tasks; running tasks are left to finish
+     */
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    /**
+     * Checks whether tasks run on virtual threads
+     * @return true for virtual threads, false for the bounded pool
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Gets the number of tasks submitted but not yet started
+     * @return The queue depth
+     */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * Gets the number of tasks currently running
+     * @return The active task count
+     */
+    public int getActiveTasks() {
+        return active.get();
+    }
+
+    /**
+     * Gets the number of tasks that have finished
+     * @return The completed task count
+     */
+    public long getCompletedTasks() {
+        return completed.get();
+    }
+
+    /**
+     * Gets the number of tasks that were rejected
+     * @return The rejected task count
+     */
+    public long getRejectedTasks() {
+        return rejected.get();
+    }
+}
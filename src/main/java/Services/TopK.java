@@ -0,0 +1,188 @@
+package Services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the K items with the highest scores out of a stream, in one pass.
+ * The items are held in a binary min-heap of size K keyed by score, so each offer
+ * costs O(log K) at most and items scoring below the current K-th best are rejected
+ * with a single comparison. Nothing but the K best is ever stored. Equal scores are
+ * ranked by arrival, so the result is the same as a stable sort by score.
+ *
+ * Not thread safe; use one per query.
+ * @param <T> The type of the items
+ */
+public class TopK<T> {
+    /** Number of items to keep */
+    private final int k;
+
+    /** Heap of the items kept, the lowest score at the root */
+    private final Object[] items;
+
+    /** Scores of the items, in heap order */
+    private final double[] scores;
+
+    /** Arrival numbers of the items, in heap order; among equal scores the later one ranks lower */
+    private final long[] arrivals;
+
+    /** Number of items offered so far */
+    private long offered;
+
+    /** Number of items kept so far */
+    private int size;
+
+    /**
+     * Constructor to create an empty top-K
+     * @param k Number of items to keep, at least 1
+     */
+    public TopK(int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1");
+        }
+        this.k = k;
+        this.items = new Object[k];
+        this.scores = new double[k];
+        this.arrivals = new long[k];
+    }
+
+    /**
+     * Offers an item; it is kept if it scores above the lowest of the K best so far.
+     * On equal scores the item seen first is kept.
+     * @param item The item
+     * @param score The score, higher is better
+     * @return true if the item was kept
+     */
+    public boolean offer(T item, double score) {
+        long arrival = offered++;
+        if (size < k) {
+            items[size] = item;
+            scores[size] = score;
+            arrivals[size] = arrival;
+            siftUp(size++);
+            return true;
+        }
+        // The new item arrived last, so it also loses a tie with the lowest kept item
+        if (score <= scores[0]) {
+            return false;
+        }
+        items[0] = item;
+        scores[0] = score;
+        arrivals[0] = arrival;
+        siftDown(0, size);
+        return true;
+    }
+
+    /**
+     * Gets the lowest score that is still kept, the bar a new item must beat once K are kept
+     * @return The lowest kept score, or negative infinity if fewer than K items were offered
+     */
+    public double getThreshold() {
+        return size < k ? Double.NEGATIVE_INFINITY : scores[0];
+    }
+
+    /**
+     * Gets the number of items kept
+     * @return At most K
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Empties the top-K into a list, best first
+     * @return The items kept, ordered by score, highest first, and on equal scores by arrival
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> drain() {
+        // Take the root (the lowest) off the heap repeatedly and fill the list from the back
+        Object[] ordered = new Object[size];
+        for (int end = size - 1; end >= 0; end--) {
+            ordered[end] = items[0];
+            items[0] = items[end];
+            scores[0] = scores[end];
+            arrivals[0] = arrivals[end];
+            items[end] = null;
+            siftDown(0, end);
+        }
+        size = 0;
+
+        List<T> result = new ArrayList<>(ordered.length);
+        for (Object item : ordered) {
+            result.add((T) item);
+        }
+        return result;
+    }
+
+    /**
+     * Moves an entry up until its parent ranks lower
+     * @param index The index of the entry
+     */
+    private void siftUp(int index) {
+        Object item = items[index];
+        double score = scores[index];
+        long arrival = arrivals[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (ranksLower(scores[parent], arrivals[parent], score, arrival)) {
+                break;
+            }
+            move(parent, index);
+            index = parent;
+        }
+        items[index] = item;
+        scores[index] = score;
+        arrivals[index] = arrival;
+    }
+
+    /**
+     * Moves an entry down until both children rank higher
+     * @param index The index of the entry
+     * @param end The number of entries in the heap
+     */
+    private void siftDown(int index, int end) {
+        Object item = items[index];
+        double score = scores[index];
+        long arrival = arrivals[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= end) {
+                break;
+            }
+            if (child + 1 < end && ranksLower(scores[child + 1], arrivals[child + 1], scores[child], arrivals[child])) {
+                child++;
+            }
+            if (ranksLower(score, arrival, scores[child], arrivals[child])) {
+                break;
+            }
+            move(child, index);
+            index = child;
+        }
+        items[index] = item;
+        scores[index] = score;
+        arrivals[index] = arrival;
+    }
+
+    /**
+     * Copies an entry to another heap position
+     * @param from The index of the entry
+     * @param to The index to copy it to
+     */
+    private void move(int from, int to) {
+        items[to] = items[from];
+        scores[to] = scores[from];
+        arrivals[to] = arrivals[from];
+    }
+
+    /**
+     * Compares two entries: a lower score ranks lower, and on equal scores the later arrival does
+     * @param score The score of the first entry
+     * @param arrival The arrival of the first entry
+     * @param otherScore The score of the second entry
+     * @param otherArrival The arrival of the second entry
+     * @return true if the first entry ranks below the second
+     */
+    private static boolean ranksLower(double score, long arrival, double otherScore, long otherArrival) {
+        return score < otherScore || (score == otherScore && arrival > otherArrival);
+    }
+}
@@ -0,0 +1,665 @@
+package Storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32C;
+
+/**
+ * Segmented, append-only journal of confirmed bookings.
+ *
+ * Every booking is one binary record framed as an int payload length, an int CRC32C of
+ * the payload and the payload itself (see BookingRecord.encode). Records are appended to
+ * the current segment file (bookings-000001.journal, ...) until it reaches the segment size,
+ * after which the segment is forced, closed and a new one is started. A new segment's
+ * directory entry is forced before any record is written to it, so that a crash cannot
+ * lose a segment whose records were already reported durable.
+ *
+ * append returns only once the record is on disk. Concurrent appends share fsyncs (group
+ * commit): one waiting thread forces the segment for every record written so far while
+ * the others wait for it, so a burst of bookings costs one fsync instead of one each.
+ * A record is indexed, and so readable, only once it is durable.
+ *
+ * A failed write is undone by cutting the segment back to where the write started, so
+ * later records never land after a torn frame. A failed fsync cannot be retried safely,
+ * because the kernel may already have dropped the unwritten pages, so the journal stops:
+ * it cuts the segment back to its last durable size as far as it still can and refuses
+ * every further append, and the application has to be restarted.
+ *
+ * Confirmation texts are not stored; they are rebuilt from the record on demand. When the
+ * journal is opened, existing segments are scanned to rebuild the booking id index, and a
+ * torn record at the end of the last segment (from a crash mid-write) is cut off.
+ */
+public class BookingJournal implements AutoCloseable {
+    /** The shared journal, opened on first use */
+    private static volatile BookingJournal instance;
+
+    /** Default maximum size of a segment file */
+    public static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+
+    /** Size of the frame header: payload length and checksum */
+    private static final int FRAME_HEADER_SIZE = 2 * Integer.BYTES;
+
+    /** Largest payload accepted when reading, to reject garbage lengths */
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+
+    /** Prefix of segment file names */
+    private static final String SEGMENT_PREFIX = "bookings-";
+
+    /** Suffix of segment file names */
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    /** Directory holding the segments */
+    private final Path directory;
+
+    /** Size after which a new segment is started */
+    private final long segmentSize;
+
+    /** Location of each record by booking id: segment number and frame position */
+    private final Map<String, long[]> index = new ConcurrentHashMap<>();
+
+    /** Guards appends and segment rollover */
+    private final Object writeLock = new Object();
+
+    /** Guards the group commit state */
+    private final Object syncLock = new Object();
+
+    /** Segment currently appended to */
+    private FileChannel channel;
+
+    /** Number of the current segment */
+    private long segmentNumber;
+
+    /** Sequence number of the last write */
+    private long writtenSequence;
+
+    /** Sequence number of the last write forced to disk */
+    private long durableSequence;
+
+    /** Whether a thread is currently forcing the journal */
+    private boolean syncing;
+
+    /** Number of fsyncs performed, to monitor how well appends are grouped */
+    private long syncCount;
+
+    /** Size of the current segment known to be on disk */
+    private long durableSize;
+
+    /** Why the journal stopped accepting appends, or null while it works */
+    private volatile IOException failure;
+
+    /** Opens segment files for appending */
+    private final SegmentOpener opener;
+
+    /**
+     * Opens a segment file for appending; tests supply one that injects I/O errors
+     */
+    @FunctionalInterface
+    interface SegmentOpener {
+        /**
+         * Opens a segment file for writing, creating it if needed
+         * @param path The segment path
+         * @return The open file
+         * @throws IOException if the file cannot be opened
+         */
+        FileChannel open(Path path) throws IOException;
+    }
+
+    /**
+     * Constructor to open or create a journal
+     * @param directory Directory holding the segments
+     * @param segmentSize Size after which a new segment is started
+     * @throws IOException if the journal cannot be opened or a segment is corrupt
+     */
+    public BookingJournal(Path directory, long segmentSize) throws IOException {
+        this(directory, segmentSize, path -> FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE));
+    }
+
+    /**
+     * Constructor to open or create a journal whose segments are opened by the given opener
+     * @param directory Directory holding the segments
+     * @param segmentSize Size after which a new segment is started
+     * @param opener Opens segment files for appending
+     * @throws IOException if the journal cannot be opened or a segment is corrupt
+     */
+    BookingJournal(Path directory, long segmentSize, SegmentOpener opener) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.opener = opener;
+        if (!Files.isDirectory(directory)) {
+            Files.createDirectories(directory);
+            Path parent = directory.toAbsolutePath().getParent();
+            if (parent != null) {
+                forceDirectory(parent);
+            }
+        }
+
+        // Rebuild the index from existing segments
+        List<Long> segments = listSegments();
+        for (int i = 0; i < segments.size(); i++) {
+            scan(segments.get(i), i == segments.size() - 1);
+        }
+
+        segmentNumber = segments.isEmpty() ? 1 : segments.get(segments.size() - 1);
+        channel = openSegment(segmentNumber);
+        durableSize = channel.size();
+        channel.position(durableSize);
+    }
+
+    /**
+     * Gets the shared journal. It is stored in the directory named by the booking.journal.dir
+     * system property (default "bookings"), with segments of booking.journal.segmentSize bytes.
+     * @return The application-wide journal
+     * @throws IOException if the journal cannot be opened
+     */
+    public static BookingJournal getInstance() throws IOException {
+        BookingJournal journal = instance;
+        if (journal == null) {
+            synchronized (BookingJournal.class) {
+                journal = instance;
+                if (journal == null) {
+                    Path directory = Path.of(System.getProperty("booking.journal.dir", "bookings"));
+                    long segmentSize = Long.getLong("booking.journal.segmentSize", DEFAULT_SEGMENT_SIZE);
+                    journal = new BookingJournal(directory, segmentSize);
+                    instance = journal;
+                }
+            }
+        }
+        return journal;
+    }
+
+    /**
+     * Appends a booking and waits until it is durable
+     * @param record The booking to append
+     * @throws IOException if the record cannot be written or forced to disk
+     */
+    public void append(BookingRecord record) throws IOException {
+        append(List.of(record));
+    }
+
+    /**
+     * Appends several bookings with one write and waits until they are durable
+     * @param records The bookings to append
+     * @throws IOException if the records cannot be written or forced to disk
+     */
+    public void append(List<BookingRecord> records) throws IOException {
+        append(records, null);
+    }
+
+    /**
+     * Appends several bookings with one write, framing them in a caller-owned buffer,
+     * and waits until they are durable. Writers that append continuously pass the
+     * returned buffer back in so that it is allocated only when it has to grow.
+     * @param records The bookings to append
+     * @param buffer The buffer to frame the records in, or null to allocate one
+     * @return The buffer used, to pass to the next call
+     * @throws IOException if the records cannot be written or forced to disk
+     */
+    public ByteBuffer append(List<BookingRecord> records, ByteBuffer buffer) throws IOException {
+        // Encode and frame outside the lock
+        List<byte[]> payloads = new ArrayList<>(records.size());
+        int size = 0;
+        for (BookingRecord record : records) {
+            byte[] payload = record.encode();
+            payloads.add(payload);
+            size += FRAME_HEADER_SIZE + payload.length;
+        }
+        if (buffer == null) {
+            buffer = ByteBuffer.allocate(size);
+        } else if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocateDirect(Math.max(size, 2 * buffer.capacity()));
+        }
+        buffer.clear();
+        for (byte[] payload : payloads) {
+            frame(buffer, payload);
+        }
+        buffer.flip();
+
+        long sequence;
+        long segment;
+        long position;
+        synchronized (writeLock) {
+            checkNotFailed();
+            if (channel.position() > 0 && channel.position() + size > segmentSize) {
+                try {
+                    rollover();
+                } catch (IOException e) {
+                    failure = e;
+                    throw e;
+                }
+            }
+
+            segment = segmentNumber;
+            position = channel.position();
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                undoWrite(position, e);
+                throw e;
+            }
+            sequence = ++writtenSequence;
+        }
+
+        awaitDurable(sequence);
+
+        // Index each record by the position of its frame, now that it can be read back after a crash
+        for (int i = 0; i < records.size(); i++) {
+            index.put(records.get(i).getId(), new long[]{segment, position});
+            position += FRAME_HEADER_SIZE + payloads.get(i).length;
+        }
+        return buffer;
+    }
+
+    /**
+     * Cuts off a write that failed part way, so that the next record follows the last whole one.
+     * If the segment cannot be cut, the journal stops.
+     * @param position Where the failed write started
+     * @param cause Why the write failed
+     */
+    private void undoWrite(long position, IOException cause) {
+        // Called with writeLock held
+        try {
+            channel.truncate(position);
+            channel.position(position);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+            failure = cause;
+        }
+    }
+
+    /**
+     * Refuses to go on once the journal has stopped
+     * @throws IOException if an earlier write could not be undone or an fsync failed
+     */
+    private void checkNotFailed() throws IOException {
+        IOException cause = failure;
+        if (cause != null) {
+            throw new IOException("The booking journal stopped after an earlier failure; restart to recover", cause);
+        }
+    }
+
+    /**
+     * Writes one record frame into a buffer
+     * @param buffer The buffer to write into
+     * @param payload The encoded record
+     */
+    private static void frame(ByteBuffer buffer, byte[] payload) {
+        CRC32C checksum = new CRC32C();
+        checksum.update(payload);
+        buffer.putInt(payload.length);
+        buffer.putInt((int) checksum.getValue());
+        buffer.put(payload);
+    }
+
+    /**
+     * Waits until a write is on disk. If no other thread is forcing the journal, this thread
+     * forces it on behalf of every write made so far.
+     * @param sequence The sequence number of the write
+     * @throws IOException if forcing fails
+     */
+    private void awaitDurable(long sequence) throws IOException {
+        while (true) {
+            synchronized (syncLock) {
+                // Wait for the current leader; its fsync may already cover this write
+                while (syncing && durableSequence < sequence) {
+                    try {
+                        syncLock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted while waiting for the booking journal", e);
+                    }
+                }
+                if (durableSequence >= sequence) {
+                    return;
+                }
+                checkNotFailed();
+                syncing = true;
+            }
+
+            // Lead the next group: everything written up to now is covered by this fsync
+            long target;
+            long targetSize;
+            FileChannel segment;
+            synchronized (writeLock) {
+                target = writtenSequence;
+                targetSize = channel.position();
+                segment = channel;
+            }
+
+            IOException forceFailure = null;
+            try {
+                segment.force(false);
+            } catch (IOException e) {
+                forceFailure = e;
+            }
+
+            synchronized (writeLock) {
+                if (forceFailure != null && segment != channel && failure == null) {
+                    // The segment was rolled over meanwhile, and rolling over forced it
+                    forceFailure = null;
+                }
+                if (forceFailure == null) {
+                    if (segment == channel) {
+                        durableSize = Math.max(durableSize, targetSize);
+                    }
+                } else {
+                    stop(forceFailure);
+                }
+            }
+
+            synchronized (syncLock) {
+                syncing = false;
+                if (forceFailure == null) {
+                    durableSequence = Math.max(durableSequence, target);
+                    syncCount++;
+                }
+                syncLock.notifyAll();
+            }
+            if (forceFailure != null) {
+                throw forceFailure;
+            }
+        }
+    }
+
+    /**
+     * Stops the journal after a failed fsync. The records written since the last successful
+     * fsync are cut off as far as possible, so that bookings reported as failed do not come
+     * back when the journal is reopened.
+     * @param cause Why the fsync failed
+     */
+    private void stop(IOException cause) {
+        // Called with writeLock held
+        if (failure == null) {
+            failure = cause;
+        }
+        try {
+            channel.truncate(durableSize);
+            channel.force(false);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Forces and closes the current segment and starts the next one
+     * @throws IOException if the segment cannot be forced or the next one created
+     */
+    private void rollover() throws IOException {
+        // Called with writeLock held
+        channel.force(false);
+        channel.close();
+        segmentNumber++;
+        channel = openSegment(segmentNumber);
+        durableSize = 0;
+    }
+
+    /**
+     * Reads a booking from the journal
+     * @param bookingId The booking id
+     * @return The booking, or null if the journal has no booking with this id
+     * @throws IOException if the record cannot be read
+     */
+    public BookingRecord read(String bookingId) throws IOException {
+        long[] location = index.get(bookingId);
+        if (location == null) {
+            return null;
+        }
+
+        try (FileChannel segment = FileChannel.open(segmentPath(location[0]), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+            readFully(segment, header, location[1]);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length < 0 || length > MAX_RECORD_SIZE) {
+                throw new IOException("Corrupt booking journal record for " + bookingId);
+            }
+
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(segment, payload, location[1] + FRAME_HEADER_SIZE);
+            payload.flip();
+            if (checksum(payload) != checksum) {
+                throw new IOException("Checksum mismatch in booking journal record for " + bookingId);
+            }
+            return BookingRecord.decode(payload);
+        }
+    }
+
+    /**
+     * Reconstructs the confirmation text of a booking
+     * @param bookingId The booking id
+     * @return The confirmation text, or null if the journal has no booking with this id
+     * @throws IOException if the record cannot be read
+     */
+    public String readConfirmation(String bookingId) throws IOException {
+        BookingRecord record = read(bookingId);
+        return record == null ? null : record.toConfirmationText();
+    }
+
+    /**
+     * Gets the ids of all bookings in the journal
+     * @return The booking ids, in no particular order
+     */
+    public List<String> getBookingIds() {
+        return new ArrayList<>(index.keySet());
+    }
+
+    /**
+     * Gets the number of bookings in the journal
+     * @return The number of bookings
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Gets the number of fsyncs performed since the journal was opened
+     * @return The number of fsyncs
+     */
+    public long getSyncCount() {
+        synchronized (syncLock) {
+            return syncCount;
+        }
+    }
+
+    /**
+     * Checks whether the journal is still open
+     * @return true if bookings can be appended, false once it is closed or has stopped after a failure
+     */
+    public boolean isOpen() {
+        synchronized (writeLock) {
+            return failure == null && channel.isOpen();
+        }
+    }
+
+    /**
+     * Forces and closes the current segment
+     * @throws IOException if the segment cannot be forced
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (writeLock) {
+            if (channel.isOpen()) {
+                channel.force(false);
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Scans a segment, indexing its records
+     * @param number The segment number
+     * @param last Whether this is the segment appended to, whose tail may be torn
+     * @throws IOException if the segment cannot be read or is corrupt before its tail
+     */
+    private void scan(long number, boolean last) throws IOException {
+        Path path = segmentPath(number);
+        try (FileChannel segment = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = segment.size();
+            long position = 0;
+            ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+
+            while (position < size) {
+                // Read the frame; stop at a frame that is incomplete or fails its checksum
+                header.clear();
+                if (position + FRAME_HEADER_SIZE > size) {
+                    break;
+                }
+                readFully(segment, header, position);
+                header.flip();
+                int length = header.getInt();
+                int checksum = header.getInt();
+                if (length < 0 || length > MAX_RECORD_SIZE || position + FRAME_HEADER_SIZE + length > size) {
+                    break;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                readFully(segment, payload, position + FRAME_HEADER_SIZE);
+                payload.flip();
+                if (checksum(payload) != checksum) {
+                    break;
+                }
+
+                index.put(BookingRecord.decode(payload).getId(), new long[]{number, position});
+                position += FRAME_HEADER_SIZE + length;
+            }
+
+            if (position < size) {
+                if (!last) {
+                    throw new IOException("Corrupt booking journal segment " + path + " at offset " + position);
+                }
+                // A crash interrupted the last write; drop the partial record
+                System.err.println("Truncating torn booking journal record in " + path + " at offset " + position);
+                segment.truncate(position);
+                segment.force(false);
+            }
+        }
+    }
+
+    /**
+     * Lists the numbers of the existing segments in ascending order
+     * @return The segment numbers
+     * @throws IOException if the directory cannot be listed
+     */
+    private List<Long> listSegments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String number = name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length());
+                try {
+                    segments.add(Long.parseLong(number));
+                } catch (NumberFormatException e) {
+                    System.err.println("Ignoring unexpected file in booking journal: " + file);
+                }
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    /**
+     * Opens a segment for appending, creating it if needed. A segment that is created is
+     * made durable in the directory before it is returned.
+     * @param number The segment number
+     * @return The open segment
+     * @throws IOException if the segment cannot be opened or its directory entry forced
+     */
+    private FileChannel openSegment(long number) throws IOException {
+        Path path = segmentPath(number);
+        boolean created = !Files.exists(path);
+        FileChannel segment = opener.open(path);
+        if (created) {
+            try {
+                forceDirectory(directory);
+            } catch (IOException e) {
+                segment.close();
+                throw e;
+            }
+        }
+        return segment;
+    }
+
+    /**
+     * Forces a directory, so that files created in it survive a crash
+     * @param directory The directory
+     * @throws IOException if the directory cannot be forced
+     */
+    private static void forceDirectory(Path directory) throws IOException {
+        // Windows cannot open a directory as a channel; it keeps directory entries durable itself
+        if (System.getProperty("os.name", "").startsWith("Windows")) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Gets the path of a segment
+     * @param number The segment number
+     * @return The segment path
+     */
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Reads from a file until the buffer is full
+     * @param file The file to read
+     * @param buffer The buffer to fill
+     * @param position The file position to read from
+     * @throws IOException if the file ends before the buffer is full
+     */
+    private static void readFully(FileChannel file, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = file.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of booking journal segment");
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Computes the CRC32C of a buffer's remaining bytes without consuming them
+     * @param buffer The buffer
+     * @return The checksum as stored in a frame
+     */
+    private static int checksum(ByteBuffer buffer) {
+        CRC32C checksum = new CRC32C();
+        checksum.update(buffer.duplicate());
+        return (int) checksum.getValue();
+    }
+
+    /**
+     * Exports booking confirmations from a journal, for support staff who need the old text form.
+     * Usage: BookingJournal [directory] [bookingId...]; without ids every booking is printed.
+     * @param args The journal directory and the ids of the bookings to export
+     * @throws IOException if the journal cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = Path.of(args.length > 0 ? args[0] : "bookings");
+        try (BookingJournal journal = new BookingJournal(directory, DEFAULT_SEGMENT_SIZE)) {
+            List<String> ids = args.length > 1 ? List.of(args).subList(1, args.length) : journal.getBookingIds();
+            for (String id : ids) {
+                String confirmation = journal.readConfirmation(id);
+                if (confirmation == null) {
+                    System.err.println("No booking with id " + id);
+                } else {
+                    System.out.println(confirmation);
+                }
+            }
+        }
+    }
+}
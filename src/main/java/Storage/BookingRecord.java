@@ -0,0 +1,330 @@
+package Storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A confirmed booking as stored in the booking journal.
+ * Holds everything needed to reproduce the booking confirmation: the customer,
+ * the booking date and one line per booked room with its stay and price.
+ */
+public class BookingRecord {
+    /**
+     * One booked room of a booking
+     */
+    public static class Line {
+        /** Hotel name */
+        private final String hotel;
+
+        /** Hotel city */
+        private final String city;
+
+        /** Room type */
+        private final String roomType;
+
+        /** Room description */
+        private final String description;
+
+        /** Check-in date */
+        private final LocalDate checkIn;
+
+        /** Check-out date */
+        private final LocalDate checkOut;
+
+        /** Total price of the stay */
+        private final double price;
+
+        /**
+         * Constructor to create a booking line
+         * @param hotel Hotel name
+         * @param city Hotel city
+         * @param roomType Room type
+         * @param description Room description
+         * @param checkIn Check-in date
+         * @param checkOut Check-out date
+         * @param price Total price of the stay
+         */
+        public Line(String hotel, String city, String roomType, String description,
+                    LocalDate checkIn, LocalDate checkOut, double price) {
+            this.hotel = hotel;
+            this.city = city;
+            this.roomType = roomType;
+            this.description = description;
+            this.checkIn = checkIn;
+            this.checkOut = checkOut;
+            this.price = price;
+        }
+
+        /**
+         * Gets the hotel name
+         * @return The hotel name
+         */
+        public String getHotel() {
+            return hotel;
+        }
+
+        /**
+         * Gets the hotel city
+         * @return The city
+         */
+        public String getCity() {
+            return city;
+        }
+
+        /**
+         * Gets the room type
+         * @return The room type
+         */
+        public String getRoomType() {
+            return roomType;
+        }
+
+        /**
+         * Gets the room description
+         * @return The description
+         */
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * Gets the check-in date
+         * @return The check-in date
+         */
+        public LocalDate getCheckIn() {
+            return checkIn;
+        }
+
+        /**
+         * Gets the check-out date
+         * @return The check-out date
+         */
+        public LocalDate getCheckOut() {
+            return checkOut;
+        }
+
+        /**
+         * Gets the total price of the stay
+         * @return The price
+         */
+        public double getPrice() {
+            return price;
+        }
+    }
+
+    /** Version of the binary encoding */
+    private static final byte FORMAT_VERSION = 1;
+
+    /** Unique booking id, also the key of the record in the journal */
+    private final String id;
+
+    /** Date the booking was made */
+    private final LocalDate bookingDate;
+
+    /** Customer email, may be null when the booking has no customer */
+    private final String email;
+
+    /** Customer first name, may be null */
+    private final String name;
+
+    /** Customer surname, may be null */
+    private final String surname;
+
+    /** Booked rooms */
+    private final List<Line> lines;
+
+    /**
+     * Constructor to create a booking record
+     * @param id Unique booking id
+     * @param bookingDate Date the booking was made
+     * @param email Customer email, may be null
+     * @param name Customer first name, may be null
+     * @param surname Customer surname, may be null
+     * @param lines Booked rooms
+     */
+    public BookingRecord(String id, LocalDate bookingDate, String email, String name, String surname, List<Line> lines) {
+        this.id = id;
+        this.bookingDate = bookingDate;
+        this.email = email;
+        this.name = name;
+        this.surname = surname;
+        this.lines = List.copyOf(lines);
+    }
+
+    /**
+     * Gets the booking id
+     * @return The booking id
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gets the date the booking was made
+     * @return The booking date
+     */
+    public LocalDate getBookingDate() {
+        return bookingDate;
+    }
+
+    /**
+     * Gets the customer email
+     * @return The email
+     */
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * Gets the booked rooms
+     * @return The booking lines
+     */
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    /**
+     * Gets the total price of all booked rooms
+     * @return The total price
+     */
+    public double getTotalPrice() {
+        double total = 0;
+        for (Line line : lines) {
+            total += line.price;
+        }
+        return total;
+    }
+
+    /**
+     * Formats the booking confirmation text, as it used to be written to booking files
+     * @return The confirmation text
+     */
+    public String toConfirmationText() {
+        StringBuilder text = new StringBuilder(256 + lines.size() * 256);
+
+        // Customer information if available
+        if (email != null) {
+            text.append("CUSTOMER INFORMATION:\n");
+            text.append("===============================\n");
+            if (name != null && surname != null) {
+                text.append("Name: ").append(name).append(' ').append(surname).append('\n');
+            }
+            text.append("Email: ").append(email).append("\n\n");
+        }
+
+        // Booking date
+        text.append("BOOKING INFORMATION:\n");
+        text.append("===============================\n");
+        text.append("Booking ID: ").append(id).append('\n');
+        text.append("Booking Date: ").append(bookingDate.format(DateTimeFormatter.ISO_LOCAL_DATE)).append('\n');
+
+        // Booking details for each room
+        text.append("BOOKING DETAILS:\n");
+        text.append("===============================\n\n");
+        for (Line line : lines) {
+            text.append("Hotel: ").append(line.hotel).append('\n');
+            text.append("City: ").append(line.city).append('\n');
+            text.append("Room Type: ").append(line.roomType).append('\n');
+            text.append("Description: ").append(line.description).append('\n');
+            text.append("Check-in Date: ").append(line.checkIn.format(DateTimeFormatter.ISO_LOCAL_DATE)).append('\n');
+            text.append("Check-out Date: ").append(line.checkOut.format(DateTimeFormatter.ISO_LOCAL_DATE)).append('\n');
+            text.append(String.format("Price: $%.2f\n\n", line.price));
+        }
+
+        // Total price
+        text.append("===============================\n");
+        text.append(String.format("TOTAL PRICE: $%.2f\n", getTotalPrice()));
+        return text.toString();
+    }
+
+    /**
+     * Encodes the record in the binary journal format
+     * @return The encoded record
+     */
+    public byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128 + lines.size() * 128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeUTF(id);
+            out.writeLong(bookingDate.toEpochDay());
+            writeOptional(out, email);
+            writeOptional(out, name);
+            writeOptional(out, surname);
+            out.writeInt(lines.size());
+            for (Line line : lines) {
+                out.writeUTF(line.hotel);
+                out.writeUTF(line.city);
+                out.writeUTF(line.roomType);
+                out.writeUTF(line.description);
+                out.writeLong(line.checkIn.toEpochDay());
+                out.writeLong(line.checkOut.toEpochDay());
+                out.writeDouble(line.price);
+            }
+        } catch (IOException e) {
+            // Writing to a byte array cannot fail
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a record from the binary journal format
+     * @param payload The encoded record
+     * @return The decoded record
+     * @throws IOException if the payload is not a valid record
+     */
+    public static BookingRecord decode(ByteBuffer payload) throws IOException {
+        byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported booking record version " + version);
+            }
+            String id = in.readUTF();
+            LocalDate bookingDate = LocalDate.ofEpochDay(in.readLong());
+            String email = readOptional(in);
+            String name = readOptional(in);
+            String surname = readOptional(in);
+            int count = in.readInt();
+            List<Line> lines = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                lines.add(new Line(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(),
+                        LocalDate.ofEpochDay(in.readLong()), LocalDate.ofEpochDay(in.readLong()), in.readDouble()));
+            }
+            return new BookingRecord(id, bookingDate, email, name, surname, lines);
+        }
+    }
+
+    /**
+     * Writes a string that may be null
+     * @param out The output
+     * @param value The string, may be null
+     * @throws IOException if writing fails
+     */
+    private static void writeOptional(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    /**
+     * Reads a string that may be null
+     * @param in The input
+     * @return The string, or null
+     * @throws IOException if reading fails
+     */
+    private static String readOptional(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
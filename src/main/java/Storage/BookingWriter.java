@@ -0,0 +1,325 @@
+package Storage;
+
+import Metrics.BookingMetrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes bookings to the booking journal on a dedicated thread, so that callers such
+ * as the JavaFX Application Thread never wait for the disk.
+ *
+ * Bookings are queued in a bounded queue. The writer thread takes everything queued,
+ * frames it into one reusable direct buffer and appends it to the journal with a single
+ * write and fsync. Each submission returns a future that completes once the booking is
+ * durable, or fails if it could not be written.
+ *
+ * When the queue is full, submit fails immediately with a RejectedExecutionException
+ * (for the UI, which must not block), while the timed submit waits for space, which
+ * slows producers down to the rate the disk can sustain.
+ *
+ * The queue capacity is read from the booking.writer.queue system property (default 1024)
+ * and the largest batch from booking.writer.batch (default 256).
+ */
+public class BookingWriter {
+    /** The shared writer, started on first use */
+    private static volatile BookingWriter instance;
+
+    /** How long the writer thread waits for work before checking whether it should stop */
+    private static final long POLL_MILLIS = 100;
+
+    /** Initial size of the reusable write buffer */
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * A booking waiting to be written
+     * @param record The booking
+     * @param submittedNanos When the booking was queued, for the latency metrics
+     * @param result Completed once the booking is durable
+     */
+    private record Pending(BookingRecord record, long submittedNanos, CompletableFuture<BookingRecord> result) {
+    }
+
+    /** Journal the bookings are appended to */
+    private final BookingJournal journal;
+
+    /** Bookings waiting to be written */
+    private final BlockingQueue<Pending> queue;
+
+    /** Largest number of bookings written at once */
+    private final int maxBatch;
+
+    /** The writer thread */
+    private final Thread thread;
+
+    /** Cleared to stop the writer thread once the queue is empty */
+    private volatile boolean running = true;
+
+    /** Buffer the writer thread frames records in, reused between batches */
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(INITIAL_BUFFER_SIZE);
+
+    /** Bookings written successfully */
+    private final AtomicLong written = new AtomicLong();
+
+    /** Bookings that could not be written */
+    private final AtomicLong failed = new AtomicLong();
+
+    /** Bookings rejected because the queue was full or the writer stopped */
+    private final AtomicLong rejected = new AtomicLong();
+
+    /** Number of journal appends, each covering one batch */
+    private final AtomicLong batches = new AtomicLong();
+
+    /** Sum of the latencies from submission to durability */
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+
+    /** Highest latency from submission to durability */
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    /**
+     * Constructor to create a writer and start its thread
+     * @param journal Journal the bookings are appended to
+     * @param queueCapacity Maximum number of bookings waiting to be written
+     * @param maxBatch Largest number of bookings written at once
+     */
+    public BookingWriter(BookingJournal journal, int queueCapacity, int maxBatch) {
+        this.journal = journal;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatch = maxBatch;
+        this.thread = new Thread(this::run, "booking-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Gets the shared writer, appending to the shared journal
+     * @return The application-wide writer
+     * @throws IOException if the journal cannot be opened
+     */
+    public static BookingWriter getInstance() throws IOException {
+        BookingWriter writer = instance;
+        if (writer == null) {
+            synchronized (BookingWriter.class) {
+                writer = instance;
+                if (writer == null) {
+                    int queueCapacity = Integer.getInteger("booking.writer.queue", 1024);
+                    int maxBatch = Integer.getInteger("booking.writer.batch", 256);
+                    writer = new BookingWriter(BookingJournal.getInstance(), queueCapacity, maxBatch);
+                    instance = writer;
+                }
+            }
+        }
+        return writer;
+    }
+
+    /**
+     * Queues a booking without waiting
+     * @param record The booking to write
+     * @return A future completed once the booking is durable; it fails with a
+     * RejectedExecutionException if the queue is full
+     */
+    public CompletableFuture<BookingRecord> submit(BookingRecord record) {
+        Pending pending = new Pending(record, System.nanoTime(), new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            reject(pending);
+        } else {
+            withdrawIfStopped(pending);
+        }
+        return pending.result();
+    }
+
+    /**
+     * Queues a booking, waiting for space in the queue
+     * @param record The booking to write
+     * @param timeout How long to wait for space
+     * @param unit The unit of the timeout
+     * @return A future completed once the booking is durable; it fails with a
+     * RejectedExecutionException if no space became available in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public CompletableFuture<BookingRecord> submit(BookingRecord record, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        Pending pending = new Pending(record, System.nanoTime(), new CompletableFuture<>());
+        if (!running || !queue.offer(pending, timeout, unit)) {
+            reject(pending);
+        } else {
+            withdrawIfStopped(pending);
+        }
+        return pending.result();
+    }
+
+    /**
+     * Fails a booking that was queued while the writer stopped. The writer thread may
+     * already have seen an empty queue and exited, and then nothing would ever write the
+     * booking. If the booking is no longer queued, the writer thread or shutdown has
+     * taken it and completes its future.
+     * @param pending The booking just queued
+     */
+    private void withdrawIfStopped(Pending pending) {
+        if (!running && queue.remove(pending)) {
+            reject(pending);
+        }
+    }
+
+    /**
+     * Fails a booking that could not be queued
+     * @param pending The booking
+     */
+    private void reject(Pending pending) {
+        rejected.incrementAndGet();
+        String reason = running ? "Booking queue is full" : "Booking writer is stopped";
+        pending.result().completeExceptionally(new RejectedExecutionException(reason));
+    }
+
+    /**
+     * Body of the writer thread: writes batches until stopped and the queue is empty
+     */
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        List<BookingRecord> records = new ArrayList<>(maxBatch);
+
+        while (running || !queue.isEmpty()) {
+            // Poll rather than block indefinitely, so that shutdown needs no interrupt
+            // (interrupting a thread in FileChannel I/O closes the channel)
+            Pending first;
+            try {
+                first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (first == null) {
+                continue;
+            }
+
+            batch.add(first);
+            queue.drainTo(batch, maxBatch - 1);
+            for (Pending pending : batch) {
+                records.add(pending.record());
+            }
+
+            write(batch, records);
+            batch.clear();
+            records.clear();
+        }
+    }
+
+    /**
+     * Appends one batch to the journal and completes its futures
+     * @param batch The queued bookings
+     * @param records The records of the queued bookings
+     */
+    private void write(List<Pending> batch, List<BookingRecord> records) {
+        long started = System.nanoTime();
+        try {
+            buffer = journal.append(records, buffer);
+            BookingMetrics.getInstance().recordFileWrite(started, true);
+        } catch (IOException | RuntimeException e) {
+            BookingMetrics.getInstance().recordFileWrite(started, false);
+            failed.addAndGet(batch.size());
+            System.err.println("Error writing " + batch.size() + " booking(s): " + e.getMessage());
+            for (Pending pending : batch) {
+                pending.result().completeExceptionally(e);
+            }
+            return;
+        }
+
+        batches.incrementAndGet();
+        long now = System.nanoTime();
+        for (Pending pending : batch) {
+            long latency = now - pending.submittedNanos();
+            totalLatencyNanos.addAndGet(latency);
+            maxLatencyNanos.accumulateAndGet(latency, Math::max);
+            written.incrementAndGet();
+            pending.result().complete(pending.record());
+        }
+    }
+
+    /**
+     * Stops accepting bookings and waits for the queued ones to be written.
+     * Once the writer thread has exited, any booking still queued by a submitter racing
+     * with the shutdown is failed, so that no future is left waiting.
+     * @param timeout How long to wait
+     * @param unit The unit of the timeout
+     * @return true if every queued booking was written in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        running = false;
+        thread.join(Math.max(1, unit.toMillis(timeout)));
+        if (thread.isAlive()) {
+            return false;
+        }
+
+        List<Pending> stranded = new ArrayList<>();
+        queue.drainTo(stranded);
+        for (Pending pending : stranded) {
+            reject(pending);
+        }
+        return stranded.isEmpty();
+    }
+
+    /**
+     * Gets the number of bookings waiting to be written
+     * @return The queue depth
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Gets the number of bookings written successfully
+     * @return The written booking count
+     */
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * Gets the number of bookings that could not be written
+     * @return The failed booking count
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * Gets the number of bookings rejected because the queue was full or the writer stopped
+     * @return The rejected booking count
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Gets the number of journal appends made, each covering one batch of bookings
+     * @return The batch count
+     */
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    /**
+     * Gets the average time from submission until a booking was durable
+     * @return The average latency in milliseconds, or 0 if nothing was written yet
+     */
+    public double getAverageLatencyMillis() {
+        long count = written.get();
+        return count == 0 ? 0 : totalLatencyNanos.get() / (double) count / 1_000_000;
+    }
+
+    /**
+     * Gets the longest time from submission until a booking was durable
+     * @return The highest latency in milliseconds
+     */
+    public double getMaxLatencyMillis() {
+        return maxLatencyNanos.get() / 1_000_000.0;
+    }
+}
@@ -0,0 +1,205 @@
+package Storage;
+
+import Models.Hotel;
+import Models.Room;
+import Services.Catalog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Fills the catalog at startup, for both the JavaFX client and the HTTP server.
+ * Chooses between the binary snapshot, the text catalog files and the built-in sample data.
+ */
+public class CatalogBootstrap {
+    /** Set once the catalog has been loaded in this process */
+    private static boolean loaded;
+
+    /**
+     * Loads the hotel and room catalog, once per process.
+     * Uses the binary snapshot (booking.catalog.snapshot) if it exists, otherwise the text
+     * catalog files (booking.catalog.hotels and booking.catalog.rooms), writing a snapshot
+     * for the next start. A snapshot built from other text files, or from these files before
+     * they last changed, is rebuilt from the text files. Without any catalog files the sample
+     * data is used.
+     * Later calls, such as the client's after each login, return at once, as does a call
+     * when the catalog already holds hotels.
+     * @param listener Receives loading progress
+     * @throws IOException if the text catalog cannot be read
+     */
+    public static synchronized void load(CatalogLoader.ProgressListener listener) throws IOException {
+        if (loaded || !Catalog.isEmpty()) {
+            loaded = true;
+            return;
+        }
+        loadCatalog(listener);
+        loaded = true;
+    }
+
+    /**
+     * Loads the catalog from the snapshot, the text files or the sample data
+     * @param listener Receives loading progress
+     * @throws IOException if the text catalog cannot be read
+     */
+    private static void loadCatalog(CatalogLoader.ProgressListener listener) throws IOException {
+        String snapshotFile = System.getProperty("booking.catalog.snapshot");
+        String hotelsFile = System.getProperty("booking.catalog.hotels");
+        String roomsFile = System.getProperty("booking.catalog.rooms");
+
+        boolean textCatalog = hotelsFile != null && roomsFile != null;
+        List<CatalogSnapshot.Source> sources = textCatalog
+                ? List.of(CatalogSnapshot.Source.of(Path.of(hotelsFile)), CatalogSnapshot.Source.of(Path.of(roomsFile)))
+                : List.of();
+
+        // Fast path: memory-map the snapshot written by an earlier start from the same files
+        if (snapshotFile != null && Files.exists(Path.of(snapshotFile))
+                && (!textCatalog || isCurrent(Path.of(snapshotFile), sources))) {
+            try {
+                System.out.println("Catalog snapshot loaded: " + CatalogSnapshot.load(Path.of(snapshotFile), listener));
+                return;
+            } catch (IOException e) {
+                if (Catalog.isEmpty() && textCatalog) {
+                    System.err.println("Ignoring catalog snapshot: " + e.getMessage());
+                } else {
+                    throw e;
+                }
+            }
+        }
+
+        // No catalog configured: fall back to the sample data
+        if (!textCatalog) {
+            loadSampleData();
+            return;
+        }
+
+        CatalogLoader.LoadResult result = new CatalogLoader().load(Path.of(hotelsFile), Path.of(roomsFile), listener);
+        System.out.println("Catalog loaded: " + result);
+
+        // Save a snapshot so the next start skips parsing
+        if (snapshotFile != null) {
+            try {
+                CatalogSnapshot.write(Path.of(snapshotFile), sources);
+                System.out.println("Catalog snapshot written: " + snapshotFile);
+            } catch (IOException e) {
+                // The text catalog is loaded, so starting without a snapshot only costs the next start
+                System.err.println("Catalog snapshot not written: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Tells whether a snapshot was built from the text catalog files as they are now
+     * @param snapshotFile The snapshot
+     * @param sources The configured text catalog files, as they are now
+     * @return true if the snapshot records the same paths, sizes and modification times
+     */
+    private static boolean isCurrent(Path snapshotFile, List<CatalogSnapshot.Source> sources) {
+        try {
+            if (CatalogSnapshot.readSources(snapshotFile).equals(sources)) {
+                return true;
+            }
+            System.out.println("Catalog snapshot is out of date, rebuilding it from the text catalog");
+        } catch (IOException e) {
+            System.err.println("Ignoring catalog snapshot: " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Adds the sample hotels and rooms to the catalog
+     */
+    private static void loadSampleData() {
+        /* ===== SAMPLE DATA INITIALIZATION ===== */
+        // Create and add sample hotels organized by city
+
+        // New York hotels
+        Hotel grandHotel = new Hotel("Grand Hotel", "+1234567890", 5, "New York", "Luxury hotel in downtown");
+        Hotel comfortInn = new Hotel("Comfort Inn", "+0987654321", 3, "New York", "Affordable comfort");
+        Hotel plazaHotel = new Hotel("Plaza Hotel", "+2223334444", 5, "New York", "Historic luxury hotel");
+        Hotel broadwayMotel = new Hotel("Broadway Motel", "+5556667777", 2, "New York", "Budget-friendly near theaters");
+
+        Catalog.addHotel(grandHotel);
+        Catalog.addHotel(comfortInn);
+        Catalog.addHotel(plazaHotel);
+        Catalog.addHotel(broadwayMotel);
+
+        // Miami hotels
+        Hotel beachResort = new Hotel("Beach Resort", "+1122334455", 4, "Miami", "Beautiful beachfront property");
+        Hotel oceanView = new Hotel("Ocean View", "+9988776655", 5, "Miami", "Luxury oceanfront resort");
+        Hotel palmSuites = new Hotel("Palm Suites", "+1231231234", 3, "Miami", "Family-friendly hotel with pool");
+
+        Catalog.addHotel(beachResort);
+        Catalog.addHotel(oceanView);
+        Catalog.addHotel(palmSuites);
+
+        // Denver hotels
+        Hotel mountainLodge = new Hotel("Mountain Lodge", "+5566778899", 3, "Denver", "Scenic mountain views");
+        Hotel alpineResort = new Hotel("Alpine Resort", "+4445556666", 4, "Denver", "Ski-in/ski-out luxury resort");
+
+        Catalog.addHotel(mountainLodge);
+        Catalog.addHotel(alpineResort);
+
+        // Los Angeles hotels
+        Hotel hollywoodStar = new Hotel("Hollywood Star", "+7778889999", 4, "Los Angeles", "Close to Hollywood attractions");
+        Hotel beverlyHillsHotel = new Hotel("Beverly Hills Hotel", "+3334445555", 5, "Los Angeles", "Exclusive luxury experience");
+        Hotel sunsetMotel = new Hotel("Sunset Motel", "+6667778888", 2, "Los Angeles", "Affordable option on Sunset Blvd");
+
+        Catalog.addHotel(hollywoodStar);
+        Catalog.addHotel(beverlyHillsHotel);
+        Catalog.addHotel(sunsetMotel);
+
+        // Chicago hotels
+        Hotel windyCityInn = new Hotel("Windy City Inn", "+8889990000", 3, "Chicago", "Comfortable downtown hotel");
+        Hotel lakesideHotel = new Hotel("Lakeside Hotel", "+1112223333", 4, "Chicago", "Beautiful views of Lake Michigan");
+
+        Catalog.addHotel(windyCityInn);
+        Catalog.addHotel(lakesideHotel);
+
+        // Boston hotels
+        Hotel historicInn = new Hotel("Historic Inn", "+4443332222", 4, "Boston", "Charming hotel in historic district");
+        Hotel universityLodge = new Hotel("University Lodge", "+7776665555", 3, "Boston", "Convenient for campus visits");
+
+        Catalog.addHotel(historicInn);
+        Catalog.addHotel(universityLodge);
+
+        // Add sample rooms
+        // New York hotel rooms
+        Catalog.addRoom(new Room(grandHotel, "Standard", 150, 5, "Comfortable room with queen bed"));
+        Catalog.addRoom(new Room(grandHotel, "Deluxe", 250, 3, "Spacious room with king bed and city view"));
+        Catalog.addRoom(new Room(grandHotel, "Suite", 400, 2, "Luxury suite with separate living area"));
+
+        Catalog.addRoom(new Room(comfortInn, "Standard", 80, 8, "Basic room with double bed"));
+        Catalog.addRoom(new Room(comfortInn, "Double", 120, 5, "Room with two double beds"));
+
+        Catalog.addRoom(new Room(plazaHotel, "Classic", 200, 10, "Elegant room with queen bed"));
+        Catalog.addRoom(new Room(plazaHotel, "Executive", 350, 5, "Luxury room with king bed and park view"));
+        Catalog.addRoom(new Room(plazaHotel, "Presidential Suite", 800, 1, "Opulent suite with butler service"));
+
+        Catalog.addRoom(new Room(broadwayMotel, "Basic", 60, 12, "Simple room with double bed"));
+        Catalog.addRoom(new Room(broadwayMotel, "Family", 90, 6, "Room with two queen beds"));
+
+        // Miami hotel rooms
+        Catalog.addRoom(new Room(beachResort, "Ocean View", 180, 8, "Room with balcony and ocean view"));
+        Catalog.addRoom(new Room(beachResort, "Pool View", 150, 10, "Room overlooking the pool area"));
+        Catalog.addRoom(new Room(beachResort, "Beach Suite", 300, 4, "Suite with direct beach access"));
+
+        Catalog.addRoom(new Room(oceanView, "Deluxe Ocean", 250, 15, "Deluxe room with panoramic ocean view"));
+        Catalog.addRoom(new Room(oceanView, "Premium Suite", 450, 5, "Premium suite with private balcony"));
+
+        Catalog.addRoom(new Room(palmSuites, "Standard", 100, 20, "Comfortable room for families"));
+        Catalog.addRoom(new Room(palmSuites, "Cabana", 150, 8, "Room with direct pool access"));
+
+        // Add rooms for other hotels
+        Catalog.addRoom(new Room(mountainLodge, "Mountain View", 120, 10, "Room with scenic mountain views"));
+        Catalog.addRoom(new Room(alpineResort, "Ski Suite", 220, 5, "Suite with ski-in/ski-out access"));
+        Catalog.addRoom(new Room(hollywoodStar, "Celebrity Suite", 300, 3, "Suite with Hollywood memorabilia"));
+        Catalog.addRoom(new Room(beverlyHillsHotel, "Luxury Room", 400, 8, "Opulent room with premium amenities"));
+        Catalog.addRoom(new Room(sunsetMotel, "Standard", 70, 15, "Basic clean room for budget travelers"));
+        Catalog.addRoom(new Room(windyCityInn, "City View", 110, 12, "Room with Chicago skyline view"));
+        Catalog.addRoom(new Room(lakesideHotel, "Lake View", 160, 8, "Room with beautiful lake views"));
+        Catalog.addRoom(new Room(historicInn, "Historic Suite", 180, 5, "Suite in the historic wing"));
+        Catalog.addRoom(new Room(universityLodge, "Scholar Room", 90, 20, "Comfortable room near campus"));
+    }
+}
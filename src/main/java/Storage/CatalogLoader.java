@@ -0,0 +1,608 @@
+package Storage;
+
+import Models.Hotel;
+import Models.Room;
+import Services.Catalog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streaming loader for large hotel and room catalogs stored as CSV or JSON Lines.
+ * Each file is memory-mapped in chunks that end on line boundaries, and the chunks
+ * are parsed in parallel by a fixed number of workers. At most two chunks per worker are
+ * parsed or waiting at a time: the loading thread adds each chunk's hotels or rooms to the
+ * catalog in one Catalog.addHotels or addRooms call, in file order, and only then hands the
+ * next chunk to the workers. Besides the catalog itself, memory use is therefore bounded by
+ * the number of workers times the chunk size no matter how big the file is, the workers
+ * never contend on the catalog locks, and the indexes are updated once per chunk rather
+ * than once per row.
+ *
+ * The format is chosen by file extension (.csv or .jsonl). Hotel rows have the
+ * columns/keys id, name, phone, stars, city, description; room rows have
+ * hotelId, type, price, available, description. Hotels are loaded before rooms,
+ * and rooms refer to their hotel by id. A CSV header line starting with "id" or
+ * "hotelId" is skipped; CSV fields may be quoted with double quotes.
+ */
+public class CatalogLoader {
+    /**
+     * Receives progress while a catalog is loading; called from worker threads
+     */
+    public interface ProgressListener {
+        /**
+         * Reports progress
+         * @param bytesRead Bytes of both files parsed so far
+         * @param totalBytes Total size of both files
+         * @param rows Rows loaded so far
+         */
+        void onProgress(long bytesRead, long totalBytes, long rows);
+    }
+
+    /**
+     * Summary of a finished load
+     */
+    public static class LoadResult {
+        /** Hotels loaded */
+        private final long hotels;
+
+        /** Rooms loaded */
+        private final long rooms;
+
+        /** Rows that could not be parsed or referred to an unknown hotel */
+        private final long skipped;
+
+        /** Time the load took */
+        private final long elapsedNanos;
+
+        /**
+         * Constructor to create a load summary
+         * @param hotels Hotels loaded
+         * @param rooms Rooms loaded
+         * @param skipped Rows skipped
+         * @param elapsedNanos Time the load took in nanoseconds
+         */
+        public LoadResult(long hotels, long rooms, long skipped, long elapsedNanos) {
+            this.hotels = hotels;
+            this.rooms = rooms;
+            this.skipped = skipped;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Gets the number of hotels loaded
+         * @return The hotel count
+         */
+        public long getHotels() {
+            return hotels;
+        }
+
+        /**
+         * Gets the number of rooms loaded
+         * @return The room count
+         */
+        public long getRooms() {
+            return rooms;
+        }
+
+        /**
+         * Gets the number of rows skipped
+         * @return The skipped row count
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * Gets the time the load took
+         * @return The elapsed time in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Gets the load throughput
+         * @return Rows loaded per second
+         */
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : (hotels + rooms) * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d hotels, %d rooms, %d skipped in %.2f s (%.0f rows/s)",
+                    hotels, rooms, skipped, elapsedNanos / 1e9, getRowsPerSecond());
+        }
+    }
+
+    /** Default size of a parsed chunk */
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    /** Rows between two progress reports of a worker */
+    private static final int PROGRESS_INTERVAL = 16 * 1024;
+
+    /** Number of parse errors printed before further ones are only counted */
+    private static final int MAX_REPORTED_ERRORS = 10;
+
+    /** Chunks parsed or waiting to be added per worker, so that a worker always has the next chunk */
+    private static final int CHUNKS_PER_WORKER = 2;
+
+    /** Number of chunks parsed at the same time */
+    private final int threads;
+
+    /** Size of a chunk before it is extended to the next line boundary */
+    private final int chunkSize;
+
+    /** Hotels loaded so far, keyed by their id in the catalog */
+    private final Map<Long, Hotel> hotelsById = new ConcurrentHashMap<>();
+
+    /** Rows loaded so far */
+    private final AtomicLong hotelRows = new AtomicLong();
+    private final AtomicLong roomRows = new AtomicLong();
+
+    /** Rows that could not be loaded */
+    private final AtomicLong skippedRows = new AtomicLong();
+
+    /** Bytes parsed so far */
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    /** Total size of the files being loaded */
+    private long totalBytes;
+
+    /** Receives progress, may be null */
+    private ProgressListener listener;
+
+    /**
+     * The rows parsed from one chunk, waiting to be added to the catalog
+     * @param hotels Hotels parsed, in file order
+     * @param rooms Rooms parsed, in file order
+     */
+    private record ParsedChunk(List<Hotel> hotels, List<Room> rooms) {
+    }
+
+    /**
+     * Constructor to create a loader with one worker per processor and the default chunk size
+     */
+    public CatalogLoader() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructor to create a loader
+     * @param threads Number of chunks parsed at the same time
+     * @param chunkSize Size of a chunk in bytes
+     */
+    public CatalogLoader(int threads, int chunkSize) {
+        this.threads = Math.max(1, threads);
+        this.chunkSize = Math.max(1024, chunkSize);
+    }
+
+    /**
+     * Loads a hotels file and then a rooms file into the catalog
+     * @param hotelsFile The hotels file (.csv or .jsonl)
+     * @param roomsFile The rooms file (.csv or .jsonl)
+     * @param listener Receives progress from worker threads, may be null
+     * @return A summary of the load
+     * @throws IOException if a file cannot be read
+     */
+    public LoadResult load(Path hotelsFile, Path roomsFile, ProgressListener listener) throws IOException {
+        long start = System.nanoTime();
+        this.listener = listener;
+        this.totalBytes = Files.size(hotelsFile) + Files.size(roomsFile);
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "catalog-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            // Rooms refer to hotels by id, so every hotel must be loaded first
+            loadFile(hotelsFile, true, workers);
+            loadFile(roomsFile, false, workers);
+        } finally {
+            workers.shutdownNow();
+        }
+
+        report();
+        return new LoadResult(hotelRows.get(), roomRows.get(), skippedRows.get(), System.nanoTime() - start);
+    }
+
+    /**
+     * Splits a file into line-aligned chunks, parses them in parallel and adds them to the
+     * catalog in file order, with a bounded number of chunks in flight
+     * @param file The file to load
+     * @param hotels true for a hotels file, false for a rooms file
+     * @param workers The workers that parse the chunks
+     * @throws IOException if the file cannot be read
+     */
+    private void loadFile(Path file, boolean hotels, ExecutorService workers) throws IOException {
+        boolean json = file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".jsonl");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<long[]> ranges = splitAtLines(channel);
+            ArrayDeque<Future<ParsedChunk>> inFlight = new ArrayDeque<>();
+            int next = 0;
+
+            while (next < ranges.size() || !inFlight.isEmpty()) {
+                // Keep every worker busy without parsing ahead of the catalog by more than the window
+                while (next < ranges.size() && inFlight.size() < threads * CHUNKS_PER_WORKER) {
+                    long[] range = ranges.get(next++);
+                    inFlight.add(workers.submit(() -> parseChunk(channel, range[0], range[1], hotels, json)));
+                }
+
+                // Add the oldest chunk, so rows reach the catalog in file order; the first failure aborts the load
+                ParsedChunk parsed;
+                try {
+                    parsed = inFlight.remove().get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Catalog load interrupted", e);
+                } catch (ExecutionException e) {
+                    throw new IOException("Error loading " + file + ": " + e.getCause().getMessage(), e.getCause());
+                }
+                Catalog.addHotels(parsed.hotels());
+                Catalog.addRooms(parsed.rooms());
+            }
+        }
+    }
+
+    /**
+     * Computes chunk ranges of roughly chunkSize bytes that each end after a newline
+     * @param channel The open file
+     * @return Ranges as {start, end} byte offsets
+     * @throws IOException if the file cannot be read
+     */
+    private List<long[]> splitAtLines(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<long[]> chunks = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + chunkSize);
+
+            // Extend the chunk to just past the next newline
+            while (end < size) {
+                probe.clear();
+                int read = channel.read(probe, end);
+                if (read <= 0) {
+                    end = size;
+                    break;
+                }
+                int newline = -1;
+                for (int i = 0; i < read; i++) {
+                    if (probe.get(i) == '\n') {
+                        newline = i;
+                        break;
+                    }
+                }
+                if (newline >= 0) {
+                    end += newline + 1;
+                    break;
+                }
+                end += read;
+            }
+
+            chunks.add(new long[]{start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * Parses one chunk of a file line by line
+     * @param channel The open file
+     * @param start The first byte of the chunk
+     * @param end The byte after the chunk
+     * @param hotels true for a hotels file, false for a rooms file
+     * @param json true for JSON Lines, false for CSV
+     * @return The hotels or rooms parsed from the chunk
+     * @throws IOException if the chunk cannot be mapped
+     */
+    private ParsedChunk parseChunk(FileChannel channel, long start, long end, boolean hotels, boolean json) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        byte[] line = new byte[256];
+        List<String> fields = new ArrayList<>();
+        Map<String, String> values = new HashMap<>();
+        List<Hotel> parsedHotels = new ArrayList<>();
+        List<Room> parsedRooms = new ArrayList<>();
+        long reported = 0;
+        int rows = 0;
+
+        while (buffer.hasRemaining()) {
+            // Copy the next line into the reusable line buffer
+            int length = 0;
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                if (b == '\n') {
+                    break;
+                }
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, line.length * 2);
+                }
+                line[length++] = b;
+            }
+            if (length > 0 && line[length - 1] == '\r') {
+                length--;
+            }
+            if (length == 0) {
+                continue;
+            }
+
+            String text = new String(line, 0, length, StandardCharsets.UTF_8);
+            try {
+                if (json) {
+                    parseJsonLine(text, values);
+                    fields.clear();
+                    if (hotels) {
+                        addValues(fields, values, "id", "name", "phone", "stars", "city", "description");
+                    } else {
+                        addValues(fields, values, "hotelId", "type", "price", "available", "description");
+                    }
+                } else {
+                    parseCsvLine(text, fields);
+                    if (fields.get(0).equals("id") || fields.get(0).equals("hotelId")) {
+                        continue;
+                    }
+                }
+
+                if (hotels) {
+                    parsedHotels.add(parseHotel(fields));
+                } else {
+                    parsedRooms.add(parseRoom(fields));
+                }
+            } catch (RuntimeException e) {
+                skip(text, e.getMessage());
+            }
+
+            // Report progress now and then
+            if (++rows % PROGRESS_INTERVAL == 0) {
+                long position = buffer.position();
+                bytesRead.addAndGet(position - reported);
+                reported = position;
+                report();
+            }
+        }
+
+        bytesRead.addAndGet(buffer.capacity() - reported);
+        report();
+        return new ParsedChunk(parsedHotels, parsedRooms);
+    }
+
+    /**
+     * Creates a hotel from parsed fields
+     * @param fields id, name, phone, stars, city, description
+     * @return The hotel, not yet in the catalog
+     */
+    private Hotel parseHotel(List<String> fields) {
+        long id = Long.parseLong(fields.get(0).trim());
+        Hotel hotel = new Hotel(fields.get(1), fields.get(2), Integer.parseInt(fields.get(3).trim()),
+                fields.get(4), fields.get(5));
+        if (hotelsById.putIfAbsent(id, hotel) != null) {
+            throw new IllegalArgumentException("duplicate hotel id " + id);
+        }
+        hotelRows.incrementAndGet();
+        return hotel;
+    }
+
+    /**
+     * Creates a room from parsed fields
+     * @param fields hotelId, type, price, available, description
+     * @return The room, not yet in the catalog
+     */
+    private Room parseRoom(List<String> fields) {
+        long hotelId = Long.parseLong(fields.get(0).trim());
+        Hotel hotel = hotelsById.get(hotelId);
+        if (hotel == null) {
+            throw new IllegalArgumentException("unknown hotel id " + hotelId);
+        }
+        Room room = new Room(hotel, fields.get(1), Integer.parseInt(fields.get(2).trim()),
+                Integer.parseInt(fields.get(3).trim()), fields.get(4));
+        roomRows.incrementAndGet();
+        return room;
+    }
+
+    /**
+     * Counts a row that could not be loaded, printing the first few
+     * @param line The row
+     * @param reason Why it was skipped
+     */
+    private void skip(String line, String reason) {
+        if (skippedRows.incrementAndGet() <= MAX_REPORTED_ERRORS) {
+            System.err.println("Skipping catalog row (" + reason + "): " + line);
+        }
+    }
+
+    /**
+     * Sends the current progress to the listener
+     */
+    private void report() {
+        if (listener != null) {
+            listener.onProgress(Math.min(bytesRead.get(), totalBytes), totalBytes, hotelRows.get() + roomRows.get());
+        }
+    }
+
+    /**
+     * Copies values of a parsed JSON object into a field list in column order
+     * @param fields The field list to fill
+     * @param values The parsed JSON values
+     * @param keys The keys in column order
+     */
+    private static void addValues(List<String> fields, Map<String, String> values, String... keys) {
+        for (String key : keys) {
+            String value = values.get(key);
+            if (value == null) {
+                throw new IllegalArgumentException("missing \"" + key + "\"");
+            }
+            fields.add(value);
+        }
+    }
+
+    /**
+     * Splits a CSV line into fields; fields may be quoted, with "" for a quote inside
+     * @param line The line to split
+     * @param fields The list to fill with the fields
+     */
+    static void parseCsvLine(String line, List<String> fields) {
+        fields.clear();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+    }
+
+    /**
+     * Parses a flat JSON object (string, number, boolean and null values) into a map
+     * @param line The JSON object on one line
+     * @param values The map to fill; numbers and booleans are kept as their text
+     */
+    static void parseJsonLine(String line, Map<String, String> values) {
+        values.clear();
+        int[] position = {skipSpaces(line, 0)};
+        expect(line, position, '{');
+
+        position[0] = skipSpaces(line, position[0]);
+        if (position[0] < line.length() && line.charAt(position[0]) == '}') {
+            return;
+        }
+
+        while (true) {
+            position[0] = skipSpaces(line, position[0]);
+            String key = readJsonString(line, position);
+            position[0] = skipSpaces(line, position[0]);
+            expect(line, position, ':');
+            position[0] = skipSpaces(line, position[0]);
+
+            String value;
+            if (position[0] < line.length() && line.charAt(position[0]) == '"') {
+                value = readJsonString(line, position);
+            } else {
+                // Number, boolean or null: read up to the next separator
+                int start = position[0];
+                while (position[0] < line.length() && ",} \t".indexOf(line.charAt(position[0])) < 0) {
+                    position[0]++;
+                }
+                value = line.substring(start, position[0]);
+                if (value.equals("null")) {
+                    value = null;
+                }
+            }
+            if (value != null) {
+                values.put(key, value);
+            }
+
+            position[0] = skipSpaces(line, position[0]);
+            if (position[0] < line.length() && line.charAt(position[0]) == ',') {
+                position[0]++;
+            } else {
+                expect(line, position, '}');
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads a JSON string starting at the current position
+     * @param line The JSON text
+     * @param position The current position, advanced past the string
+     * @return The unescaped string
+     */
+    private static String readJsonString(String line, int[] position) {
+        expect(line, position, '"');
+        StringBuilder value = new StringBuilder();
+
+        while (position[0] < line.length()) {
+            char c = line.charAt(position[0]++);
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (position[0] >= line.length()) {
+                break;
+            }
+
+            char escaped = line.charAt(position[0]++);
+            switch (escaped) {
+                case 'n' -> value.append('\n');
+                case 't' -> value.append('\t');
+                case 'r' -> value.append('\r');
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case 'u' -> {
+                    value.append((char) Integer.parseInt(line.substring(position[0], position[0] + 4), 16));
+                    position[0] += 4;
+                }
+                default -> value.append(escaped);
+            }
+        }
+        throw new IllegalArgumentException("unterminated string");
+    }
+
+    /**
+     * Consumes an expected character
+     * @param line The JSON text
+     * @param position The current position, advanced past the character
+     * @param expected The character that must come next
+     */
+    private static void expect(String line, int[] position, char expected) {
+        if (position[0] >= line.length() || line.charAt(position[0]) != expected) {
+            throw new IllegalArgumentException("expected '" + expected + "' at " + position[0]);
+        }
+        position[0]++;
+    }
+
+    /**
+     * Skips whitespace
+     * @param line The text
+     * @param position The position to start from
+     * @return The position of the next non-whitespace character
+     */
+    private static int skipSpaces(String line, int position) {
+        while (position < line.length() && Character.isWhitespace(line.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+}
@@ -0,0 +1,386 @@
+package Storage;
+
+import Models.Hotel;
+import Models.Room;
+import Services.Catalog;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary snapshot of the hotel and room catalog for fast startup.
+ *
+ * Layout (big-endian):
+ * header: magic, version, string count, hotel count, room count, source count (ints);
+ * sources: per text file the snapshot was built from, an int byte length and the UTF-8
+ * bytes of its absolute path, then its size and last-modified time in milliseconds (longs);
+ * string table: per string an int byte length followed by its UTF-8 bytes;
+ * hotels: per hotel a short record length, then name, phone, stars, city and description
+ * as ints (strings are indexes into the string table);
+ * rooms: per room a short record length, then hotel index, type, price, capacity and
+ * description as ints;
+ * trailer: CRC32C of everything before it, as a long.
+ *
+ * Repeated values such as city names and room types are stored once in the string table.
+ * Records carry their length so that later versions can append fields that older readers skip.
+ * The snapshot is written once to a temporary file and moved into place, and loaded by
+ * memory-mapping the whole file, so a catalog whose snapshot would not fit in one mapping
+ * (2 GB) is refused when writing. The recorded sources let the caller tell whether the
+ * text catalog changed since the snapshot was written.
+ */
+public class CatalogSnapshot {
+    /** Identifies a snapshot file ("BKSN") */
+    private static final int MAGIC = 0x424B534E;
+
+    /** Format version written by this class */
+    private static final int VERSION = 2;
+
+    /** Payload size of a hotel record */
+    private static final int HOTEL_RECORD_SIZE = 5 * Integer.BYTES;
+
+    /** Payload size of a room record */
+    private static final int ROOM_RECORD_SIZE = 5 * Integer.BYTES;
+
+    /** Size of the fixed part of the header */
+    private static final int HEADER_SIZE = 6 * Integer.BYTES;
+
+    /** Largest snapshot that can be memory-mapped as one buffer */
+    private static final long MAX_SIZE = Integer.MAX_VALUE;
+
+    /**
+     * A text catalog file a snapshot was built from, as it was when the snapshot was written
+     * @param path The absolute path of the file
+     * @param size The size of the file in bytes
+     * @param modifiedMillis The last-modified time of the file in milliseconds
+     */
+    public record Source(String path, long size, long modifiedMillis) {
+        /**
+         * Describes a file as it is now
+         * @param file The file
+         * @return The file's absolute path, size and last-modified time
+         * @throws IOException if the file cannot be read
+         */
+        public static Source of(Path file) throws IOException {
+            return new Source(file.toAbsolutePath().normalize().toString(), Files.size(file),
+                    Files.getLastModifiedTime(file).toMillis());
+        }
+    }
+
+    /**
+     * Writes the current catalog to a snapshot file
+     * @param file The snapshot file to create or replace
+     * @param sources The text catalog files the catalog was loaded from
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path file, List<Source> sources) throws IOException {
+        write(file, Catalog.getAllHotels(), Catalog.getAllRooms(), sources);
+    }
+
+    /**
+     * Writes hotels and rooms to a snapshot file that records no sources
+     * @param file The snapshot file to create or replace
+     * @param hotels The hotels to write
+     * @param rooms The rooms to write; their hotels must be among the hotels
+     * @throws IOException if the file cannot be written or a room's hotel is missing
+     */
+    public static void write(Path file, List<Hotel> hotels, List<Room> rooms) throws IOException {
+        write(file, hotels, rooms, List.of());
+    }
+
+    /**
+     * Writes hotels and rooms to a snapshot file
+     * @param file The snapshot file to create or replace
+     * @param hotels The hotels to write
+     * @param rooms The rooms to write; their hotels must be among the hotels
+     * @param sources The text catalog files the hotels and rooms were loaded from
+     * @throws IOException if the file cannot be written, a room's hotel is missing or the
+     *                     snapshot would be too large to load
+     */
+    public static void write(Path file, List<Hotel> hotels, List<Room> rooms, List<Source> sources) throws IOException {
+        // Build the string table and hotel indexes
+        Map<String, Integer> stringIndexes = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        Map<Hotel, Integer> hotelIndexes = new IdentityHashMap<>();
+        for (Hotel hotel : hotels) {
+            hotelIndexes.put(hotel, hotelIndexes.size());
+            intern(hotel.getName(), stringIndexes, strings);
+            intern(hotel.getPhoneNumber(), stringIndexes, strings);
+            intern(hotel.getCity(), stringIndexes, strings);
+            intern(hotel.getDescription(), stringIndexes, strings);
+        }
+        for (Room room : rooms) {
+            intern(room.getType(), stringIndexes, strings);
+            intern(room.getDescription(), stringIndexes, strings);
+        }
+
+        // Encode the paths and strings up front so the size is known before anything is written
+        List<byte[]> sourcePaths = new ArrayList<>(sources.size());
+        long size = HEADER_SIZE + Long.BYTES
+                + (long) hotels.size() * (Short.BYTES + HOTEL_RECORD_SIZE)
+                + (long) rooms.size() * (Short.BYTES + ROOM_RECORD_SIZE);
+        for (Source source : sources) {
+            byte[] bytes = source.path().getBytes(StandardCharsets.UTF_8);
+            sourcePaths.add(bytes);
+            size += Integer.BYTES + bytes.length + 2 * Long.BYTES;
+        }
+        List<byte[]> encoded = new ArrayList<>(strings.size());
+        for (String string : strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            encoded.add(bytes);
+            size += Integer.BYTES + bytes.length;
+        }
+        if (size > MAX_SIZE) {
+            throw new IOException("Catalog too large for a snapshot: " + size + " bytes");
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        CRC32C checksum = new CRC32C();
+        try (OutputStream fileOut = Files.newOutputStream(temp);
+             CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(fileOut, 1 << 16), checksum);
+             DataOutputStream out = new DataOutputStream(checked)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(strings.size());
+            out.writeInt(hotels.size());
+            out.writeInt(rooms.size());
+            out.writeInt(sources.size());
+
+            for (int i = 0; i < sources.size(); i++) {
+                byte[] bytes = sourcePaths.get(i);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+                out.writeLong(sources.get(i).size());
+                out.writeLong(sources.get(i).modifiedMillis());
+            }
+
+            for (byte[] bytes : encoded) {
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            for (Hotel hotel : hotels) {
+                out.writeShort(HOTEL_RECORD_SIZE);
+                out.writeInt(indexOf(hotel.getName(), stringIndexes));
+                out.writeInt(indexOf(hotel.getPhoneNumber(), stringIndexes));
+                out.writeInt(hotel.getStars());
+                out.writeInt(indexOf(hotel.getCity(), stringIndexes));
+                out.writeInt(indexOf(hotel.getDescription(), stringIndexes));
+            }
+
+            for (Room room : rooms) {
+                Integer hotelIndex = hotelIndexes.get(room.getHotel());
+                if (hotelIndex == null) {
+                    throw new IOException("Room " + room.getType() + " belongs to a hotel outside the snapshot");
+                }
+                out.writeShort(ROOM_RECORD_SIZE);
+                out.writeInt(hotelIndex);
+                out.writeInt(indexOf(room.getType(), stringIndexes));
+                out.writeInt(room.getPrice());
+                out.writeInt(room.getCapacity());
+                out.writeInt(indexOf(room.getDescription(), stringIndexes));
+            }
+
+            // The checksum covers everything written so far
+            out.flush();
+            new DataOutputStream(fileOut).writeLong(checksum.getValue());
+        }
+
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads a snapshot file into the catalog
+     * @param file The snapshot file
+     * @param listener Receives progress, may be null
+     * @return A summary of the load
+     * @throws IOException if the file cannot be read, is not a snapshot or is corrupted
+     */
+    public static CatalogLoader.LoadResult load(Path file, CatalogLoader.ProgressListener listener) throws IOException {
+        long start = System.nanoTime();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + Long.BYTES) {
+                throw new IOException("Not a catalog snapshot: " + file);
+            }
+            if (size > MAX_SIZE) {
+                throw new IOException("Catalog snapshot too large to map: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            // Verify the checksum before trusting any of the content
+            int contentSize = (int) size - Long.BYTES;
+            CRC32C checksum = new CRC32C();
+            checksum.update(buffer.slice(0, contentSize));
+            if (checksum.getValue() != buffer.getLong(contentSize)) {
+                throw new IOException("Catalog snapshot is corrupted: " + file);
+            }
+
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Unsupported catalog snapshot: " + file);
+            }
+            int stringCount = buffer.getInt();
+            int hotelCount = buffer.getInt();
+            int roomCount = buffer.getInt();
+            long totalRows = (long) hotelCount + roomCount;
+            readSources(buffer, buffer.getInt());
+
+            // Decode every distinct string once
+            String[] strings = new String[stringCount];
+            byte[] bytes = new byte[256];
+            for (int i = 0; i < stringCount; i++) {
+                int length = buffer.getInt();
+                if (length > bytes.length) {
+                    bytes = new byte[Math.max(length, bytes.length * 2)];
+                }
+                buffer.get(bytes, 0, length);
+                strings[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            }
+
+            Hotel[] hotels = new Hotel[hotelCount];
+            for (int i = 0; i < hotelCount; i++) {
+                int next = nextRecord(buffer, HOTEL_RECORD_SIZE);
+                hotels[i] = new Hotel(strings[buffer.getInt()], strings[buffer.getInt()], buffer.getInt(),
+                        strings[buffer.getInt()], strings[buffer.getInt()]);
+                buffer.position(next);
+            }
+            report(listener, buffer, size, hotelCount);
+
+            List<Room> rooms = new ArrayList<>(roomCount);
+            for (int i = 0; i < roomCount; i++) {
+                int next = nextRecord(buffer, ROOM_RECORD_SIZE);
+                Room room = new Room(hotels[buffer.getInt()], strings[buffer.getInt()], buffer.getInt(),
+                        buffer.getInt(), strings[buffer.getInt()]);
+                buffer.position(next);
+                rooms.add(room);
+
+                if ((i & 0xFFFF) == 0) {
+                    report(listener, buffer, size, hotelCount + i);
+                }
+            }
+
+            // Nothing is added unless the whole snapshot decoded
+            Catalog.addHotels(Arrays.asList(hotels));
+            Catalog.addRooms(rooms);
+            report(listener, buffer, size, totalRows);
+
+            return new CatalogLoader.LoadResult(hotelCount, roomCount, 0, System.nanoTime() - start);
+        } catch (IndexOutOfBoundsException | BufferUnderflowException | IllegalArgumentException
+                 | NegativeArraySizeException e) {
+            throw new IOException("Catalog snapshot is malformed: " + file, e);
+        }
+    }
+
+    /**
+     * Reads the text catalog files a snapshot was built from, without loading the snapshot
+     * @param file The snapshot file
+     * @return The recorded sources, empty if the snapshot was written without any
+     * @throws IOException if the file cannot be read or is not a snapshot of this version
+     */
+    public static List<Source> readSources(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + Long.BYTES) {
+                throw new IOException("Not a catalog snapshot: " + file);
+            }
+            if (size > MAX_SIZE) {
+                throw new IOException("Catalog snapshot too large to map: " + file);
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size - Long.BYTES);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Unsupported catalog snapshot: " + file);
+            }
+            buffer.position(HEADER_SIZE - Integer.BYTES);
+            return readSources(buffer, buffer.getInt());
+        } catch (IndexOutOfBoundsException | BufferUnderflowException | IllegalArgumentException
+                 | NegativeArraySizeException e) {
+            throw new IOException("Catalog snapshot is malformed: " + file, e);
+        }
+    }
+
+    /**
+     * Reads the sources section of a snapshot
+     * @param buffer The snapshot, positioned after the fixed header
+     * @param count The number of sources
+     * @return The sources, with the buffer positioned after them
+     */
+    private static List<Source> readSources(ByteBuffer buffer, int count) {
+        List<Source> sources = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] path = new byte[buffer.getInt()];
+            buffer.get(path);
+            sources.add(new Source(new String(path, StandardCharsets.UTF_8), buffer.getLong(), buffer.getLong()));
+        }
+        return sources;
+    }
+
+    /**
+     * Reads a record length and checks that the record holds the fields this version reads
+     * @param buffer The snapshot, positioned at a record
+     * @param payloadSize The number of bytes this version reads from the record
+     * @return The position of the following record
+     * @throws IOException if the record is too short
+     */
+    private static int nextRecord(ByteBuffer buffer, int payloadSize) throws IOException {
+        int length = buffer.getShort() & 0xFFFF;
+        if (length < payloadSize) {
+            throw new IOException("Catalog snapshot record too short: " + length + " bytes");
+        }
+        return buffer.position() + length;
+    }
+
+    /**
+     * Adds a string to the string table if it is not there yet
+     * @param string The string, null is stored as an empty string
+     * @param indexes Index of each string in the table
+     * @param strings The string table
+     */
+    private static void intern(String string, Map<String, Integer> indexes, List<String> strings) {
+        indexes.computeIfAbsent(string == null ? "" : string, key -> {
+            strings.add(key);
+            return strings.size() - 1;
+        });
+    }
+
+    /**
+     * Gets the index of a string in the string table
+     * @param string The string, null meaning an empty string
+     * @param indexes Index of each string in the table
+     * @return The index
+     */
+    private static int indexOf(String string, Map<String, Integer> indexes) {
+        return indexes.get(string == null ? "" : string);
+    }
+
+    /**
+     * Sends progress to a listener
+     * @param listener The listener, may be null
+     * @param buffer The snapshot being read
+     * @param size The snapshot size
+     * @param rows Rows loaded so far
+     */
+    private static void report(CatalogLoader.ProgressListener listener, ByteBuffer buffer, long size, long rows) {
+        if (listener != null) {
+            listener.onProgress(buffer.position(), size, rows);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package Util;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free generator of unique, time-ordered ids for bookings (Snowflake-style).
+ *
+ * An id is a positive 63-bit number made of, from the most significant bit:
+ * 41 bits of milliseconds since 2024-01-01 UTC (enough until 2093),
+ * 10 bits of node id, so that several application instances never collide,
+ * 12 bits of sequence within the millisecond.
+ *
+ * The timestamp and sequence are kept together in one AtomicLong and advanced with
+ * compare-and-set, so any number of threads can draw ids without locking. Ids only
+ * ever increase: if more than 4096 ids are drawn within one millisecond, or the clock
+ * steps backwards, the generator keeps counting from its last value instead of reusing
+ * one, and catches up with the clock later.
+ *
+ * As text, ids are written as 13 Crockford base32 characters, so that sorting the text
+ * sorts the ids by time. The node id is read from the booking.node.id system property
+ * (default 0).
+ */
+public class IdGenerator {
+    /** The shared generator, created on first use */
+    private static volatile IdGenerator instance;
+
+    /** Start of the timestamp field: 2024-01-01T00:00:00Z */
+    public static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    /** Number of bits of the sequence field */
+    private static final int SEQUENCE_BITS = 12;
+
+    /** Number of bits of the node id field */
+    private static final int NODE_BITS = 10;
+
+    /** Largest node id */
+    public static final int MAX_NODE = (1 << NODE_BITS) - 1;
+
+    /** Mask of the sequence field */
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    /** Crockford base32 digits: no I, L, O or U, so ids cannot be misread */
+    private static final char[] DIGITS = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    /** Length of an id as text */
+    public static final int TEXT_LENGTH = 13;
+
+    /** Node id placed in every id */
+    private final int node;
+
+    /** Last timestamp (milliseconds since the epoch) and sequence handed out, as timestamp << 12 | sequence */
+    private final AtomicLong last = new AtomicLong();
+
+    /**
+     * Constructor to create a generator
+     * @param node Node id of this application instance, between 0 and MAX_NODE
+     */
+    public IdGenerator(int node) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE + ": " + node);
+        }
+        this.node = node;
+    }
+
+    /**
+     * Gets the shared generator, configured from the booking.node.id system property
+     * @return The application-wide generator
+     */
+    public static IdGenerator getInstance() {
+        IdGenerator generator = instance;
+        if (generator == null) {
+            synchronized (IdGenerator.class) {
+                generator = instance;
+                if (generator == null) {
+                    generator = new IdGenerator(Integer.getInteger("booking.node.id", 0));
+                    instance = generator;
+                }
+            }
+        }
+        return generator;
+    }
+
+    /**
+     * Draws the next id
+     * @return A unique id, greater than every id drawn before from this generator
+     */
+    public long nextId() {
+        long now = System.currentTimeMillis() - EPOCH_MILLIS;
+        long next;
+        while (true) {
+            long previous = last.get();
+            // A new millisecond starts a new sequence; otherwise count on, overflowing into the next millisecond
+            next = now > (previous >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : previous + 1;
+            if (last.compareAndSet(previous, next)) {
+                break;
+            }
+        }
+
+        long timestamp = next >>> SEQUENCE_BITS;
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | ((long) node << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+    }
+
+    /**
+     * Draws the next id as text
+     * @return A unique id as 13 Crockford base32 characters
+     */
+    public String nextIdText() {
+        return toText(nextId());
+    }
+
+    /**
+     * Writes an id as text
+     * @param id The id
+     * @return The id as 13 Crockford base32 characters
+     */
+    public static String toText(long id) {
+        char[] text = new char[TEXT_LENGTH];
+        for (int i = TEXT_LENGTH - 1; i >= 0; i--) {
+            text[i] = DIGITS[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(text);
+    }
+
+    /**
+     * Gets the time an id was drawn at
+     * @param id The id
+     * @return The time encoded in the id
+     */
+    public static Instant getTimestamp(long id) {
+        return Instant.ofEpochMilli((id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS);
+    }
+
+    /**
+     * Gets the node id of this generator
+     * @return The node id
+     */
+    public int getNode() {
+        return node;
+    }
+}
@@ -0,0 +1,287 @@
+package Util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel for large numbers of timeouts, such as cart holds.
+ *
+ * Time is divided into ticks, and the wheel is a ring of buckets, one per tick. A timeout
+ * is placed in the bucket of the tick it expires in, together with the number of full
+ * turns of the wheel still to wait. Scheduling and cancelling are O(1), and each tick
+ * only looks at one bucket, so thousands of expiries per second cost a single thread.
+ *
+ * Timeouts are intrusive: the objects being timed extend Timeout and carry their own
+ * links, so scheduling allocates nothing. Expired timeouts are handed to the expiry
+ * handler on the wheel's thread, outside the wheel's lock; handlers should be short.
+ * Timeouts fire at most one tick late.
+ *
+ * @param <T> The type of the timed objects
+ */
+public class TimingWheel<T extends TimingWheel.Timeout> {
+    /**
+     * Base class of objects that can be scheduled on a timing wheel.
+     * All fields are guarded by the lock of the wheel the timeout is scheduled on.
+     */
+    public abstract static class Timeout {
+        /** Previous timeout in the same bucket */
+        private Timeout previous;
+
+        /** Next timeout in the same bucket */
+        private Timeout next;
+
+        /** Bucket the timeout is in, or -1 if it is not scheduled */
+        private int bucket = -1;
+
+        /** Full turns of the wheel left before the timeout expires */
+        private long rounds;
+    }
+
+    /** Length of a tick in nanoseconds */
+    private final long tickNanos;
+
+    /** Buckets, each the head of a doubly linked list of timeouts */
+    private final Timeout[] buckets;
+
+    /** Mask to turn a tick number into a bucket index */
+    private final int mask;
+
+    /** Called with each expired timeout */
+    private final Consumer<T> expiryHandler;
+
+    /** Guards the buckets and the links of every scheduled timeout */
+    private final Object lock = new Object();
+
+    /** The thread advancing the wheel */
+    private final Thread thread;
+
+    /** When the wheel started, as System.nanoTime */
+    private final long startNanos;
+
+    /** Number of the last tick processed */
+    private long tick;
+
+    /** Number of scheduled timeouts */
+    private int pending;
+
+    /** Timeouts that expired so far */
+    private long expired;
+
+    /** Cleared to stop the wheel's thread */
+    private volatile boolean running = true;
+
+    /**
+     * Constructor to create a wheel and start its thread
+     * @param name Name of the wheel's thread
+     * @param tickDuration Length of a tick
+     * @param unit Unit of the tick length
+     * @param wheelSize Number of buckets, rounded up to a power of two
+     * @param expiryHandler Called with each expired timeout, on the wheel's thread
+     */
+    public TimingWheel(String name, long tickDuration, TimeUnit unit, int wheelSize, Consumer<T> expiryHandler) {
+        this.tickNanos = Math.max(1, unit.toNanos(tickDuration));
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.buckets = new Timeout[size];
+        this.mask = size - 1;
+        this.expiryHandler = expiryHandler;
+        this.startNanos = System.nanoTime();
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Schedules a timeout, or reschedules it if it is already scheduled
+     * @param timed The timeout
+     * @param delay Time until it expires
+     * @param unit Unit of the delay
+     */
+    public void schedule(T timed, long delay, TimeUnit unit) {
+        Timeout timeout = timed;
+        synchronized (lock) {
+            if (timeout.bucket >= 0) {
+                unlink(timeout);
+            }
+
+            // Expire in the first tick that ends at or after the deadline, so that a timeout never fires early
+            long deadline = System.nanoTime() - startNanos + unit.toNanos(delay);
+            long target = Math.max(tick + 1, (deadline + tickNanos - 1) / tickNanos);
+
+            // Visits of the target bucket before the target tick are full turns to wait
+            timeout.rounds = (target - tick - 1) / buckets.length;
+            link(timeout, (int) (target & mask));
+        }
+    }
+
+    /**
+     * Moves the expiry of a scheduled timeout
+     * @param timed The timeout
+     * @param delay New time until it expires
+     * @param unit Unit of the delay
+     * @return true if rescheduled, false if it had already expired or was cancelled
+     */
+    public boolean reschedule(T timed, long delay, TimeUnit unit) {
+        Timeout timeout = timed;
+        synchronized (lock) {
+            if (timeout.bucket < 0) {
+                return false;
+            }
+            schedule(timed, delay, unit);
+            return true;
+        }
+    }
+
+    /**
+     * Cancels a timeout
+     * @param timed The timeout
+     * @return true if cancelled, false if it had already expired or was not scheduled
+     */
+    public boolean cancel(T timed) {
+        Timeout timeout = timed;
+        synchronized (lock) {
+            if (timeout.bucket < 0) {
+                return false;
+            }
+            unlink(timeout);
+            return true;
+        }
+    }
+
+    /**
+     * Checks whether a timeout is scheduled
+     * @param timed The timeout
+     * @return true if it is waiting to expire
+     */
+    public boolean isScheduled(T timed) {
+        Timeout timeout = timed;
+        synchronized (lock) {
+            return timeout.bucket >= 0;
+        }
+    }
+
+    /**
+     * Adds a timeout at the head of a bucket
+     * @param timeout The timeout
+     * @param bucket The bucket index
+     */
+    private void link(Timeout timeout, int bucket) {
+        Timeout head = buckets[bucket];
+        timeout.previous = null;
+        timeout.next = head;
+        if (head != null) {
+            head.previous = timeout;
+        }
+        buckets[bucket] = timeout;
+        timeout.bucket = bucket;
+        pending++;
+    }
+
+    /**
+     * Removes a timeout from its bucket
+     * @param timeout The timeout
+     */
+    private void unlink(Timeout timeout) {
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            buckets[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+        timeout.previous = null;
+        timeout.next = null;
+        timeout.bucket = -1;
+        pending--;
+    }
+
+    /**
+     * Body of the wheel's thread: processes every tick as its time comes
+     */
+    private void run() {
+        List<T> due = new ArrayList<>();
+        while (running) {
+            long nextTickNanos;
+            synchronized (lock) {
+                nextTickNanos = startNanos + (tick + 1) * tickNanos;
+            }
+            long sleepNanos = nextTickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    continue;
+                }
+            }
+
+            // Process every tick that has passed, in case the thread fell behind
+            long now = (System.nanoTime() - startNanos) / tickNanos;
+            synchronized (lock) {
+                while (tick < now) {
+                    tick++;
+                    collect((int) (tick & mask), due);
+                }
+                expired += due.size();
+            }
+
+            for (T timeout : due) {
+                try {
+                    expiryHandler.accept(timeout);
+                } catch (RuntimeException e) {
+                    System.err.println("Error handling timeout: " + e.getMessage());
+                }
+            }
+            due.clear();
+        }
+    }
+
+    /**
+     * Takes the timeouts of a bucket that expire in this turn of the wheel
+     * @param bucket The bucket index
+     * @param due Receives the expired timeouts
+     */
+    @SuppressWarnings("unchecked")
+    private void collect(int bucket, List<T> due) {
+        Timeout timeout = buckets[bucket];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.rounds <= 0) {
+                unlink(timeout);
+                due.add((T) timeout);
+            } else {
+                timeout.rounds--;
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * Stops the wheel's thread; scheduled timeouts no longer expire
+     */
+    public void shutdown() {
+        running = false;
+        thread.interrupt();
+    }
+
+    /**
+     * Gets the number of scheduled timeouts
+     * @return The number of pending timeouts
+     */
+    public int getPending() {
+        synchronized (lock) {
+            return pending;
+        }
+    }
+
+    /**
+     * Gets the number of timeouts that expired so far
+     * @return The expiry count
+     */
+    public long getExpired() {
+        synchronized (lock) {
+            return expired;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 module com.example.final_oop {
     requires javafx.controls;
     requires javafx.fxml;
+    requires jdk.httpserver;
+    requires java.management;
 
     opens com.example.final_oop to javafx.fxml;
     exports com.example.final_oop;
@@ -8,4 +10,6 @@ module com.example.final_oop {
     exports Models;
     opens App to javafx.fxml;
     exports App;
+    exports Metrics;
+    exports Util;
 }
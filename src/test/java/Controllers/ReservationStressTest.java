@@ -0,0 +1,101 @@
+package Controllers;
+
+import Models.Hotel;
+import Models.Room;
+import Services.Catalog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Stress test for concurrent reservations.
+ * Hammers a single catalog Room from 64 threads through RoomBookingController.addToCart
+ * for a stay, and checks that exactly the initial availability was sold and that clearing
+ * the cart gives all of it back.
+ */
+class ReservationStressTest {
+    /** Number of threads competing for the room */
+    private static final int THREADS = 64;
+
+    /** Units of the room type available before each round */
+    private static final int INITIAL_AVAILABLE = 10_000;
+
+    /** Number of rounds to repeat each check */
+    private static final int ROUNDS = 20;
+
+    /** Hotel the stressed rooms belong to */
+    private final Hotel hotel = new Hotel("Stress Hotel", "+0000000000", 3, "Stress City", "Stress check hotel");
+
+    /** Controller whose cart receives the reservations */
+    private final RoomBookingController controller = new RoomBookingController();
+
+    /**
+     * Gives back whatever a failed round left in the cart
+     */
+    @AfterEach
+    void clearCart() {
+        controller.clearCart();
+    }
+
+    /**
+     * Checks that reservations for a stay never oversell any night of it
+     * @throws InterruptedException if the test thread is interrupted
+     */
+    @Test
+    void datedReservationsSellExactlyTheAvailability() throws InterruptedException {
+        LocalDate checkIn = LocalDate.now().plusDays(10);
+        LocalDate checkOut = checkIn.plusDays(7);
+        Catalog.addHotel(hotel);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            Room room = new Room(hotel, "Standard", 100, INITIAL_AVAILABLE, "Stress check room");
+            Catalog.addRoom(room);
+            int sold = hammer(() -> controller.addToCart(room, checkIn, checkOut));
+
+            assertEquals(INITIAL_AVAILABLE, sold, "sold in round " + round);
+            assertEquals(0, room.getAvailable(checkIn, checkOut), "left in round " + round);
+            assertEquals(INITIAL_AVAILABLE, controller.getCartQuantity(room), "in cart in round " + round);
+
+            controller.clearCart();
+            assertEquals(INITIAL_AVAILABLE, room.getAvailable(checkIn, checkOut), "released in round " + round);
+        }
+    }
+
+    /**
+     * Lets all threads call the booking action until it fails
+     * @param book The booking action
+     * @return The number of successful bookings
+     * @throws InterruptedException if the test thread is interrupted
+     */
+    private static int hammer(BooleanSupplier book) throws InterruptedException {
+        AtomicInteger sold = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[THREADS];
+
+        for (int i = 0; i < THREADS; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (book.getAsBoolean()) {
+                    sold.incrementAndGet();
+                }
+            });
+            threads[i].start();
+        }
+
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return sold.get();
+    }
+}
@@ -0,0 +1,140 @@
+package Metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests the bucket bounds and percentiles of the latency histogram
+ */
+class LatencyHistogramTest {
+    /** Sub-buckets per power of two, the histogram's relative precision */
+    private static final int SUB_BUCKETS = 32;
+
+    /**
+     * Checks that values below the sub-bucket count each get a bucket of their own
+     */
+    @Test
+    void smallValuesAreExact() {
+        for (long value = 0; value < SUB_BUCKETS; value++) {
+            assertEquals(value, bucketTop(value));
+        }
+    }
+
+    /**
+     * Checks that every bucket holds its values and is at most 1/32 of its lower bound wide,
+     * and that consecutive buckets leave no gaps
+     */
+    @Test
+    void bucketsAreContiguousAndWithinPrecision() {
+        long previousTop = -1;
+        for (long value = 0; value <= 20_000; value++) {
+            long top = bucketTop(value);
+            assertTrue(top >= value, "bucket of " + value + " ends at " + top);
+            assertTrue(top - value <= value / SUB_BUCKETS, "bucket of " + value + " too wide: " + top);
+            // A value either shares the previous value's bucket or starts the next one
+            assertTrue(top == previousTop || value == previousTop + 1, "gap before " + value);
+            previousTop = top;
+        }
+    }
+
+    /**
+     * Checks the bounds around every power of two: 2^n - 1 closes a bucket and 2^n opens one
+     */
+    @Test
+    void powersOfTwoStartBuckets() {
+        for (int bits = 6; bits < 63; bits++) {
+            long power = 1L << bits;
+            assertEquals(power - 1, bucketTop(power - 1), "2^" + bits + " - 1");
+            long top = bucketTop(power);
+            assertEquals(power + (power >>> 5) - 1, top, "2^" + bits);
+            assertEquals(top, bucketTop(top), "top of the bucket of 2^" + bits);
+            assertEquals(top + 1 + (power >>> 5) - 1, bucketTop(top + 1), "bucket after 2^" + bits);
+        }
+    }
+
+    /**
+     * Checks that the largest values fit and are reported exactly as the maximum
+     */
+    @Test
+    void recordsLongMaxValue() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(Long.MAX_VALUE - 1);
+
+        assertEquals(Long.MAX_VALUE, histogram.getMax());
+        assertEquals(Long.MAX_VALUE, histogram.getPercentile(100));
+        assertEquals(2, histogram.getCount());
+    }
+
+    /**
+     * Checks that a percentile never exceeds the largest recorded value
+     */
+    @Test
+    void percentileIsCappedAtMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000_001);
+
+        // The bucket of 1000001 reaches past it; the maximum is the better answer
+        assertEquals(1_000_001, histogram.getPercentile(50));
+        assertEquals(1_000_001, histogram.getPercentile(99.9));
+    }
+
+    /**
+     * Checks percentile ranks over a uniform spread of values
+     */
+    @Test
+    void percentilesOfUniformValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        assertPercentile(histogram, 50, 500_000);
+        assertPercentile(histogram, 99, 990_000);
+        assertPercentile(histogram, 99.9, 999_000);
+        assertEquals(1_000_000, histogram.getPercentile(100));
+        assertEquals(500_500, histogram.getMean());
+    }
+
+    /**
+     * Checks the empty histogram and negative values
+     */
+    @Test
+    void emptyAndNegative() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(99));
+        assertEquals(0, histogram.getMean());
+
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(50));
+    }
+
+    /**
+     * Checks that a percentile lies in the bucket of the exact value: not below it and at most 1/32 above
+     * @param histogram The histogram
+     * @param percentile The percentile
+     * @param exact The exact value of the percentile
+     */
+    private static void assertPercentile(LatencyHistogram histogram, double percentile, long exact) {
+        long reported = histogram.getPercentile(percentile);
+        assertTrue(reported >= exact && reported - exact <= exact / SUB_BUCKETS,
+                "p" + percentile + " was " + reported + ", exact " + exact);
+    }
+
+    /**
+     * Gets the highest value of the bucket a value falls in, as the histogram reports it
+     * @param value The value
+     * @return The top of its bucket
+     */
+    private static long bucketTop(long value) {
+        // With a larger value recorded too, the lower one's percentile is the top of its bucket
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(value);
+        histogram.record(Long.MAX_VALUE);
+        return histogram.getPercentile(50);
+    }
+}
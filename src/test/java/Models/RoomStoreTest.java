@@ -0,0 +1,146 @@
+package Models;
+
+import Services.Catalog;
+import Services.RoomFilter;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests the room store scans, rooms as views over their rows, and the catalog-wide room
+ * search built on both
+ */
+class RoomStoreTest {
+    /**
+     * Checks the column scans against checking every row, with rows outside the catalog mixed in
+     */
+    @Test
+    void scansMatchPlainScan() {
+        Random random = new Random(5);
+        RoomStore store = new RoomStore();
+        int rows = 40_000;
+        int[] prices = new int[rows];
+        int[] stars = new int[rows];
+        int[] ids = new int[rows];
+        int nextId = 0;
+        for (int row = 0; row < rows; row++) {
+            prices[row] = random.nextInt(600);
+            stars[row] = random.nextInt(6);
+            assertEquals(row, store.addRow(prices[row], stars[row]));
+            // A quarter of the rows never join the catalog
+            ids[row] = random.nextInt(4) == 0 ? -1 : nextId++;
+            if (ids[row] >= 0) {
+                store.setCatalogIds(row, ids[row], row / 5);
+            }
+        }
+
+        for (int run = 0; run < 200; run++) {
+            int minPrice = random.nextInt(650) - 20;
+            int maxPrice = random.nextInt(5) == 0 ? Integer.MAX_VALUE : minPrice + random.nextInt(300);
+            int minStars = random.nextInt(7) - 1;
+            int maxStars = random.nextInt(5) == 0 ? Integer.MAX_VALUE : minStars + random.nextInt(3);
+
+            List<Integer> expected = new ArrayList<>();
+            for (int row = 0; row < rows; row++) {
+                if (ids[row] >= 0 && prices[row] >= minPrice && prices[row] <= maxPrice
+                        && stars[row] >= minStars && stars[row] <= maxStars) {
+                    expected.add(ids[row]);
+                }
+            }
+            String bounds = "price " + minPrice + ".." + maxPrice + ", stars " + minStars + ".." + maxStars;
+            assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(),
+                    store.find(minPrice, maxPrice, minStars, maxStars), bounds);
+            assertEquals(expected.size(), store.count(minPrice, maxPrice, minStars, maxStars), bounds);
+        }
+        assertEquals(0, store.count(300, 200, 0, 5));
+    }
+
+    /**
+     * Checks that a room reads its price from its row and gets its ids when it joins the catalog
+     */
+    @Test
+    void roomIsViewOverItsRow() {
+        Hotel hotel = new Hotel("View Hotel", "+3000000000", 5, "View City", "Store test hotel");
+        Room room = new Room(hotel, "Standard", 135, 2, "Store test room");
+        RoomStore store = RoomStore.getInstance();
+        assertEquals(135, store.getPrice(room.getRow()));
+        assertEquals(5, store.getStars(room.getRow()));
+        assertEquals(-1, room.getId());
+        assertEquals(-1, store.getHotelId(room.getRow()));
+
+        // The room cannot join before its hotel
+        assertThrows(IllegalArgumentException.class, () -> Catalog.addRoom(room));
+        Catalog.addHotel(hotel);
+        Catalog.addRoom(room);
+        assertEquals(room, Catalog.getRoom(room.getId()));
+        assertEquals(hotel.getId(), store.getHotelId(room.getRow()));
+        assertEquals(135, room.getPrice());
+        assertThrows(IllegalStateException.class, () -> room.setId(room.getId() + 1));
+    }
+
+    /**
+     * Checks the catalog-wide search against a plain scan of the catalog, with some rooms
+     * sold out for the stay and others never added to the catalog
+     */
+    @Test
+    void catalogSearchMatchesPlainScan() {
+        Random random = new Random(9);
+        LocalDate checkIn = LocalDate.ofEpochDay(RoomInventory.firstBookableDay()).plusDays(20);
+        LocalDate checkOut = checkIn.plusDays(3);
+
+        // Prices far above those of other tests' rooms, and all different, so the order is fixed
+        List<Integer> prices = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            prices.add(1_000_000 + 7 * i);
+        }
+        Collections.shuffle(prices, random);
+        int next = 0;
+        for (int h = 0; h < 50; h++) {
+            Hotel hotel = new Hotel("Scan Hotel " + h, "+3000000001", 1 + random.nextInt(5), "Scan City " + h % 7,
+                    "Store test hotel");
+            Catalog.addHotel(hotel);
+            for (int r = 0; r < 6; r++) {
+                Room room = new Room(hotel, r % 2 == 0 ? "Standard" : "Suite", prices.get(next++), 1 + random.nextInt(3),
+                        "Store test room");
+                if (random.nextInt(10) == 0) {
+                    // Never added, so never found
+                    continue;
+                }
+                Catalog.addRoom(room);
+                if (random.nextInt(4) == 0) {
+                    // Sold out for the stay
+                    while (room.getInventory().reserve(checkIn.minusDays(1), checkOut)) {
+                        // Take every unit
+                    }
+                }
+            }
+        }
+
+        for (int run = 0; run < 300; run++) {
+            int minPrice = 1_000_000 + random.nextInt(2100);
+            int minStars = random.nextInt(4);
+            RoomFilter filter = new RoomFilter(minPrice, minPrice + random.nextInt(1500), minStars,
+                    minStars + random.nextInt(3), random.nextBoolean() ? null : "suite", 1 + random.nextInt(2));
+            int limit = 1 + random.nextInt(40);
+
+            List<Room> expected = new ArrayList<>();
+            for (Room room : Catalog.getAllRooms()) {
+                if (filter.matches(room, checkIn, checkOut)) {
+                    expected.add(room);
+                }
+            }
+            expected.sort(Comparator.comparingInt(Room::getPrice));
+            assertEquals(expected.subList(0, Math.min(limit, expected.size())),
+                    Catalog.scanRooms(filter, checkIn, checkOut, limit), "run " + run + ": " + filter);
+        }
+    }
+}
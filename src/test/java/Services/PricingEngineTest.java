@@ -0,0 +1,221 @@
+package Services;
+
+import Models.Hotel;
+import Models.Room;
+import Models.RoomInventory;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests that the prefix-sum stay totals of the pricing engine match pricing every night one by one
+ */
+class PricingEngineTest {
+    /** Allowed difference between a quote and the night-by-night total, for rounding to cents */
+    private static final double CENT = 0.011;
+
+    /** Hotel of the priced rooms */
+    private final Hotel hotel = new Hotel("Pricing Hotel", "+0000000000", 4, "Pricing City", "Pricing test hotel");
+
+    /** A room of a type without rules of its own */
+    private final Room standard = new Room(hotel, "Standard", 100, 3, "Standard room");
+
+    /** A room of a type that gets rules of its own */
+    private final Room suite = new Room(hotel, "Suite", 250, 2, "Suite");
+
+    /** The first night of the booking window */
+    private final LocalDate today = LocalDate.ofEpochDay(RoomInventory.firstBookableDay());
+
+    /** The engine under test, with the default rules */
+    private final PricingEngine engine = new PricingEngine();
+
+    /**
+     * Checks that without rules a stay costs the base price times the nights
+     */
+    @Test
+    void defaultStayCostsBaseTimesNights() {
+        assertEquals(300, engine.quote(standard, today.plusDays(3), today.plusDays(6)));
+        assertEquals(250 * 30, engine.quote(suite, today.plusDays(100), today.plusDays(130)));
+        // A stay is at least one night
+        assertEquals(100, engine.quote(standard, today.plusDays(5), today.plusDays(5)));
+    }
+
+    /**
+     * Checks totals of weekday rates, overlapping seasons, overrides and stay discounts
+     * against summing the nightly rates of each stay
+     */
+    @Test
+    void quoteMatchesNightByNightTotal() {
+        engine.setWeekdayMultiplier(DayOfWeek.FRIDAY, 1.25);
+        engine.setWeekdayMultiplier(DayOfWeek.SATURDAY, 1.3);
+        engine.addSeason(new PricingEngine.Season(today.plusDays(20), today.plusDays(50), 1.5));
+        // The later season wins where the two overlap
+        engine.addSeason(new PricingEngine.Season(today.plusDays(40), today.plusDays(45), 0.8));
+        engine.setStayDiscount(7, 10);
+        engine.setStayDiscount(14, 15);
+        engine.setNightlyRate(suite, today.plusDays(22), 999);
+        engine.setNightlyRate(suite, today.plusDays(30), 1);
+
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            Room room = random.nextBoolean() ? standard : suite;
+            int nights = 1 + random.nextInt(30);
+            LocalDate checkIn = today.plusDays(random.nextInt(RoomInventory.HORIZON_NIGHTS - nights + 1));
+            LocalDate checkOut = checkIn.plusDays(nights);
+
+            double expected = 0;
+            for (LocalDate night = checkIn; night.isBefore(checkOut); night = night.plusDays(1)) {
+                expected += sharedRate(room, night);
+            }
+            double discount = nights >= 14 ? 0.85 : nights >= 7 ? 0.9 : 1;
+            assertEquals(expected * discount, engine.quote(room, checkIn, checkOut), CENT,
+                    room.getType() + " from " + checkIn + " for " + nights + " nights");
+        }
+    }
+
+    /**
+     * Checks that a room type's own rules replace the shared weekday rates, win over the
+     * shared seasons and leave every other room type on the shared rates
+     */
+    @Test
+    void roomTypeRulesApplyOnlyToTheirType() {
+        engine.setWeekdayMultiplier(DayOfWeek.SATURDAY, 1.2);
+        engine.addSeason(new PricingEngine.Season(today.plusDays(10), today.plusDays(20), 1.5));
+        engine.setWeekdayMultiplier("Suite", DayOfWeek.SATURDAY, 2.0);
+        engine.addSeason("Suite", new PricingEngine.Season(today.plusDays(15), today.plusDays(30), 3.0));
+        engine.setNightlyRate(suite, today.plusDays(17), 7);
+
+        for (Room room : List.of(standard, suite)) {
+            for (int start = 0; start < 60; start++) {
+                for (int nights = 1; nights < 20; nights++) {
+                    LocalDate checkIn = today.plusDays(start);
+                    LocalDate checkOut = checkIn.plusDays(nights);
+                    double expected = 0;
+                    for (LocalDate night = checkIn; night.isBefore(checkOut); night = night.plusDays(1)) {
+                        expected += typeRate(room, night);
+                    }
+                    assertEquals(expected, engine.quote(room, checkIn, checkOut), CENT,
+                            room.getType() + " from " + checkIn + " for " + nights + " nights");
+                }
+            }
+        }
+
+        // Without its own rules the suite is back on the shared rates; its override stays
+        engine.clearRoomTypeRates("Suite");
+        LocalDate saturday = lastSaturdayBefore(today.plusDays(10));
+        assertEquals(250 * 1.2, engine.nightlyRate(suite, saturday), CENT);
+        LocalDate inSeason = today.plusDays(16);
+        double weekday = inSeason.getDayOfWeek() == DayOfWeek.SATURDAY ? 1.2 : 1;
+        assertEquals(250 * weekday * 1.5, engine.quote(suite, inSeason, inSeason.plusDays(1)), CENT);
+        assertEquals(7, engine.nightlyRate(suite, today.plusDays(17)));
+    }
+
+    /**
+     * Checks that clearing an override puts the night back at its standard rate in stay totals
+     */
+    @Test
+    void clearedOverrideUsesStandardRate() {
+        LocalDate night = today.plusDays(12);
+        engine.setNightlyRate(standard, night, 40);
+        assertEquals(100 + 40 + 100, engine.quote(standard, night.minusDays(1), night.plusDays(2)));
+
+        engine.clearNightlyRate(standard, night);
+        assertEquals(300, engine.quote(standard, night.minusDays(1), night.plusDays(2)));
+    }
+
+    /**
+     * Checks that stays outside the booking window are priced at the base rate
+     */
+    @Test
+    void staysOutsideWindowUseBaseRate() {
+        engine.setWeekdayMultiplier(DayOfWeek.MONDAY, 3);
+        engine.addSeason(new PricingEngine.Season(today, today.plusDays(RoomInventory.HORIZON_NIGHTS), 2));
+
+        assertEquals(200, engine.quote(standard, today.minusDays(3), today.minusDays(1)));
+        LocalDate end = today.plusDays(RoomInventory.HORIZON_NIGHTS);
+        assertEquals(300, engine.quote(standard, end.minusDays(1), end.plusDays(2)));
+    }
+
+    /**
+     * Checks that invalid seasons are rejected
+     */
+    @Test
+    void rejectsInvalidSeasons() {
+        assertThrows(IllegalArgumentException.class, () -> new PricingEngine.Season(today, today, 1.5));
+        assertThrows(IllegalArgumentException.class, () -> new PricingEngine.Season(today, today.plusDays(1), 0));
+    }
+
+    /**
+     * Gets the rate of a night under the shared rules of quoteMatchesNightByNightTotal
+     * @param room The room
+     * @param night The night
+     * @return The rate in dollars
+     */
+    private double sharedRate(Room room, LocalDate night) {
+        long day = night.toEpochDay() - today.toEpochDay();
+        if (room == suite && day == 22) {
+            return 999;
+        }
+        if (room == suite && day == 30) {
+            return 1;
+        }
+        double factor = switch (night.getDayOfWeek()) {
+            case FRIDAY -> 1.25;
+            case SATURDAY -> 1.3;
+            default -> 1;
+        };
+        if (day >= 40 && day < 45) {
+            factor *= 0.8;
+        } else if (day >= 20 && day < 50) {
+            factor *= 1.5;
+        }
+        return room.getPrice() * factor;
+    }
+
+    /**
+     * Gets the rate of a night under the rules of roomTypeRulesApplyOnlyToTheirType
+     * @param room The room
+     * @param night The night
+     * @return The rate in dollars
+     */
+    private double typeRate(Room room, LocalDate night) {
+        long day = night.toEpochDay() - today.toEpochDay();
+        boolean saturday = night.getDayOfWeek() == DayOfWeek.SATURDAY;
+        if (room == suite) {
+            if (day == 17) {
+                return 7;
+            }
+            double factor = saturday ? 2.0 : 1;
+            if (day >= 15 && day < 30) {
+                factor *= 3;
+            } else if (day >= 10 && day < 20) {
+                factor *= 1.5;
+            }
+            return room.getPrice() * factor;
+        }
+        double factor = saturday ? 1.2 : 1;
+        if (day >= 10 && day < 20) {
+            factor *= 1.5;
+        }
+        return room.getPrice() * factor;
+    }
+
+    /**
+     * Gets the last Saturday before a date, inside the booking window
+     * @param date The date
+     * @return The Saturday
+     */
+    private LocalDate lastSaturdayBefore(LocalDate date) {
+        LocalDate saturday = date.minusDays(1);
+        while (saturday.getDayOfWeek() != DayOfWeek.SATURDAY) {
+            saturday = saturday.minusDays(1);
+        }
+        return saturday;
+    }
+}
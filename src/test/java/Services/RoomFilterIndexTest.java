@@ -0,0 +1,73 @@
+package Services;
+
+import Models.Hotel;
+import Models.Room;
+import Models.RoomInventory;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests the filter index of a city against checking every room of the city with the filter
+ */
+class RoomFilterIndexTest {
+    /** Room types of the generated rooms, in mixed case as catalogs write them */
+    private static final String[] TYPES = {"Standard", "SUITE", "deluxe", " Family "};
+
+    /** Room types asked for by the generated filters, including one no room has */
+    private static final String[] FILTER_TYPES = {null, "standard", "Suite", "DELUXE", "family", "Penthouse"};
+
+    /**
+     * Checks random filters on a city with booked nights against a plain scan
+     */
+    @Test
+    void matchesPlainScan() {
+        Random random = new Random(11);
+        LocalDate today = LocalDate.ofEpochDay(RoomInventory.firstBookableDay());
+        List<Room> cityRooms = new ArrayList<>();
+        for (int h = 0; h < 40; h++) {
+            Hotel hotel = new Hotel("Index Hotel " + h, "+2000000000", 1 + random.nextInt(5), "Index City", "Index test hotel");
+            Catalog.addHotel(hotel);
+            for (int r = 0; r < 1 + random.nextInt(8); r++) {
+                // Coarse prices so that many rooms share a price
+                Room room = new Room(hotel, TYPES[random.nextInt(TYPES.length)], 50 + 10 * random.nextInt(30),
+                        1 + random.nextInt(4), "Index test room");
+                Catalog.addRoom(room);
+                cityRooms.add(room);
+
+                // Book a few stays so that availability differs from night to night
+                for (int b = random.nextInt(6); b > 0; b--) {
+                    LocalDate checkIn = today.plusDays(random.nextInt(40));
+                    room.getInventory().reserve(checkIn, checkIn.plusDays(1 + random.nextInt(5)));
+                }
+            }
+        }
+        RoomFilterIndex index = new RoomFilterIndex(cityRooms);
+
+        for (int run = 0; run < 2000; run++) {
+            int minPrice = 40 + 10 * random.nextInt(32);
+            int maxPrice = random.nextInt(5) == 0 ? Integer.MAX_VALUE : minPrice + 10 * random.nextInt(15);
+            int minStars = random.nextInt(6);
+            int maxStars = random.nextInt(5) == 0 ? Integer.MAX_VALUE : minStars + random.nextInt(3);
+            RoomFilter filter = new RoomFilter(minPrice, maxPrice, minStars, maxStars,
+                    FILTER_TYPES[random.nextInt(FILTER_TYPES.length)], 1 + random.nextInt(3));
+            LocalDate checkIn = today.plusDays(random.nextInt(45));
+            LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(7));
+
+            List<Room> expected = new ArrayList<>();
+            for (Room room : cityRooms) {
+                if (filter.matches(room, checkIn, checkOut)) {
+                    expected.add(room);
+                }
+            }
+            expected.sort(Comparator.comparingInt(Room::getPrice).thenComparingInt(Room::getId));
+            assertEquals(expected, index.find(filter, checkIn, checkOut), "run " + run + ": " + filter);
+        }
+    }
+}
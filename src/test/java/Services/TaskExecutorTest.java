@@ -0,0 +1,84 @@
+package Services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that both executor modes bound how many tasks run and wait
+ */
+class TaskExecutorTest {
+    /** How long to wait for tasks before failing */
+    private static final long WAIT_SECONDS = 5;
+
+    /**
+     * Checks that virtual threads beyond the running and waiting caps are rejected
+     * @throws Exception if a task fails or the test thread is interrupted
+     */
+    @Test
+    void virtualModeRejectsBeyondQueueCapacity() throws Exception {
+        assertBounded(new TaskExecutor(true, 2, 3));
+    }
+
+    /**
+     * Checks that the bounded pool rejects tasks beyond its threads and queue
+     * @throws Exception if a task fails or the test thread is interrupted
+     */
+    @Test
+    void boundedModeRejectsBeyondQueueCapacity() throws Exception {
+        assertBounded(new TaskExecutor(false, 2, 3));
+    }
+
+    /**
+     * Fills an executor of 2 threads and 3 waiting places with blocked tasks, checks that the
+     * next task is rejected and cancelled, then that everything admitted runs once unblocked
+     * @param executor The executor
+     * @throws Exception if a task fails or the test thread is interrupted
+     */
+    private static void assertBounded(TaskExecutor executor) throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(2);
+        FutureTask<?>[] admitted = new FutureTask<?>[5];
+        try {
+            for (int i = 0; i < admitted.length; i++) {
+                admitted[i] = new FutureTask<>(() -> {
+                    started.countDown();
+                    release.await();
+                    return null;
+                });
+                executor.execute(admitted[i]);
+            }
+            assertTrue(started.await(WAIT_SECONDS, TimeUnit.SECONDS), "running tasks never started");
+
+            FutureTask<Void> overflow = new FutureTask<>(() -> null);
+            executor.execute(overflow);
+            assertTrue(overflow.isCancelled());
+            assertEquals(1, executor.getRejectedTasks());
+            assertEquals(2, executor.getActiveTasks());
+
+            release.countDown();
+            for (FutureTask<?> task : admitted) {
+                task.get(WAIT_SECONDS, TimeUnit.SECONDS);
+                assertFalse(task.isCancelled());
+            }
+
+            // Finished tasks free their places again
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(WAIT_SECONDS);
+            while (executor.getCompletedTasks() < admitted.length && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            FutureTask<String> after = new FutureTask<>(() -> "ran");
+            executor.execute(after);
+            assertEquals("ran", after.get(WAIT_SECONDS, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package Services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests ordering and tie handling of the top-K selection
+ */
+class TopKTest {
+    /**
+     * An offered item and its score
+     * @param name The item
+     * @param score The score
+     */
+    private record Scored(String name, double score) {
+    }
+
+    /**
+     * Checks that the K highest scores are kept and drained best first
+     */
+    @Test
+    void keepsHighestScoresBestFirst() {
+        TopK<String> top = new TopK<>(3);
+        top.offer("c", 3);
+        top.offer("a", 7);
+        top.offer("e", 1);
+        top.offer("b", 5);
+        top.offer("d", 2);
+        top.offer("f", 6);
+
+        assertEquals(3, top.size());
+        assertEquals(List.of("a", "f", "b"), top.drain());
+        assertEquals(0, top.size());
+    }
+
+    /**
+     * Checks that an item scoring the same as the lowest kept one does not replace it
+     */
+    @Test
+    void keepsFirstSeenOnTies() {
+        TopK<String> top = new TopK<>(2);
+        assertTrue(top.offer("first", 4));
+        assertTrue(top.offer("best", 9));
+        assertFalse(top.offer("second", 4));
+        assertFalse(top.offer("third", 4));
+
+        assertEquals(List.of("best", "first"), top.drain());
+    }
+
+    /**
+     * Checks that a better item pushes out the last seen of the items tied for the lowest place
+     */
+    @Test
+    void evictsLastSeenOfTiedItems() {
+        TopK<String> top = new TopK<>(2);
+        top.offer("first", 1);
+        top.offer("second", 1);
+        top.offer("best", 5);
+
+        assertEquals(List.of("best", "first"), top.drain());
+    }
+
+    /**
+     * Checks that items with equal scores are drained in the order they were offered
+     */
+    @Test
+    void drainsTiesInArrivalOrder() {
+        TopK<String> top = new TopK<>(4);
+        top.offer("x", 2);
+        top.offer("top", 3);
+        top.offer("y", 2);
+        top.offer("z", 2);
+
+        assertEquals(List.of("top", "x", "y", "z"), top.drain());
+    }
+
+    /**
+     * Checks the threshold before and after K items are kept
+     */
+    @Test
+    void thresholdIsLowestKeptScoreOnceFull() {
+        TopK<String> top = new TopK<>(2);
+        assertEquals(Double.NEGATIVE_INFINITY, top.getThreshold());
+        top.offer("a", 5);
+        assertEquals(Double.NEGATIVE_INFINITY, top.getThreshold());
+        top.offer("b", 8);
+        assertEquals(5, top.getThreshold());
+        top.offer("c", 6);
+        assertEquals(6, top.getThreshold());
+    }
+
+    /**
+     * Checks that fewer than K items are all returned, best first
+     */
+    @Test
+    void returnsAllWhenFewerThanK() {
+        TopK<String> top = new TopK<>(10);
+        top.offer("low", -1.5);
+        top.offer("high", 2.5);
+
+        assertEquals(List.of("high", "low"), top.drain());
+        assertEquals(List.of(), top.drain());
+    }
+
+    /**
+     * Checks the selection against a full sort of random scores, many of them tied
+     */
+    @Test
+    void matchesFullSort() {
+        Random random = new Random(42);
+        for (int run = 0; run < 200; run++) {
+            int k = 1 + random.nextInt(20);
+            TopK<Scored> top = new TopK<>(k);
+            List<Scored> offered = new ArrayList<>();
+            int count = random.nextInt(200);
+            for (int i = 0; i < count; i++) {
+                Scored item = new Scored("item" + i, random.nextInt(50));
+                offered.add(item);
+                top.offer(item, item.score());
+            }
+
+            // A stable sort keeps the item seen first ahead on ties, as TopK does
+            offered.sort(Comparator.comparingDouble(Scored::score).reversed());
+            assertEquals(offered.subList(0, Math.min(k, offered.size())), top.drain(), "run " + run);
+        }
+    }
+
+    /**
+     * Checks that K must be positive
+     */
+    @Test
+    void rejectsEmptyK() {
+        assertThrows(IllegalArgumentException.class, () -> new TopK<String>(0));
+    }
+}
@@ -0,0 +1,371 @@
+package Storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests recovery of the booking journal from a crash in the middle of a write, and how it
+ * handles writes and fsyncs that fail
+ */
+class BookingJournalTest {
+    /** Segment size small enough that a handful of records spans several segments */
+    private static final long SMALL_SEGMENT_SIZE = 512;
+
+    /** Directory holding the journal under test */
+    @TempDir
+    Path directory;
+
+    /**
+     * Checks that a partial record at the end of the last segment is cut off on reopening
+     * @throws IOException if the journal cannot be written or read
+     */
+    @Test
+    void truncatesPartialRecordAtTail() throws IOException {
+        writeBookings(3, BookingJournal.DEFAULT_SEGMENT_SIZE);
+        Path segment = lastSegment();
+        long intactSize = Files.size(segment);
+
+        // Header of a 256 byte record followed by only a few bytes of its payload
+        ByteBuffer torn = ByteBuffer.allocate(12).putInt(256).putInt(0).putInt(42);
+        Files.write(segment, torn.array(), StandardOpenOption.APPEND);
+
+        assertRecovered(3, segment, intactSize);
+    }
+
+    /**
+     * Checks that a complete record whose checksum does not match is cut off on reopening
+     * @throws IOException if the journal cannot be written or read
+     */
+    @Test
+    void truncatesRecordWithBadChecksumAtTail() throws IOException {
+        writeBookings(3, BookingJournal.DEFAULT_SEGMENT_SIZE);
+        Path segment = lastSegment();
+        long intactSize = Files.size(segment);
+
+        // A whole frame whose payload was only partly flushed: length and payload agree, the checksum does not
+        byte[] payload = booking("torn").encode();
+        ByteBuffer frame = ByteBuffer.allocate(8 + payload.length).putInt(payload.length).putInt(0).put(payload);
+        Files.write(segment, frame.array(), StandardOpenOption.APPEND);
+
+        try (BookingJournal journal = new BookingJournal(directory, BookingJournal.DEFAULT_SEGMENT_SIZE)) {
+            assertNull(journal.read("torn"));
+        }
+        assertRecovered(3, segment, intactSize);
+    }
+
+    /**
+     * Checks that only the last segment's tail is treated as torn; damage in an earlier
+     * segment is reported instead of silently dropping bookings
+     * @throws IOException if the journal cannot be written
+     */
+    @Test
+    void rejectsDamageBeforeLastSegment() throws IOException {
+        writeBookings(10, SMALL_SEGMENT_SIZE);
+        Path first;
+        try (Stream<Path> files = Files.list(directory)) {
+            first = files.sorted().findFirst().orElseThrow();
+        }
+        assertNotEquals(lastSegment(), first, "the bookings should span several segments");
+        Files.write(first, new byte[]{0, 0, 1}, StandardOpenOption.APPEND);
+
+        assertThrows(IOException.class, () -> new BookingJournal(directory, SMALL_SEGMENT_SIZE));
+    }
+
+    /**
+     * Checks that a write that fails part way, as on a full disk, is cut off and the journal
+     * keeps appending after the last whole record
+     * @throws IOException if the journal cannot be written or read
+     */
+    @Test
+    void undoesPartialWrite() throws IOException {
+        try (FaultyJournal faulty = new FaultyJournal(directory)) {
+            BookingJournal journal = faulty.journal;
+            journal.append(booking("booking-0"));
+            long intactSize = Files.size(lastSegment());
+
+            faulty.channel.writeBudget = 10;
+            assertThrows(IOException.class, () -> journal.append(booking("failed")));
+            assertNull(journal.read("failed"));
+            assertEquals(intactSize, Files.size(lastSegment()));
+
+            faulty.channel.writeBudget = -1;
+            journal.append(booking("booking-1"));
+            assertTrue(journal.isOpen());
+        }
+
+        try (BookingJournal journal = new BookingJournal(directory, BookingJournal.DEFAULT_SEGMENT_SIZE)) {
+            assertEquals(2, journal.size());
+            assertNull(journal.read("failed"));
+            assertEquals("booking-1@example.com", journal.read("booking-1").getEmail());
+        }
+    }
+
+    /**
+     * Checks that a failed fsync stops the journal, leaves the failed record unreadable and
+     * cuts it off, so that it does not come back when the journal is reopened
+     * @throws IOException if the journal cannot be written or read
+     */
+    @Test
+    void stopsAfterFailedForce() throws IOException {
+        try (FaultyJournal faulty = new FaultyJournal(directory)) {
+            BookingJournal journal = faulty.journal;
+            journal.append(booking("booking-0"));
+            long intactSize = Files.size(lastSegment());
+
+            faulty.channel.failNextForce = true;
+            assertThrows(IOException.class, () -> journal.append(booking("failed")));
+            assertNull(journal.read("failed"));
+            assertFalse(journal.isOpen());
+            assertEquals(intactSize, Files.size(lastSegment()));
+
+            // A stopped journal refuses appends even once the disk works again
+            assertThrows(IOException.class, () -> journal.append(booking("later")));
+            assertNull(journal.read("later"));
+        }
+
+        try (BookingJournal journal = new BookingJournal(directory, BookingJournal.DEFAULT_SEGMENT_SIZE)) {
+            assertEquals(1, journal.size());
+            assertNotNull(journal.read("booking-0"));
+        }
+    }
+
+    /**
+     * Reopens the journal and checks that it kept the intact records, dropped the torn tail
+     * and appends after the intact records
+     * @param bookings The number of intact bookings
+     * @param segment The segment whose tail was torn
+     * @param intactSize The size of the segment before it was torn
+     * @throws IOException if the journal cannot be read or written
+     */
+    private void assertRecovered(int bookings, Path segment, long intactSize) throws IOException {
+        try (BookingJournal journal = new BookingJournal(directory, BookingJournal.DEFAULT_SEGMENT_SIZE)) {
+            assertEquals(bookings, journal.size());
+            assertEquals(intactSize, Files.size(segment));
+            for (int i = 0; i < bookings; i++) {
+                assertNotNull(journal.read("booking-" + i));
+            }
+
+            journal.append(booking("after-recovery"));
+            assertEquals("after-recovery@example.com", journal.read("after-recovery").getEmail());
+        }
+
+        // The record appended after recovery survives another reopening
+        try (BookingJournal journal = new BookingJournal(directory, BookingJournal.DEFAULT_SEGMENT_SIZE)) {
+            assertEquals(bookings + 1, journal.size());
+        }
+    }
+
+    /**
+     * Appends bookings booking-0, booking-1, ... to a fresh journal and closes it
+     * @param count The number of bookings
+     * @param segmentSize The segment size of the journal
+     * @throws IOException if the journal cannot be written
+     */
+    private void writeBookings(int count, long segmentSize) throws IOException {
+        try (BookingJournal journal = new BookingJournal(directory, segmentSize)) {
+            for (int i = 0; i < count; i++) {
+                journal.append(booking("booking-" + i));
+            }
+        }
+    }
+
+    /**
+     * Gets the segment that is appended to
+     * @return The path of the last segment
+     * @throws IOException if the directory cannot be listed
+     */
+    private Path lastSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().reduce((first, second) -> second).orElseThrow();
+        }
+    }
+
+    /**
+     * Creates a booking of one night
+     * @param id The booking id
+     * @return The booking record
+     */
+    private static BookingRecord booking(String id) {
+        LocalDate checkIn = LocalDate.of(2030, 1, 10);
+        BookingRecord.Line line = new BookingRecord.Line("Journal Hotel", "Journal City", "Standard",
+                "Journal room", checkIn, checkIn.plusDays(1), 100);
+        return new BookingRecord(id, checkIn.minusDays(5), id + "@example.com", "Test", "Guest", List.of(line));
+    }
+
+    /**
+     * A journal whose segment files fail on demand
+     */
+    private static class FaultyJournal implements AutoCloseable {
+        /** The journal under test */
+        final BookingJournal journal;
+
+        /** The segment currently open, set while the journal opens it */
+        FaultyChannel channel;
+
+        /**
+         * Constructor to open a journal with the default segment size
+         * @param directory Directory holding the segments
+         * @throws IOException if the journal cannot be opened
+         */
+        FaultyJournal(Path directory) throws IOException {
+            journal = new BookingJournal(directory, BookingJournal.DEFAULT_SEGMENT_SIZE, path -> {
+                channel = new FaultyChannel(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE));
+                return channel;
+            });
+        }
+
+        @Override
+        public void close() throws IOException {
+            journal.close();
+        }
+    }
+
+    /**
+     * A file channel that passes everything to a real one, except for the failures it is told to inject
+     */
+    private static class FaultyChannel extends FileChannel {
+        /** The real file */
+        private final FileChannel file;
+
+        /** Bytes that can still be written before writes fail, or -1 for no limit */
+        volatile long writeBudget = -1;
+
+        /** Whether the next force fails */
+        volatile boolean failNextForce;
+
+        /**
+         * Constructor to wrap a file
+         * @param file The real file
+         */
+        FaultyChannel(FileChannel file) {
+            this.file = file;
+        }
+
+        @Override
+        public int write(ByteBuffer source) throws IOException {
+            long budget = writeBudget;
+            if (budget < 0) {
+                return file.write(source);
+            }
+            if (budget == 0) {
+                throw new IOException("No space left on device");
+            }
+
+            // Write only what fits, as a full disk does, and fail on the next write
+            ByteBuffer part = source.slice();
+            part.limit((int) Math.min(part.remaining(), budget));
+            int written = file.write(part);
+            source.position(source.position() + written);
+            writeBudget = budget - written;
+            return written;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            if (failNextForce) {
+                failNextForce = false;
+                throw new IOException("Input/output error");
+            }
+            file.force(metaData);
+        }
+
+        @Override
+        public int read(ByteBuffer destination) throws IOException {
+            return file.read(destination);
+        }
+
+        @Override
+        public long read(ByteBuffer[] destinations, int offset, int length) throws IOException {
+            return file.read(destinations, offset, length);
+        }
+
+        @Override
+        public long write(ByteBuffer[] sources, int offset, int length) throws IOException {
+            return file.write(sources, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return file.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            file.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return file.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            file.truncate(size);
+            return this;
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return file.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel source, long position, long count) throws IOException {
+            return file.transferFrom(source, position, count);
+        }
+
+        @Override
+        public int read(ByteBuffer destination, long position) throws IOException {
+            return file.read(destination, position);
+        }
+
+        @Override
+        public int write(ByteBuffer source, long position) throws IOException {
+            return file.write(source, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return file.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return file.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return file.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            file.close();
+        }
+    }
+}
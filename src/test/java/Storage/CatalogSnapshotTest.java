@@ -0,0 +1,131 @@
+package Storage;
+
+import Models.Hotel;
+import Models.Room;
+import Services.Catalog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that the catalog snapshot loads back what was written and refuses damaged files
+ */
+class CatalogSnapshotTest {
+    /** Directory holding the snapshot under test */
+    @TempDir
+    Path directory;
+
+    /**
+     * Checks that hotels, rooms and sources survive a write and a load
+     * @throws IOException if the snapshot cannot be written or read
+     */
+    @Test
+    void loadsWhatWasWritten() throws IOException {
+        Hotel harbour = new Hotel("Harbour Hotel", "+1000000001", 4, "Snapshot Bay", "By the water");
+        Hotel hill = new Hotel("Hill Hotel", "+1000000002", 2, "Snapshot Bay", null);
+        List<Room> rooms = List.of(
+                new Room(harbour, "Standard", 120, 5, "Sea view"),
+                new Room(harbour, "Suite", 300, 1, "Corner suite"),
+                new Room(hill, "Standard", 80, 9, "Garden view"));
+        List<CatalogSnapshot.Source> sources = List.of(
+                new CatalogSnapshot.Source("/data/hotels.csv", 1234, 1_700_000_000_000L),
+                new CatalogSnapshot.Source("/data/rooms.csv", 56789, 1_700_000_000_500L));
+        Path file = directory.resolve("catalog.bin");
+        CatalogSnapshot.write(file, List.of(harbour, hill), rooms, sources);
+
+        assertEquals(sources, CatalogSnapshot.readSources(file));
+        CatalogLoader.LoadResult result = CatalogSnapshot.load(file, null);
+        assertEquals(2, result.getHotels());
+        assertEquals(3, result.getRooms());
+
+        List<Hotel> loaded = Catalog.findHotelsByCity("Snapshot Bay");
+        assertEquals(2, loaded.size());
+        Hotel loadedHarbour = loaded.get(0);
+        assertEquals("Harbour Hotel", loadedHarbour.getName());
+        assertEquals("+1000000001", loadedHarbour.getPhoneNumber());
+        assertEquals(4, loadedHarbour.getStars());
+        assertEquals("By the water", loadedHarbour.getDescription());
+        // Null strings are stored as empty ones
+        assertEquals("", loaded.get(1).getDescription());
+
+        List<Room> harbourRooms = Catalog.findRoomsByHotel(loadedHarbour);
+        assertEquals(2, harbourRooms.size());
+        assertEquals("Suite", harbourRooms.get(1).getType());
+        assertEquals(300, harbourRooms.get(1).getPrice());
+        assertEquals(1, harbourRooms.get(1).getCapacity());
+        assertEquals("Corner suite", harbourRooms.get(1).getDescription());
+        assertEquals(80, Catalog.findRoomsByHotel(loaded.get(1)).get(0).getPrice());
+    }
+
+    /**
+     * Checks that a snapshot with a damaged byte is reported and adds nothing to the catalog
+     * @throws IOException if the snapshot cannot be written
+     */
+    @Test
+    void rejectsBadChecksum() throws IOException {
+        Path file = writeSingleHotel("Checksum Town");
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x40;
+        Files.write(file, bytes);
+
+        IOException e = assertThrows(IOException.class, () -> CatalogSnapshot.load(file, null));
+        assertTrue(e.getMessage().contains("corrupted"), e.getMessage());
+        assertTrue(Catalog.findHotelsByCity("Checksum Town").isEmpty());
+    }
+
+    /**
+     * Checks that a snapshot with a valid checksum but impossible counts is reported as
+     * malformed by both readers instead of failing with a runtime exception
+     * @throws IOException if the snapshot cannot be written
+     */
+    @Test
+    void rejectsNegativeCounts() throws IOException {
+        Path file = writeSingleHotel("Malformed Town");
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+        // The hotel count and the source count
+        bytes.putInt(3 * Integer.BYTES, -1);
+        bytes.putInt(5 * Integer.BYTES, -1);
+        resign(bytes);
+        Files.write(file, bytes.array());
+
+        IOException load = assertThrows(IOException.class, () -> CatalogSnapshot.load(file, null));
+        assertTrue(load.getMessage().contains("malformed"), load.getMessage());
+        IOException sources = assertThrows(IOException.class, () -> CatalogSnapshot.readSources(file));
+        assertTrue(sources.getMessage().contains("malformed"), sources.getMessage());
+        assertTrue(Catalog.findHotelsByCity("Malformed Town").isEmpty());
+    }
+
+    /**
+     * Writes a snapshot of one hotel with one room
+     * @param city The hotel's city
+     * @return The snapshot file
+     * @throws IOException if the snapshot cannot be written
+     */
+    private Path writeSingleHotel(String city) throws IOException {
+        Hotel hotel = new Hotel(city + " Hotel", "+1000000003", 3, city, "Only hotel");
+        Path file = directory.resolve("catalog.bin");
+        CatalogSnapshot.write(file, List.of(hotel), List.of(new Room(hotel, "Standard", 90, 2, "Room")));
+        return file;
+    }
+
+    /**
+     * Replaces the trailing checksum of an edited snapshot so that it matches again
+     * @param bytes The whole snapshot
+     */
+    private static void resign(ByteBuffer bytes) {
+        int contentSize = bytes.capacity() - Long.BYTES;
+        CRC32C checksum = new CRC32C();
+        checksum.update(bytes.array(), 0, contentSize);
+        bytes.putLong(contentSize, checksum.getValue());
+    }
+}
@@ -0,0 +1,157 @@
+package Util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests expiry of timeouts on the hashed timing wheel
+ */
+class TimingWheelTest {
+    /** Length of a tick in milliseconds */
+    private static final long TICK_MILLIS = 5;
+
+    /** Number of buckets; small, so that longer delays need several turns of the wheel */
+    private static final int WHEEL_SIZE = 8;
+
+    /** How long to wait for an expiry before failing */
+    private static final long WAIT_SECONDS = 5;
+
+    /** Timeouts in the order they expired */
+    private final ConcurrentLinkedQueue<Timed> expired = new ConcurrentLinkedQueue<>();
+
+    /** The wheel under test */
+    private final TimingWheel<Timed> wheel =
+            new TimingWheel<>("timing-wheel-test", TICK_MILLIS, TimeUnit.MILLISECONDS, WHEEL_SIZE, this::expire);
+
+    /**
+     * A timeout that records when it expired
+     */
+    private static class Timed extends TimingWheel.Timeout {
+        /** Counted down when the timeout expires */
+        final CountDownLatch fired = new CountDownLatch(1);
+
+        /** When the timeout expired, as System.nanoTime */
+        volatile long firedNanos;
+    }
+
+    /**
+     * Stops the wheel's thread
+     */
+    @AfterEach
+    void shutdown() {
+        wheel.shutdown();
+    }
+
+    /**
+     * Checks that a timeout within one turn of the wheel expires, and not before its delay
+     * @throws InterruptedException if the test thread is interrupted
+     */
+    @Test
+    void expiresAfterDelay() throws InterruptedException {
+        assertExpiresAfter(20);
+    }
+
+    /**
+     * Checks that a timeout several turns of the wheel away waits out the full turns
+     * @throws InterruptedException if the test thread is interrupted
+     */
+    @Test
+    void expiresAfterSeveralTurns() throws InterruptedException {
+        // 150 ms is almost four turns of an 8 bucket, 5 ms wheel
+        assertExpiresAfter(150);
+    }
+
+    /**
+     * Checks that timeouts expire in the order of their deadlines, whatever order they were scheduled in
+     * @throws InterruptedException if the test thread is interrupted
+     */
+    @Test
+    void expiresInDeadlineOrder() throws InterruptedException {
+        Timed late = new Timed();
+        Timed early = new Timed();
+        wheel.schedule(late, 120, TimeUnit.MILLISECONDS);
+        wheel.schedule(early, 30, TimeUnit.MILLISECONDS);
+        assertEquals(2, wheel.getPending());
+
+        assertTrue(late.fired.await(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(early.fired.await(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(early, expired.poll());
+        assertEquals(late, expired.poll());
+        assertEquals(0, wheel.getPending());
+        assertEquals(2, wheel.getExpired());
+    }
+
+    /**
+     * Checks that a cancelled timeout never expires
+     * @throws InterruptedException if the test thread is interrupted
+     */
+    @Test
+    void cancelledTimeoutDoesNotExpire() throws InterruptedException {
+        Timed cancelled = new Timed();
+        Timed marker = new Timed();
+        wheel.schedule(cancelled, 20, TimeUnit.MILLISECONDS);
+        wheel.schedule(marker, 60, TimeUnit.MILLISECONDS);
+
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.isScheduled(cancelled));
+        assertFalse(wheel.cancel(cancelled));
+
+        // Once the later timeout has fired, the cancelled one would have fired too
+        assertTrue(marker.fired.await(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(1, cancelled.fired.getCount());
+        assertEquals(1, wheel.getExpired());
+    }
+
+    /**
+     * Checks that rescheduling moves the expiry, and that an expired timeout cannot be rescheduled
+     * @throws InterruptedException if the test thread is interrupted
+     */
+    @Test
+    void rescheduleMovesExpiry() throws InterruptedException {
+        Timed timed = new Timed();
+        long scheduledNanos = System.nanoTime();
+        wheel.schedule(timed, 20, TimeUnit.MILLISECONDS);
+        assertTrue(wheel.reschedule(timed, 100, TimeUnit.MILLISECONDS));
+
+        assertTrue(timed.fired.await(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(timed.firedNanos - scheduledNanos >= TimeUnit.MILLISECONDS.toNanos(100),
+                "fired before the new delay");
+        assertFalse(wheel.reschedule(timed, 100, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Schedules a timeout and checks that it expires no earlier than its delay
+     * @param delayMillis The delay in milliseconds
+     * @throws InterruptedException if the test thread is interrupted
+     */
+    private void assertExpiresAfter(long delayMillis) throws InterruptedException {
+        Timed timed = new Timed();
+        long scheduledNanos = System.nanoTime();
+        wheel.schedule(timed, delayMillis, TimeUnit.MILLISECONDS);
+        assertTrue(wheel.isScheduled(timed));
+
+        assertTrue(timed.fired.await(WAIT_SECONDS, TimeUnit.SECONDS), "timeout never expired");
+        assertTrue(timed.firedNanos - scheduledNanos >= TimeUnit.MILLISECONDS.toNanos(delayMillis),
+                "fired before its delay");
+        assertFalse(wheel.isScheduled(timed));
+        assertEquals(0, wheel.getPending());
+    }
+
+    /**
+     * Expiry handler: records the timeout
+     * @param timed The expired timeout
+     */
+    private void expire(Timed timed) {
+        timed.firedNanos = System.nanoTime();
+        expired.add(timed);
+        timed.fired.countDown();
+    }
+}